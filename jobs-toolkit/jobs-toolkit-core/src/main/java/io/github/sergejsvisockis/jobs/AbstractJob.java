@@ -1,9 +1,20 @@
 package io.github.sergejsvisockis.jobs;
 
+import io.github.sergejsvisockis.jobs.executor.JobExecutor;
+import io.github.sergejsvisockis.jobs.executor.JobExecutors;
+import io.github.sergejsvisockis.jobs.lockrepository.LockLeaseRenewer;
 import io.github.sergejsvisockis.jobs.lockrepository.LockRepository;
+import io.github.sergejsvisockis.jobs.repository.DelegatingJobLifecycleRepository;
+import io.github.sergejsvisockis.jobs.repository.JobLifecycleRepository;
 import io.github.sergejsvisockis.jobs.repository.JobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * <p>
@@ -14,11 +25,18 @@ import java.util.Optional;
  */
 public abstract class AbstractJob {
 
+    private static final Logger LOG = LoggerFactory.getLogger(AbstractJob.class);
+
     static final String JOB_NOT_FOUND_MSG = "Job not found: %s";
     static final String JOB_FAILED = "Job with name=%s has failed";
+    static final String NO_EXECUTION_CONTEXT_MSG = "No execution of a job with name=%s is running on this thread";
 
     private JobRepository jobRepository;
     private LockRepository lockRepository;
+    private JobLifecycleRepository jobLifecycleRepository;
+    private JobExecutor jobExecutor = JobExecutors.sharedPool();
+    private Duration lockTimeout = Duration.ZERO;
+    private final ThreadLocal<JobExecutionContext> executionContext = new ThreadLocal<>();
 
     /**
      * Default no-args constructor is needed to allow instantiating child classes to use setter-injection
@@ -37,6 +55,28 @@ public abstract class AbstractJob {
         this.lockRepository = lockRepository;
     }
 
+    /**
+     * Constructor with dependencies and a custom execution strategy.
+     *
+     * @param jobRepository the job repository
+     * @param lockRepository the lock repository
+     * @param jobExecutor the executor to run the job on
+     */
+    public AbstractJob(JobRepository jobRepository, LockRepository lockRepository, JobExecutor jobExecutor) {
+        this.jobRepository = jobRepository;
+        this.lockRepository = lockRepository;
+        this.jobExecutor = jobExecutor;
+    }
+
+    /**
+     * Constructor with a combined job and lock repository which starts and finishes a run in a single unit of work.
+     *
+     * @param jobLifecycleRepository the job lifecycle repository
+     */
+    public AbstractJob(JobLifecycleRepository jobLifecycleRepository) {
+        this.jobLifecycleRepository = jobLifecycleRepository;
+    }
+
     /**
      * Sets the job repository.
      *
@@ -55,46 +95,156 @@ public abstract class AbstractJob {
         this.lockRepository = lockRepository;
     }
 
+    /**
+     * Sets a combined job and lock repository which starts and finishes a run in a single unit of work.
+     * Once set, it takes precedence over the separate job and lock repositories.
+     *
+     * @param jobLifecycleRepository the job lifecycle repository
+     */
+    public void setJobLifecycleRepository(JobLifecycleRepository jobLifecycleRepository) {
+        this.jobLifecycleRepository = jobLifecycleRepository;
+    }
+
+    /**
+     * Sets the execution strategy. By default, all the jobs share {@link JobExecutors#sharedPool()}.
+     *
+     * @param jobExecutor the executor to run the job on
+     */
+    public void setJobExecutor(JobExecutor jobExecutor) {
+        this.jobExecutor = jobExecutor;
+    }
+
+    /**
+     * Sets the maximum time a run waits for the lock once the job is already running elsewhere.
+     * By default, the run is skipped right away.
+     *
+     * @param lockTimeout the maximum time to wait for the lock
+     */
+    public void setLockTimeout(Duration lockTimeout) {
+        this.lockTimeout = lockTimeout;
+    }
+
+    /**
+     * Gets the execution strategy the job is being run with.
+     *
+     * @return the job executor
+     */
+    public JobExecutor getJobExecutor() {
+        return jobExecutor;
+    }
+
     /**
      * Makes an actual job execution, acquires lock, releases lock and handles exceptions.
      * Has to be overridden along with all other methods.
+     * The trigger is skipped once the executor is saturated and rejects a new run.
      */
     public void run() {
-        new Thread(this::doExecute).start();
+        try {
+            jobExecutor.execute(this::doExecute);
+        } catch (RejectedExecutionException e) {
+            LOG.warn("Skipping a run of a job with name={} since the executor is saturated, queueDepth={} activeCount={}",
+                    getJobName(), jobExecutor.getQueueDepth(), jobExecutor.getActiveCount());
+        }
+    }
+
+    /**
+     * Runs the job asynchronously on the job executor, see {@link #runAsync(Executor)}.
+     *
+     * @return a future completed with the finished job execution, or empty once the job is locked elsewhere.
+     */
+    public CompletableFuture<Optional<JobExecution>> runAsync() {
+        return runAsync(jobExecutor);
+    }
+
+    /**
+     * Runs the job asynchronously on the given executor.
+     * The returned future completes with the finished job execution, or with an empty optional once
+     * the job is already running elsewhere and the lock could not be taken. A failed job completes the future
+     * exceptionally with an {@link IllegalStateException} caused by the {@link JobExecutionException}.
+     * Cancelling the future before the job has started skips the run, while cancelling it with an interruption
+     * afterward interrupts the thread the job is running on.
+     *
+     * @param executor the executor to run the job on
+     * @return a future completed with the finished job execution, or empty once the job is locked elsewhere.
+     */
+    public CompletableFuture<Optional<JobExecution>> runAsync(Executor executor) {
+        JobFuture future = new JobFuture();
+        try {
+            executor.execute(future::run);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
     }
 
-    void doExecute() {
-        String jobName = getJobName();
+    Optional<JobExecution> doExecute() {
+        JobLifecycleRepository lifecycleRepository = getJobLifecycleRepository();
 
-        Optional<JobDefinition> jobDefinition = jobRepository.fetchJobDefinition(jobName);
-        if (jobDefinition.isEmpty()) {
-            throw new IllegalStateException(String.format(JOB_NOT_FOUND_MSG, jobName));
+        Optional<JobExecutionContext> context = lockTimeout.isZero()
+                ? lifecycleRepository.startExecution(getJobName())
+                : lifecycleRepository.startExecution(getJobName(), lockTimeout);
+        if (context.isEmpty()) {
+            return Optional.empty();
         }
 
-        Optional<LockMetadata> lockMetadata = lockRepository.fetchLockMetadata(jobName);
+        JobExecution newExecution = context.get().getJobExecution();
+        LockMetadata lockMetadata = context.get().getLockMetadata();
 
-        if (lockMetadata.isEmpty()) {
+        try {
 
-            LockMetadata lockedJobMetadata = lockRepository.acquireLock(jobDefinition.get().getJobName());
+            executionContext.set(context.get());
+            if (lockMetadata != null) {
+                LockLeaseRenewer.onLeaseLost(lockMetadata, context.get()::markLeaseLost);
+            }
+            execute();
+        } catch (JobExecutionException e) {
 
-            JobExecution newExecution = jobRepository.captureExecution(jobName);
+            lifecycleRepository.failExecution(context.get());
+            newExecution.setState(JobState.FAILED);
 
-            try {
+            throw new IllegalStateException(String
+                    .format(JOB_FAILED, context.get().getJobDefinition().getJobName()), e);
+        } catch (RuntimeException e) {
 
-                execute();
+            lifecycleRepository.failExecution(context.get());
+            newExecution.setState(JobState.FAILED);
 
-                jobRepository.completeExecution(newExecution);
-            } catch (JobExecutionException e) {
+            throw e;
+        } finally {
+            executionContext.remove();
+            if (lockMetadata != null) {
+                LockLeaseRenewer.removeLeaseLostListener(lockMetadata);
+            }
+        }
 
-                jobRepository.failExecution(newExecution);
+        lifecycleRepository.completeExecution(context.get());
+        newExecution.setState(JobState.COMPLETED);
 
-                throw new IllegalStateException(String
-                        .format(JOB_FAILED, jobDefinition.get().getJobName()), e);
-            } finally {
+        return Optional.of(newExecution);
+    }
 
-                lockRepository.releaseLock(lockedJobMetadata);
-            }
+    private JobLifecycleRepository getJobLifecycleRepository() {
+        if (jobLifecycleRepository != null) {
+            return jobLifecycleRepository;
         }
+        return new DelegatingJobLifecycleRepository(jobRepository, lockRepository);
+    }
+
+    /**
+     * Returns the context of the run in progress, to be called from {@link #execute()}.
+     * The fencing token of its lock, see {@link LockMetadata#getFencingToken()}, could be passed to the downstream
+     * stores to reject the writes of a run which has kept going after its lock had been taken over.
+     * Such a run is told by {@link JobExecutionContext#isLeaseLost()} once the lease renewal has noticed it.
+     *
+     * @return the execution context of the run.
+     * @throws IllegalStateException if no run of the job is in progress on the calling thread.
+     */
+    protected JobExecutionContext getExecutionContext() {
+        JobExecutionContext context = executionContext.get();
+        if (context == null) {
+            throw new IllegalStateException(String.format(NO_EXECUTION_CONTEXT_MSG, getJobName()));
+        }
+        return context;
     }
 
     /**
@@ -110,4 +260,47 @@ public abstract class AbstractJob {
      * @return the job name
      */
     public abstract String getJobName();
+
+    /**
+     * A job run bound future which keeps track of the thread the job is running on to be able to interrupt it.
+     */
+    private final class JobFuture extends CompletableFuture<Optional<JobExecution>> {
+
+        private Thread runner;
+
+        void run() {
+            synchronized (this) {
+                if (isDone()) {
+                    return;
+                }
+                runner = Thread.currentThread();
+            }
+            try {
+                complete(doExecute());
+            } catch (Throwable e) {
+                completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    if (isCancelled()) {
+                        // do not leak the interruption into the next task of the executor thread
+                        Thread.interrupted();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && mayInterruptIfRunning) {
+                synchronized (this) {
+                    if (runner != null) {
+                        runner.interrupt();
+                    }
+                }
+            }
+            return cancelled;
+        }
+    }
 }
@@ -0,0 +1,127 @@
+package io.github.sergejsvisockis.jobs;
+
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.UUID;
+
+/**
+ * Binds and reads the id and the state columns of the JDBC repositories, depending on the schema in use.
+ * <ul>
+ *     <li>{@link #TEXT} - the default jobs_ddl_v1.0.0.sql schema, ids as VARCHAR(36) and states as their names;</li>
+ *     <li>{@link #BINARY} - the compact jobs_ddl_compact_v1.1.0.sql schema, ids as BINARY(16) and states as
+ *     SMALLINT codes, see {@link JobState#getCode()};</li>
+ *     <li>{@link #NATIVE} - the compact schema with native UUID columns, e.g. on PostgreSQL, states as codes.</li>
+ * </ul>
+ * The compact codecs neither format nor parse strings.
+ */
+public enum ColumnCodec {
+
+    TEXT {
+        @Override
+        public void bindId(PreparedStatement pstmt, int index, UUID id) throws SQLException {
+            pstmt.setString(index, id.toString());
+        }
+
+        @Override
+        public UUID readId(ResultSet rs, int index) throws SQLException {
+            String id = rs.getString(index);
+            return id != null ? UUID.fromString(id) : null;
+        }
+
+        @Override
+        public void bindState(PreparedStatement pstmt, int index, JobState state) throws SQLException {
+            pstmt.setString(index, state.name());
+        }
+
+        @Override
+        public JobState readState(ResultSet rs, int index) throws SQLException {
+            String state = rs.getString(index);
+            return state != null ? JobState.valueOf(state) : null;
+        }
+    },
+
+    BINARY {
+        @Override
+        public void bindId(PreparedStatement pstmt, int index, UUID id) throws SQLException {
+            pstmt.setBytes(index, toBytes(id));
+        }
+
+        @Override
+        public UUID readId(ResultSet rs, int index) throws SQLException {
+            byte[] id = rs.getBytes(index);
+            return id != null ? fromBytes(id) : null;
+        }
+    },
+
+    NATIVE {
+        @Override
+        public void bindId(PreparedStatement pstmt, int index, UUID id) throws SQLException {
+            pstmt.setObject(index, id, Types.OTHER);
+        }
+
+        @Override
+        public UUID readId(ResultSet rs, int index) throws SQLException {
+            return rs.getObject(index, UUID.class);
+        }
+    };
+
+    /**
+     * Bind an id parameter.
+     *
+     * @param pstmt the statement.
+     * @param index the parameter index.
+     * @param id    the id.
+     * @throws SQLException if the parameter could not be bound.
+     */
+    public abstract void bindId(PreparedStatement pstmt, int index, UUID id) throws SQLException;
+
+    /**
+     * Read an id column.
+     *
+     * @param rs    the result set.
+     * @param index the column index.
+     * @return the id, null if the column is null.
+     * @throws SQLException if the column could not be read.
+     */
+    public abstract UUID readId(ResultSet rs, int index) throws SQLException;
+
+    /**
+     * Bind a state parameter, as its code by default.
+     *
+     * @param pstmt the statement.
+     * @param index the parameter index.
+     * @param state the state.
+     * @throws SQLException if the parameter could not be bound.
+     */
+    public void bindState(PreparedStatement pstmt, int index, JobState state) throws SQLException {
+        pstmt.setShort(index, (short) state.getCode());
+    }
+
+    /**
+     * Read a state column, stored as its code by default.
+     *
+     * @param rs    the result set.
+     * @param index the column index.
+     * @return the state, null if the column is null.
+     * @throws SQLException if the column could not be read.
+     */
+    public JobState readState(ResultSet rs, int index) throws SQLException {
+        short code = rs.getShort(index);
+        return rs.wasNull() ? null : JobState.fromCode(code);
+    }
+
+    static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+
+    static UUID fromBytes(byte[] id) {
+        ByteBuffer buffer = ByteBuffer.wrap(id);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,35 @@
+package io.github.sergejsvisockis.jobs;
+
+import java.sql.SQLException;
+
+/**
+ * Utility class shared by the JDBC repositories.
+ */
+public final class JdbcUtil {
+
+    private static final String UNIQUE_VIOLATION_SQL_STATE = "23505";
+    private static final String INTEGRITY_CONSTRAINT_VIOLATION_SQL_STATE = "23000";
+    private static final int MYSQL_DUPLICATE_KEY_ERROR_CODE = 1062;
+    private static final int ORACLE_UNIQUE_CONSTRAINT_ERROR_CODE = 1;
+
+    private JdbcUtil() {
+    }
+
+    /**
+     * Checks whether an exception has been caused by a duplicate unique key. The other integrity constraints,
+     * e.g. a foreign key, a not null or a check constraint, share the SQL state class, hence MySQL and Oracle,
+     * which report all of them by the same SQL state, are told apart by the vendor error code.
+     *
+     * @param e the exception thrown by the driver
+     * @return true if a unique constraint has been violated
+     */
+    public static boolean isUniqueConstraintViolation(SQLException e) {
+        String sqlState = e.getSQLState();
+        if (UNIQUE_VIOLATION_SQL_STATE.equals(sqlState)) {
+            return true;
+        }
+        return INTEGRITY_CONSTRAINT_VIOLATION_SQL_STATE.equals(sqlState)
+                && (e.getErrorCode() == MYSQL_DUPLICATE_KEY_ERROR_CODE
+                || e.getErrorCode() == ORACLE_UNIQUE_CONSTRAINT_ERROR_CODE);
+    }
+}
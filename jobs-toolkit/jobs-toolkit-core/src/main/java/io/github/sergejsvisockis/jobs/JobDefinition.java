@@ -1,17 +1,22 @@
 package io.github.sergejsvisockis.jobs;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
 /**
  * Job definition is a simple structure which 1:1 represents a corresponding database entry.
  * The key role if this object is to hold a very simple job metadata like its name and description.
  */
+@JsonDeserialize(builder = JobDefinition.Builder.class)
 public final class JobDefinition {
 
     private final String jobName;
     private final String jobDescription;
+    private final int maxConcurrency;
 
     private JobDefinition(Builder builder) {
         this.jobName = builder.jobName;
         this.jobDescription = builder.jobDescription;
+        this.maxConcurrency = builder.maxConcurrency;
     }
 
     /**
@@ -33,12 +38,23 @@ public final class JobDefinition {
         return jobDescription;
     }
 
+    /**
+     * Get the maximum number of the runs of the job allowed at the same time across all the nodes.
+     * A job allowing more than a single run is locked by a permit slot rather than by an exclusive lock.
+     *
+     * @return the maximum number of the concurrent runs, 1 by default.
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
     /**
      * Constructs a job definition object
      */
     public static class Builder {
         private String jobName;
         private String jobDescription;
+        private int maxConcurrency = 1;
 
         /**
          * Sets a job name.
@@ -62,6 +78,17 @@ public final class JobDefinition {
             return this;
         }
 
+        /**
+         * Sets the maximum number of the concurrent runs.
+         *
+         * @param maxConcurrency the maximum number of the concurrent runs.
+         * @return builder.
+         */
+        public Builder withMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
         /**
          * Finalises an object construction.
          *
@@ -1,5 +1,7 @@
 package io.github.sergejsvisockis.jobs;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -7,6 +9,7 @@ import java.util.UUID;
  * Job execution which is supposed to capture the job execution details.
  * This structure is supposed to represent a database job execution entry.
  */
+@JsonDeserialize(builder = JobExecution.Builder.class)
 public class JobExecution {
 
     private final UUID executionId;
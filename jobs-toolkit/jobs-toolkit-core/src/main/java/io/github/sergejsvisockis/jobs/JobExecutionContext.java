@@ -0,0 +1,112 @@
+package io.github.sergejsvisockis.jobs;
+
+/**
+ * Everything which has been captured once a job run has been started: the job definition,
+ * the lock taken for the run, and the execution recorded as RUNNING.
+ */
+public final class JobExecutionContext {
+
+    private final JobDefinition jobDefinition;
+    private final LockMetadata lockMetadata;
+    private final JobExecution jobExecution;
+    private volatile boolean leaseLost;
+
+    private JobExecutionContext(Builder builder) {
+        this.jobDefinition = builder.jobDefinition;
+        this.lockMetadata = builder.lockMetadata;
+        this.jobExecution = builder.jobExecution;
+    }
+
+    /**
+     * Gets the definition of the job being run.
+     *
+     * @return job definition.
+     */
+    public JobDefinition getJobDefinition() {
+        return jobDefinition;
+    }
+
+    /**
+     * Gets the lock which has been taken for the run.
+     *
+     * @return lock metadata.
+     */
+    public LockMetadata getLockMetadata() {
+        return lockMetadata;
+    }
+
+    /**
+     * Gets the execution which has been recorded for the run.
+     *
+     * @return job execution.
+     */
+    public JobExecution getJobExecution() {
+        return jobExecution;
+    }
+
+    /**
+     * Whether the lock taken for the run has been taken over by another node once its lease had expired,
+     * see {@link io.github.sergejsvisockis.jobs.lockrepository.LockLeaseRenewer}. A long-running job could check it
+     * to stop early, as the run is no longer exclusive.
+     *
+     * @return true once the lease of the lock has been lost.
+     */
+    public boolean isLeaseLost() {
+        return leaseLost;
+    }
+
+    void markLeaseLost() {
+        leaseLost = true;
+    }
+
+    /**
+     * Constructs a job execution context object.
+     */
+    public static class Builder {
+        private JobDefinition jobDefinition;
+        private LockMetadata lockMetadata;
+        private JobExecution jobExecution;
+
+        /**
+         * Sets a job definition.
+         *
+         * @param jobDefinition job definition.
+         * @return builder instance.
+         */
+        public Builder withJobDefinition(JobDefinition jobDefinition) {
+            this.jobDefinition = jobDefinition;
+            return this;
+        }
+
+        /**
+         * Sets the lock metadata of the lock taken for the run.
+         *
+         * @param lockMetadata lock metadata.
+         * @return builder instance.
+         */
+        public Builder withLockMetadata(LockMetadata lockMetadata) {
+            this.lockMetadata = lockMetadata;
+            return this;
+        }
+
+        /**
+         * Sets the execution recorded for the run.
+         *
+         * @param jobExecution job execution.
+         * @return builder instance.
+         */
+        public Builder withJobExecution(JobExecution jobExecution) {
+            this.jobExecution = jobExecution;
+            return this;
+        }
+
+        /**
+         * Finalises an object construction.
+         *
+         * @return constructed object.
+         */
+        public JobExecutionContext build() {
+            return new JobExecutionContext(this);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package io.github.sergejsvisockis.jobs;
+
+/**
+ * Thrown once a job is being started while there is no definition for it.
+ */
+public class JobNotFoundException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs an exception for a job which has no definition.
+     *
+     * @param jobName the name of the job.
+     */
+    public JobNotFoundException(String jobName) {
+        super(String.format(AbstractJob.JOB_NOT_FOUND_MSG, jobName));
+    }
+}
@@ -8,16 +8,48 @@ public enum JobState {
     /**
      * Idicates that the job is currently running.
      */
-    RUNNING,
+    RUNNING(1),
 
     /**
      * Indicates that the job has been completed successfully.
      */
-    COMPLETED,
+    COMPLETED(2),
 
     /**
      * Indicates that the job has failed during execution.
      */
-    FAILED
+    FAILED(3);
 
+    static final String UNKNOWN_STATE_CODE_MSG = "Unknown job state code: %s";
+
+    private static final JobState[] BY_CODE = {null, RUNNING, COMPLETED, FAILED};
+
+    private final int code;
+
+    JobState(int code) {
+        this.code = code;
+    }
+
+    /**
+     * Get the code of the state as stored by the compact schema.
+     *
+     * @return the state code.
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Get the state by its code as stored by the compact schema.
+     *
+     * @param code the state code.
+     * @return the state.
+     * @throws IllegalArgumentException if there is no state with such a code.
+     */
+    public static JobState fromCode(int code) {
+        if (code < 1 || code >= BY_CODE.length) {
+            throw new IllegalArgumentException(String.format(UNKNOWN_STATE_CODE_MSG, code));
+        }
+        return BY_CODE[code];
+    }
 }
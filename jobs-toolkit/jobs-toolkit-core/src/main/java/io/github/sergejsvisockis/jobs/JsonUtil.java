@@ -1,17 +1,72 @@
 package io.github.sergejsvisockis.jobs;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Utility class for JSON serialization and deserialization.
  * Provides methods to convert objects to JSON strings, bytes, and vice versa.
+ * <p>
+ * All the conversions share a single pre-built {@link ObjectMapper}, together with an {@link ObjectReader} and
+ * an {@link ObjectWriter} per class, so that Jackson builds the serializers of a class only once.
+ * The mapper could be replaced on startup with {@link #setObjectMapper(ObjectMapper)}.
+ * </p>
+ * <p>
+ * The streaming methods write straight into and read straight from the given stream, channel or buffer without
+ * an intermediate array, and never close the given stream or channel.
+ * </p>
  */
 public final class JsonUtil {
 
+    /**
+     * The largest reusable output buffer kept per thread, a larger one is released once used.
+     */
+    static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    private static final int INITIAL_BUFFER_SIZE = 512;
+
+    private static final ThreadLocal<ReusableOutputStream> OUTPUT_BUFFER =
+            ThreadLocal.withInitial(ReusableOutputStream::new);
+
+    private static volatile Mapper mapper = new Mapper(new ObjectMapper().registerModule(new JavaTimeModule()));
+
     private JsonUtil() {
     }
 
+    /**
+     * Get the shared mapper, kept within the package as a reconfigured mapper would not reach the cached readers
+     * and writers.
+     *
+     * @return the mapper all the conversions use
+     */
+    static ObjectMapper getObjectMapper() {
+        return mapper.objectMapper;
+    }
+
+    /**
+     * Replaces the shared mapper, e.g. with the one of the application. The mapper has to be fully configured,
+     * as the readers and writers derived from it are cached.
+     *
+     * @param objectMapper the mapper all the conversions are going to use
+     */
+    public static void setObjectMapper(ObjectMapper objectMapper) {
+        mapper = new Mapper(Objects.requireNonNull(objectMapper, "objectMapper"));
+    }
+
     /**
      * Converts an object to its JSON string representation.
      *
@@ -20,7 +75,7 @@ public final class JsonUtil {
      */
     public static String toJson(Object object) {
         try {
-            return getObjectMapper().writeValueAsString(object);
+            return mapper.writer(object).writeValueAsString(object);
         } catch (Exception e) {
             throw new IllegalStateException("Failed to convert object to JSON", e);
         }
@@ -36,7 +91,7 @@ public final class JsonUtil {
      */
     public static <T> T fromJson(String json, Class<T> clazz) {
         try {
-            return getObjectMapper().readValue(json, clazz);
+            return mapper.reader(clazz).readValue(json);
         } catch (Exception e) {
             throw new IllegalStateException("Failed to convert JSON to object", e);
         }
@@ -50,7 +105,7 @@ public final class JsonUtil {
      */
     public static byte[] toBytes(Object object) {
         try {
-            return getObjectMapper().writeValueAsBytes(object);
+            return mapper.writer(object).writeValueAsBytes(object);
         } catch (Exception e) {
             throw new IllegalStateException("Failed to convert object to JSON bytes", e);
         }
@@ -66,15 +121,211 @@ public final class JsonUtil {
      */
     public static <T> T fromBytes(byte[] bytes, Class<T> clazz) {
         try {
-            return getObjectMapper().readValue(bytes, clazz);
+            return mapper.reader(clazz).readValue(bytes);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to convert JSON to object", e);
+        }
+    }
+
+    /**
+     * Writes the JSON representation of an object to a stream.
+     *
+     * @param object the object to convert
+     * @param out    the stream to write to, it is flushed but not closed
+     */
+    public static void writeTo(Object object, OutputStream out) {
+        try {
+            mapper.writer(object).writeValue(out, object);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to write object as JSON", e);
+        }
+    }
+
+    /**
+     * Writes the JSON representation of an object to a channel.
+     *
+     * @param object  the object to convert
+     * @param channel the channel to write to, it is not closed
+     */
+    public static void writeTo(Object object, WritableByteChannel channel) {
+        writeTo(object, Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Writes the JSON representation of an object to a buffer, starting at its position. The position
+     * is advanced past the written bytes.
+     *
+     * @param object the object to convert
+     * @param buffer the buffer to write to
+     * @return the number of the written bytes
+     * @throws IllegalStateException if the buffer has not enough space left, the buffer content is undefined then
+     */
+    public static int writeTo(Object object, ByteBuffer buffer) {
+        int start = buffer.position();
+        writeTo(object, new ByteBufferOutputStream(buffer));
+        return buffer.position() - start;
+    }
+
+    /**
+     * Converts an object to its JSON representation in a buffer reused by the calling thread, without allocating
+     * a new array for each call. The returned buffer is read-only and valid until the next call on the same thread,
+     * hence it has to be consumed, e.g. written to a channel, before that.
+     *
+     * @param object the object to convert
+     * @return the buffer holding the JSON representation of the object, positioned at its start
+     */
+    public static ByteBuffer toBuffer(Object object) {
+        ReusableOutputStream out = OUTPUT_BUFFER.get();
+        out.reset();
+        writeTo(object, out);
+        return out.toBuffer();
+    }
+
+    /**
+     * Reads an object of the specified class from a JSON stream.
+     *
+     * @param in    the stream to read from, it is not closed
+     * @param clazz the class of the object to convert to
+     * @param <T>   the type of the object
+     * @return the object represented by the JSON stream
+     */
+    public static <T> T readFrom(InputStream in, Class<T> clazz) {
+        try {
+            return mapper.reader(clazz).readValue(in);
         } catch (Exception e) {
             throw new IllegalStateException("Failed to convert JSON to object", e);
         }
     }
 
-    private static ObjectMapper getObjectMapper() {
-        return new ObjectMapper()
-                .registerModule(new JavaTimeModule());
+    /**
+     * Reads an object of the specified class from the remaining JSON bytes of a buffer. The position
+     * is advanced to the limit.
+     *
+     * @param buffer the buffer to read from
+     * @param clazz  the class of the object to convert to
+     * @param <T>    the type of the object
+     * @return the object represented by the JSON bytes
+     */
+    public static <T> T readFrom(ByteBuffer buffer, Class<T> clazz) {
+        if (!buffer.hasArray()) {
+            return readFrom(new ByteBufferInputStream(buffer), clazz);
+        }
+        try {
+            T value = mapper.reader(clazz)
+                    .readValue(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return value;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to convert JSON to object", e);
+        }
+    }
+
+    private static final class ByteBufferOutputStream extends OutputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferOutputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffer.put(b, off, len);
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(len, buffer.remaining());
+            buffer.get(b, off, read);
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    private static final class ReusableOutputStream extends OutputStream {
+
+        private byte[] bytes = new byte[INITIAL_BUFFER_SIZE];
+        private int size;
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(size + 1);
+            bytes[size++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensureCapacity(size + len);
+            System.arraycopy(b, off, bytes, size, len);
+            size += len;
+        }
+
+        private void reset() {
+            if (bytes.length > MAX_RETAINED_BUFFER_SIZE) {
+                bytes = new byte[INITIAL_BUFFER_SIZE];
+            }
+            size = 0;
+        }
+
+        private ByteBuffer toBuffer() {
+            return ByteBuffer.wrap(bytes, 0, size).asReadOnlyBuffer();
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+            }
+        }
+    }
+
+    private static final class Mapper {
+
+        private final ObjectMapper objectMapper;
+        private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+        private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+        private Mapper(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+        }
+
+        private ObjectReader reader(Class<?> clazz) {
+            return readers.computeIfAbsent(clazz, c -> objectMapper.readerFor(c)
+                    .without(JsonParser.Feature.AUTO_CLOSE_SOURCE));
+        }
+
+        private ObjectWriter writer(Object object) {
+            if (object == null) {
+                return objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            }
+            return writers.computeIfAbsent(object.getClass(), c -> objectMapper.writerFor(c)
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET));
+        }
     }
 
 }
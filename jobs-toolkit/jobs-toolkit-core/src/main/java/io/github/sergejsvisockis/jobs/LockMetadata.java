@@ -16,11 +16,17 @@ public final class LockMetadata {
     private final UUID lockId;
     private final String jobName;
     private final LocalDateTime lockedAt;
+    private final LocalDateTime expiresAt;
+    private final Integer permit;
+    private final Long fencingToken;
 
     private LockMetadata(Builder builder) {
         this.jobName = builder.jobName;
         this.lockId = builder.lockId;
         this.lockedAt = builder.lockedAt;
+        this.expiresAt = builder.expiresAt;
+        this.permit = builder.permit;
+        this.fencingToken = builder.fencingToken;
     }
 
     /**
@@ -50,6 +56,36 @@ public final class LockMetadata {
         return lockedAt;
     }
 
+    /**
+     * Gets the time the lease of the lock expires at, after which the lock could be taken over by another node.
+     *
+     * @return the time the lease expires at, or null if the lock never expires.
+     */
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Gets the permit slot held by a job which allows a bounded number of concurrent runs,
+     * see {@link io.github.sergejsvisockis.jobs.lockrepository.PermitLockRepository}.
+     *
+     * @return the permit slot counting from zero, or null for an exclusive lock.
+     */
+    public Integer getPermit() {
+        return permit;
+    }
+
+    /**
+     * Gets the fencing token of the lock, which is greater than the token of any lock of the same job acquired before.
+     * A holder which has stalled past its lease keeps its token, hence the downstream stores could reject its writes
+     * once a newer token has been seen, e.g. by a conditional {@code UPDATE ... WHERE fencing_token < ?}.
+     *
+     * @return the fencing token, or null if the lock repository does not issue them.
+     */
+    public Long getFencingToken() {
+        return fencingToken;
+    }
+
     @Override
     public String toString() {
         return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
@@ -62,6 +98,9 @@ public final class LockMetadata {
         private UUID lockId;
         private String jobName;
         private LocalDateTime lockedAt;
+        private LocalDateTime expiresAt;
+        private Integer permit;
+        private Long fencingToken;
 
         /**
          * Sets the lock identifier.
@@ -96,6 +135,39 @@ public final class LockMetadata {
             return this;
         }
 
+        /**
+         * The time the lease of the lock expires at.
+         *
+         * @param expiresAt the time the lease expires at, or null if the lock never expires.
+         * @return builder instance.
+         */
+        public Builder withExpiresAt(LocalDateTime expiresAt) {
+            this.expiresAt = expiresAt;
+            return this;
+        }
+
+        /**
+         * The permit slot held.
+         *
+         * @param permit the permit slot counting from zero, or null for an exclusive lock.
+         * @return builder instance.
+         */
+        public Builder withPermit(Integer permit) {
+            this.permit = permit;
+            return this;
+        }
+
+        /**
+         * The fencing token issued with the lock.
+         *
+         * @param fencingToken the fencing token, or null if none has been issued.
+         * @return builder instance.
+         */
+        public Builder withFencingToken(Long fencingToken) {
+            this.fencingToken = fencingToken;
+            return this;
+        }
+
         /**
          * Finalises an object construction.
          *
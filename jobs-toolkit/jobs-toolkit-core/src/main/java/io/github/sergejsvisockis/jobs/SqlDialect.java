@@ -0,0 +1,281 @@
+package io.github.sergejsvisockis.jobs;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * SQL dialects of the supported databases, used by the JDBC repositories to pick the native upsert
+ * of a database over a read followed by either an insert or an update.
+ * <p>
+ * An upsert statement binds the columns in the given order. A conditional upsert, which updates an existing row
+ * only if the condition holds, binds the parameters of the condition after the columns. The condition refers to
+ * the existing row by the table name, e.g. {@code lock_metadata.expires_at < ?}.
+ * </p>
+ */
+public enum SqlDialect {
+
+    H2 {
+        @Override
+        public String upsert(String table, String keyColumn, String... columns) {
+            return String.format("MERGE INTO %s(%s) KEY (%s) VALUES (%s)",
+                    table, String.join(", ", columns), keyColumn, placeholders(columns));
+        }
+    },
+
+    POSTGRESQL {
+        @Override
+        public String upsert(String table, String keyColumn, String... columns) {
+            return String.format("INSERT INTO %s(%s) VALUES (%s) ON CONFLICT (%s) DO UPDATE SET %s",
+                    table, String.join(", ", columns), placeholders(columns), keyColumn,
+                    assignments(keyColumn, columns, "%1$s = EXCLUDED.%1$s"));
+        }
+
+        @Override
+        public boolean supportsConditionalUpsert() {
+            return true;
+        }
+
+        @Override
+        public String conditionalUpsert(String table, String keyColumn, String condition, String... columns) {
+            return upsert(table, keyColumn, columns) + " WHERE " + condition;
+        }
+
+        @Override
+        public boolean supportsInsertIgnoringDuplicates() {
+            return true;
+        }
+
+        @Override
+        public String insertIgnoringDuplicates(String table, int rows, String... columns) {
+            return String.format("INSERT INTO %s(%s) VALUES %s ON CONFLICT DO NOTHING",
+                    table, String.join(", ", columns), rows(rows, columns));
+        }
+    },
+
+    MYSQL {
+        @Override
+        public String upsert(String table, String keyColumn, String... columns) {
+            return String.format("INSERT INTO %s(%s) VALUES (%s) ON DUPLICATE KEY UPDATE %s",
+                    table, String.join(", ", columns), placeholders(columns),
+                    assignments(keyColumn, columns, "%1$s = VALUES(%1$s)"));
+        }
+
+        @Override
+        public boolean supportsInsertIgnoringDuplicates() {
+            return true;
+        }
+
+        @Override
+        public String insertIgnoringDuplicates(String table, int rows, String... columns) {
+            // unlike INSERT IGNORE, it fails on anything but a duplicate key, e.g. a truncated value or a NULL
+            return String.format("INSERT INTO %s(%s) VALUES %s ON DUPLICATE KEY UPDATE %4$s = %4$s",
+                    table, String.join(", ", columns), rows(rows, columns), columns[0]);
+        }
+    },
+
+    ORACLE {
+        @Override
+        public String upsert(String table, String keyColumn, String... columns) {
+            return merge(table, keyColumn, "", columns);
+        }
+
+        @Override
+        public boolean supportsConditionalUpsert() {
+            return true;
+        }
+
+        @Override
+        public String conditionalUpsert(String table, String keyColumn, String condition, String... columns) {
+            return merge(table, keyColumn, " WHERE " + condition, columns);
+        }
+
+        @Override
+        public String selectForUpdateSkipLocked(String query, int limit) {
+            // the row limiting clause is not allowed together with FOR UPDATE, the caller stops fetching at the limit
+            return query + " FOR UPDATE SKIP LOCKED";
+        }
+
+        private String merge(String table, String keyColumn, String updateCondition, String... columns) {
+            String source = Arrays.stream(columns)
+                    .map(column -> "? " + column)
+                    .collect(Collectors.joining(", "));
+            String values = Arrays.stream(columns)
+                    .map(column -> "s." + column)
+                    .collect(Collectors.joining(", "));
+            return String.format("MERGE INTO %1$s USING (SELECT %2$s FROM dual) s ON (%1$s.%3$s = s.%3$s) " +
+                            "WHEN MATCHED THEN UPDATE SET %4$s%5$s " +
+                            "WHEN NOT MATCHED THEN INSERT (%6$s) VALUES (%7$s)",
+                    table, source, keyColumn, assignments(keyColumn, columns, "%1$s = s.%1$s"),
+                    updateCondition, String.join(", ", columns), values);
+        }
+    },
+
+    /**
+     * Any other database, no native upsert is used.
+     */
+    GENERIC {
+        @Override
+        public boolean supportsUpsert() {
+            return false;
+        }
+
+        @Override
+        public String upsert(String table, String keyColumn, String... columns) {
+            throw new UnsupportedOperationException(String.format(UPSERT_NOT_SUPPORTED_MSG, name()));
+        }
+
+        @Override
+        public boolean supportsSkipLocked() {
+            return false;
+        }
+
+        @Override
+        public String selectForUpdateSkipLocked(String query, int limit) {
+            return query;
+        }
+    };
+
+    static final String FAILED_TO_DETECT_DIALECT_MSG = "Failed to detect the SQL dialect of the database";
+    static final String UPSERT_NOT_SUPPORTED_MSG = "Upsert is not supported by the %s dialect";
+    static final String INSERT_IGNORING_DUPLICATES_NOT_SUPPORTED_MSG = "Insert ignoring the duplicates is not supported by the %s dialect";
+
+    /**
+     * Detects the dialect from the metadata of the database behind the data source.
+     *
+     * @param dataSource the data source.
+     * @return the dialect of the database, {@link #GENERIC} if the database is not known.
+     */
+    public static SqlDialect detect(DataSource dataSource) {
+        try (Connection conn = dataSource.getConnection()) {
+            return fromProductName(conn.getMetaData().getDatabaseProductName());
+        } catch (Exception e) {
+            throw new RuntimeException(FAILED_TO_DETECT_DIALECT_MSG, e);
+        }
+    }
+
+    /**
+     * Maps a database product name as reported by the driver to the dialect.
+     *
+     * @param productName the database product name.
+     * @return the dialect of the database, {@link #GENERIC} if the database is not known.
+     */
+    public static SqlDialect fromProductName(String productName) {
+        String name = productName == null ? "" : productName.toLowerCase(Locale.ROOT);
+        if (name.startsWith("h2")) {
+            return H2;
+        } else if (name.startsWith("postgresql")) {
+            return POSTGRESQL;
+        } else if (name.startsWith("mysql") || name.startsWith("mariadb")) {
+            return MYSQL;
+        } else if (name.startsWith("oracle")) {
+            return ORACLE;
+        }
+        return GENERIC;
+    }
+
+    /**
+     * @return whether the dialect has a single statement upsert.
+     */
+    public boolean supportsUpsert() {
+        return true;
+    }
+
+    /**
+     * @return whether the dialect has a single statement upsert which updates an existing row conditionally.
+     */
+    public boolean supportsConditionalUpsert() {
+        return false;
+    }
+
+    /**
+     * Builds a statement which inserts a row or updates all the columns of the existing one with the same key.
+     *
+     * @param table     the table name.
+     * @param keyColumn the unique key column, it has to be one of the columns.
+     * @param columns   the columns to bind.
+     * @return the upsert statement.
+     * @throws UnsupportedOperationException if the dialect has no upsert.
+     */
+    public abstract String upsert(String table, String keyColumn, String... columns);
+
+    /**
+     * Builds a statement which inserts a row or updates the existing one with the same key if the condition holds.
+     * The statement affects no rows if the existing row does not match the condition.
+     *
+     * @param table     the table name.
+     * @param keyColumn the unique key column, it has to be one of the columns.
+     * @param condition the condition on the existing row.
+     * @param columns   the columns to bind.
+     * @return the conditional upsert statement.
+     * @throws UnsupportedOperationException if the dialect has no conditional upsert.
+     */
+    public String conditionalUpsert(String table, String keyColumn, String condition, String... columns) {
+        throw new UnsupportedOperationException(String.format(UPSERT_NOT_SUPPORTED_MSG, name()));
+    }
+
+    /**
+     * @return whether the dialect has a multi-row insert which skips the rows violating a unique key.
+     */
+    public boolean supportsInsertIgnoringDuplicates() {
+        return false;
+    }
+
+    /**
+     * Builds a statement which inserts multiple rows at once and skips the ones violating a unique key rather than
+     * failing the whole statement, any other violation still fails it. The rows bind the columns in the given order
+     * one after another, the statement affects the number of the rows actually inserted. MySQL counts the skipped
+     * rows as affected as well, unless the connection reports the affected rather than the found rows, e.g. by
+     * {@code useAffectedRows=true} of Connector/J.
+     *
+     * @param table   the table name.
+     * @param rows    the number of the rows to bind.
+     * @param columns the columns to bind.
+     * @return the insert statement.
+     * @throws UnsupportedOperationException if the dialect has no such insert.
+     */
+    public String insertIgnoringDuplicates(String table, int rows, String... columns) {
+        throw new UnsupportedOperationException(String.format(INSERT_IGNORING_DUPLICATES_NOT_SUPPORTED_MSG, name()));
+    }
+
+    /**
+     * @return whether the dialect could skip the rows locked by the other transactions.
+     */
+    public boolean supportsSkipLocked() {
+        return true;
+    }
+
+    /**
+     * Builds a query which locks up to the limit of the selected rows, skipping the rows locked by the other
+     * transactions rather than waiting for them. A dialect without {@code SKIP LOCKED} selects the rows without
+     * locking them, the caller has to claim them by a conditional update then. The caller stops fetching at the limit,
+     * since not every dialect limits the locked rows by the query itself.
+     *
+     * @param query the query selecting the rows, without the row limiting and the locking clauses.
+     * @param limit the maximum number of the rows to lock.
+     * @return the locking query.
+     */
+    public String selectForUpdateSkipLocked(String query, int limit) {
+        return query + " LIMIT " + limit + " FOR UPDATE SKIP LOCKED";
+    }
+
+    private static String placeholders(String... columns) {
+        return String.join(", ", Collections.nCopies(columns.length, "?"));
+    }
+
+    private static String rows(int rows, String... columns) {
+        return String.join(", ", Collections.nCopies(rows, "(" + placeholders(columns) + ")"));
+    }
+
+    private static String assignments(String keyColumn, String[] columns, String format) {
+        List<String> assignments = Arrays.stream(columns)
+                .filter(column -> !column.equals(keyColumn))
+                .map(column -> String.format(format, column))
+                .collect(Collectors.toList());
+        return String.join(", ", assignments);
+    }
+}
@@ -0,0 +1,196 @@
+package io.github.sergejsvisockis.jobs.codec;
+
+import io.github.sergejsvisockis.jobs.JobState;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * Base of the binary codecs, which write the fields one after another behind a version byte, without any
+ * reflection. The encoding is big-endian:
+ * <ul>
+ *     <li>a UUID is 16 bytes, a null one is the nil UUID</li>
+ *     <li>a timestamp is 8 bytes of microseconds since the epoch in UTC, a null one is {@link Long#MIN_VALUE}</li>
+ *     <li>a string is a 4 bytes length followed by the UTF-8 bytes, a null one has the length -1</li>
+ *     <li>a job state is a single byte of its code, a null one is 0</li>
+ * </ul>
+ * A new version could only append fields, hence a decoder supports all the versions up to its own.
+ *
+ * @param <T> the type of the value.
+ */
+abstract class BinaryCodec<T> implements Codec<T> {
+
+    static final String UNSUPPORTED_VERSION_MSG = "Unsupported %s encoding version %s, the latest supported is %s";
+    static final String MALFORMED_VALUE_MSG = "Malformed %s encoding";
+    static final String BUFFER_TOO_SMALL_MSG = "%s bytes are required to encode %s, but only %s are left";
+
+    static final int UUID_SIZE = 16;
+    static final int TIMESTAMP_SIZE = Long.BYTES;
+    static final int STATE_SIZE = 1;
+
+    private static final long NULL_TIMESTAMP = Long.MIN_VALUE;
+    private static final int NULL_STRING = -1;
+
+    private final String name;
+    private final byte version;
+
+    BinaryCodec(String name, byte version) {
+        this.name = name;
+        this.version = version;
+    }
+
+    /**
+     * @return the size of the encoded fields, without the version byte.
+     */
+    abstract int size(T value);
+
+    abstract void write(T value, ByteBuffer buffer);
+
+    abstract T read(byte version, ByteBuffer buffer);
+
+    @Override
+    public byte[] encode(T value) {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + size(value));
+        buffer.put(version);
+        write(value, buffer);
+        return buffer.array();
+    }
+
+    @Override
+    public T decode(byte[] bytes) {
+        return decode(ByteBuffer.wrap(bytes));
+    }
+
+    @Override
+    public void encode(T value, ByteBuffer buffer) {
+        int size = 1 + size(value);
+        if (buffer.remaining() < size) {
+            throw new IllegalStateException(String.format(BUFFER_TOO_SMALL_MSG, size, name, buffer.remaining()));
+        }
+        buffer.put(version);
+        write(value, buffer);
+    }
+
+    @Override
+    public T decode(ByteBuffer buffer) {
+        try {
+            byte encodedVersion = buffer.get();
+            if (encodedVersion < 1 || encodedVersion > version) {
+                throw new IllegalArgumentException(
+                        String.format(UNSUPPORTED_VERSION_MSG, name, encodedVersion, version));
+            }
+            return read(encodedVersion, buffer);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException(String.format(MALFORMED_VALUE_MSG, name), e);
+        }
+    }
+
+    static void writeUuid(UUID uuid, ByteBuffer buffer) {
+        if (uuid == null) {
+            buffer.putLong(0L).putLong(0L);
+        } else {
+            buffer.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+        }
+    }
+
+    static UUID readUuid(ByteBuffer buffer) {
+        long mostSigBits = buffer.getLong();
+        long leastSigBits = buffer.getLong();
+        return mostSigBits == 0L && leastSigBits == 0L ? null : new UUID(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * Writes a timestamp with microsecond precision, the nanoseconds are truncated.
+     */
+    static void writeTimestamp(LocalDateTime timestamp, ByteBuffer buffer) {
+        if (timestamp == null) {
+            buffer.putLong(NULL_TIMESTAMP);
+        } else {
+            buffer.putLong(Math.addExact(Math.multiplyExact(timestamp.toEpochSecond(ZoneOffset.UTC), 1_000_000L),
+                    timestamp.getNano() / 1_000));
+        }
+    }
+
+    static LocalDateTime readTimestamp(ByteBuffer buffer) {
+        long micros = buffer.getLong();
+        if (micros == NULL_TIMESTAMP) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    static int stringSize(String value) {
+        if (value == null) {
+            return Integer.BYTES;
+        }
+        int size = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                size += 1;
+            } else if (c < 0x800) {
+                size += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                size += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // an unpaired surrogate is encoded as the '?' replacement, see String.getBytes
+                size += 1;
+            } else {
+                size += 3;
+            }
+        }
+        return Integer.BYTES + size;
+    }
+
+    static void writeString(String value, ByteBuffer buffer) {
+        if (value == null) {
+            buffer.putInt(NULL_STRING);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_STRING) {
+            return null;
+        }
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException(String.format(MALFORMED_VALUE_MSG, name));
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    static void writeState(JobState state, ByteBuffer buffer) {
+        buffer.put(state == null ? 0 : (byte) state.getCode());
+    }
+
+    JobState readState(ByteBuffer buffer) {
+        byte code = buffer.get();
+        if (code == 0) {
+            return null;
+        }
+        try {
+            return JobState.fromCode(code);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format(MALFORMED_VALUE_MSG, name), e);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.sergejsvisockis.jobs.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts a value to bytes and back, e.g. to keep it in a key-value store or to send it over the network.
+ * See {@link Codecs} for the out of the box implementations.
+ *
+ * @param <T> the type of the value.
+ */
+public interface Codec<T> {
+
+    /**
+     * Encodes a value.
+     *
+     * @param value the value.
+     * @return the encoded value.
+     */
+    byte[] encode(T value);
+
+    /**
+     * Decodes a value.
+     *
+     * @param bytes the encoded value.
+     * @return the value.
+     * @throws IllegalArgumentException if the bytes are not a value encoded by this codec.
+     */
+    T decode(byte[] bytes);
+
+    /**
+     * Encodes a value into a buffer, starting at its position. The position is advanced past the encoded value.
+     *
+     * @param value  the value.
+     * @param buffer the buffer to encode into.
+     * @throws IllegalStateException if the buffer has not enough space left.
+     */
+    default void encode(T value, ByteBuffer buffer) {
+        buffer.put(encode(value));
+    }
+
+    /**
+     * Decodes a value from the remaining bytes of a buffer. The position is advanced past the decoded value.
+     *
+     * @param buffer the buffer to decode from.
+     * @return the value.
+     * @throws IllegalArgumentException if the bytes are not a value encoded by this codec.
+     */
+    default T decode(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return decode(bytes);
+    }
+}
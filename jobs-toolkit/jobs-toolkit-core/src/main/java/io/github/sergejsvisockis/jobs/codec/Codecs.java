@@ -0,0 +1,57 @@
+package io.github.sergejsvisockis.jobs.codec;
+
+import io.github.sergejsvisockis.jobs.JobDefinition;
+import io.github.sergejsvisockis.jobs.JobExecution;
+import io.github.sergejsvisockis.jobs.LockMetadata;
+
+/**
+ * Factory methods for the out of the box {@link Codec} implementations. The binary codecs are stateless
+ * and thread-safe, hence shared.
+ */
+public final class Codecs {
+
+    private static final Codec<LockMetadata> LOCK_METADATA = new LockMetadataCodec();
+    private static final Codec<JobExecution> JOB_EXECUTION = new JobExecutionCodec();
+    private static final Codec<JobDefinition> JOB_DEFINITION = new JobDefinitionCodec();
+
+    private Codecs() {
+    }
+
+    /**
+     * Get the binary codec of the lock metadata, e.g. 65 bytes for a 16 characters long job name.
+     *
+     * @return the binary lock metadata codec.
+     */
+    public static Codec<LockMetadata> lockMetadata() {
+        return LOCK_METADATA;
+    }
+
+    /**
+     * Get the binary codec of the job execution, the last run is kept with microsecond precision.
+     *
+     * @return the binary job execution codec.
+     */
+    public static Codec<JobExecution> jobExecution() {
+        return JOB_EXECUTION;
+    }
+
+    /**
+     * Get the binary codec of the job definition.
+     *
+     * @return the binary job definition codec.
+     */
+    public static Codec<JobDefinition> jobDefinition() {
+        return JOB_DEFINITION;
+    }
+
+    /**
+     * Create a JSON codec.
+     *
+     * @param type the class of the value.
+     * @param <T>  the type of the value.
+     * @return the JSON codec.
+     */
+    public static <T> Codec<T> json(Class<T> type) {
+        return new JsonCodec<>(type);
+    }
+}
@@ -0,0 +1,41 @@
+package io.github.sergejsvisockis.jobs.codec;
+
+import io.github.sergejsvisockis.jobs.JobDefinition;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes {@link JobDefinition} as: version, job name, job description, max concurrency.
+ * The max concurrency has been appended in version 2, a version 1 encoding is decoded with a single run allowed.
+ */
+final class JobDefinitionCodec extends BinaryCodec<JobDefinition> {
+
+    static final byte VERSION = 2;
+
+    JobDefinitionCodec() {
+        super("job definition", VERSION);
+    }
+
+    @Override
+    int size(JobDefinition value) {
+        return stringSize(value.getJobName()) + stringSize(value.getJobDescription()) + Integer.BYTES;
+    }
+
+    @Override
+    void write(JobDefinition value, ByteBuffer buffer) {
+        writeString(value.getJobName(), buffer);
+        writeString(value.getJobDescription(), buffer);
+        buffer.putInt(value.getMaxConcurrency());
+    }
+
+    @Override
+    JobDefinition read(byte version, ByteBuffer buffer) {
+        JobDefinition.Builder builder = new JobDefinition.Builder()
+                .withJobName(readString(buffer))
+                .withJobDescription(readString(buffer));
+        if (version >= 2) {
+            builder.withMaxConcurrency(buffer.getInt());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.sergejsvisockis.jobs.codec;
+
+import io.github.sergejsvisockis.jobs.JobExecution;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes {@link JobExecution} as: version, execution id, last run, state, job name.
+ */
+final class JobExecutionCodec extends BinaryCodec<JobExecution> {
+
+    static final byte VERSION = 1;
+
+    JobExecutionCodec() {
+        super("job execution", VERSION);
+    }
+
+    @Override
+    int size(JobExecution value) {
+        return UUID_SIZE + TIMESTAMP_SIZE + STATE_SIZE + stringSize(value.getJobName());
+    }
+
+    @Override
+    void write(JobExecution value, ByteBuffer buffer) {
+        writeUuid(value.getExecutionId(), buffer);
+        writeTimestamp(value.getLastRun(), buffer);
+        writeState(value.getState(), buffer);
+        writeString(value.getJobName(), buffer);
+    }
+
+    @Override
+    JobExecution read(byte version, ByteBuffer buffer) {
+        return new JobExecution.Builder()
+                .withExecutionId(readUuid(buffer))
+                .withLastRun(readTimestamp(buffer))
+                .withState(readState(buffer))
+                .withJobName(readString(buffer))
+                .build();
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.sergejsvisockis.jobs.codec;
+
+import io.github.sergejsvisockis.jobs.JsonUtil;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes values as JSON by the means of {@link JsonUtil}, which is human-readable and tolerates added fields,
+ * but is larger and slower than the binary codecs.
+ *
+ * @param <T> the type of the value.
+ */
+public class JsonCodec<T> implements Codec<T> {
+
+    private final Class<T> type;
+
+    /**
+     * Creates a JSON codec.
+     *
+     * @param type the class of the value.
+     */
+    public JsonCodec(Class<T> type) {
+        this.type = type;
+    }
+
+    @Override
+    public byte[] encode(T value) {
+        return JsonUtil.toBytes(value);
+    }
+
+    @Override
+    public T decode(byte[] bytes) {
+        try {
+            return JsonUtil.fromBytes(bytes, type);
+        } catch (IllegalStateException e) {
+            throw new IllegalArgumentException(e.getMessage(), e.getCause());
+        }
+    }
+
+    @Override
+    public void encode(T value, ByteBuffer buffer) {
+        JsonUtil.writeTo(value, buffer);
+    }
+
+    @Override
+    public T decode(ByteBuffer buffer) {
+        try {
+            return JsonUtil.readFrom(buffer, type);
+        } catch (IllegalStateException e) {
+            throw new IllegalArgumentException(e.getMessage(), e.getCause());
+        }
+    }
+}
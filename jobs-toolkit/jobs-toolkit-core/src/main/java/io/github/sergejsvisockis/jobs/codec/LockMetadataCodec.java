@@ -0,0 +1,55 @@
+package io.github.sergejsvisockis.jobs.codec;
+
+import io.github.sergejsvisockis.jobs.LockMetadata;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes {@link LockMetadata} as: version, lock id, locked at, expires at, job name, permit, fencing token.
+ * The permit has been appended in version 2, a version 1 encoding is decoded as an exclusive lock.
+ * The fencing token has been appended in version 3, the earlier encodings are decoded without a token.
+ */
+final class LockMetadataCodec extends BinaryCodec<LockMetadata> {
+
+    static final byte VERSION = 3;
+
+    private static final int NO_PERMIT = -1;
+    private static final long NO_FENCING_TOKEN = Long.MIN_VALUE;
+
+    LockMetadataCodec() {
+        super("lock metadata", VERSION);
+    }
+
+    @Override
+    int size(LockMetadata value) {
+        return UUID_SIZE + 2 * TIMESTAMP_SIZE + stringSize(value.getJobName()) + Integer.BYTES + Long.BYTES;
+    }
+
+    @Override
+    void write(LockMetadata value, ByteBuffer buffer) {
+        writeUuid(value.getLockId(), buffer);
+        writeTimestamp(value.getLockedAt(), buffer);
+        writeTimestamp(value.getExpiresAt(), buffer);
+        writeString(value.getJobName(), buffer);
+        buffer.putInt(value.getPermit() != null ? value.getPermit() : NO_PERMIT);
+        buffer.putLong(value.getFencingToken() != null ? value.getFencingToken() : NO_FENCING_TOKEN);
+    }
+
+    @Override
+    LockMetadata read(byte version, ByteBuffer buffer) {
+        LockMetadata.Builder builder = new LockMetadata.Builder()
+                .withLockId(readUuid(buffer))
+                .withLockedAt(readTimestamp(buffer))
+                .withExpiresAt(readTimestamp(buffer))
+                .withJobName(readString(buffer));
+        if (version >= 2) {
+            int permit = buffer.getInt();
+            builder.withPermit(permit != NO_PERMIT ? permit : null);
+        }
+        if (version >= 3) {
+            long fencingToken = buffer.getLong();
+            builder.withFencingToken(fencingToken != NO_FENCING_TOKEN ? fencingToken : null);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.sergejsvisockis.jobs.executor;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs jobs on a fixed size thread pool with a bounded queue.
+ * Once both the pool and the queue are saturated new job runs are rejected instead of piling up threads.
+ */
+public class BoundedPoolJobExecutor implements JobExecutor {
+
+    static final String INVALID_POOL_SIZE_MSG = "Pool size has to be positive, but was %s";
+    static final String INVALID_QUEUE_CAPACITY_MSG = "Queue capacity has to be positive, but was %s";
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Creates a bounded pool.
+     *
+     * @param poolSize      the number of threads in the pool.
+     * @param queueCapacity the maximum number of job runs waiting for a free thread.
+     */
+    public BoundedPoolJobExecutor(int poolSize, int queueCapacity) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException(String.format(INVALID_POOL_SIZE_MSG, poolSize));
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException(String.format(INVALID_QUEUE_CAPACITY_MSG, queueCapacity));
+        }
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new JobThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static final class JobThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger POOL_NUMBER = new AtomicInteger(1);
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+        private final String prefix = "jobs-toolkit-" + POOL_NUMBER.getAndIncrement() + "-";
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.sergejsvisockis.jobs.executor;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a job directly on the thread which has triggered it, e.g. a scheduler thread of the host framework.
+ * Useful once the framework already provides its own thread management.
+ */
+public class CallerThreadJobExecutor implements JobExecutor {
+
+    static final String EXECUTOR_SHUT_DOWN_MSG = "Executor has been shut down";
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    private volatile boolean shutdown;
+
+    @Override
+    public void execute(Runnable command) {
+        if (shutdown) {
+            throw new RejectedExecutionException(EXECUTOR_SHUT_DOWN_MSG);
+        }
+        activeCount.incrementAndGet();
+        try {
+            command.run();
+        } finally {
+            activeCount.decrementAndGet();
+        }
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return 0;
+    }
+
+    @Override
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+}
@@ -0,0 +1,39 @@
+package io.github.sergejsvisockis.jobs.executor;
+
+import java.util.concurrent.Executor;
+
+/**
+ * An execution strategy which decides on which thread a job is being run once triggered.
+ * Out of the box provides a shared bounded pool, a virtual thread per trigger and a caller thread implementations,
+ * see {@link JobExecutors} for the factory methods.
+ */
+public interface JobExecutor extends Executor {
+
+    /**
+     * Submit a job run for an execution.
+     *
+     * @param command the job run to execute.
+     * @throws java.util.concurrent.RejectedExecutionException if the executor is not able to accept the job run.
+     */
+    @Override
+    void execute(Runnable command);
+
+    /**
+     * Get the number of job runs which have been submitted but not yet started.
+     *
+     * @return the number of queued job runs.
+     */
+    int getQueueDepth();
+
+    /**
+     * Get the number of job runs which are being executed right now.
+     *
+     * @return the number of active job runs.
+     */
+    int getActiveCount();
+
+    /**
+     * Stop accepting new job runs. Already submitted job runs are let to complete.
+     */
+    void shutdown();
+}
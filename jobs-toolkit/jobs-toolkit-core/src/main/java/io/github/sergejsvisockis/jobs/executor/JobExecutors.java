@@ -0,0 +1,59 @@
+package io.github.sergejsvisockis.jobs.executor;
+
+/**
+ * Factory methods for the out of the box {@link JobExecutor} implementations.
+ */
+public final class JobExecutors {
+
+    static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private JobExecutors() {
+    }
+
+    /**
+     * Get the pool shared by all the jobs which have not been given an executor explicitly.
+     * The pool has as many threads as there are available processors, but not less than four,
+     * and is created lazily on the first call.
+     *
+     * @return the shared bounded pool.
+     */
+    public static JobExecutor sharedPool() {
+        return SharedPoolHolder.INSTANCE;
+    }
+
+    /**
+     * Create a new bounded pool.
+     *
+     * @param poolSize      the number of threads in the pool.
+     * @param queueCapacity the maximum number of job runs waiting for a free thread.
+     * @return the bounded pool.
+     */
+    public static JobExecutor boundedPool(int poolSize, int queueCapacity) {
+        return new BoundedPoolJobExecutor(poolSize, queueCapacity);
+    }
+
+    /**
+     * Create an executor which starts a virtual thread per job run.
+     *
+     * @return the virtual thread executor.
+     * @throws IllegalStateException if the running JVM does not support virtual threads.
+     */
+    public static JobExecutor virtualThreads() {
+        return new VirtualThreadJobExecutor();
+    }
+
+    /**
+     * Create an executor which runs a job on the thread which has triggered it.
+     *
+     * @return the caller thread executor.
+     */
+    public static JobExecutor callerThread() {
+        return new CallerThreadJobExecutor();
+    }
+
+    private static final class SharedPoolHolder {
+
+        private static final JobExecutor INSTANCE = new BoundedPoolJobExecutor(
+                Math.max(4, Runtime.getRuntime().availableProcessors()), DEFAULT_QUEUE_CAPACITY);
+    }
+}
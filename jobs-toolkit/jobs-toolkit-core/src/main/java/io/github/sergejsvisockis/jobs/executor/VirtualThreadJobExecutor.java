@@ -0,0 +1,96 @@
+package io.github.sergejsvisockis.jobs.executor;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Starts a new virtual thread per job run.
+ * Virtual threads are cheap to create, hence there is no pooling and nothing is ever queued.
+ * Requires JDK 21 onwards, the factory is being looked up at runtime since the library itself targets JDK 17.
+ */
+public class VirtualThreadJobExecutor implements JobExecutor {
+
+    static final String VIRTUAL_THREADS_NOT_SUPPORTED_MSG = "Virtual threads are not supported by this JVM, JDK 21 onwards is required";
+    static final String EXECUTOR_SHUT_DOWN_MSG = "Executor has been shut down";
+
+    // the virtual threads are a preview API of JDK 19 and 20, which fails without --enable-preview
+    private static final int VIRTUAL_THREADS_FEATURE_VERSION = 21;
+
+    private final ThreadFactory threadFactory;
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    private volatile boolean shutdown;
+
+    /**
+     * Creates a virtual thread executor.
+     *
+     * @throws IllegalStateException if the running JVM does not support virtual threads.
+     */
+    public VirtualThreadJobExecutor() {
+        this.threadFactory = virtualThreadFactory();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (shutdown) {
+            throw new RejectedExecutionException(EXECUTOR_SHUT_DOWN_MSG);
+        }
+        activeCount.incrementAndGet();
+        try {
+            threadFactory.newThread(() -> {
+                try {
+                    command.run();
+                } finally {
+                    activeCount.decrementAndGet();
+                }
+            }).start();
+        } catch (RuntimeException e) {
+            activeCount.decrementAndGet();
+            throw new RejectedExecutionException(e);
+        }
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return 0;
+    }
+
+    @Override
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    /**
+     * Checks whether the running JVM is able to start virtual threads.
+     *
+     * @return true if virtual threads are supported.
+     */
+    public static boolean isSupported() {
+        try {
+            virtualThreadFactory();
+            return true;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    private static ThreadFactory virtualThreadFactory() {
+        if (Runtime.version().feature() < VIRTUAL_THREADS_FEATURE_VERSION) {
+            throw new IllegalStateException(VIRTUAL_THREADS_NOT_SUPPORTED_MSG);
+        }
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "jobs-toolkit-virtual-", 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (Exception e) {
+            throw new IllegalStateException(VIRTUAL_THREADS_NOT_SUPPORTED_MSG, e);
+        }
+    }
+}
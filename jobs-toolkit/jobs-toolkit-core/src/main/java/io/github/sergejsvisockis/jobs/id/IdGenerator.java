@@ -0,0 +1,18 @@
+package io.github.sergejsvisockis.jobs.id;
+
+import java.util.UUID;
+
+/**
+ * Generates the ids of the executions and the locks.
+ * Out of the box provides a time ordered and a random implementations, see {@link IdGenerators} for the factory methods.
+ */
+@FunctionalInterface
+public interface IdGenerator {
+
+    /**
+     * Generate a new unique id.
+     *
+     * @return the id.
+     */
+    UUID generate();
+}
@@ -0,0 +1,33 @@
+package io.github.sergejsvisockis.jobs.id;
+
+/**
+ * Factory methods for the out of the box {@link IdGenerator} implementations.
+ */
+public final class IdGenerators {
+
+    private IdGenerators() {
+    }
+
+    /**
+     * Get the generator of the time ordered version 7 UUIDs shared by all the repositories by default.
+     *
+     * @return the shared time ordered generator.
+     */
+    public static IdGenerator timeOrdered() {
+        return TimeOrderedHolder.INSTANCE;
+    }
+
+    /**
+     * Create a generator of the random version 4 UUIDs.
+     *
+     * @return the random generator.
+     */
+    public static IdGenerator random() {
+        return new RandomIdGenerator();
+    }
+
+    private static final class TimeOrderedHolder {
+
+        private static final IdGenerator INSTANCE = new TimeOrderedIdGenerator();
+    }
+}
@@ -0,0 +1,14 @@
+package io.github.sergejsvisockis.jobs.id;
+
+import java.util.UUID;
+
+/**
+ * Generates random version 4 UUIDs, as the repositories used to before the time ordered ids.
+ */
+public class RandomIdGenerator implements IdGenerator {
+
+    @Override
+    public UUID generate() {
+        return UUID.randomUUID();
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.sergejsvisockis.jobs.id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates version 7 UUIDs, see RFC 9562, which start with the Unix epoch timestamp in milliseconds.
+ * Ids generated later sort after the ones generated earlier, hence the inserts of new rows land at the right edge
+ * of the primary key index instead of all over it.
+ * <p>
+ * The 12 bits following the timestamp are a counter, which keeps the ids monotonic within the same millisecond and
+ * once the clock goes backwards: the timestamp of the last id is carried on then, and the counter overflow advances it.
+ * The state is a single atomic value updated by a compare-and-set loop, so that the generation is lock-free.
+ * The remaining 62 bits are random, taken from {@link ThreadLocalRandom} rather than the contended {@code SecureRandom},
+ * as the ids are not meant to be unguessable.
+ * </p>
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+
+    private static final int COUNTER_BITS = 12;
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000_0000_0000_0000L;
+    private static final long RANDOM_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+
+    private final LongSupplier clock;
+    private final AtomicLong lastTimestampAndCounter = new AtomicLong();
+
+    public TimeOrderedIdGenerator() {
+        this(System::currentTimeMillis);
+    }
+
+    TimeOrderedIdGenerator(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public UUID generate() {
+        long timestampAndCounter = nextTimestampAndCounter();
+        long timestamp = timestampAndCounter >>> COUNTER_BITS;
+        long counter = timestampAndCounter & ((1L << COUNTER_BITS) - 1);
+
+        long mostSigBits = (timestamp << 16) | VERSION | counter;
+        long leastSigBits = VARIANT | (ThreadLocalRandom.current().nextLong() & RANDOM_MASK);
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    private long nextTimestampAndCounter() {
+        long now = clock.getAsLong() << COUNTER_BITS;
+        while (true) {
+            long last = lastTimestampAndCounter.get();
+            long next = now > last ? now : last + 1;
+            if (lastTimestampAndCounter.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+}
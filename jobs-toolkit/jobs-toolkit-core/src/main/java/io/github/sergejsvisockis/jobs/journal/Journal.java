@@ -0,0 +1,307 @@
+package io.github.sergejsvisockis.jobs.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of records in a memory-mapped file, which backs the file repositories.
+ * <p>
+ * A record is framed by its length and its CRC32 checksum, the file is pre-allocated and zero-filled, hence
+ * the first zero length marks the end of the journal. A record torn by a crash fails the checksum, the journal
+ * then ends right before it. An append is a copy into the mapping, a record is durable only once
+ * {@link #sync(long)} has returned for its end position. The syncs are group committed: a single
+ * {@link MappedByteBuffer#force(int, int)} covers all the records appended up to that point, the concurrent
+ * syncs waiting for it return without forcing again.
+ * </p>
+ * <p>
+ * The journal is compacted by {@link #rewrite(Iterable)}, which writes the given records to a new file
+ * and atomically replaces the journal with it, the directory is synced so that the rename survives a crash.
+ * A mapping replaced on growth or compaction is unmapped right away rather than once garbage collected.
+ * </p>
+ */
+public final class Journal implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Journal.class);
+
+    /**
+     * The default size the journal file is pre-allocated with, it is doubled whenever full.
+     */
+    public static final int DEFAULT_INITIAL_CAPACITY = 1024 * 1024;
+
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    static final String FAILED_TO_OPEN_JOURNAL_MSG = "Failed to open the journal %s";
+    static final String FAILED_TO_GROW_JOURNAL_MSG = "Failed to grow the journal %s to %s bytes";
+    static final String FAILED_TO_REWRITE_JOURNAL_MSG = "Failed to rewrite the journal %s";
+    static final String JOURNAL_FULL_MSG = "The journal %s cannot grow beyond %s bytes";
+    static final String JOURNAL_CLOSED_MSG = "The journal %s has been closed";
+
+    private static final Unmapper UNMAPPER = Unmapper.create();
+
+    private final Path file;
+    private final Object forceLock = new Object();
+
+    private FileChannel channel;
+    private volatile MappedByteBuffer buffer;
+    private volatile int position;
+    private volatile int forcedPosition;
+    private boolean replayed;
+    private boolean closed;
+
+    /**
+     * Opens the journal, creating the file if it does not exist.
+     *
+     * @param file            the journal file.
+     * @param initialCapacity the size a new journal file is pre-allocated with.
+     */
+    public Journal(Path file, int initialCapacity) {
+        this.file = file;
+        try {
+            this.channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), initialCapacity));
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format(FAILED_TO_OPEN_JOURNAL_MSG, file), e);
+        }
+    }
+
+    /**
+     * Reads all the records, the oldest first. Has to be called once before the first append,
+     * which is placed right after the last valid record.
+     *
+     * @param consumer consumes the payload of each record.
+     */
+    public synchronized void replay(Consumer<ByteBuffer> consumer) {
+        MappedByteBuffer mapping = buffer;
+        int pos = 0;
+        int length = 0;
+        while (pos + HEADER_SIZE <= mapping.capacity()) {
+            length = mapping.getInt(pos);
+            if (length <= 0 || pos + HEADER_SIZE + length > mapping.capacity()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            mapping.get(pos + HEADER_SIZE, payload);
+            if (checksum(payload) != mapping.getInt(pos + Integer.BYTES)) {
+                break;
+            }
+            consumer.accept(ByteBuffer.wrap(payload));
+            pos += HEADER_SIZE + length;
+        }
+        if (length != 0) {
+            // a torn or corrupted tail, cleared so that it is never mistaken for a record later on
+            for (int i = pos; i < mapping.capacity(); i++) {
+                mapping.put(i, (byte) 0);
+            }
+            mapping.force();
+        }
+        position = pos;
+        forcedPosition = pos;
+        replayed = true;
+    }
+
+    /**
+     * Appends a record, which is not durable until synced.
+     *
+     * @param payload the record payload.
+     * @return the end position of the record to sync to.
+     */
+    public synchronized int append(byte[] payload) {
+        if (closed) {
+            throw new IllegalStateException(String.format(JOURNAL_CLOSED_MSG, file));
+        }
+        if (!replayed) {
+            replay(record -> {
+            });
+        }
+        int end = position + HEADER_SIZE + payload.length;
+        if (end < 0) {
+            throw new IllegalStateException(String.format(JOURNAL_FULL_MSG, file, Integer.MAX_VALUE));
+        }
+        ensureCapacity(end);
+        MappedByteBuffer mapping = buffer;
+        // the length goes last, so that a record is never visible before its payload
+        mapping.putInt(position + Integer.BYTES, checksum(payload));
+        mapping.put(position + HEADER_SIZE, payload);
+        mapping.putInt(position, payload.length);
+        position = end;
+        return end;
+    }
+
+    /**
+     * Makes all the records up to the given position durable.
+     *
+     * @param end the end position of the last record to make durable.
+     */
+    public void sync(int end) {
+        if (forcedPosition >= end) {
+            return;
+        }
+        synchronized (forceLock) {
+            if (forcedPosition >= end) {
+                return;
+            }
+            // the mapping is read after the position, hence it covers all the records up to the position
+            int target = position;
+            MappedByteBuffer mapping = buffer;
+            int from = Math.min(forcedPosition, target);
+            mapping.force(from, target - from);
+            forcedPosition = target;
+        }
+    }
+
+    /**
+     * @return the number of bytes taken by the records.
+     */
+    public int size() {
+        return position;
+    }
+
+    /**
+     * Replaces all the records of the journal with the given ones, durably. Appends are blocked meanwhile.
+     *
+     * @param payloads the payloads of the records to keep.
+     */
+    public synchronized void rewrite(Iterable<byte[]> payloads) {
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        try {
+            int size = 0;
+            try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (byte[] payload : payloads) {
+                    ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payload.length)
+                            .putInt(payload.length)
+                            .putInt(checksum(payload))
+                            .put(payload)
+                            .flip();
+                    while (record.hasRemaining()) {
+                        out.write(record);
+                    }
+                    size += HEADER_SIZE + payload.length;
+                }
+                out.force(true);
+            }
+            synchronized (forceLock) {
+                MappedByteBuffer replaced = buffer;
+                channel.close();
+                Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                syncDirectory();
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                        Math.max(DEFAULT_INITIAL_CAPACITY, Integer.highestOneBit(Math.max(size, 1)) * 2L));
+                position = size;
+                forcedPosition = size;
+                UNMAPPER.unmap(replaced);
+            }
+            replayed = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format(FAILED_TO_REWRITE_JOURNAL_MSG, file), e);
+        }
+    }
+
+    /**
+     * Makes all the records durable and closes the file.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        sync(position);
+        try {
+            synchronized (forceLock) {
+                UNMAPPER.unmap(buffer);
+            }
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void ensureCapacity(int end) {
+        MappedByteBuffer mapping = buffer;
+        if (end <= mapping.capacity()) {
+            return;
+        }
+        long capacity = mapping.capacity();
+        while (capacity < end) {
+            capacity *= 2;
+        }
+        capacity = Math.min(capacity, Integer.MAX_VALUE);
+        try {
+            synchronized (forceLock) {
+                mapping.force();
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+                UNMAPPER.unmap(mapping);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format(FAILED_TO_GROW_JOURNAL_MSG, file, capacity), e);
+        }
+    }
+
+    private void syncDirectory() throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        }
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Releases a mapping without waiting for it to be garbage collected, the mapping must not be accessed
+     * afterwards. Falls back to the garbage collector whenever the JDK does not expose the cleaner.
+     */
+    private static final class Unmapper {
+
+        private final Object unsafe;
+        private final Method invokeCleaner;
+
+        private Unmapper(Object unsafe, Method invokeCleaner) {
+            this.unsafe = unsafe;
+            this.invokeCleaner = invokeCleaner;
+        }
+
+        static Unmapper create() {
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                return new Unmapper(theUnsafe.get(null), unsafeClass.getMethod("invokeCleaner", ByteBuffer.class));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                LOG.debug("The journal mappings are released by the garbage collector", e);
+                return new Unmapper(null, null);
+            }
+        }
+
+        void unmap(MappedByteBuffer mapping) {
+            if (invokeCleaner == null) {
+                return;
+            }
+            try {
+                invokeCleaner.invoke(unsafe, mapping);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                LOG.debug("Failed to unmap the journal mapping, it is released by the garbage collector", e);
+            }
+        }
+    }
+}
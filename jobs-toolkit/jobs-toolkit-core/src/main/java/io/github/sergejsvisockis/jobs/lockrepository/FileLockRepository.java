@@ -0,0 +1,376 @@
+package io.github.sergejsvisockis.jobs.lockrepository;
+
+import io.github.sergejsvisockis.jobs.LockMetadata;
+import io.github.sergejsvisockis.jobs.codec.Codec;
+import io.github.sergejsvisockis.jobs.codec.Codecs;
+import io.github.sergejsvisockis.jobs.id.IdGenerator;
+import io.github.sergejsvisockis.jobs.id.IdGenerators;
+import io.github.sergejsvisockis.jobs.journal.Journal;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.github.sergejsvisockis.jobs.lockrepository.InMemoryLockRepository.LOCK_ALREADY_HELD_MSG;
+
+/**
+ * File lock implementation for a single node without a database, which keeps the held locks across restarts,
+ * hence a job which was running when the node died stays locked until its lease expires.
+ * <p>
+ * Every acquisition, release and renewal is appended to a memory-mapped {@link Journal} before the call returns,
+ * the concurrent changes share a single flush to the disk. On construction the journal is replayed to rebuild
+ * the held locks. Once the journal has grown past the compaction threshold and twice its size after the previous
+ * compaction, it is rewritten with the held locks and the last fencing token of every job only.
+ * The records are encoded by {@link Codecs#lockMetadata()}.
+ * </p>
+ * <p>
+ * Same as {@link JdbcLockRepository}, once constructed with a lease duration every lock expires unless it is
+ * renewed by the {@link LockLeaseRenewer} of the repository.
+ * </p>
+ * <p>
+ * The permits of the jobs allowing concurrent runs are kept per job in a map keyed by the permit slot and journaled
+ * the same way the locks are, the records tell them apart by the permit slot.
+ * </p>
+ */
+public class FileLockRepository implements PermitLockRepository, LeaseLockRepository, AutoCloseable {
+
+    /**
+     * The default journal size which triggers a compaction, the renewals keep appending to the journal.
+     */
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 4 * 1024 * 1024;
+
+    static final String UNKNOWN_RECORD_TYPE_MSG = "Unknown lock journal record type %s";
+
+    private static final byte ACQUIRED = 1;
+    private static final byte RELEASED = 2;
+    private static final byte RENEWED = 3;
+    private static final byte FENCING_TOKEN = 4;
+
+    private static final Codec<LockMetadata> CODEC = Codecs.lockMetadata();
+
+    private final Map<String, LockMetadata> locks = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, LockMetadata>> permits = new ConcurrentHashMap<>();
+    private final Map<String, Long> fencingTokens = new HashMap<>();
+    private final Journal journal;
+    private final LockLeaseRenewer leaseRenewer;
+    private final int compactionThreshold;
+    private int compactedSize;
+    private IdGenerator idGenerator = IdGenerators.timeOrdered();
+
+    /**
+     * Opens the repository, the locks are acquired without a lease.
+     *
+     * @param file the journal file, created if it does not exist.
+     */
+    public FileLockRepository(Path file) {
+        this(file, null, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Opens the repository which acquires locks with a lease and keeps renewing them while held.
+     *
+     * @param file          the journal file, created if it does not exist.
+     * @param leaseDuration the lease duration of the acquired locks.
+     */
+    public FileLockRepository(Path file, Duration leaseDuration) {
+        this(file, leaseDuration, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Opens the repository.
+     *
+     * @param file                the journal file, created if it does not exist.
+     * @param leaseDuration       the lease duration of the acquired locks, or null for the locks without a lease.
+     * @param compactionThreshold the journal size in bytes which triggers a compaction.
+     */
+    public FileLockRepository(Path file, Duration leaseDuration, int compactionThreshold) {
+        this.journal = new Journal(file, Journal.DEFAULT_INITIAL_CAPACITY);
+        this.leaseRenewer = leaseDuration != null ? new LockLeaseRenewer(this, leaseDuration) : null;
+        this.compactionThreshold = compactionThreshold;
+        journal.replay(this::apply);
+        this.compactedSize = journal.size();
+    }
+
+    /**
+     * Set the generator of the lock ids, time ordered ids are generated by default.
+     *
+     * @param idGenerator the id generator.
+     */
+    public void setIdGenerator(IdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+    }
+
+    @Override
+    public Optional<LockMetadata> fetchLockMetadata(String jobName) {
+        return Optional.ofNullable(locks.get(jobName));
+    }
+
+    @Override
+    public LockMetadata acquireLock(String jobName) {
+        LockMetadata lockMetadata;
+        int end;
+        synchronized (this) {
+            LockMetadata held = locks.get(jobName);
+            if (held != null) {
+                throw new IllegalStateException(String.format(LOCK_ALREADY_HELD_MSG, jobName, held.getLockId()));
+            }
+            lockMetadata = newLockMetadata(jobName, null);
+            locks.put(jobName, lockMetadata);
+            end = append(ACQUIRED, lockMetadata);
+        }
+        journal.sync(end);
+        registerLease(lockMetadata);
+        return lockMetadata;
+    }
+
+    @Override
+    public Optional<LockMetadata> tryAcquireLock(String jobName) {
+        LockMetadata lockMetadata;
+        int end;
+        synchronized (this) {
+            LockMetadata held = locks.get(jobName);
+            // the lock could still be taken over once its lease has expired
+            if (held != null && !isExpired(held, LocalDateTime.now())) {
+                return Optional.empty();
+            }
+            lockMetadata = newLockMetadata(jobName, null);
+            locks.put(jobName, lockMetadata);
+            end = append(ACQUIRED, lockMetadata);
+        }
+        journal.sync(end);
+        registerLease(lockMetadata);
+        return Optional.of(lockMetadata);
+    }
+
+    @Override
+    public Optional<LockMetadata> tryAcquirePermit(String jobName, int permits) {
+        if (permits < 1) {
+            throw new IllegalArgumentException(String.format(INVALID_PERMITS_MSG, permits));
+        }
+        LockMetadata lockMetadata = null;
+        int end;
+        synchronized (this) {
+            Map<Integer, LockMetadata> slots = slots(jobName);
+            LocalDateTime now = LocalDateTime.now();
+            for (int permit = 0; permit < permits && lockMetadata == null; permit++) {
+                LockMetadata held = slots.get(permit);
+                // the slot could still be taken over once its lease has expired
+                if (held == null || isExpired(held, now)) {
+                    lockMetadata = newLockMetadata(jobName, permit);
+                    slots.put(permit, lockMetadata);
+                }
+            }
+            if (lockMetadata == null) {
+                return Optional.empty();
+            }
+            end = append(ACQUIRED, lockMetadata);
+        }
+        journal.sync(end);
+        registerLease(lockMetadata);
+        return Optional.of(lockMetadata);
+    }
+
+    @Override
+    public int countPermitsInUse(String jobName) {
+        Map<Integer, LockMetadata> slots = permits.get(jobName);
+        if (slots == null) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return (int) slots.values().stream()
+                .filter(held -> !isExpired(held, now))
+                .count();
+    }
+
+    @Override
+    public void releaseLock(LockMetadata lockMetadata) {
+        if (leaseRenewer != null) {
+            leaseRenewer.unregister(lockMetadata);
+        }
+        int end;
+        synchronized (this) {
+            // only the holder releases the lock, a lock taken over in the meantime is kept
+            if (!release(lockMetadata)) {
+                return;
+            }
+            end = append(RELEASED, lockMetadata);
+        }
+        journal.sync(end);
+        LockWaiters.signalReleased(lockMetadata.getJobName());
+    }
+
+    @Override
+    public List<LockMetadata> renewLocks(Collection<LockMetadata> lockMetadata, Duration leaseDuration) {
+        LocalDateTime expiresAt = LocalDateTime.now().plus(leaseDuration);
+        List<LockMetadata> renewed = new ArrayList<>();
+        int end = 0;
+        synchronized (this) {
+            for (LockMetadata lock : lockMetadata) {
+                LockMetadata renewal = withExpiresAt(lock, expiresAt);
+                if (renew(renewal)) {
+                    end = append(RENEWED, renewal);
+                    renewed.add(lock);
+                }
+            }
+        }
+        journal.sync(end);
+        return renewed;
+    }
+
+    /**
+     * Rewrites the journal with the held locks and the last fencing tokens only.
+     */
+    public synchronized void compact() {
+        List<byte[]> records = new ArrayList<>();
+        for (Map.Entry<String, Long> fencingToken : fencingTokens.entrySet()) {
+            records.add(record(FENCING_TOKEN, new LockMetadata.Builder()
+                    .withJobName(fencingToken.getKey())
+                    .withFencingToken(fencingToken.getValue())
+                    .build()));
+        }
+        for (LockMetadata lockMetadata : locks.values()) {
+            records.add(record(ACQUIRED, lockMetadata));
+        }
+        for (Map<Integer, LockMetadata> slots : permits.values()) {
+            for (LockMetadata lockMetadata : slots.values()) {
+                records.add(record(ACQUIRED, lockMetadata));
+            }
+        }
+        journal.rewrite(records);
+        compactedSize = journal.size();
+    }
+
+    /**
+     * Stops renewing the leases of the held locks and closes the journal.
+     */
+    @Override
+    public void close() {
+        if (leaseRenewer != null) {
+            leaseRenewer.close();
+        }
+        synchronized (this) {
+            journal.close();
+        }
+    }
+
+    private boolean release(LockMetadata lockMetadata) {
+        return lockMetadata.getPermit() == null
+                ? releaseIfHeld(locks, lockMetadata.getJobName(), lockMetadata)
+                : releaseIfHeld(slots(lockMetadata.getJobName()), lockMetadata.getPermit(), lockMetadata);
+    }
+
+    private boolean renew(LockMetadata renewal) {
+        return renewal.getPermit() == null
+                ? renewIfHeld(locks, renewal.getJobName(), renewal)
+                : renewIfHeld(slots(renewal.getJobName()), renewal.getPermit(), renewal);
+    }
+
+    private static <K> boolean releaseIfHeld(Map<K, LockMetadata> held, K key, LockMetadata lockMetadata) {
+        LockMetadata current = held.get(key);
+        return current != null && current.getLockId().equals(lockMetadata.getLockId()) && held.remove(key, current);
+    }
+
+    private static <K> boolean renewIfHeld(Map<K, LockMetadata> held, K key, LockMetadata renewal) {
+        LockMetadata current = held.get(key);
+        return current != null && current.getLockId().equals(renewal.getLockId()) && held.replace(key, current, renewal);
+    }
+
+    private Map<Integer, LockMetadata> slots(String jobName) {
+        return permits.computeIfAbsent(jobName, name -> new ConcurrentHashMap<>());
+    }
+
+    private int append(byte type, LockMetadata lockMetadata) {
+        int end = journal.append(record(type, lockMetadata));
+        if (end > compactionThreshold && end > 2 * compactedSize) {
+            compact();
+            end = journal.size();
+        }
+        return end;
+    }
+
+    private void apply(ByteBuffer record) {
+        byte type = record.get();
+        LockMetadata lockMetadata = CODEC.decode(record);
+        switch (type) {
+            case ACQUIRED:
+                if (lockMetadata.getPermit() == null) {
+                    locks.put(lockMetadata.getJobName(), lockMetadata);
+                } else {
+                    slots(lockMetadata.getJobName()).put(lockMetadata.getPermit(), lockMetadata);
+                }
+                restoreFencingToken(lockMetadata);
+                break;
+            case FENCING_TOKEN:
+                restoreFencingToken(lockMetadata);
+                break;
+            case RELEASED:
+                release(lockMetadata);
+                break;
+            case RENEWED:
+                renew(lockMetadata);
+                break;
+            default:
+                throw new IllegalStateException(String.format(UNKNOWN_RECORD_TYPE_MSG, type));
+        }
+    }
+
+    private void restoreFencingToken(LockMetadata lockMetadata) {
+        // the locks journaled before the fencing tokens were introduced carry none
+        if (lockMetadata.getFencingToken() != null) {
+            fencingTokens.merge(lockMetadata.getJobName(), lockMetadata.getFencingToken(), Math::max);
+        }
+    }
+
+    /**
+     * Creates the lock being acquired, called under the monitor of the repository together with the journal append,
+     * hence the fencing tokens of a job are issued in the same order the locks are acquired in.
+     */
+    private LockMetadata newLockMetadata(String jobName, Integer permit) {
+        LocalDateTime lockedAt = LocalDateTime.now();
+        return new LockMetadata.Builder()
+                .withJobName(jobName)
+                .withLockId(idGenerator.generate())
+                .withLockedAt(lockedAt)
+                .withExpiresAt(leaseRenewer != null ? lockedAt.plus(leaseRenewer.getLeaseDuration()) : null)
+                .withPermit(permit)
+                .withFencingToken(fencingTokens.merge(jobName, 1L, Long::sum))
+                .build();
+    }
+
+    private void registerLease(LockMetadata lockMetadata) {
+        if (leaseRenewer != null) {
+            leaseRenewer.register(lockMetadata);
+        }
+    }
+
+    private static boolean isExpired(LockMetadata lockMetadata, LocalDateTime now) {
+        return lockMetadata.getExpiresAt() != null && lockMetadata.getExpiresAt().isBefore(now);
+    }
+
+    private static LockMetadata withExpiresAt(LockMetadata lockMetadata, LocalDateTime expiresAt) {
+        return new LockMetadata.Builder()
+                .withLockId(lockMetadata.getLockId())
+                .withJobName(lockMetadata.getJobName())
+                .withLockedAt(lockMetadata.getLockedAt())
+                .withExpiresAt(expiresAt)
+                .withPermit(lockMetadata.getPermit())
+                .withFencingToken(lockMetadata.getFencingToken())
+                .build();
+    }
+
+    private static byte[] record(byte type, LockMetadata lockMetadata) {
+        byte[] payload = CODEC.encode(lockMetadata);
+        byte[] record = new byte[payload.length + 1];
+        record[0] = type;
+        System.arraycopy(payload, 0, record, 1, payload.length);
+        return record;
+    }
+}
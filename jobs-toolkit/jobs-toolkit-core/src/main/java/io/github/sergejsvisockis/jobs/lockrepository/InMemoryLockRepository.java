@@ -0,0 +1,219 @@
+package io.github.sergejsvisockis.jobs.lockrepository;
+
+import io.github.sergejsvisockis.jobs.LockMetadata;
+import io.github.sergejsvisockis.jobs.id.IdGenerator;
+import io.github.sergejsvisockis.jobs.id.IdGenerators;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-memory lock implementation for a single node, e.g. for a deployment without a database or for the tests.
+ * The locks are kept in a {@link ConcurrentHashMap} keyed by the job name, a lock is acquired or an expired one
+ * is taken over by a single atomic {@code compute}, which issues the next fencing token of the job at the same time.
+ * <p>
+ * Same as {@link JdbcLockRepository}, once constructed with a lease duration every lock expires unless it is renewed
+ * by the {@link LockLeaseRenewer} of the repository, which is released on {@link #close()}.
+ * </p>
+ * <p>
+ * The permits of the jobs allowing concurrent runs are kept per job in a map keyed by the permit slot,
+ * every slot is acquired and taken over the same way a lock is.
+ * </p>
+ */
+public class InMemoryLockRepository implements PermitLockRepository, LeaseLockRepository, AutoCloseable {
+
+    static final String LOCK_ALREADY_HELD_MSG = "Failed to acquire a lock for a job with name=%s, the lock is held by lock=%s";
+
+    private final ConcurrentMap<String, LockMetadata> locks = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<Integer, LockMetadata>> permits = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> fencingTokens = new ConcurrentHashMap<>();
+    private final LockLeaseRenewer leaseRenewer;
+    private IdGenerator idGenerator = IdGenerators.timeOrdered();
+
+    public InMemoryLockRepository() {
+        this.leaseRenewer = null;
+    }
+
+    /**
+     * Creates a repository which acquires locks with a lease and keeps renewing them while held.
+     *
+     * @param leaseDuration the lease duration of the acquired locks.
+     */
+    public InMemoryLockRepository(Duration leaseDuration) {
+        this.leaseRenewer = new LockLeaseRenewer(this, leaseDuration);
+    }
+
+    /**
+     * Set the generator of the lock ids, time ordered ids are generated by default.
+     *
+     * @param idGenerator the id generator.
+     */
+    public void setIdGenerator(IdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+    }
+
+    @Override
+    public Optional<LockMetadata> fetchLockMetadata(String jobName) {
+        return Optional.ofNullable(locks.get(jobName));
+    }
+
+    @Override
+    public LockMetadata acquireLock(String jobName) {
+        UUID lockId = idGenerator.generate();
+        LocalDateTime lockedAt = LocalDateTime.now();
+        LockMetadata held = locks.compute(jobName,
+                (name, current) -> current == null ? newLockMetadata(lockId, name, null, lockedAt) : current);
+        if (!held.getLockId().equals(lockId)) {
+            throw new IllegalStateException(String.format(LOCK_ALREADY_HELD_MSG, jobName, held.getLockId()));
+        }
+        registerLease(held);
+        return held;
+    }
+
+    @Override
+    public Optional<LockMetadata> tryAcquireLock(String jobName) {
+        UUID lockId = idGenerator.generate();
+        LocalDateTime lockedAt = LocalDateTime.now();
+        // the lock could still be taken over once its lease has expired
+        LockMetadata held = locks.compute(jobName, (name, current) -> current == null || isExpired(current, lockedAt)
+                ? newLockMetadata(lockId, name, null, lockedAt)
+                : current);
+        return acquired(held, lockId);
+    }
+
+    @Override
+    public Optional<LockMetadata> tryAcquirePermit(String jobName, int permits) {
+        if (permits < 1) {
+            throw new IllegalArgumentException(String.format(INVALID_PERMITS_MSG, permits));
+        }
+        ConcurrentMap<Integer, LockMetadata> slots = this.permits.computeIfAbsent(jobName, name -> new ConcurrentHashMap<>());
+        UUID lockId = idGenerator.generate();
+        LocalDateTime lockedAt = LocalDateTime.now();
+        for (int permit = 0; permit < permits; permit++) {
+            LockMetadata held = slots.compute(permit, (slot, current) -> current == null || isExpired(current, lockedAt)
+                    ? newLockMetadata(lockId, jobName, slot, lockedAt)
+                    : current);
+            if (held.getLockId().equals(lockId)) {
+                return acquired(held, lockId);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public int countPermitsInUse(String jobName) {
+        ConcurrentMap<Integer, LockMetadata> slots = permits.get(jobName);
+        if (slots == null) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return (int) slots.values().stream()
+                .filter(held -> !isExpired(held, now))
+                .count();
+    }
+
+    @Override
+    public void releaseLock(LockMetadata lockMetadata) {
+        if (leaseRenewer != null) {
+            leaseRenewer.unregister(lockMetadata);
+        }
+        // only the holder releases the lock, a lock taken over in the meantime is kept
+        computeIfHeld(lockMetadata, held -> null);
+        LockWaiters.signalReleased(lockMetadata.getJobName());
+    }
+
+    @Override
+    public List<LockMetadata> renewLocks(Collection<LockMetadata> lockMetadata, Duration leaseDuration) {
+        LocalDateTime expiresAt = LocalDateTime.now().plus(leaseDuration);
+        List<LockMetadata> renewed = new ArrayList<>();
+        for (LockMetadata lock : lockMetadata) {
+            LockMetadata held = computeIfHeld(lock, current -> withExpiresAt(current, expiresAt));
+            if (held != null && isHeldBy(held, lock)) {
+                renewed.add(lock);
+            }
+        }
+        return renewed;
+    }
+
+    /**
+     * Stops renewing the leases of the held locks.
+     */
+    @Override
+    public void close() {
+        if (leaseRenewer != null) {
+            leaseRenewer.close();
+        }
+    }
+
+    /**
+     * Creates the lock being acquired, called within the atomic compute of the lock, hence the fencing tokens
+     * of a job are issued in the same order the locks are acquired in.
+     */
+    private LockMetadata newLockMetadata(UUID lockId, String jobName, Integer permit, LocalDateTime lockedAt) {
+        return new LockMetadata.Builder()
+                .withJobName(jobName)
+                .withLockId(lockId)
+                .withLockedAt(lockedAt)
+                .withExpiresAt(leaseRenewer != null ? lockedAt.plus(leaseRenewer.getLeaseDuration()) : null)
+                .withPermit(permit)
+                .withFencingToken(fencingTokens.merge(jobName, 1L, Long::sum))
+                .build();
+    }
+
+    private Optional<LockMetadata> acquired(LockMetadata held, UUID lockId) {
+        if (!held.getLockId().equals(lockId)) {
+            return Optional.empty();
+        }
+        registerLease(held);
+        return Optional.of(held);
+    }
+
+    /**
+     * Remaps the exclusive lock or the permit slot atomically, only while it is still held by the given lock.
+     *
+     * @return the lock held afterwards, or null if none.
+     */
+    private LockMetadata computeIfHeld(LockMetadata lockMetadata, UnaryOperator<LockMetadata> remapping) {
+        BiFunction<Object, LockMetadata, LockMetadata> ifHeld =
+                (key, held) -> isHeldBy(held, lockMetadata) ? remapping.apply(held) : held;
+        if (lockMetadata.getPermit() == null) {
+            return locks.computeIfPresent(lockMetadata.getJobName(), ifHeld);
+        }
+        ConcurrentMap<Integer, LockMetadata> slots = permits.get(lockMetadata.getJobName());
+        return slots != null ? slots.computeIfPresent(lockMetadata.getPermit(), ifHeld) : null;
+    }
+
+    private static boolean isHeldBy(LockMetadata held, LockMetadata lockMetadata) {
+        return held.getLockId().equals(lockMetadata.getLockId());
+    }
+
+    private void registerLease(LockMetadata lockMetadata) {
+        if (leaseRenewer != null) {
+            leaseRenewer.register(lockMetadata);
+        }
+    }
+
+    private static boolean isExpired(LockMetadata lockMetadata, LocalDateTime now) {
+        return lockMetadata.getExpiresAt() != null && lockMetadata.getExpiresAt().isBefore(now);
+    }
+
+    private static LockMetadata withExpiresAt(LockMetadata lockMetadata, LocalDateTime expiresAt) {
+        return new LockMetadata.Builder()
+                .withLockId(lockMetadata.getLockId())
+                .withJobName(lockMetadata.getJobName())
+                .withLockedAt(lockMetadata.getLockedAt())
+                .withExpiresAt(expiresAt)
+                .withPermit(lockMetadata.getPermit())
+                .withFencingToken(lockMetadata.getFencingToken())
+                .build();
+    }
+}
@@ -1,29 +1,137 @@
 package io.github.sergejsvisockis.jobs.lockrepository;
 
+import io.github.sergejsvisockis.jobs.ColumnCodec;
+import io.github.sergejsvisockis.jobs.JobNotFoundException;
 import io.github.sergejsvisockis.jobs.LockMetadata;
+import io.github.sergejsvisockis.jobs.SqlDialect;
+import io.github.sergejsvisockis.jobs.id.IdGenerator;
+import io.github.sergejsvisockis.jobs.id.IdGenerators;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
-public class JdbcLockRepository implements LockRepository {
+import static io.github.sergejsvisockis.jobs.JdbcUtil.isUniqueConstraintViolation;
 
-    private static final String QUERY_FIND_LOCK_METADATA = "SELECT l.lock_id, l.job_name, l.locked_at FROM lock_metadata l WHERE job_name = ?";
-    private static final String QUERY_ACQUIRE_LOCK = "INSERT INTO lock_metadata(lock_id, job_name, locked_at) VALUES (?, ?, ?)";
-    private static final String QUERY_RELEASE_JOB_LOCK = "DELETE FROM lock_metadata WHERE lock_id = ?";
+/**
+ * JDBC lock implementation. Relies on the unique key on the job name of the lock metadata table,
+ * see the jobs_ddl_v1.1.0.sql migration, to make the lock acquisition a single atomic insert.
+ * <p>
+ * Once constructed with a lease duration, every lock expires unless it is renewed, which is done by a single
+ * {@link LockLeaseRenewer} per repository for all the locks it holds. An expired lock is taken over
+ * by a single conditional update. Locks without an expiry, e.g. acquired without a lease, never expire.
+ * On the databases with a conditional upsert, see {@link SqlDialect}, the lock is either acquired or taken over
+ * by a single statement.
+ * </p>
+ * <p>
+ * Every acquisition increments the fencing token counter of the job definition within the same transaction,
+ * see {@link LockMetadata#getFencingToken()}, the transaction is rolled back unless the lock has been acquired.
+ * </p>
+ * <p>
+ * The permits of the jobs allowing concurrent runs are rows of the lock permit table keyed by the job name
+ * and the permit slot. The slots in use are read first, then a free slot is taken by a single atomic insert,
+ * or an expired one is taken over by a conditional update.
+ * </p>
+ * <p>
+ * The statements acquiring and releasing the locks and the permits are shared with
+ * {@link io.github.sergejsvisockis.jobs.repository.JdbcJobLifecycleRepository}, see {@link JdbcLockStatements}.
+ * </p>
+ */
+public class JdbcLockRepository implements PermitLockRepository, LeaseLockRepository, AutoCloseable {
+
+    private static final String QUERY_FIND_LOCK_METADATA = "SELECT l.lock_id, l.job_name, l.locked_at, l.expires_at, l.fencing_token FROM lock_metadata l WHERE job_name = ?";
+    private static final String QUERY_RENEW_LOCKS = "UPDATE lock_metadata SET expires_at = ? WHERE lock_id IN (%s)";
+    private static final String QUERY_COUNT_PERMITS_IN_USE = "SELECT COUNT(*) FROM lock_permit p WHERE p.job_name = ? AND (p.expires_at IS NULL OR p.expires_at >= ?)";
+    private static final String QUERY_RENEW_PERMITS = "UPDATE lock_permit SET expires_at = ? WHERE lock_id IN (%s)";
+    private static final String QUERY_FIND_HELD_LOCKS = "SELECT l.lock_id FROM lock_metadata l WHERE l.lock_id IN (%s)";
+    private static final String QUERY_FIND_HELD_PERMITS = "SELECT p.lock_id FROM lock_permit p WHERE p.lock_id IN (%s)";
+
+    /**
+     * Keeps the IN list of a renewal below the limits of the databases, e.g. 1000 for Oracle.
+     */
+    static final int RENEW_BATCH_SIZE = 500;
 
     static final String FAILED_TO_GET_LOCK_METADATA_MSG = "Failed to get a lock metadata for a job with name=%s";
     static final String FAILED_TO_ACQUIRE_LOCK_MSG = "Failed to acquire a lock for a job with name=%s";
     static final String FAILED_TO_RELEASE_LOCK_MSG = "Failed to release a lock for a job with name=%s locked at =%s with a lock=%s";
+    static final String FAILED_TO_RENEW_LOCKS_MSG = "Failed to renew %s locks";
+    static final String FAILED_TO_ACQUIRE_PERMIT_MSG = "Failed to acquire a permit for a job with name=%s";
+    static final String FAILED_TO_COUNT_PERMITS_MSG = "Failed to count the permits in use for a job with name=%s";
 
     private final DataSource dataSource;
+    private final LockLeaseRenewer leaseRenewer;
+    private final String upsertLock;
+    private IdGenerator idGenerator = IdGenerators.timeOrdered();
+    private ColumnCodec columnCodec = ColumnCodec.TEXT;
 
     public JdbcLockRepository(DataSource dataSource) {
+        this(dataSource, SqlDialect.detect(dataSource));
+    }
+
+    /**
+     * Creates a repository which acquires locks with a lease and keeps renewing them while held.
+     *
+     * @param dataSource    the data source.
+     * @param leaseDuration the lease duration of the acquired locks.
+     */
+    public JdbcLockRepository(DataSource dataSource, Duration leaseDuration) {
+        this(dataSource, SqlDialect.detect(dataSource), leaseDuration);
+    }
+
+    /**
+     * Creates a repository for the given dialect, which saves the dialect detection on construction.
+     *
+     * @param dataSource the data source.
+     * @param dialect    the dialect of the database.
+     */
+    public JdbcLockRepository(DataSource dataSource, SqlDialect dialect) {
         this.dataSource = dataSource;
+        this.leaseRenewer = null;
+        this.upsertLock = upsertLock(dialect);
+    }
+
+    /**
+     * Creates a repository for the given dialect which acquires locks with a lease.
+     *
+     * @param dataSource    the data source.
+     * @param dialect       the dialect of the database.
+     * @param leaseDuration the lease duration of the acquired locks.
+     */
+    public JdbcLockRepository(DataSource dataSource, SqlDialect dialect, Duration leaseDuration) {
+        this.dataSource = dataSource;
+        this.leaseRenewer = new LockLeaseRenewer(this, leaseDuration);
+        this.upsertLock = upsertLock(dialect);
+    }
+
+    /**
+     * Set the codec of the id and the state columns, {@link ColumnCodec#TEXT} matches the default schema.
+     *
+     * @param columnCodec the column codec.
+     */
+    public void setColumnCodec(ColumnCodec columnCodec) {
+        this.columnCodec = columnCodec;
+    }
+
+    /**
+     * Set the generator of the lock ids, time ordered ids are generated by default.
+     *
+     * @param idGenerator the id generator.
+     */
+    public void setIdGenerator(IdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
     }
 
     @Override
@@ -36,13 +144,17 @@ public class JdbcLockRepository implements LockRepository {
             try (ResultSet rs = pstmt.executeQuery()) {
 
                 if (rs.next()) {
-                    String lockId = rs.getString(1);
+                    UUID lockId = columnCodec.readId(rs, 1);
                     String name = rs.getString(2);
                     Timestamp lockedAt = rs.getTimestamp(3);
+                    Timestamp expiresAt = rs.getTimestamp(4);
+                    long fencingToken = rs.getLong(5);
                     return Optional.of(new LockMetadata.Builder()
-                            .withLockId(UUID.fromString(lockId))
+                            .withLockId(lockId)
                             .withJobName(name)
                             .withLockedAt(lockedAt.toLocalDateTime())
+                            .withExpiresAt(expiresAt != null ? expiresAt.toLocalDateTime() : null)
+                            .withFencingToken(rs.wasNull() ? null : fencingToken)
                             .build());
                 }
 
@@ -57,38 +169,116 @@ public class JdbcLockRepository implements LockRepository {
     @Override
     public LockMetadata acquireLock(String jobName) {
 
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(QUERY_ACQUIRE_LOCK)) {
+        try (Connection conn = dataSource.getConnection()) {
+
+            LockMetadata lockMetadata = acquireInTransaction(conn, jobName, fencingToken -> {
+                LockMetadata newLock = newLockMetadata(jobName, null, fencingToken);
+                return JdbcLockStatements.insertLock(conn, columnCodec, newLock) ? Optional.of(newLock) : Optional.empty();
+            }).orElseThrow();
+
+            registerLease(lockMetadata);
+            return lockMetadata;
+
+        } catch (JobNotFoundException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(String.format(FAILED_TO_ACQUIRE_LOCK_MSG, jobName), e);
+        }
+
+    }
 
-            UUID lockId = UUID.randomUUID();
-            Timestamp lockedAt = new Timestamp(System.currentTimeMillis());
+    @Override
+    public Optional<LockMetadata> tryAcquireLock(String jobName) {
+
+        try (Connection conn = dataSource.getConnection()) {
 
-            pstmt.setString(1, lockId.toString());
-            pstmt.setString(2, jobName);
-            pstmt.setTimestamp(3, lockedAt);
+            Optional<LockMetadata> lockMetadata = acquireInTransaction(conn, jobName, fencingToken -> {
+                LockMetadata newLock = newLockMetadata(jobName, null, fencingToken);
 
-            pstmt.executeUpdate();
+                if (upsertLock != null) {
+                    // a single statement either inserts the lock or takes over the expired one
+                    try (PreparedStatement pstmt = conn.prepareStatement(upsertLock)) {
+                        JdbcLockStatements.bindLockMetadata(pstmt, columnCodec, newLock);
+                        pstmt.setTimestamp(6, Timestamp.valueOf(newLock.getLockedAt()));
+                        return pstmt.executeUpdate() == 1 ? Optional.of(newLock) : Optional.empty();
+                    } catch (SQLException e) {
+                        if (isUniqueConstraintViolation(e)) {
+                            // a MERGE racing with a concurrent insert of the lock fails on the unique key,
+                            // e.g. ORA-00001 on Oracle, instead of finding the lock held
+                            return Optional.empty();
+                        }
+                        throw e;
+                    }
+                }
 
-            return new LockMetadata.Builder()
-                    .withJobName(jobName)
-                    .withLockId(lockId)
-                    .withLockedAt(lockedAt.toLocalDateTime())
-                    .build();
+                // the lock could still be taken over once its lease has expired, otherwise it is inserted unless held
+                return JdbcLockStatements.takeOverExpiredLock(conn, columnCodec, newLock)
+                        || JdbcLockStatements.insertLock(conn, columnCodec, newLock)
+                        ? Optional.of(newLock)
+                        : Optional.empty();
+            });
 
+            lockMetadata.ifPresent(this::registerLease);
+            return lockMetadata;
+
+        } catch (JobNotFoundException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException(String.format(FAILED_TO_ACQUIRE_LOCK_MSG, jobName), e);
         }
+    }
+
+    @Override
+    public Optional<LockMetadata> tryAcquirePermit(String jobName, int permits) {
+
+        if (permits < 1) {
+            throw new IllegalArgumentException(String.format(INVALID_PERMITS_MSG, permits));
+        }
 
+        try (Connection conn = dataSource.getConnection()) {
+
+            Optional<LockMetadata> lockMetadata = acquireInTransaction(conn, jobName,
+                    fencingToken -> JdbcLockStatements.acquirePermit(conn, columnCodec, jobName, permits,
+                            permit -> newLockMetadata(jobName, permit, fencingToken)));
+
+            lockMetadata.ifPresent(this::registerLease);
+            return lockMetadata;
+
+        } catch (JobNotFoundException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(String.format(FAILED_TO_ACQUIRE_PERMIT_MSG, jobName), e);
+        }
     }
 
     @Override
-    public void releaseLock(LockMetadata lockMetadata) {
+    public int countPermitsInUse(String jobName) {
 
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(QUERY_RELEASE_JOB_LOCK)) {
+             PreparedStatement pstmt = conn.prepareStatement(QUERY_COUNT_PERMITS_IN_USE)) {
 
-            pstmt.setString(1, lockMetadata.getLockId().toString());
-            pstmt.executeUpdate();
+            pstmt.setString(1, jobName);
+            pstmt.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+
+        } catch (Exception e) {
+            throw new RuntimeException(String.format(FAILED_TO_COUNT_PERMITS_MSG, jobName), e);
+        }
+    }
+
+    @Override
+    public void releaseLock(LockMetadata lockMetadata) {
+
+        if (leaseRenewer != null) {
+            leaseRenewer.unregister(lockMetadata);
+        }
+
+        try (Connection conn = dataSource.getConnection()) {
+
+            JdbcLockStatements.releaseLock(conn, columnCodec, lockMetadata);
+            LockWaiters.signalReleased(lockMetadata.getJobName());
 
         } catch (Exception e) {
             throw new RuntimeException(String.format(FAILED_TO_RELEASE_LOCK_MSG,
@@ -98,4 +288,140 @@ public class JdbcLockRepository implements LockRepository {
         }
 
     }
+
+    @Override
+    public List<LockMetadata> renewLocks(Collection<LockMetadata> lockMetadata, Duration leaseDuration) {
+
+        if (lockMetadata.isEmpty()) {
+            return List.of();
+        }
+
+        List<LockMetadata> locks = new ArrayList<>();
+        List<LockMetadata> permits = new ArrayList<>();
+        for (LockMetadata lock : lockMetadata) {
+            (lock.getPermit() == null ? locks : permits).add(lock);
+        }
+        Timestamp expiresAt = Timestamp.valueOf(LocalDateTime.now().plus(leaseDuration));
+
+        try (Connection conn = dataSource.getConnection()) {
+            List<LockMetadata> renewed = new ArrayList<>();
+            renewLocks(conn, QUERY_RENEW_LOCKS, QUERY_FIND_HELD_LOCKS, locks, expiresAt, renewed);
+            renewLocks(conn, QUERY_RENEW_PERMITS, QUERY_FIND_HELD_PERMITS, permits, expiresAt, renewed);
+            return renewed;
+        } catch (Exception e) {
+            throw new RuntimeException(String.format(FAILED_TO_RENEW_LOCKS_MSG, lockMetadata.size()), e);
+        }
+    }
+
+    private void renewLocks(Connection conn, String query, String findHeldQuery, List<LockMetadata> locks,
+                            Timestamp expiresAt, List<LockMetadata> renewed) throws SQLException {
+        for (int from = 0; from < locks.size(); from += RENEW_BATCH_SIZE) {
+            List<LockMetadata> batch = locks.subList(from, Math.min(from + RENEW_BATCH_SIZE, locks.size()));
+            String placeholders = String.join(", ", Collections.nCopies(batch.size(), "?"));
+
+            try (PreparedStatement pstmt = conn.prepareStatement(String.format(query, placeholders))) {
+                pstmt.setTimestamp(1, expiresAt);
+                for (int i = 0; i < batch.size(); i++) {
+                    columnCodec.bindId(pstmt, i + 2, batch.get(i).getLockId());
+                }
+                if (pstmt.executeUpdate() == batch.size()) {
+                    renewed.addAll(batch);
+                    continue;
+                }
+            }
+
+            // a lock taken over has got a new id, hence the ids still found are exactly the renewed ones
+            Set<UUID> held = findHeldLocks(conn, String.format(findHeldQuery, placeholders), batch);
+            for (LockMetadata lock : batch) {
+                if (held.contains(lock.getLockId())) {
+                    renewed.add(lock);
+                }
+            }
+        }
+    }
+
+    private Set<UUID> findHeldLocks(Connection conn, String query, List<LockMetadata> batch) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (int i = 0; i < batch.size(); i++) {
+                columnCodec.bindId(pstmt, i + 1, batch.get(i).getLockId());
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                Set<UUID> held = new HashSet<>();
+                while (rs.next()) {
+                    held.add(columnCodec.readId(rs, 1));
+                }
+                return held;
+            }
+        }
+    }
+
+    /**
+     * Stops renewing the leases of the held locks.
+     */
+    @Override
+    public void close() {
+        if (leaseRenewer != null) {
+            leaseRenewer.close();
+        }
+    }
+
+    /**
+     * Issues the next fencing token of the job and performs the acquisition within the same transaction,
+     * which is committed once the lock has been acquired and rolled back otherwise. The increment of the token
+     * holds the row lock of the job definition till the end of the transaction, hence the acquisitions of a job
+     * are serialized and the tokens are issued in the same order the locks are acquired in.
+     */
+    private Optional<LockMetadata> acquireInTransaction(Connection conn, String jobName,
+                                                        LockAcquisition acquisition) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            Optional<LockMetadata> lockMetadata = acquisition.acquire(JdbcLockStatements.issueFencingToken(conn, jobName));
+            if (lockMetadata.isPresent()) {
+                conn.commit();
+            } else {
+                conn.rollback();
+            }
+            return lockMetadata;
+        } catch (Exception e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private LockMetadata newLockMetadata(String jobName, Integer permit, long fencingToken) {
+        LocalDateTime lockedAt = LocalDateTime.now();
+        return new LockMetadata.Builder()
+                .withJobName(jobName)
+                .withLockId(idGenerator.generate())
+                .withLockedAt(lockedAt)
+                .withExpiresAt(leaseRenewer != null ? lockedAt.plus(leaseRenewer.getLeaseDuration()) : null)
+                .withPermit(permit)
+                .withFencingToken(fencingToken)
+                .build();
+    }
+
+    private void registerLease(LockMetadata lockMetadata) {
+        if (leaseRenewer != null) {
+            leaseRenewer.register(lockMetadata);
+        }
+    }
+
+    private static String upsertLock(SqlDialect dialect) {
+        return dialect.supportsConditionalUpsert()
+                ? dialect.conditionalUpsert("lock_metadata", "job_name", "lock_metadata.expires_at < ?",
+                "lock_id", "job_name", "locked_at", "expires_at", "fencing_token")
+                : null;
+    }
+
+    /**
+     * An acquisition performed once the fencing token has been issued.
+     */
+    @FunctionalInterface
+    private interface LockAcquisition {
+
+        Optional<LockMetadata> acquire(long fencingToken) throws SQLException;
+    }
 }
@@ -0,0 +1,254 @@
+package io.github.sergejsvisockis.jobs.lockrepository;
+
+import io.github.sergejsvisockis.jobs.ColumnCodec;
+import io.github.sergejsvisockis.jobs.JobNotFoundException;
+import io.github.sergejsvisockis.jobs.LockMetadata;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntFunction;
+
+import static io.github.sergejsvisockis.jobs.JdbcUtil.isUniqueConstraintViolation;
+
+/**
+ * The statements acquiring and releasing the locks and the permits on a given connection, shared by
+ * {@link JdbcLockRepository} and {@link io.github.sergejsvisockis.jobs.repository.JdbcJobLifecycleRepository},
+ * which acquires the lock within the transaction starting a run. The caller owns the transaction, an acquisition
+ * is supposed to be rolled back unless it has succeeded.
+ */
+public final class JdbcLockStatements {
+
+    private static final String QUERY_ISSUE_FENCING_TOKEN = "UPDATE job_definition SET fencing_token = fencing_token + 1 WHERE job_name = ?";
+    private static final String QUERY_FIND_FENCING_TOKEN = "SELECT j.fencing_token FROM job_definition j WHERE j.job_name = ?";
+    private static final String QUERY_ACQUIRE_LOCK = "INSERT INTO lock_metadata(lock_id, job_name, locked_at, expires_at, fencing_token) VALUES (?, ?, ?, ?, ?)";
+    private static final String QUERY_TAKE_OVER_EXPIRED_LOCK = "UPDATE lock_metadata SET lock_id = ?, locked_at = ?, expires_at = ?, fencing_token = ? WHERE job_name = ? AND expires_at < ?";
+    private static final String QUERY_RELEASE_JOB_LOCK = "DELETE FROM lock_metadata WHERE lock_id = ?";
+    private static final String QUERY_FIND_PERMITS = "SELECT p.permit, p.expires_at FROM lock_permit p WHERE p.job_name = ?";
+    private static final String QUERY_ACQUIRE_PERMIT = "INSERT INTO lock_permit(lock_id, job_name, locked_at, expires_at, fencing_token, permit) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String QUERY_TAKE_OVER_EXPIRED_PERMIT = "UPDATE lock_permit SET lock_id = ?, locked_at = ?, expires_at = ?, fencing_token = ? WHERE job_name = ? AND permit = ? AND expires_at < ?";
+    private static final String QUERY_RELEASE_PERMIT = "DELETE FROM lock_permit WHERE lock_id = ?";
+
+    private JdbcLockStatements() {
+    }
+
+    /**
+     * Increments the fencing token counter of the job. The increment holds the row lock of the job definition
+     * till the end of the transaction, hence the acquisitions of a job are serialized and the tokens are issued
+     * in the same order the locks are acquired in.
+     *
+     * @param conn    the connection within the acquisition transaction.
+     * @param jobName the name of the job.
+     * @throws JobNotFoundException if the job is not defined.
+     * @throws SQLException         if the update fails.
+     */
+    public static void incrementFencingToken(Connection conn, String jobName) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(QUERY_ISSUE_FENCING_TOKEN)) {
+            pstmt.setString(1, jobName);
+            if (pstmt.executeUpdate() == 0) {
+                throw new JobNotFoundException(jobName);
+            }
+        }
+    }
+
+    /**
+     * Increments the fencing token counter of the job and reads the token issued, see
+     * {@link #incrementFencingToken(Connection, String)}.
+     *
+     * @param conn    the connection within the acquisition transaction.
+     * @param jobName the name of the job.
+     * @return the fencing token issued.
+     * @throws JobNotFoundException if the job is not defined.
+     * @throws SQLException         if a statement fails.
+     */
+    public static long issueFencingToken(Connection conn, String jobName) throws SQLException {
+        incrementFencingToken(conn, jobName);
+        try (PreparedStatement pstmt = conn.prepareStatement(QUERY_FIND_FENCING_TOKEN)) {
+            pstmt.setString(1, jobName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    /**
+     * Inserts the exclusive lock unless it is held.
+     *
+     * @param conn         the connection within the acquisition transaction.
+     * @param columnCodec  the codec of the lock id.
+     * @param lockMetadata the lock to insert.
+     * @return whether the lock has been inserted, otherwise the transaction has to be rolled back.
+     * @throws SQLException if the insert fails other than by the lock being held.
+     */
+    public static boolean insertLock(Connection conn, ColumnCodec columnCodec, LockMetadata lockMetadata) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(QUERY_ACQUIRE_LOCK)) {
+            bindLockMetadata(pstmt, columnCodec, lockMetadata);
+            return pstmt.executeUpdate() == 1;
+        } catch (SQLException e) {
+            if (isUniqueConstraintViolation(e)) {
+                // the unique key on the job name has been hit, hence the lock is held elsewhere
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Takes over the exclusive lock of the job once its lease has expired.
+     *
+     * @param conn         the connection within the acquisition transaction.
+     * @param columnCodec  the codec of the lock id.
+     * @param lockMetadata the lock to take over with.
+     * @return whether the lock has been taken over.
+     * @throws SQLException if the update fails.
+     */
+    public static boolean takeOverExpiredLock(Connection conn, ColumnCodec columnCodec,
+                                              LockMetadata lockMetadata) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(QUERY_TAKE_OVER_EXPIRED_LOCK)) {
+            columnCodec.bindId(pstmt, 1, lockMetadata.getLockId());
+            pstmt.setTimestamp(2, Timestamp.valueOf(lockMetadata.getLockedAt()));
+            setNullableTimestamp(pstmt, 3, lockMetadata.getExpiresAt());
+            pstmt.setLong(4, lockMetadata.getFencingToken());
+            pstmt.setString(5, lockMetadata.getJobName());
+            pstmt.setTimestamp(6, Timestamp.valueOf(lockMetadata.getLockedAt()));
+            return pstmt.executeUpdate() == 1;
+        }
+    }
+
+    /**
+     * Takes a free permit slot of the job by an insert, or an expired one by a conditional update.
+     * The slots in use are read first, a free slot taken in between is skipped and the next one is tried.
+     *
+     * @param conn        the connection within the acquisition transaction.
+     * @param columnCodec the codec of the lock id.
+     * @param jobName     the name of the job.
+     * @param permits     the number of the permits of the job.
+     * @param newPermit   creates the permit to take for the given slot.
+     * @return the permit taken, or empty once all the permits are held and the transaction has to be rolled back.
+     * @throws SQLException if a statement fails other than by a slot being taken in between.
+     */
+    public static Optional<LockMetadata> acquirePermit(Connection conn, ColumnCodec columnCodec, String jobName,
+                                                       int permits, IntFunction<LockMetadata> newPermit) throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Integer, Timestamp> slotsInUse = fetchPermits(conn, jobName);
+
+        for (int permit = 0; permit < permits; permit++) {
+            if (!slotsInUse.containsKey(permit)) {
+                LockMetadata lockMetadata = newPermit.apply(permit);
+                if (insertPermit(conn, columnCodec, lockMetadata)) {
+                    return Optional.of(lockMetadata);
+                }
+            }
+        }
+
+        for (int permit = 0; permit < permits; permit++) {
+            Timestamp expiresAt = slotsInUse.get(permit);
+            if (expiresAt != null && expiresAt.toLocalDateTime().isBefore(now)) {
+                LockMetadata lockMetadata = newPermit.apply(permit);
+                if (takeOverExpiredPermit(conn, columnCodec, lockMetadata)) {
+                    return Optional.of(lockMetadata);
+                }
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Deletes the exclusive lock or the permit, only while it is still held by the given lock.
+     *
+     * @param conn         the connection.
+     * @param columnCodec  the codec of the lock id.
+     * @param lockMetadata the lock or the permit to release.
+     * @throws SQLException if the delete fails.
+     */
+    public static void releaseLock(Connection conn, ColumnCodec columnCodec, LockMetadata lockMetadata) throws SQLException {
+        String query = lockMetadata.getPermit() == null ? QUERY_RELEASE_JOB_LOCK : QUERY_RELEASE_PERMIT;
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            columnCodec.bindId(pstmt, 1, lockMetadata.getLockId());
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Binds the lock id, the job name, the locked at, the expires at and the fencing token, in this order.
+     *
+     * @param pstmt        the statement.
+     * @param columnCodec  the codec of the lock id.
+     * @param lockMetadata the lock to bind.
+     * @throws SQLException if a parameter fails to be bound.
+     */
+    static void bindLockMetadata(PreparedStatement pstmt, ColumnCodec columnCodec,
+                                 LockMetadata lockMetadata) throws SQLException {
+        columnCodec.bindId(pstmt, 1, lockMetadata.getLockId());
+        pstmt.setString(2, lockMetadata.getJobName());
+        pstmt.setTimestamp(3, Timestamp.valueOf(lockMetadata.getLockedAt()));
+        setNullableTimestamp(pstmt, 4, lockMetadata.getExpiresAt());
+        pstmt.setLong(5, lockMetadata.getFencingToken());
+    }
+
+    private static Map<Integer, Timestamp> fetchPermits(Connection conn, String jobName) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(QUERY_FIND_PERMITS)) {
+            pstmt.setString(1, jobName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                Map<Integer, Timestamp> permits = new HashMap<>();
+                while (rs.next()) {
+                    permits.put(rs.getInt(1), rs.getTimestamp(2));
+                }
+                return permits;
+            }
+        }
+    }
+
+    /**
+     * Inserts the permit behind a savepoint, as a failed statement aborts the whole transaction on some databases,
+     * PostgreSQL amongst them, and the remaining slots could not be tried otherwise.
+     */
+    private static boolean insertPermit(Connection conn, ColumnCodec columnCodec,
+                                        LockMetadata lockMetadata) throws SQLException {
+        Savepoint savepoint = conn.setSavepoint();
+        try (PreparedStatement pstmt = conn.prepareStatement(QUERY_ACQUIRE_PERMIT)) {
+            bindLockMetadata(pstmt, columnCodec, lockMetadata);
+            pstmt.setInt(6, lockMetadata.getPermit());
+            return pstmt.executeUpdate() == 1;
+        } catch (SQLException e) {
+            if (isUniqueConstraintViolation(e)) {
+                // the slot has been taken in between
+                conn.rollback(savepoint);
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private static boolean takeOverExpiredPermit(Connection conn, ColumnCodec columnCodec,
+                                                 LockMetadata lockMetadata) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(QUERY_TAKE_OVER_EXPIRED_PERMIT)) {
+            columnCodec.bindId(pstmt, 1, lockMetadata.getLockId());
+            pstmt.setTimestamp(2, Timestamp.valueOf(lockMetadata.getLockedAt()));
+            setNullableTimestamp(pstmt, 3, lockMetadata.getExpiresAt());
+            pstmt.setLong(4, lockMetadata.getFencingToken());
+            pstmt.setString(5, lockMetadata.getJobName());
+            pstmt.setInt(6, lockMetadata.getPermit());
+            pstmt.setTimestamp(7, Timestamp.valueOf(lockMetadata.getLockedAt()));
+            return pstmt.executeUpdate() == 1;
+        }
+    }
+
+    private static void setNullableTimestamp(PreparedStatement pstmt, int index, LocalDateTime value) throws SQLException {
+        if (value != null) {
+            pstmt.setTimestamp(index, Timestamp.valueOf(value));
+        } else {
+            pstmt.setNull(index, Types.TIMESTAMP);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.sergejsvisockis.jobs.lockrepository;
+
+import io.github.sergejsvisockis.jobs.LockMetadata;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A distributed lock whose locks expire unless their leases are extended, see {@link LockMetadata#getExpiresAt()}.
+ * A lock whose lease has expired, e.g. because the node holding it died, is taken over by the next acquisition.
+ * The leases of the locks held by a node are kept alive by a {@link LockLeaseRenewer}.
+ */
+public interface LeaseLockRepository extends LockRepository {
+
+    /**
+     * Extend the leases of the given locks, all held by this node, in a single batch.
+     * Locks which have been taken over by another node in the meantime are not renewed.
+     * Supposed to be called periodically by a {@link LockLeaseRenewer}.
+     *
+     * @param lockMetadata  the locks to renew.
+     * @param leaseDuration the duration the leases are extended by, counting from now.
+     * @return the locks which have been renewed, the rest have been lost.
+     */
+    List<LockMetadata> renewLocks(Collection<LockMetadata> lockMetadata, Duration leaseDuration);
+
+}
@@ -0,0 +1,196 @@
+package io.github.sergejsvisockis.jobs.lockrepository;
+
+import io.github.sergejsvisockis.jobs.LockMetadata;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Guards the wrapped, usually distributed, lock repository with a node-local lock per job, so that the triggers
+ * of a job which is already running on this node, e.g. overlapping fixed rate triggers of a slow job, are turned down
+ * without any I/O. Only the trigger which has won the local lock goes on to the wrapped repository.
+ * <p>
+ * The local locks are entries of a {@link ConcurrentHashMap} keyed by the job name, hence the triggers of
+ * different jobs never contend with each other. A local lock is held from the acquisition attempt until the
+ * distributed lock is released, or until the attempt has failed.
+ * </p>
+ * <p>
+ * The permits are forwarded to the wrapped repository once it is a {@link PermitLockRepository}. The permits held
+ * on this node are counted per job the same way, so that a trigger is turned down without any I/O once all the
+ * permits of the job are held by the runs on this node. The same goes for the lease renewal, which is forwarded
+ * once the wrapped repository is a {@link LeaseLockRepository}.
+ * </p>
+ */
+public class LocalGuardLockRepository implements PermitLockRepository, LeaseLockRepository, AutoCloseable {
+
+    static final String LOCK_HELD_LOCALLY_MSG = "Failed to acquire a lock for a job with name=%s, the job is running on this node";
+    static final String PERMITS_NOT_SUPPORTED_MSG = "Failed to acquire a permit for a job with name=%s, %s does not support permits";
+    static final String LEASES_NOT_SUPPORTED_MSG = "Failed to renew %s locks, %s does not support leases";
+    static final String FAILED_TO_CLOSE_MSG = "Failed to close the wrapped lock repository %s";
+
+    /**
+     * Marks a local lock whose distributed lock is being acquired.
+     */
+    private static final UUID ACQUIRING = new UUID(0L, 0L);
+
+    private final LockRepository delegate;
+    private final ConcurrentMap<String, UUID> localLocks = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Integer> localPermits = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a guard.
+     *
+     * @param delegate the repository of the distributed locks.
+     */
+    public LocalGuardLockRepository(LockRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Check whether a job holds the local lock, i.e. runs or is being started on this node.
+     *
+     * @param jobName the name of the job.
+     * @return whether the job holds the local lock.
+     */
+    public boolean isHeldLocally(String jobName) {
+        return localLocks.containsKey(jobName);
+    }
+
+    @Override
+    public Optional<LockMetadata> fetchLockMetadata(String jobName) {
+        return delegate.fetchLockMetadata(jobName);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if the job is already running on this node.
+     */
+    @Override
+    public LockMetadata acquireLock(String jobName) {
+        if (localLocks.putIfAbsent(jobName, ACQUIRING) != null) {
+            throw new IllegalStateException(String.format(LOCK_HELD_LOCALLY_MSG, jobName));
+        }
+        try {
+            LockMetadata lockMetadata = delegate.acquireLock(jobName);
+            localLocks.put(jobName, lockMetadata.getLockId());
+            return lockMetadata;
+        } catch (RuntimeException e) {
+            localLocks.remove(jobName, ACQUIRING);
+            throw e;
+        }
+    }
+
+    @Override
+    public Optional<LockMetadata> tryAcquireLock(String jobName) {
+        if (localLocks.putIfAbsent(jobName, ACQUIRING) != null) {
+            return Optional.empty();
+        }
+        Optional<LockMetadata> lockMetadata = Optional.empty();
+        try {
+            lockMetadata = delegate.tryAcquireLock(jobName);
+            lockMetadata.ifPresent(acquired -> localLocks.put(jobName, acquired.getLockId()));
+            return lockMetadata;
+        } finally {
+            if (lockMetadata.isEmpty()) {
+                localLocks.remove(jobName, ACQUIRING);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if the wrapped repository does not support permits.
+     */
+    @Override
+    public Optional<LockMetadata> tryAcquirePermit(String jobName, int permits) {
+        PermitLockRepository permitDelegate = permitDelegate(jobName);
+        if (permits < 1) {
+            throw new IllegalArgumentException(String.format(INVALID_PERMITS_MSG, permits));
+        }
+        if (localPermits.merge(jobName, 1, Integer::sum) > permits) {
+            releaseLocalPermit(jobName);
+            return Optional.empty();
+        }
+        Optional<LockMetadata> lockMetadata = Optional.empty();
+        try {
+            lockMetadata = permitDelegate.tryAcquirePermit(jobName, permits);
+            return lockMetadata;
+        } finally {
+            if (lockMetadata.isEmpty()) {
+                releaseLocalPermit(jobName);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if the wrapped repository does not support permits.
+     */
+    @Override
+    public int countPermitsInUse(String jobName) {
+        return permitDelegate(jobName).countPermitsInUse(jobName);
+    }
+
+    @Override
+    public void releaseLock(LockMetadata lockMetadata) {
+        try {
+            delegate.releaseLock(lockMetadata);
+        } finally {
+            // the local lock is released even if the distributed one has failed to, which then expires or is
+            // released manually, otherwise the job would never run on this node again
+            if (lockMetadata.getPermit() != null) {
+                releaseLocalPermit(lockMetadata.getJobName());
+                LockWaiters.signalReleased(lockMetadata.getJobName());
+            } else if (localLocks.remove(lockMetadata.getJobName(), lockMetadata.getLockId())) {
+                // the waiters going through this guard could only proceed now
+                LockWaiters.signalReleased(lockMetadata.getJobName());
+            }
+        }
+    }
+
+    @Override
+    public List<LockMetadata> renewLocks(Collection<LockMetadata> lockMetadata, Duration leaseDuration) {
+        if (!(delegate instanceof LeaseLockRepository)) {
+            throw new IllegalStateException(String.format(LEASES_NOT_SUPPORTED_MSG,
+                    lockMetadata.size(), delegate.getClass().getName()));
+        }
+        return ((LeaseLockRepository) delegate).renewLocks(lockMetadata, leaseDuration);
+    }
+
+    private PermitLockRepository permitDelegate(String jobName) {
+        if (!(delegate instanceof PermitLockRepository)) {
+            throw new IllegalStateException(String.format(PERMITS_NOT_SUPPORTED_MSG,
+                    jobName, delegate.getClass().getName()));
+        }
+        return (PermitLockRepository) delegate;
+    }
+
+    private void releaseLocalPermit(String jobName) {
+        localPermits.computeIfPresent(jobName, (name, held) -> held > 1 ? held - 1 : null);
+    }
+
+    /**
+     * Closes the wrapped repository if it is closeable, a checked exception it throws is wrapped.
+     */
+    @Override
+    public void close() {
+        if (!(delegate instanceof AutoCloseable)) {
+            return;
+        }
+        try {
+            ((AutoCloseable) delegate).close();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(String.format(FAILED_TO_CLOSE_MSG, delegate.getClass().getName()), e);
+        }
+    }
+}
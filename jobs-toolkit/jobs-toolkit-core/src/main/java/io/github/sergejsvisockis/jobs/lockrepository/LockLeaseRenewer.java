@@ -0,0 +1,180 @@
+package io.github.sergejsvisockis.jobs.lockrepository;
+
+import io.github.sergejsvisockis.jobs.LockMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the leases of all the locks held by this node alive.
+ * A single background thread renews all the registered locks with one {@link LeaseLockRepository#renewLocks} call
+ * per round, hence the heartbeat traffic does not grow with the number of jobs. A round takes place three times
+ * per lease duration, so that a lease survives a couple of failed rounds before it expires.
+ * <p>
+ * A lock which has not been renewed, since it has been taken over by another node once its lease had expired,
+ * is unregistered and its listener registered by {@link #onLeaseLost(LockMetadata, Runnable)} is notified,
+ * hence the run holding it could stop rather than keep going without the lock.
+ * </p>
+ */
+public class LockLeaseRenewer implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LockLeaseRenewer.class);
+
+    static final String INVALID_LEASE_DURATION_MSG = "Lease duration has to be positive, but was %s";
+
+    private final LeaseLockRepository lockRepository;
+    private final Duration leaseDuration;
+    private static final Map<UUID, Runnable> LEASE_LOST_LISTENERS = new ConcurrentHashMap<>();
+
+    private final Map<UUID, LockMetadata> heldLocks = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a renewer. The background thread is started lazily once the first lock is registered.
+     *
+     * @param lockRepository the repository to renew the locks with.
+     * @param leaseDuration  the lease duration of the locks.
+     */
+    public LockLeaseRenewer(LeaseLockRepository lockRepository, Duration leaseDuration) {
+        if (leaseDuration.isZero() || leaseDuration.isNegative()) {
+            throw new IllegalArgumentException(String.format(INVALID_LEASE_DURATION_MSG, leaseDuration));
+        }
+        this.lockRepository = lockRepository;
+        this.leaseDuration = leaseDuration;
+    }
+
+    /**
+     * Gets the lease duration of the locks.
+     *
+     * @return the lease duration.
+     */
+    public Duration getLeaseDuration() {
+        return leaseDuration;
+    }
+
+    /**
+     * Start renewing the lease of a newly acquired lock.
+     *
+     * @param lockMetadata the acquired lock.
+     */
+    public void register(LockMetadata lockMetadata) {
+        heldLocks.put(lockMetadata.getLockId(), lockMetadata);
+        startIfNeeded();
+    }
+
+    /**
+     * Stop renewing the lease of a released lock.
+     *
+     * @param lockMetadata the released lock.
+     */
+    public void unregister(LockMetadata lockMetadata) {
+        heldLocks.remove(lockMetadata.getLockId());
+    }
+
+    /**
+     * Listen for the lease of a lock to be lost, a lock is identified by its id across all the renewers.
+     * The listener is called once at most, on the renewal thread, and is removed afterward.
+     *
+     * @param lockMetadata the held lock.
+     * @param listener     called once the lock has been taken over.
+     */
+    public static void onLeaseLost(LockMetadata lockMetadata, Runnable listener) {
+        LEASE_LOST_LISTENERS.put(lockMetadata.getLockId(), listener);
+    }
+
+    /**
+     * Stop listening for the lease of a lock to be lost, e.g. once the lock has been released.
+     *
+     * @param lockMetadata the lock.
+     */
+    public static void removeLeaseLostListener(LockMetadata lockMetadata) {
+        LEASE_LOST_LISTENERS.remove(lockMetadata.getLockId());
+    }
+
+    /**
+     * Renew all the registered locks right away. The locks which have not been renewed are unregistered.
+     *
+     * @return the number of locks which have been renewed.
+     */
+    public int renew() {
+        List<LockMetadata> locks = List.copyOf(heldLocks.values());
+        if (locks.isEmpty()) {
+            return 0;
+        }
+        List<LockMetadata> renewed = lockRepository.renewLocks(locks, leaseDuration);
+        if (renewed.size() < locks.size()) {
+            Set<UUID> renewedIds = new HashSet<>();
+            for (LockMetadata lock : renewed) {
+                renewedIds.add(lock.getLockId());
+            }
+            for (LockMetadata lock : locks) {
+                if (!renewedIds.contains(lock.getLockId())) {
+                    leaseLost(lock);
+                }
+            }
+        }
+        return renewed.size();
+    }
+
+    /**
+     * Stops the background renewal. Leases of the locks which are still held expire on their own.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private synchronized void startIfNeeded() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "jobs-toolkit-lease-renewer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, leaseDuration.toMillis() / 3);
+        scheduler.scheduleWithFixedDelay(this::renewSafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void leaseLost(LockMetadata lockMetadata) {
+        // a lock released in the meantime is not renewed either, it is not reported then
+        if (heldLocks.remove(lockMetadata.getLockId()) == null) {
+            return;
+        }
+        LOG.warn("The lock of a job with name={} has been taken over after its lease expired, lockId={}",
+                lockMetadata.getJobName(), lockMetadata.getLockId());
+        Runnable listener = LEASE_LOST_LISTENERS.remove(lockMetadata.getLockId());
+        if (listener == null) {
+            return;
+        }
+        try {
+            listener.run();
+        } catch (RuntimeException e) {
+            LOG.error("Failed to notify the loss of the lock of a job with name={}", lockMetadata.getJobName(), e);
+        }
+    }
+
+    private void renewSafely() {
+        try {
+            renew();
+        } catch (Exception e) {
+            // the next round is going to retry, the lease is long enough to survive a couple of failed rounds
+            LOG.error("Failed to renew lock leases", e);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package io.github.sergejsvisockis.jobs.lockrepository;
 
 import io.github.sergejsvisockis.jobs.LockMetadata;
 
+import java.time.Duration;
 import java.util.Optional;
 
 /**
@@ -29,9 +30,39 @@ public interface LockRepository {
      */
     LockMetadata acquireLock(String jobName);
 
+    /**
+     * Try to acquire a distributed lock for a job by its name unless it is already held.
+     * Implementations are supposed to perform the check and the acquisition as a single atomic operation.
+     * The default implementation falls back to {@link #fetchLockMetadata(String)} followed by
+     * {@link #acquireLock(String)} which is not atomic, hence is prone to a race between nodes.
+     *
+     * @param jobName the name of the job to acquire a lock for.
+     * @return the lock metadata object if the lock has been acquired, otherwise empty.
+     */
+    default Optional<LockMetadata> tryAcquireLock(String jobName) {
+        if (fetchLockMetadata(jobName).isPresent()) {
+            return Optional.empty();
+        }
+        return Optional.of(acquireLock(jobName));
+    }
+
+    /**
+     * Try to acquire a distributed lock for a job by its name, waiting up to the timeout for it to be released.
+     * The attempts are made by {@link #tryAcquireLock(String)} with a jittered exponential backoff in between,
+     * a lock released on this node wakes the waiters up right away, see {@link LockWaiters}.
+     *
+     * @param jobName the name of the job to acquire a lock for.
+     * @param timeout the maximum time to wait for the lock.
+     * @return the lock metadata object if the lock has been acquired, otherwise empty.
+     */
+    default Optional<LockMetadata> tryAcquireLock(String jobName, Duration timeout) {
+        return LockWaiters.await(jobName, timeout, () -> tryAcquireLock(jobName));
+    }
+
     /**
      * Release a distributed lock entry in the database for a job.
      * This operation is used to release the lock after the job execution is completed or failed.
+     * Implementations are supposed to call {@link LockWaiters#signalReleased(String)} once released.
      *
      * @param lockMetadata the lock metadata object containing lock details to be released.
      */
@@ -0,0 +1,136 @@
+package io.github.sergejsvisockis.jobs.lockrepository;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Waits for a lock held elsewhere with an exponential backoff between the attempts, starting at
+ * {@link #INITIAL_BACKOFF} and doubling up to {@link #MAX_BACKOFF}. Each wait is jittered between the half
+ * and the whole of the backoff, so that the waiters of the same lock do not retry in lockstep.
+ * <p>
+ * A lock released on this node wakes its waiters up right away instead of letting them sleep the backoff out,
+ * hence the lock repositories call {@link #signalReleased(String)} once a lock has been released.
+ * The locks released by other nodes are noticed by the next attempt.
+ * </p>
+ */
+public final class LockWaiters {
+
+    static final Duration INITIAL_BACKOFF = Duration.ofMillis(10);
+    static final Duration MAX_BACKOFF = Duration.ofSeconds(1);
+
+    private static final ConcurrentMap<String, Signal> SIGNALS = new ConcurrentHashMap<>();
+
+    private LockWaiters() {
+    }
+
+    /**
+     * Wake up the waiters of a lock which has just been released, a no-op if there are none.
+     *
+     * @param jobName the name of the job the lock has been released for.
+     */
+    public static void signalReleased(String jobName) {
+        Signal signal = SIGNALS.get(jobName);
+        if (signal != null) {
+            signal.signal();
+        }
+    }
+
+    /**
+     * Keep attempting to take a lock until an attempt succeeds or the timeout elapses. The attempt is made
+     * at least once, a zero timeout makes it a single attempt. An interruption ends the wait, the interrupted
+     * status of the thread is kept.
+     *
+     * @param jobName the name of the job to take the lock for.
+     * @param timeout the maximum time to wait for.
+     * @param attempt takes the lock, returns empty if the lock is held elsewhere.
+     * @param <T>     the result of a successful attempt.
+     * @return the result of the successful attempt, or empty once the timeout has elapsed.
+     */
+    public static <T> Optional<T> await(String jobName, Duration timeout, Supplier<Optional<T>> attempt) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        Signal signal = register(jobName);
+        try {
+            long backoff = INITIAL_BACKOFF.toNanos();
+            while (true) {
+                long generation = signal.generation();
+                Optional<T> result = attempt.get();
+                if (result.isPresent()) {
+                    return result;
+                }
+
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return Optional.empty();
+                }
+
+                long jittered = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+                if (!signal.await(generation, Math.min(jittered, remaining))) {
+                    Thread.currentThread().interrupt();
+                    return Optional.empty();
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF.toNanos());
+            }
+        } finally {
+            unregister(jobName);
+        }
+    }
+
+    /**
+     * @return the number of the jobs with waiters, for the tests.
+     */
+    static int waitedJobs() {
+        return SIGNALS.size();
+    }
+
+    private static Signal register(String jobName) {
+        return SIGNALS.compute(jobName, (name, signal) -> {
+            Signal registered = signal != null ? signal : new Signal();
+            registered.waiters++;
+            return registered;
+        });
+    }
+
+    private static void unregister(String jobName) {
+        SIGNALS.computeIfPresent(jobName, (name, signal) -> --signal.waiters == 0 ? null : signal);
+    }
+
+    /**
+     * Counts the releases of a lock, the waiter count is only changed within the compute of the map.
+     */
+    private static final class Signal {
+
+        private int waiters;
+        private long generation;
+
+        synchronized long generation() {
+            return generation;
+        }
+
+        synchronized void signal() {
+            generation++;
+            notifyAll();
+        }
+
+        /**
+         * @return false once interrupted.
+         */
+        synchronized boolean await(long seenGeneration, long nanos) {
+            long deadline = System.nanoTime() + nanos;
+            try {
+                long remaining = nanos;
+                while (generation == seenGeneration && remaining > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    remaining = deadline - System.nanoTime();
+                }
+                return true;
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+    }
+}
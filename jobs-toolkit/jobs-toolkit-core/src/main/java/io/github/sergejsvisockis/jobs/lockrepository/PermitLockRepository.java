@@ -0,0 +1,55 @@
+package io.github.sergejsvisockis.jobs.lockrepository;
+
+import io.github.sergejsvisockis.jobs.LockMetadata;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * A counting (semaphore) variant of the distributed lock for the jobs which allow a bounded number of concurrent runs,
+ * see {@link io.github.sergejsvisockis.jobs.JobDefinition#getMaxConcurrency()}.
+ * Every run holds one of the permit slots numbered from zero up to the number of the permits exclusive,
+ * each slot is acquired atomically same as an exclusive lock is, see {@link LockMetadata#getPermit()}.
+ * <p>
+ * The permits are kept apart from the exclusive locks, hence a job is supposed to be locked either by the permits
+ * or by {@link #tryAcquireLock(String)}, which is decided by its definition consistently across the nodes.
+ * A permit is released by {@link #releaseLock(LockMetadata)} and renewed by {@link LeaseLockRepository#renewLocks} as any other lock.
+ * </p>
+ */
+public interface PermitLockRepository extends LockRepository {
+
+    String INVALID_PERMITS_MSG = "The number of the permits must be positive, but was %s";
+
+    /**
+     * Try to acquire any of the free permit slots of a job, or the one whose lease has expired.
+     * Lowering the number of the permits does not revoke the higher slots already held, these are released as usual.
+     *
+     * @param jobName the name of the job to acquire a permit for.
+     * @param permits the number of the permits of the job.
+     * @return the lock metadata object with the permit slot if acquired, otherwise empty once all the permits are held.
+     * @throws IllegalArgumentException if the number of the permits is not positive.
+     */
+    Optional<LockMetadata> tryAcquirePermit(String jobName, int permits);
+
+    /**
+     * Try to acquire a permit of a job, waiting up to the timeout for any of the permits to be released,
+     * see {@link #tryAcquireLock(String, Duration)} for the way the attempts are made.
+     *
+     * @param jobName the name of the job to acquire a permit for.
+     * @param permits the number of the permits of the job.
+     * @param timeout the maximum time to wait for a permit.
+     * @return the lock metadata object with the permit slot if acquired, otherwise empty.
+     */
+    default Optional<LockMetadata> tryAcquirePermit(String jobName, int permits, Duration timeout) {
+        return LockWaiters.await(jobName, timeout, () -> tryAcquirePermit(jobName, permits));
+    }
+
+    /**
+     * Count the permits of a job held at the moment, the ones whose lease has expired are not counted.
+     *
+     * @param jobName the name of the job.
+     * @return the number of the permits in use.
+     */
+    int countPermitsInUse(String jobName);
+
+}
@@ -0,0 +1,79 @@
+package io.github.sergejsvisockis.jobs.queue;
+
+import io.github.sergejsvisockis.jobs.JobExecutionException;
+import io.github.sergejsvisockis.jobs.executor.JobExecutor;
+import io.github.sergejsvisockis.jobs.executor.JobExecutors;
+
+import java.time.Duration;
+
+/**
+ * <p>
+ * Handler API of the items of a {@link JobQueue}, the counterpart of the
+ * {@link io.github.sergejsvisockis.jobs.AbstractJob} for the one-off job instances.
+ * </p>
+ * Run by a {@link QueueWorker}, which claims the items of the queue and removes the ones handled successfully.
+ */
+public abstract class AbstractQueueJob {
+
+    /**
+     * The default time a failed item is kept invisible for before it is retried.
+     */
+    public static final Duration DEFAULT_RETRY_DELAY = Duration.ofSeconds(10);
+
+    private JobExecutor jobExecutor = JobExecutors.sharedPool();
+    private Duration retryDelay = DEFAULT_RETRY_DELAY;
+
+    /**
+     * Sets the execution strategy. By default, all the jobs share {@link JobExecutors#sharedPool()}.
+     *
+     * @param jobExecutor the executor to handle the items on
+     */
+    public void setJobExecutor(JobExecutor jobExecutor) {
+        this.jobExecutor = jobExecutor;
+    }
+
+    /**
+     * Gets the execution strategy the items are being handled with.
+     *
+     * @return the job executor
+     */
+    public JobExecutor getJobExecutor() {
+        return jobExecutor;
+    }
+
+    /**
+     * Sets the time a failed item is kept invisible for before it is retried.
+     *
+     * @param retryDelay the retry delay
+     */
+    public void setRetryDelay(Duration retryDelay) {
+        this.retryDelay = retryDelay;
+    }
+
+    /**
+     * Gets the time a failed item is kept invisible for before it is retried.
+     *
+     * @return the retry delay
+     */
+    public Duration getRetryDelay() {
+        return retryDelay;
+    }
+
+    /**
+     * Handles a single item. The item is removed once handled, a failed one is retried after the retry delay.
+     * An item could be delivered more than once, e.g. once its worker has crashed, hence the handler is supposed
+     * to be idempotent. The handler could give up on an item by returning normally, see
+     * {@link QueueItem#getAttempts()}.
+     *
+     * @param item the claimed item
+     * @throws JobExecutionException if the handling fails
+     */
+    public abstract void execute(QueueItem item) throws JobExecutionException;
+
+    /**
+     * Returns the name of the queue the job handles the items of.
+     *
+     * @return the queue name
+     */
+    public abstract String getQueueName();
+}
@@ -0,0 +1,323 @@
+package io.github.sergejsvisockis.jobs.queue;
+
+import io.github.sergejsvisockis.jobs.ColumnCodec;
+import io.github.sergejsvisockis.jobs.SqlDialect;
+import io.github.sergejsvisockis.jobs.id.IdGenerator;
+import io.github.sergejsvisockis.jobs.id.IdGenerators;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static io.github.sergejsvisockis.jobs.JdbcUtil.isUniqueConstraintViolation;
+
+/**
+ * A job queue backed by the {@code job_queue} table.
+ * <p>
+ * The items are enqueued by multi-row inserts of up to {@value #ENQUEUE_BATCH_SIZE} rows each, which skip the rows
+ * violating the unique deduplication key on the databases supporting it, see
+ * {@link SqlDialect#insertIgnoringDuplicates(String, int, String...)}. Otherwise, the items without a deduplication
+ * key are inserted by JDBC batches and the ones with a key one by one.
+ * </p>
+ * <p>
+ * The items are claimed by a single {@code SELECT ... FOR UPDATE SKIP LOCKED} on the index of the visibility time,
+ * hence the workers polling the same queue never wait on each other. The claim increments the attempts of an item
+ * and the completion and the release are conditional on them, which keeps a claim that has expired from removing
+ * the item claimed by another worker in the meantime. The claim is conditional on the attempts read as well, hence
+ * an item is never claimed twice at once on a database without {@code SKIP LOCKED} either.
+ * </p>
+ */
+public class JdbcJobQueue implements JobQueue {
+
+    private static final String TABLE = "job_queue";
+    private static final String[] INSERT_COLUMNS = {
+            "item_id", "queue_name", "payload", "deduplication_key", "enqueued_at", "visible_at"};
+
+    private static final String QUERY_INSERT_ITEM = "INSERT INTO job_queue(item_id, queue_name, payload, deduplication_key, enqueued_at, visible_at) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String QUERY_FIND_VISIBLE_ITEMS = "SELECT q.item_id, q.payload, q.deduplication_key, q.attempts, q.enqueued_at " +
+            "FROM job_queue q WHERE q.queue_name = ? AND q.visible_at <= ? ORDER BY q.visible_at";
+    private static final String QUERY_CLAIM_ITEM = "UPDATE job_queue SET attempts = ?, visible_at = ? WHERE item_id = ? AND attempts = ?";
+    private static final String QUERY_COMPLETE_ITEM = "DELETE FROM job_queue WHERE item_id = ? AND attempts = ?";
+    private static final String QUERY_RELEASE_ITEM = "UPDATE job_queue SET visible_at = ? WHERE item_id = ? AND attempts = ?";
+
+    /**
+     * Keeps the number of the bind parameters of a multi-row insert well below the limits of the databases.
+     */
+    static final int ENQUEUE_BATCH_SIZE = 500;
+
+    static final String FAILED_TO_ENQUEUE_ITEMS_MSG = "Failed to enqueue %s items";
+    static final String FAILED_TO_CLAIM_ITEMS_MSG = "Failed to claim the items of a queue with name=%s";
+    static final String FAILED_TO_COMPLETE_ITEM_MSG = "Failed to complete an item with id=%s";
+    static final String FAILED_TO_RELEASE_ITEM_MSG = "Failed to release an item with id=%s";
+    static final String INVALID_CLAIM_LIMIT_MSG = "Claim limit has to be positive, but was %s";
+
+    private final DataSource dataSource;
+    private final SqlDialect dialect;
+    private final String queryInsertItems;
+    private IdGenerator idGenerator = IdGenerators.timeOrdered();
+    private ColumnCodec columnCodec = ColumnCodec.TEXT;
+
+    public JdbcJobQueue(DataSource dataSource) {
+        this(dataSource, SqlDialect.detect(dataSource));
+    }
+
+    /**
+     * Creates a queue for the given dialect, which saves the dialect detection on construction.
+     *
+     * @param dataSource the data source.
+     * @param dialect    the dialect of the database.
+     */
+    public JdbcJobQueue(DataSource dataSource, SqlDialect dialect) {
+        this.dataSource = dataSource;
+        this.dialect = dialect;
+        this.queryInsertItems = dialect.supportsInsertIgnoringDuplicates()
+                ? dialect.insertIgnoringDuplicates(TABLE, ENQUEUE_BATCH_SIZE, INSERT_COLUMNS)
+                : null;
+    }
+
+    /**
+     * Set the codec of the id columns, {@link ColumnCodec#TEXT} matches the default schema.
+     *
+     * @param columnCodec the column codec.
+     */
+    public void setColumnCodec(ColumnCodec columnCodec) {
+        this.columnCodec = columnCodec;
+    }
+
+    /**
+     * Set the generator of the item ids, time ordered ids are generated by default.
+     *
+     * @param idGenerator the id generator.
+     */
+    public void setIdGenerator(IdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+    }
+
+    @Override
+    public boolean enqueue(QueueItem item) {
+        return enqueue(List.of(item)) == 1;
+    }
+
+    @Override
+    public int enqueue(Collection<QueueItem> items) {
+        if (items.isEmpty()) {
+            return 0;
+        }
+        List<QueueItem> itemList = List.copyOf(items);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        try (Connection conn = dataSource.getConnection()) {
+            if (queryInsertItems == null) {
+                return insertItems(conn, itemList, now);
+            }
+
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                int enqueued = 0;
+                for (int from = 0; from < itemList.size(); from += ENQUEUE_BATCH_SIZE) {
+                    List<QueueItem> batch = itemList.subList(from, Math.min(from + ENQUEUE_BATCH_SIZE, itemList.size()));
+                    enqueued += insertIgnoringDuplicates(conn, batch, now);
+                }
+                conn.commit();
+                return enqueued;
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(String.format(FAILED_TO_ENQUEUE_ITEMS_MSG, items.size()), e);
+        }
+    }
+
+    @Override
+    public List<QueueItem> claim(String queueName, int limit, Duration visibilityTimeout) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException(String.format(INVALID_CLAIM_LIMIT_MSG, limit));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime visibleAt = now.plus(visibilityTimeout);
+
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                List<QueueItem> claimed = claimItems(conn, findVisibleItems(conn, queueName, limit, now), visibleAt);
+                conn.commit();
+                return claimed;
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(String.format(FAILED_TO_CLAIM_ITEMS_MSG, queueName), e);
+        }
+    }
+
+    @Override
+    public boolean complete(QueueItem item) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(QUERY_COMPLETE_ITEM)) {
+            columnCodec.bindId(pstmt, 1, item.getItemId());
+            pstmt.setInt(2, item.getAttempts());
+            return pstmt.executeUpdate() == 1;
+        } catch (Exception e) {
+            throw new RuntimeException(String.format(FAILED_TO_COMPLETE_ITEM_MSG, item.getItemId()), e);
+        }
+    }
+
+    @Override
+    public boolean release(QueueItem item, Duration delay) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(QUERY_RELEASE_ITEM)) {
+            pstmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now().plus(delay)));
+            columnCodec.bindId(pstmt, 2, item.getItemId());
+            pstmt.setInt(3, item.getAttempts());
+            return pstmt.executeUpdate() == 1;
+        } catch (Exception e) {
+            throw new RuntimeException(String.format(FAILED_TO_RELEASE_ITEM_MSG, item.getItemId()), e);
+        }
+    }
+
+    private int insertIgnoringDuplicates(Connection conn, List<QueueItem> batch, Timestamp now) throws SQLException {
+        String query = batch.size() == ENQUEUE_BATCH_SIZE
+                ? queryInsertItems
+                : dialect.insertIgnoringDuplicates(TABLE, batch.size(), INSERT_COLUMNS);
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (int i = 0; i < batch.size(); i++) {
+                bindItem(pstmt, i * INSERT_COLUMNS.length, batch.get(i), now);
+            }
+            return pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Inserts the items without a deduplication key in batches, since their ids never collide, and the ones
+     * with a key one by one, skipping the duplicates.
+     */
+    private int insertItems(Connection conn, List<QueueItem> items, Timestamp now) throws SQLException {
+        int enqueued = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(QUERY_INSERT_ITEM)) {
+            int batched = 0;
+            for (QueueItem item : items) {
+                if (item.getDeduplicationKey() != null) {
+                    continue;
+                }
+                bindItem(pstmt, 0, item, now);
+                pstmt.addBatch();
+                if (++batched % ENQUEUE_BATCH_SIZE == 0) {
+                    enqueued += countInserted(pstmt.executeBatch());
+                }
+            }
+            if (batched % ENQUEUE_BATCH_SIZE != 0) {
+                enqueued += countInserted(pstmt.executeBatch());
+            }
+
+            for (QueueItem item : items) {
+                if (item.getDeduplicationKey() == null) {
+                    continue;
+                }
+                bindItem(pstmt, 0, item, now);
+                try {
+                    enqueued += pstmt.executeUpdate();
+                } catch (SQLException e) {
+                    if (!isUniqueConstraintViolation(e)) {
+                        throw e;
+                    }
+                    // an item with the same deduplication key is pending or in progress
+                }
+            }
+        }
+        return enqueued;
+    }
+
+    private void bindItem(PreparedStatement pstmt, int offset, QueueItem item, Timestamp now) throws SQLException {
+        columnCodec.bindId(pstmt, offset + 1, item.getItemId() != null ? item.getItemId() : idGenerator.generate());
+        pstmt.setString(offset + 2, item.getQueueName());
+        pstmt.setString(offset + 3, item.getPayload());
+        pstmt.setString(offset + 4, item.getDeduplicationKey());
+        pstmt.setTimestamp(offset + 5, now);
+        pstmt.setTimestamp(offset + 6, item.getVisibleAt() != null ? Timestamp.valueOf(item.getVisibleAt()) : now);
+    }
+
+    private List<QueueItem> findVisibleItems(Connection conn, String queueName, int limit,
+                                             LocalDateTime now) throws SQLException {
+        List<QueueItem> items = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                dialect.selectForUpdateSkipLocked(QUERY_FIND_VISIBLE_ITEMS, limit))) {
+            pstmt.setString(1, queueName);
+            pstmt.setTimestamp(2, Timestamp.valueOf(now));
+            pstmt.setFetchSize(limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (items.size() < limit && rs.next()) {
+                    items.add(new QueueItem.Builder()
+                            .withItemId(columnCodec.readId(rs, 1))
+                            .withQueueName(queueName)
+                            .withPayload(rs.getString(2))
+                            .withDeduplicationKey(rs.getString(3))
+                            .withAttempts(rs.getInt(4))
+                            .withEnqueuedAt(rs.getTimestamp(5).toLocalDateTime())
+                            .build());
+                }
+            }
+        }
+        return items;
+    }
+
+    private List<QueueItem> claimItems(Connection conn, List<QueueItem> items,
+                                       LocalDateTime visibleAt) throws SQLException {
+        if (items.isEmpty()) {
+            return items;
+        }
+        int[] updated;
+        try (PreparedStatement pstmt = conn.prepareStatement(QUERY_CLAIM_ITEM)) {
+            for (QueueItem item : items) {
+                pstmt.setInt(1, item.getAttempts() + 1);
+                pstmt.setTimestamp(2, Timestamp.valueOf(visibleAt));
+                columnCodec.bindId(pstmt, 3, item.getItemId());
+                pstmt.setInt(4, item.getAttempts());
+                pstmt.addBatch();
+            }
+            updated = pstmt.executeBatch();
+        }
+
+        List<QueueItem> claimed = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            // the item has been claimed by another worker once no row is updated
+            if (updated[i] > 0 || updated[i] == Statement.SUCCESS_NO_INFO) {
+                QueueItem item = items.get(i);
+                claimed.add(new QueueItem.Builder()
+                        .withItemId(item.getItemId())
+                        .withQueueName(item.getQueueName())
+                        .withPayload(item.getPayload())
+                        .withDeduplicationKey(item.getDeduplicationKey())
+                        .withAttempts(item.getAttempts() + 1)
+                        .withEnqueuedAt(item.getEnqueuedAt())
+                        .withVisibleAt(visibleAt)
+                        .build());
+            }
+        }
+        return claimed;
+    }
+
+    private static int countInserted(int[] updated) {
+        int inserted = 0;
+        for (int count : updated) {
+            inserted += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+        }
+        return inserted;
+    }
+}
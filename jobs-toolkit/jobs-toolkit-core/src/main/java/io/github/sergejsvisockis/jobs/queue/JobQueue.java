@@ -0,0 +1,62 @@
+package io.github.sergejsvisockis.jobs.queue;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A durable queue of the one-off job instances, each carrying its own payload, e.g. "reindex tenant 42".
+ * Unlike the jobs keyed by their names, any number of the items of a queue could be pending at once.
+ * <p>
+ * A claimed item stays invisible to the other workers until its visibility timeout expires, hence the item of
+ * a worker which has crashed is claimed again later on. The items are delivered at least once, the handlers are
+ * supposed to be idempotent.
+ * </p>
+ * Out of the box provides a JDBC implementation, see {@link JdbcJobQueue}.
+ */
+public interface JobQueue {
+
+    /**
+     * Enqueue an item unless an item of the same queue with the same deduplication key is pending or in progress.
+     *
+     * @param item the item.
+     * @return true if enqueued, false if deduplicated.
+     */
+    boolean enqueue(QueueItem item);
+
+    /**
+     * Enqueue multiple items at once, the items deduplicated are skipped.
+     *
+     * @param items the items.
+     * @return the number of the items enqueued.
+     */
+    int enqueue(Collection<QueueItem> items);
+
+    /**
+     * Claim up to the limit of the visible items of a queue, the oldest ones first. The claimed items are invisible
+     * to the other workers until the visibility timeout expires and their attempts are incremented.
+     *
+     * @param queueName         the queue name.
+     * @param limit             the maximum number of the items to claim.
+     * @param visibilityTimeout the time the items are kept invisible for, longer than a handler is expected to run.
+     * @return the claimed items, an empty list if none is visible.
+     */
+    List<QueueItem> claim(String queueName, int limit, Duration visibilityTimeout);
+
+    /**
+     * Remove a handled item.
+     *
+     * @param item the claimed item.
+     * @return true if removed, false once the claim has expired and the item has been claimed again or removed.
+     */
+    boolean complete(QueueItem item);
+
+    /**
+     * Give a claimed item up, e.g. once its handler has failed, so that it is claimed again after the delay.
+     *
+     * @param item  the claimed item.
+     * @param delay the time the item is kept invisible for.
+     * @return true if released, false once the claim has expired and the item has been claimed again or removed.
+     */
+    boolean release(QueueItem item, Duration delay);
+}
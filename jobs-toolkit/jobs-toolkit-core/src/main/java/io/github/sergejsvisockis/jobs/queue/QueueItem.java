@@ -0,0 +1,201 @@
+package io.github.sergejsvisockis.jobs.queue;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A one-off job instance carrying its payload, 1:1 represents an entry of the job queue.
+ */
+public final class QueueItem {
+
+    private final UUID itemId;
+    private final String queueName;
+    private final String payload;
+    private final String deduplicationKey;
+    private final int attempts;
+    private final LocalDateTime enqueuedAt;
+    private final LocalDateTime visibleAt;
+
+    private QueueItem(Builder builder) {
+        this.itemId = builder.itemId;
+        this.queueName = builder.queueName;
+        this.payload = builder.payload;
+        this.deduplicationKey = builder.deduplicationKey;
+        this.attempts = builder.attempts;
+        this.enqueuedAt = builder.enqueuedAt;
+        this.visibleAt = builder.visibleAt;
+    }
+
+    /**
+     * Get the item identifier.
+     *
+     * @return the item identifier, null for an item which has not been enqueued yet.
+     */
+    public UUID getItemId() {
+        return itemId;
+    }
+
+    /**
+     * Get the name of the queue the item belongs to.
+     *
+     * @return queue name.
+     */
+    public String getQueueName() {
+        return queueName;
+    }
+
+    /**
+     * Get the payload of the item, a free form input of the handler, e.g. a JSON document.
+     *
+     * @return payload.
+     */
+    public String getPayload() {
+        return payload;
+    }
+
+    /**
+     * Get the deduplication key. An item is not enqueued as long as an item of the same queue with the same key
+     * is pending or in progress.
+     *
+     * @return the deduplication key, or null if the item is never deduplicated.
+     */
+    public String getDeduplicationKey() {
+        return deduplicationKey;
+    }
+
+    /**
+     * Get the number of the times the item has been claimed, including the claim in progress.
+     * The number doubles as the token of the claim, an item claimed again once its visibility timeout has expired
+     * is not completed nor released by the previous claim anymore.
+     *
+     * @return the number of the attempts.
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Get the time the item has been enqueued at.
+     *
+     * @return the time enqueued at.
+     */
+    public LocalDateTime getEnqueuedAt() {
+        return enqueuedAt;
+    }
+
+    /**
+     * Get the time the item becomes visible to the workers at, for a claimed item the time its claim expires at.
+     *
+     * @return the time visible at.
+     */
+    public LocalDateTime getVisibleAt() {
+        return visibleAt;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+
+    /**
+     * Initialised a builder object for this object.
+     */
+    public static class Builder {
+        private UUID itemId;
+        private String queueName;
+        private String payload;
+        private String deduplicationKey;
+        private int attempts;
+        private LocalDateTime enqueuedAt;
+        private LocalDateTime visibleAt;
+
+        /**
+         * Sets the item identifier, generated on enqueue if not set.
+         *
+         * @param itemId item identifier.
+         * @return builder instance.
+         */
+        public Builder withItemId(UUID itemId) {
+            this.itemId = itemId;
+            return this;
+        }
+
+        /**
+         * Sets a queue name.
+         *
+         * @param queueName queue name.
+         * @return builder instance.
+         */
+        public Builder withQueueName(String queueName) {
+            this.queueName = queueName;
+            return this;
+        }
+
+        /**
+         * Sets a payload.
+         *
+         * @param payload payload.
+         * @return builder instance.
+         */
+        public Builder withPayload(String payload) {
+            this.payload = payload;
+            return this;
+        }
+
+        /**
+         * Sets a deduplication key.
+         *
+         * @param deduplicationKey the deduplication key, or null if the item is never deduplicated.
+         * @return builder instance.
+         */
+        public Builder withDeduplicationKey(String deduplicationKey) {
+            this.deduplicationKey = deduplicationKey;
+            return this;
+        }
+
+        /**
+         * Sets the number of the attempts.
+         *
+         * @param attempts the number of the times the item has been claimed.
+         * @return builder instance.
+         */
+        public Builder withAttempts(int attempts) {
+            this.attempts = attempts;
+            return this;
+        }
+
+        /**
+         * The time the item has been enqueued at.
+         *
+         * @param enqueuedAt the time enqueued at.
+         * @return builder instance.
+         */
+        public Builder withEnqueuedAt(LocalDateTime enqueuedAt) {
+            this.enqueuedAt = enqueuedAt;
+            return this;
+        }
+
+        /**
+         * The time the item becomes visible to the workers at, the item is visible right away on enqueue if not set.
+         *
+         * @param visibleAt the time visible at.
+         * @return builder instance.
+         */
+        public Builder withVisibleAt(LocalDateTime visibleAt) {
+            this.visibleAt = visibleAt;
+            return this;
+        }
+
+        /**
+         * Finalises an object construction.
+         *
+         * @return an object.
+         */
+        public QueueItem build() {
+            return new QueueItem(this);
+        }
+    }
+}
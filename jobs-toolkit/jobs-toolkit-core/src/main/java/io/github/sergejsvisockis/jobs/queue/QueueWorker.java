@@ -0,0 +1,196 @@
+package io.github.sergejsvisockis.jobs.queue;
+
+import io.github.sergejsvisockis.jobs.JobExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Keeps handling the items of a queue by an {@link AbstractQueueJob}.
+ * <p>
+ * A single thread claims the items in batches and dispatches them to the executor of the job, a successfully handled
+ * item is completed and a failed one is released to be retried after the retry delay of the job. Once a full batch
+ * has been claimed, the next one is claimed right away, otherwise after the poll interval. The items rejected by
+ * a saturated executor are released right away, so that the other workers could claim them.
+ * </p>
+ * <p>
+ * The visibility timeout is supposed to exceed the time a batch takes to be handled, including the time it waits
+ * in the queue of the executor, otherwise the items are claimed again by the other workers in the meantime.
+ * </p>
+ */
+public class QueueWorker implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QueueWorker.class);
+
+    /**
+     * The default maximum number of the items claimed at once.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 50;
+
+    /**
+     * The default time the claimed items are kept invisible to the other workers for.
+     */
+    public static final Duration DEFAULT_VISIBILITY_TIMEOUT = Duration.ofMinutes(5);
+
+    /**
+     * The default interval between the claims once the queue has been drained.
+     */
+    public static final Duration DEFAULT_POLL_INTERVAL = Duration.ofSeconds(1);
+
+    static final String INVALID_BATCH_SIZE_MSG = "Batch size has to be positive, but was %s";
+    static final String INVALID_DURATION_MSG = "Visibility timeout and poll interval have to be positive, but were %s and %s";
+    static final String WORKER_CLOSED_MSG = "The worker has been closed";
+
+    private final JobQueue jobQueue;
+    private final AbstractQueueJob job;
+    private final int batchSize;
+    private final Duration visibilityTimeout;
+    private final Duration pollInterval;
+
+    private Thread workerThread;
+    private volatile boolean closed;
+
+    /**
+     * Creates a worker with the default batch size, visibility timeout and poll interval.
+     *
+     * @param jobQueue the queue to claim the items from.
+     * @param job      the job to handle the items by.
+     */
+    public QueueWorker(JobQueue jobQueue, AbstractQueueJob job) {
+        this(jobQueue, job, DEFAULT_BATCH_SIZE, DEFAULT_VISIBILITY_TIMEOUT, DEFAULT_POLL_INTERVAL);
+    }
+
+    /**
+     * Creates a worker.
+     *
+     * @param jobQueue          the queue to claim the items from.
+     * @param job               the job to handle the items by.
+     * @param batchSize         the maximum number of the items claimed at once.
+     * @param visibilityTimeout the time the claimed items are kept invisible to the other workers for.
+     * @param pollInterval      the interval between the claims once the queue has been drained.
+     */
+    public QueueWorker(JobQueue jobQueue, AbstractQueueJob job, int batchSize,
+                       Duration visibilityTimeout, Duration pollInterval) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException(String.format(INVALID_BATCH_SIZE_MSG, batchSize));
+        }
+        if (visibilityTimeout.isZero() || visibilityTimeout.isNegative()
+                || pollInterval.isZero() || pollInterval.isNegative()) {
+            throw new IllegalArgumentException(String.format(INVALID_DURATION_MSG, visibilityTimeout, pollInterval));
+        }
+        this.jobQueue = jobQueue;
+        this.job = job;
+        this.batchSize = batchSize;
+        this.visibilityTimeout = visibilityTimeout;
+        this.pollInterval = pollInterval;
+    }
+
+    /**
+     * Starts the worker thread, does nothing once started already.
+     *
+     * @throws IllegalStateException if the worker has been closed.
+     */
+    public synchronized void start() {
+        if (closed) {
+            throw new IllegalStateException(WORKER_CLOSED_MSG);
+        }
+        if (workerThread != null) {
+            return;
+        }
+        workerThread = new Thread(this::runWorker, "jobs-toolkit-queue-worker-" + job.getQueueName());
+        workerThread.setDaemon(true);
+        workerThread.start();
+    }
+
+    /**
+     * Stops claiming the items. The items dispatched already are let to complete.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        workerThread = null;
+        notifyAll();
+    }
+
+    /**
+     * Claim a batch of the items and dispatch them to the executor of the job.
+     *
+     * @return the number of the items dispatched.
+     */
+    int poll() {
+        List<QueueItem> items = jobQueue.claim(job.getQueueName(), batchSize, visibilityTimeout);
+        for (int i = 0; i < items.size(); i++) {
+            QueueItem item = items.get(i);
+            try {
+                job.getJobExecutor().execute(() -> handle(item));
+            } catch (RejectedExecutionException e) {
+                LOG.warn("Releasing {} items of a queue with name={} since the executor is saturated",
+                        items.size() - i, job.getQueueName());
+                items.subList(i, items.size()).forEach(rejected -> release(rejected, Duration.ZERO));
+                return i;
+            }
+        }
+        return items.size();
+    }
+
+    private void handle(QueueItem item) {
+        try {
+            job.execute(item);
+        } catch (JobExecutionException | RuntimeException e) {
+            LOG.error("Item with id={} of a queue with name={} has failed, attempts={}",
+                    item.getItemId(), item.getQueueName(), item.getAttempts(), e);
+            release(item, job.getRetryDelay());
+            return;
+        }
+
+        try {
+            if (!jobQueue.complete(item)) {
+                LOG.warn("Item with id={} of a queue with name={} has been handled after its visibility timeout had expired",
+                        item.getItemId(), item.getQueueName());
+            }
+        } catch (RuntimeException e) {
+            // the item is handled again once its visibility timeout expires
+            LOG.error("Failed to complete an item with id={}", item.getItemId(), e);
+        }
+    }
+
+    private void release(QueueItem item, Duration delay) {
+        try {
+            jobQueue.release(item, delay);
+        } catch (RuntimeException e) {
+            // the item is claimed again once its visibility timeout expires
+            LOG.error("Failed to release an item with id={}", item.getItemId(), e);
+        }
+    }
+
+    private void runWorker() {
+        while (!closed) {
+            long waitMillis;
+            try {
+                waitMillis = poll() < batchSize ? pollInterval.toMillis() : 0;
+            } catch (Exception e) {
+                LOG.error("Failed to claim the items of a queue with name={}", job.getQueueName(), e);
+                waitMillis = pollInterval.toMillis();
+            }
+            if (!await(waitMillis)) {
+                return;
+            }
+        }
+    }
+
+    private synchronized boolean await(long waitMillis) {
+        if (closed || waitMillis <= 0) {
+            return !closed;
+        }
+        try {
+            wait(waitMillis);
+            return !closed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package io.github.sergejsvisockis.jobs.repository;
+
+import io.github.sergejsvisockis.jobs.AbstractJob;
+import io.github.sergejsvisockis.jobs.JobDefinition;
+import io.github.sergejsvisockis.jobs.JobExecution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Serves job definitions from memory and delegates everything else to the wrapped repository.
+ * Definitions almost never change, hence all of them are loaded with a single bulk fetch and reloaded once
+ * the time to live has elapsed or the cache has been invalidated explicitly. A definition which is missing
+ * in the cache is looked up in the wrapped repository, so that newly added jobs do not wait for a reload.
+ */
+public class CachingJobRepository implements JobRepository {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CachingJobRepository.class);
+
+    static final String MISSING_JOB_DEFINITIONS_MSG = "No job definitions found for jobs: %s";
+
+    private final JobRepository delegate;
+    private final long ttlNanos;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Creates a caching decorator.
+     *
+     * @param delegate the repository to load the definitions from and delegate everything else to.
+     * @param ttl      the time after which the definitions are reloaded.
+     */
+    public CachingJobRepository(JobRepository delegate, Duration ttl) {
+        this.delegate = delegate;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Loads all the definitions and verifies that each of the given jobs has one, so that a misconfiguration
+     * is detected at boot rather than on the first trigger.
+     *
+     * @param jobs the jobs registered in the application.
+     * @throws IllegalStateException if any of the jobs has no definition.
+     */
+    public void preload(Collection<? extends AbstractJob> jobs) {
+        Snapshot loaded = reload();
+
+        List<String> missing = jobs.stream()
+                .map(AbstractJob::getJobName)
+                .filter(jobName -> !loaded.definitions.containsKey(jobName))
+                .sorted()
+                .collect(Collectors.toList());
+
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException(String.format(MISSING_JOB_DEFINITIONS_MSG, missing));
+        }
+    }
+
+    /**
+     * Drops the cached definitions, so that they are reloaded on the next access.
+     */
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    @Override
+    public Optional<JobDefinition> fetchJobDefinition(String jobName) {
+        Snapshot current = current();
+
+        JobDefinition jobDefinition = current.definitions.get(jobName);
+        if (jobDefinition != null) {
+            return Optional.of(jobDefinition);
+        }
+
+        Optional<JobDefinition> loaded = delegate.fetchJobDefinition(jobName);
+        loaded.ifPresent(definition -> current.definitions.put(jobName, definition));
+        return loaded;
+    }
+
+    @Override
+    public List<JobDefinition> fetchJobDefinitions() {
+        return List.copyOf(current().definitions.values());
+    }
+
+    @Override
+    public JobExecution captureExecution(String jobName) {
+        return delegate.captureExecution(jobName);
+    }
+
+    @Override
+    public JobExecution saveNewExecution(String jobName) {
+        return delegate.saveNewExecution(jobName);
+    }
+
+    @Override
+    public Optional<JobExecution> findLastExecution(String jobName) {
+        return delegate.findLastExecution(jobName);
+    }
+
+    @Override
+    public void failExecution(JobExecution jobExecution) {
+        delegate.failExecution(jobExecution);
+    }
+
+    @Override
+    public void completeExecution(JobExecution jobExecution) {
+        delegate.completeExecution(jobExecution);
+    }
+
+    @Override
+    public JobExecution updateExecution(JobExecution jobExecution) {
+        return delegate.updateExecution(jobExecution);
+    }
+
+    @Override
+    public int purgeExecutionHistory(LocalDateTime olderThan, int batchSize) {
+        return delegate.purgeExecutionHistory(olderThan, batchSize);
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && !current.isExpired()) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && !current.isExpired()) {
+                return current;
+            }
+            try {
+                return reload();
+            } catch (RuntimeException e) {
+                if (current == null) {
+                    throw e;
+                }
+                // keep serving stale definitions rather than failing every job, the next access retries
+                LOG.warn("Failed to reload job definitions, serving the ones loaded before", e);
+                return current;
+            }
+        }
+    }
+
+    private synchronized Snapshot reload() {
+        Map<String, JobDefinition> definitions = new ConcurrentHashMap<>();
+        for (JobDefinition jobDefinition : delegate.fetchJobDefinitions()) {
+            definitions.put(jobDefinition.getJobName(), jobDefinition);
+        }
+        Snapshot loaded = new Snapshot(definitions, System.nanoTime() + ttlNanos);
+        snapshot = loaded;
+        return loaded;
+    }
+
+    private static final class Snapshot {
+
+        private final Map<String, JobDefinition> definitions;
+        private final long expiresAtNanos;
+
+        private Snapshot(Map<String, JobDefinition> definitions, long expiresAtNanos) {
+            this.definitions = definitions;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - expiresAtNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package io.github.sergejsvisockis.jobs.repository;
+
+import io.github.sergejsvisockis.jobs.JobDefinition;
+import io.github.sergejsvisockis.jobs.JobExecution;
+import io.github.sergejsvisockis.jobs.JobExecutionContext;
+import io.github.sergejsvisockis.jobs.JobNotFoundException;
+import io.github.sergejsvisockis.jobs.LockMetadata;
+import io.github.sergejsvisockis.jobs.lockrepository.LockRepository;
+import io.github.sergejsvisockis.jobs.lockrepository.PermitLockRepository;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Performs the job run start and finish as a sequence of calls to a separate {@link JobRepository}
+ * and {@link LockRepository}. Used once the job and the lock are stored in different places.
+ * A job allowing concurrent runs takes a permit of a {@link PermitLockRepository} rather than an exclusive lock.
+ */
+public class DelegatingJobLifecycleRepository implements JobLifecycleRepository {
+
+    static final String PERMITS_NOT_SUPPORTED_MSG = "A job with name=%s allows %s concurrent runs, but %s does not support permits";
+
+    private final JobRepository jobRepository;
+    private final LockRepository lockRepository;
+
+    public DelegatingJobLifecycleRepository(JobRepository jobRepository, LockRepository lockRepository) {
+        this.jobRepository = jobRepository;
+        this.lockRepository = lockRepository;
+    }
+
+    @Override
+    public Optional<JobExecutionContext> startExecution(String jobName) {
+        return startExecution(jobName, Duration.ZERO);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The job definition is validated once, only the lock acquisition is retried,
+     * see {@link LockRepository#tryAcquireLock(String, Duration)}.
+     */
+    @Override
+    public Optional<JobExecutionContext> startExecution(String jobName, Duration lockTimeout) {
+
+        Optional<JobDefinition> jobDefinition = jobRepository.fetchJobDefinition(jobName);
+        if (jobDefinition.isEmpty()) {
+            throw new JobNotFoundException(jobName);
+        }
+
+        Optional<LockMetadata> lockMetadata = jobDefinition.get().getMaxConcurrency() > 1
+                ? tryAcquirePermit(jobDefinition.get(), lockTimeout)
+                : tryAcquireLock(jobDefinition.get(), lockTimeout);
+        if (lockMetadata.isEmpty()) {
+            return Optional.empty();
+        }
+
+        JobExecution jobExecution;
+        try {
+            jobExecution = jobRepository.captureExecution(jobName);
+        } catch (RuntimeException e) {
+            // no context reaches the caller, hence the lock would never be released otherwise
+            try {
+                lockRepository.releaseLock(lockMetadata.get());
+            } catch (RuntimeException releaseFailure) {
+                e.addSuppressed(releaseFailure);
+            }
+            throw e;
+        }
+
+        return Optional.of(new JobExecutionContext.Builder()
+                .withJobDefinition(jobDefinition.get())
+                .withLockMetadata(lockMetadata.get())
+                .withJobExecution(jobExecution)
+                .build());
+    }
+
+    private Optional<LockMetadata> tryAcquireLock(JobDefinition jobDefinition, Duration lockTimeout) {
+        return lockTimeout.isZero()
+                ? lockRepository.tryAcquireLock(jobDefinition.getJobName())
+                : lockRepository.tryAcquireLock(jobDefinition.getJobName(), lockTimeout);
+    }
+
+    private Optional<LockMetadata> tryAcquirePermit(JobDefinition jobDefinition, Duration lockTimeout) {
+        if (!(lockRepository instanceof PermitLockRepository)) {
+            throw new IllegalStateException(String.format(PERMITS_NOT_SUPPORTED_MSG,
+                    jobDefinition.getJobName(), jobDefinition.getMaxConcurrency(), lockRepository.getClass().getName()));
+        }
+        PermitLockRepository permitLockRepository = (PermitLockRepository) lockRepository;
+        return lockTimeout.isZero()
+                ? permitLockRepository.tryAcquirePermit(jobDefinition.getJobName(), jobDefinition.getMaxConcurrency())
+                : permitLockRepository.tryAcquirePermit(jobDefinition.getJobName(), jobDefinition.getMaxConcurrency(), lockTimeout);
+    }
+
+    @Override
+    public void completeExecution(JobExecutionContext context) {
+        try {
+            jobRepository.completeExecution(context.getJobExecution());
+        } finally {
+            lockRepository.releaseLock(context.getLockMetadata());
+        }
+    }
+
+    @Override
+    public void failExecution(JobExecutionContext context) {
+        try {
+            jobRepository.failExecution(context.getJobExecution());
+        } finally {
+            lockRepository.releaseLock(context.getLockMetadata());
+        }
+    }
+}
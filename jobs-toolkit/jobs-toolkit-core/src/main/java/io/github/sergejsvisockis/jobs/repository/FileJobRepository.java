@@ -0,0 +1,253 @@
+package io.github.sergejsvisockis.jobs.repository;
+
+import io.github.sergejsvisockis.jobs.JobDefinition;
+import io.github.sergejsvisockis.jobs.JobExecution;
+import io.github.sergejsvisockis.jobs.codec.Codec;
+import io.github.sergejsvisockis.jobs.codec.Codecs;
+import io.github.sergejsvisockis.jobs.id.IdGenerator;
+import io.github.sergejsvisockis.jobs.journal.Journal;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static io.github.sergejsvisockis.jobs.JobState.COMPLETED;
+import static io.github.sergejsvisockis.jobs.JobState.FAILED;
+
+/**
+ * File implementation for a single node without a database, which keeps the executions across restarts.
+ * <p>
+ * The state is held by an {@link InMemoryJobRepository} and every change of it is appended to a memory-mapped
+ * {@link Journal} before the call returns, the concurrent changes share a single flush to the disk. On construction
+ * the journal is replayed to rebuild the state. Once the journal has grown past the compaction threshold
+ * and twice its size after the previous compaction, it is rewritten with the current state only.
+ * The records are encoded by the binary {@link Codecs}.
+ * </p>
+ */
+public class FileJobRepository implements JobRepository, AutoCloseable {
+
+    /**
+     * The default journal size which triggers a compaction.
+     */
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 16 * 1024 * 1024;
+
+    static final String UNKNOWN_RECORD_TYPE_MSG = "Unknown job journal record type %s";
+
+    private static final byte DEFINITION = 1;
+    private static final byte NEW_EXECUTION = 2;
+    private static final byte EXECUTION_CHANGE = 3;
+    private static final byte LATEST_EXECUTION = 4;
+    private static final byte HISTORY_ENTRY = 5;
+
+    private static final Codec<JobDefinition> DEFINITION_CODEC = Codecs.jobDefinition();
+    private static final Codec<JobExecution> EXECUTION_CODEC = Codecs.jobExecution();
+
+    private final InMemoryJobRepository state;
+    private final Journal journal;
+    private final int compactionThreshold;
+    private int compactedSize;
+
+    /**
+     * Opens the repository with the default history bound and compaction threshold.
+     *
+     * @param file the journal file, created if it does not exist.
+     */
+    public FileJobRepository(Path file) {
+        this(file, InMemoryJobRepository.DEFAULT_MAX_HISTORY_SIZE, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Opens the repository.
+     *
+     * @param file                the journal file, created if it does not exist.
+     * @param maxHistorySize      the maximum number of the history entries per job.
+     * @param compactionThreshold the journal size in bytes which triggers a compaction.
+     */
+    public FileJobRepository(Path file, int maxHistorySize, int compactionThreshold) {
+        this.state = new InMemoryJobRepository(maxHistorySize);
+        this.journal = new Journal(file, Journal.DEFAULT_INITIAL_CAPACITY);
+        this.compactionThreshold = compactionThreshold;
+        journal.replay(this::apply);
+        this.compactedSize = journal.size();
+    }
+
+    /**
+     * Set the generator of the execution ids, time ordered ids are generated by default.
+     *
+     * @param idGenerator the id generator.
+     */
+    public void setIdGenerator(IdGenerator idGenerator) {
+        state.setIdGenerator(idGenerator);
+    }
+
+    /**
+     * Save a job definition durably, a job could only be run once it has a definition.
+     *
+     * @param jobDefinition the job definition, replaces the existing one with the same job name.
+     */
+    public void saveJobDefinition(JobDefinition jobDefinition) {
+        int end;
+        synchronized (this) {
+            state.saveJobDefinition(jobDefinition);
+            end = append(DEFINITION, DEFINITION_CODEC.encode(jobDefinition));
+        }
+        journal.sync(end);
+    }
+
+    @Override
+    public Optional<JobDefinition> fetchJobDefinition(String jobName) {
+        return state.fetchJobDefinition(jobName);
+    }
+
+    @Override
+    public List<JobDefinition> fetchJobDefinitions() {
+        return state.fetchJobDefinitions();
+    }
+
+    @Override
+    public JobExecution captureExecution(String jobName) {
+        return saveNewExecution(jobName);
+    }
+
+    @Override
+    public JobExecution saveNewExecution(String jobName) {
+        JobExecution jobExecution;
+        int end;
+        synchronized (this) {
+            jobExecution = state.saveNewExecution(jobName);
+            end = append(NEW_EXECUTION, EXECUTION_CODEC.encode(jobExecution));
+        }
+        journal.sync(end);
+        return jobExecution;
+    }
+
+    @Override
+    public Optional<JobExecution> findLastExecution(String jobName) {
+        return state.findLastExecution(jobName);
+    }
+
+    @Override
+    public void failExecution(JobExecution jobExecution) {
+        recordExecution(InMemoryJobRepository.withState(jobExecution, FAILED));
+    }
+
+    @Override
+    public void completeExecution(JobExecution jobExecution) {
+
+        if (FAILED.equals(jobExecution.getState())) {
+            return;
+        }
+
+        recordExecution(InMemoryJobRepository.withState(jobExecution, COMPLETED));
+    }
+
+    @Override
+    public JobExecution updateExecution(JobExecution jobExecution) {
+        recordExecution(InMemoryJobRepository.copy(jobExecution));
+        return jobExecution;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The journal is compacted right after, which makes the purge durable.
+     */
+    @Override
+    public synchronized int purgeExecutionHistory(LocalDateTime olderThan, int batchSize) {
+        int purged = state.purgeExecutionHistory(olderThan, batchSize);
+        if (purged > 0) {
+            compact();
+        }
+        return purged;
+    }
+
+    /**
+     * Get the execution history of a job, i.e. an entry per state change of every run, the oldest first.
+     *
+     * @param jobName the name of the job.
+     * @return the history entries of the job.
+     */
+    public List<JobExecution> fetchExecutionHistory(String jobName) {
+        return state.fetchExecutionHistory(jobName);
+    }
+
+    /**
+     * Rewrites the journal with the current state only.
+     */
+    public synchronized void compact() {
+        List<byte[]> records = new ArrayList<>();
+        for (JobDefinition jobDefinition : state.fetchJobDefinitions()) {
+            records.add(record(DEFINITION, DEFINITION_CODEC.encode(jobDefinition)));
+        }
+        for (String jobName : state.fetchHistoryJobNames()) {
+            for (JobExecution entry : state.fetchExecutionHistory(jobName)) {
+                records.add(record(HISTORY_ENTRY, EXECUTION_CODEC.encode(entry)));
+            }
+        }
+        for (JobExecution jobExecution : state.fetchLatestExecutions()) {
+            records.add(record(LATEST_EXECUTION, EXECUTION_CODEC.encode(jobExecution)));
+        }
+        journal.rewrite(records);
+        compactedSize = journal.size();
+    }
+
+    /**
+     * Makes all the changes durable and closes the journal.
+     */
+    @Override
+    public synchronized void close() {
+        journal.close();
+    }
+
+    private void recordExecution(JobExecution jobExecution) {
+        int end;
+        synchronized (this) {
+            state.recordExecution(jobExecution);
+            end = append(EXECUTION_CHANGE, EXECUTION_CODEC.encode(jobExecution));
+        }
+        journal.sync(end);
+    }
+
+    private int append(byte type, byte[] payload) {
+        int end = journal.append(record(type, payload));
+        if (end > compactionThreshold && end > 2 * compactedSize) {
+            compact();
+            end = journal.size();
+        }
+        return end;
+    }
+
+    private void apply(ByteBuffer record) {
+        byte type = record.get();
+        switch (type) {
+            case DEFINITION:
+                state.saveJobDefinition(DEFINITION_CODEC.decode(record));
+                break;
+            case NEW_EXECUTION:
+                JobExecution jobExecution = EXECUTION_CODEC.decode(record);
+                state.restoreLatestExecution(jobExecution);
+                state.appendHistory(jobExecution);
+                break;
+            case EXECUTION_CHANGE:
+                state.recordExecution(EXECUTION_CODEC.decode(record));
+                break;
+            case LATEST_EXECUTION:
+                state.restoreLatestExecution(EXECUTION_CODEC.decode(record));
+                break;
+            case HISTORY_ENTRY:
+                state.appendHistory(EXECUTION_CODEC.decode(record));
+                break;
+            default:
+                throw new IllegalStateException(String.format(UNKNOWN_RECORD_TYPE_MSG, type));
+        }
+    }
+
+    private static byte[] record(byte type, byte[] payload) {
+        byte[] record = new byte[payload.length + 1];
+        record[0] = type;
+        System.arraycopy(payload, 0, record, 1, payload.length);
+        return record;
+    }
+}
@@ -0,0 +1,259 @@
+package io.github.sergejsvisockis.jobs.repository;
+
+import io.github.sergejsvisockis.jobs.JobDefinition;
+import io.github.sergejsvisockis.jobs.JobExecution;
+import io.github.sergejsvisockis.jobs.JobNotFoundException;
+import io.github.sergejsvisockis.jobs.JobState;
+import io.github.sergejsvisockis.jobs.id.IdGenerator;
+import io.github.sergejsvisockis.jobs.id.IdGenerators;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static io.github.sergejsvisockis.jobs.JobState.COMPLETED;
+import static io.github.sergejsvisockis.jobs.JobState.FAILED;
+import static io.github.sergejsvisockis.jobs.JobState.RUNNING;
+
+/**
+ * In-memory implementation for a single node, e.g. for a deployment without a database or for the tests.
+ * It follows the same rules as {@link JdbcJobRepository}: every run gets a new execution, every state change
+ * is appended to the execution history, and the latest execution of a job is only updated by its own run.
+ * <p>
+ * The definitions, the latest executions and the histories are kept in {@link ConcurrentHashMap}s keyed by
+ * the job name, hence the jobs never contend with each other. The history of a job is bounded, the oldest entries
+ * are dropped once the bound is reached. The stored executions are copies, so that the callers could not change them.
+ * </p>
+ */
+public class InMemoryJobRepository implements JobRepository {
+
+    /**
+     * The default number of the history entries kept per job.
+     */
+    public static final int DEFAULT_MAX_HISTORY_SIZE = 1000;
+
+    static final String INVALID_MAX_HISTORY_SIZE_MSG = "Max history size has to be positive, but was %s";
+
+    private final ConcurrentMap<String, JobDefinition> jobDefinitions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, JobExecution> latestExecutions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Deque<JobExecution>> histories = new ConcurrentHashMap<>();
+    private final int maxHistorySize;
+    private IdGenerator idGenerator = IdGenerators.timeOrdered();
+
+    public InMemoryJobRepository() {
+        this(DEFAULT_MAX_HISTORY_SIZE);
+    }
+
+    /**
+     * Creates a repository which keeps up to the given number of history entries per job.
+     *
+     * @param maxHistorySize the maximum number of the history entries per job.
+     */
+    public InMemoryJobRepository(int maxHistorySize) {
+        if (maxHistorySize < 1) {
+            throw new IllegalArgumentException(String.format(INVALID_MAX_HISTORY_SIZE_MSG, maxHistorySize));
+        }
+        this.maxHistorySize = maxHistorySize;
+    }
+
+    /**
+     * Set the generator of the execution ids, time ordered ids are generated by default.
+     *
+     * @param idGenerator the id generator.
+     */
+    public void setIdGenerator(IdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+    }
+
+    /**
+     * Save a job definition, which the job_definition table holds for the JDBC implementation.
+     * A job could only be run once it has a definition.
+     *
+     * @param jobDefinition the job definition, replaces the existing one with the same job name.
+     */
+    public void saveJobDefinition(JobDefinition jobDefinition) {
+        jobDefinitions.put(jobDefinition.getJobName(), jobDefinition);
+    }
+
+    @Override
+    public Optional<JobDefinition> fetchJobDefinition(String jobName) {
+        return Optional.ofNullable(jobDefinitions.get(jobName));
+    }
+
+    @Override
+    public List<JobDefinition> fetchJobDefinitions() {
+        return new ArrayList<>(jobDefinitions.values());
+    }
+
+    @Override
+    public JobExecution captureExecution(String jobName) {
+        return saveNewExecution(jobName);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws JobNotFoundException if the job has no definition.
+     */
+    @Override
+    public JobExecution saveNewExecution(String jobName) {
+
+        if (!jobDefinitions.containsKey(jobName)) {
+            throw new JobNotFoundException(jobName);
+        }
+
+        JobExecution jobExecution = new JobExecution.Builder()
+                .withExecutionId(idGenerator.generate())
+                .withJobName(jobName)
+                .withLastRun(LocalDateTime.now())
+                .withState(RUNNING)
+                .build();
+
+        latestExecutions.put(jobName, copy(jobExecution));
+        appendHistory(jobExecution);
+        return jobExecution;
+    }
+
+    @Override
+    public Optional<JobExecution> findLastExecution(String jobName) {
+        return Optional.ofNullable(latestExecutions.get(jobName)).map(InMemoryJobRepository::copy);
+    }
+
+    @Override
+    public void failExecution(JobExecution jobExecution) {
+        recordExecution(withState(jobExecution, FAILED));
+    }
+
+    @Override
+    public void completeExecution(JobExecution jobExecution) {
+
+        if (FAILED.equals(jobExecution.getState())) {
+            return;
+        }
+
+        recordExecution(withState(jobExecution, COMPLETED));
+    }
+
+    @Override
+    public JobExecution updateExecution(JobExecution jobExecution) {
+        recordExecution(copy(jobExecution));
+        return jobExecution;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Each chunk is removed under the history of a single job, hence a purge never holds up the runs of other jobs.
+     */
+    @Override
+    public int purgeExecutionHistory(LocalDateTime olderThan, int batchSize) {
+
+        if (batchSize < 1 || batchSize > JdbcJobRepository.MAX_PURGE_BATCH_SIZE) {
+            throw new IllegalArgumentException(String.format(JdbcJobRepository.INVALID_PURGE_BATCH_SIZE_MSG, batchSize));
+        }
+
+        int purged = 0;
+        for (Deque<JobExecution> history : histories.values()) {
+            int removed;
+            do {
+                removed = 0;
+                synchronized (history) {
+                    Iterator<JobExecution> iterator = history.iterator();
+                    while (iterator.hasNext() && removed < batchSize) {
+                        if (iterator.next().getLastRun().isBefore(olderThan)) {
+                            iterator.remove();
+                            removed++;
+                        }
+                    }
+                }
+                purged += removed;
+            } while (removed == batchSize);
+        }
+        return purged;
+    }
+
+    /**
+     * Get the execution history of a job, i.e. an entry per state change of every run, the oldest first.
+     *
+     * @param jobName the name of the job.
+     * @return the history entries of the job.
+     */
+    public List<JobExecution> fetchExecutionHistory(String jobName) {
+        Deque<JobExecution> history = histories.get(jobName);
+        if (history == null) {
+            return new ArrayList<>();
+        }
+        List<JobExecution> entries = new ArrayList<>();
+        synchronized (history) {
+            for (JobExecution entry : history) {
+                entries.add(copy(entry));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * @return copies of the latest executions of all the jobs.
+     */
+    List<JobExecution> fetchLatestExecutions() {
+        List<JobExecution> executions = new ArrayList<>();
+        for (JobExecution jobExecution : latestExecutions.values()) {
+            executions.add(copy(jobExecution));
+        }
+        return executions;
+    }
+
+    /**
+     * @return the names of the jobs with an execution history.
+     */
+    List<String> fetchHistoryJobNames() {
+        return new ArrayList<>(histories.keySet());
+    }
+
+    void restoreLatestExecution(JobExecution jobExecution) {
+        latestExecutions.put(jobExecution.getJobName(), copy(jobExecution));
+    }
+
+    void recordExecution(JobExecution jobExecution) {
+        // same as the update of the latest_execution row, a newer run of the job is never overwritten
+        latestExecutions.computeIfPresent(jobExecution.getJobName(),
+                (jobName, latest) -> latest.getExecutionId().equals(jobExecution.getExecutionId())
+                        ? jobExecution
+                        : latest);
+        appendHistory(jobExecution);
+    }
+
+    void appendHistory(JobExecution jobExecution) {
+        Deque<JobExecution> history = histories.computeIfAbsent(jobExecution.getJobName(), jobName -> new ArrayDeque<>());
+        JobExecution entry = copy(jobExecution);
+        synchronized (history) {
+            if (history.size() == maxHistorySize) {
+                history.pollFirst();
+            }
+            history.addLast(entry);
+        }
+    }
+
+    static JobExecution withState(JobExecution jobExecution, JobState state) {
+        return new JobExecution.Builder()
+                .withExecutionId(jobExecution.getExecutionId())
+                .withJobName(jobExecution.getJobName())
+                .withLastRun(LocalDateTime.now())
+                .withState(state)
+                .build();
+    }
+
+    static JobExecution copy(JobExecution jobExecution) {
+        return new JobExecution.Builder()
+                .withExecutionId(jobExecution.getExecutionId())
+                .withJobName(jobExecution.getJobName())
+                .withLastRun(jobExecution.getLastRun())
+                .withState(jobExecution.getState())
+                .build();
+    }
+}
@@ -0,0 +1,342 @@
+package io.github.sergejsvisockis.jobs.repository;
+
+import io.github.sergejsvisockis.jobs.ColumnCodec;
+import io.github.sergejsvisockis.jobs.JobDefinition;
+import io.github.sergejsvisockis.jobs.JobExecution;
+import io.github.sergejsvisockis.jobs.JobExecutionContext;
+import io.github.sergejsvisockis.jobs.JobNotFoundException;
+import io.github.sergejsvisockis.jobs.JobState;
+import io.github.sergejsvisockis.jobs.LockMetadata;
+import io.github.sergejsvisockis.jobs.SqlDialect;
+import io.github.sergejsvisockis.jobs.id.IdGenerator;
+import io.github.sergejsvisockis.jobs.id.IdGenerators;
+import io.github.sergejsvisockis.jobs.lockrepository.JdbcLockRepository;
+import io.github.sergejsvisockis.jobs.lockrepository.JdbcLockStatements;
+import io.github.sergejsvisockis.jobs.lockrepository.LockLeaseRenewer;
+import io.github.sergejsvisockis.jobs.lockrepository.LockWaiters;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * JDBC implementation which starts and finishes a job run within a single transaction on a single connection.
+ * A start issues the next fencing token of the job first, which validates the job definition at the same time,
+ * then the lock is taken by the same statements {@link JdbcLockRepository} takes it by, see
+ * {@link JdbcLockStatements}, or a permit slot for a job allowing concurrent runs,
+ * hence the start does not need a separate definition lookup nor a lock check.
+ * For the same reason the job definition of a started run carries the job name and the max concurrency only.
+ * Every run gets a new execution which replaces the latest one of the job, see {@link JdbcJobRepository}
+ * for the tables.
+ * Optionally locks are taken with a lease, see {@link JdbcLockRepository} for the details.
+ */
+public class JdbcJobLifecycleRepository implements JobLifecycleRepository, AutoCloseable {
+
+    private static final String QUERY_FIND_FENCING_TOKEN = "SELECT j.fencing_token, j.max_concurrency FROM job_definition j WHERE j.job_name = ?";
+    private static final String QUERY_REPLACE_LATEST_EXECUTION = "UPDATE latest_execution SET execution_id = ?, last_run = ?, state = ? WHERE job_name = ?";
+    private static final String QUERY_SAVE_LATEST_EXECUTION = "INSERT INTO latest_execution(job_name, execution_id, last_run, state) VALUES (?, ?, ?, ?)";
+    private static final String QUERY_UPDATE_EXECUTION_STATUS = "UPDATE latest_execution SET state = ?, last_run = ? WHERE job_name = ? AND execution_id = ?";
+    private static final String QUERY_APPEND_EXECUTION_HISTORY = "INSERT INTO job_execution_history(execution_id, job_name, state, recorded_at) VALUES (?, ?, ?, ?)";
+
+    static final String FAILED_TO_START_EXECUTION_MSG = "Failed to start execution for a job with name=%s";
+    static final String FAILED_TO_FINISH_EXECUTION_MSG = "Failed to finish execution for a job with name=%s executionId=%s state=%s";
+
+    private final DataSource dataSource;
+    private final JdbcLockRepository leaseLockRepository;
+    private final LockLeaseRenewer leaseRenewer;
+    private final String upsertLatestExecution;
+    private IdGenerator idGenerator = IdGenerators.timeOrdered();
+    private ColumnCodec columnCodec = ColumnCodec.TEXT;
+
+    public JdbcJobLifecycleRepository(DataSource dataSource) {
+        this(dataSource, SqlDialect.detect(dataSource));
+    }
+
+    /**
+     * Creates a repository which takes locks with a lease and keeps renewing them while the job is running.
+     * Expired locks of other nodes are taken over on start.
+     *
+     * @param dataSource    the data source.
+     * @param leaseDuration the lease duration of the taken locks.
+     */
+    public JdbcJobLifecycleRepository(DataSource dataSource, Duration leaseDuration) {
+        this(dataSource, SqlDialect.detect(dataSource), leaseDuration);
+    }
+
+    /**
+     * Creates a repository for the given dialect, which saves the dialect detection on construction.
+     *
+     * @param dataSource the data source.
+     * @param dialect    the dialect of the database.
+     */
+    public JdbcJobLifecycleRepository(DataSource dataSource, SqlDialect dialect) {
+        this.dataSource = dataSource;
+        this.leaseLockRepository = null;
+        this.leaseRenewer = null;
+        this.upsertLatestExecution = upsertLatestExecution(dialect);
+    }
+
+    /**
+     * Creates a repository for the given dialect which takes locks with a lease.
+     *
+     * @param dataSource    the data source.
+     * @param dialect       the dialect of the database.
+     * @param leaseDuration the lease duration of the taken locks.
+     */
+    public JdbcJobLifecycleRepository(DataSource dataSource, SqlDialect dialect, Duration leaseDuration) {
+        this.dataSource = dataSource;
+        // renews the leases only, it has to bind the ids the same way, see the setters
+        this.leaseLockRepository = new JdbcLockRepository(dataSource, dialect);
+        this.leaseRenewer = new LockLeaseRenewer(leaseLockRepository, leaseDuration);
+        this.upsertLatestExecution = upsertLatestExecution(dialect);
+    }
+
+    /**
+     * Set the codec of the id and the state columns, {@link ColumnCodec#TEXT} matches the default schema.
+     *
+     * @param columnCodec the column codec.
+     */
+    public void setColumnCodec(ColumnCodec columnCodec) {
+        this.columnCodec = columnCodec;
+        if (leaseLockRepository != null) {
+            leaseLockRepository.setColumnCodec(columnCodec);
+        }
+    }
+
+    /**
+     * Set the generator of the execution and the lock ids, time ordered ids are generated by default.
+     *
+     * @param idGenerator the id generator.
+     */
+    public void setIdGenerator(IdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+        if (leaseLockRepository != null) {
+            leaseLockRepository.setIdGenerator(idGenerator);
+        }
+    }
+
+    LockLeaseRenewer getLeaseRenewer() {
+        return leaseRenewer;
+    }
+
+    @Override
+    public Optional<JobExecutionContext> startExecution(String jobName) {
+
+        try (Connection conn = dataSource.getConnection()) {
+
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                Optional<JobExecutionContext> context = startExecution(conn, jobName);
+                if (context.isPresent()) {
+                    conn.commit();
+                } else {
+                    // the fencing token is issued for the acquired locks only
+                    conn.rollback();
+                }
+                if (leaseRenewer != null) {
+                    context.ifPresent(c -> leaseRenewer.register(c.getLockMetadata()));
+                }
+                return context;
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+
+        } catch (JobNotFoundException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(String.format(FAILED_TO_START_EXECUTION_MSG, jobName), e);
+        }
+    }
+
+    @Override
+    public void completeExecution(JobExecutionContext context) {
+        JobState state = JobState.FAILED.equals(context.getJobExecution().getState())
+                ? JobState.FAILED
+                : JobState.COMPLETED;
+        finishExecution(context, state);
+    }
+
+    @Override
+    public void failExecution(JobExecutionContext context) {
+        finishExecution(context, JobState.FAILED);
+    }
+
+    private Optional<JobExecutionContext> startExecution(Connection conn, String jobName) throws SQLException {
+
+        UUID lockId = idGenerator.generate();
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+        LocalDateTime expiresAt = leaseRenewer != null ? now.plus(leaseRenewer.getLeaseDuration()) : null;
+
+        // the increment holds the row lock of the job definition till the end of the transaction,
+        // hence the starts of a job are serialized and the tokens are issued in the order the locks are taken in
+        JdbcLockStatements.incrementFencingToken(conn, jobName);
+
+        long fencingToken;
+        int maxConcurrency;
+        try (PreparedStatement pstmt = conn.prepareStatement(QUERY_FIND_FENCING_TOKEN)) {
+            pstmt.setString(1, jobName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                fencingToken = rs.getLong(1);
+                maxConcurrency = rs.getInt(2);
+            }
+        }
+
+        Optional<LockMetadata> lockMetadata;
+        if (maxConcurrency > 1) {
+            lockMetadata = JdbcLockStatements.acquirePermit(conn, columnCodec, jobName, maxConcurrency,
+                    permit -> newLockMetadata(lockId, jobName, permit, fencingToken, now, expiresAt));
+        } else {
+            LockMetadata newLock = newLockMetadata(lockId, jobName, null, fencingToken, now, expiresAt);
+            lockMetadata = JdbcLockStatements.takeOverExpiredLock(conn, columnCodec, newLock)
+                    || JdbcLockStatements.insertLock(conn, columnCodec, newLock)
+                    ? Optional.of(newLock)
+                    : Optional.empty();
+        }
+        if (lockMetadata.isEmpty()) {
+            return Optional.empty();
+        }
+
+        UUID executionId = idGenerator.generate();
+        replaceLatestExecution(conn, executionId, jobName, timestamp);
+        appendHistory(conn, executionId, jobName, JobState.RUNNING, timestamp);
+
+        return Optional.of(new JobExecutionContext.Builder()
+                .withJobDefinition(new JobDefinition.Builder()
+                        .withJobName(jobName)
+                        .withMaxConcurrency(maxConcurrency)
+                        .build())
+                .withLockMetadata(lockMetadata.get())
+                .withJobExecution(new JobExecution.Builder()
+                        .withExecutionId(executionId)
+                        .withJobName(jobName)
+                        .withLastRun(now)
+                        .withState(JobState.RUNNING)
+                        .build())
+                .build());
+    }
+
+    private void replaceLatestExecution(Connection conn, UUID executionId, String jobName, Timestamp lastRun) throws SQLException {
+
+        if (upsertLatestExecution != null) {
+            try (PreparedStatement pstmt = conn.prepareStatement(upsertLatestExecution)) {
+                pstmt.setString(1, jobName);
+                columnCodec.bindId(pstmt, 2, executionId);
+                pstmt.setTimestamp(3, lastRun);
+                columnCodec.bindState(pstmt, 4, JobState.RUNNING);
+                pstmt.executeUpdate();
+                return;
+            }
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement(QUERY_REPLACE_LATEST_EXECUTION)) {
+            columnCodec.bindId(pstmt, 1, executionId);
+            pstmt.setTimestamp(2, lastRun);
+            columnCodec.bindState(pstmt, 3, JobState.RUNNING);
+            pstmt.setString(4, jobName);
+            if (pstmt.executeUpdate() == 1) {
+                return;
+            }
+        }
+
+        // the very first run of the job, the lock held guarantees there is no concurrent insert
+        try (PreparedStatement pstmt = conn.prepareStatement(QUERY_SAVE_LATEST_EXECUTION)) {
+            pstmt.setString(1, jobName);
+            columnCodec.bindId(pstmt, 2, executionId);
+            pstmt.setTimestamp(3, lastRun);
+            columnCodec.bindState(pstmt, 4, JobState.RUNNING);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private void appendHistory(Connection conn, UUID executionId, String jobName,
+                               JobState state, Timestamp recordedAt) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(QUERY_APPEND_EXECUTION_HISTORY)) {
+            columnCodec.bindId(pstmt, 1, executionId);
+            pstmt.setString(2, jobName);
+            columnCodec.bindState(pstmt, 3, state);
+            pstmt.setTimestamp(4, recordedAt);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Stops renewing the leases of the held locks.
+     */
+    @Override
+    public void close() {
+        if (leaseRenewer != null) {
+            leaseRenewer.close();
+        }
+    }
+
+    private void finishExecution(JobExecutionContext context, JobState state) {
+
+        JobExecution jobExecution = context.getJobExecution();
+
+        if (leaseRenewer != null) {
+            leaseRenewer.unregister(context.getLockMetadata());
+        }
+
+        try (Connection conn = dataSource.getConnection()) {
+
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement updatePstmt = conn.prepareStatement(QUERY_UPDATE_EXECUTION_STATUS)) {
+
+                Timestamp finishedAt = new Timestamp(System.currentTimeMillis());
+                columnCodec.bindState(updatePstmt, 1, state);
+                updatePstmt.setTimestamp(2, finishedAt);
+                updatePstmt.setString(3, jobExecution.getJobName());
+                columnCodec.bindId(updatePstmt, 4, jobExecution.getExecutionId());
+                updatePstmt.executeUpdate();
+
+                appendHistory(conn, jobExecution.getExecutionId(), jobExecution.getJobName(), state, finishedAt);
+
+                JdbcLockStatements.releaseLock(conn, columnCodec, context.getLockMetadata());
+
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+            LockWaiters.signalReleased(jobExecution.getJobName());
+
+        } catch (Exception e) {
+            throw new RuntimeException(String.format(FAILED_TO_FINISH_EXECUTION_MSG,
+                    jobExecution.getJobName(), jobExecution.getExecutionId(), state), e);
+        }
+    }
+
+    private static String upsertLatestExecution(SqlDialect dialect) {
+        return dialect.supportsUpsert()
+                ? dialect.upsert("latest_execution", "job_name", "job_name", "execution_id", "last_run", "state")
+                : null;
+    }
+
+    private static LockMetadata newLockMetadata(UUID lockId, String jobName, Integer permit, long fencingToken,
+                                                LocalDateTime lockedAt, LocalDateTime expiresAt) {
+        return new LockMetadata.Builder()
+                .withLockId(lockId)
+                .withJobName(jobName)
+                .withLockedAt(lockedAt)
+                .withExpiresAt(expiresAt)
+                .withPermit(permit)
+                .withFencingToken(fencingToken)
+                .build();
+    }
+}
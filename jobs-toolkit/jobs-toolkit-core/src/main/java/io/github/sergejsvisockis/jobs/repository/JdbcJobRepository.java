@@ -3,36 +3,128 @@ package io.github.sergejsvisockis.jobs.repository;
 import io.github.sergejsvisockis.jobs.JobDefinition;
 import io.github.sergejsvisockis.jobs.JobExecution;
 import io.github.sergejsvisockis.jobs.JobState;
+import io.github.sergejsvisockis.jobs.ColumnCodec;
+import io.github.sergejsvisockis.jobs.SqlDialect;
+import io.github.sergejsvisockis.jobs.id.IdGenerator;
+import io.github.sergejsvisockis.jobs.id.IdGenerators;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import static io.github.sergejsvisockis.jobs.JobState.COMPLETED;
 import static io.github.sergejsvisockis.jobs.JobState.FAILED;
-
-public class JdbcJobRepository implements JobRepository {
-
-    private static final String QUERY_FIND_JOB_DEFINITION = "SELECT j.job_name, j.job_description FROM job_definition j WHERE job_name = ?";
-    private static final String QUERY_SAVE_JOB_EXECUTION = "INSERT INTO job_execution(execution_id, job_name, last_run, state) VALUES (?, ?, ?, ?)";
-    private static final String QUERY_UPDATE_EXECUTION_STATUS = "UPDATE job_execution SET state = ?, last_run = ? WHERE execution_id = ?";
-    private static final String QUERY_FIND_LAST_JOB_EXECUTION = "SELECT j.execution_id, j.job_name, j.last_run, j.state FROM job_execution j WHERE job_name = ?";
+import static io.github.sergejsvisockis.jobs.JobState.RUNNING;
+
+/**
+ * JDBC implementation. Every state change of a run is appended to the job_execution_history table, which is never
+ * updated and hence could be partitioned by time, while the latest run of every job is kept in the latest_execution
+ * table keyed by the job name, so that looking up the last execution does not slow down as the history grows.
+ * Both are written within a single transaction. The latest execution is written by the native upsert
+ * of the database, see {@link SqlDialect}, falling back to an update followed by an insert on the first run.
+ * <p>
+ * Optionally the state changes of the started executions are written behind: they are queued and written
+ * in batches on a single connection, which takes the tiny writes of short jobs off the path of every run.
+ * </p>
+ */
+public class JdbcJobRepository implements JobRepository, AutoCloseable {
+
+    private static final String QUERY_FIND_JOB_DEFINITION = "SELECT j.job_name, j.job_description, j.max_concurrency FROM job_definition j WHERE job_name = ?";
+    private static final String QUERY_FIND_ALL_JOB_DEFINITIONS = "SELECT j.job_name, j.job_description, j.max_concurrency FROM job_definition j";
+    private static final String LATEST_EXECUTION_TABLE = "latest_execution";
+    private static final String[] LATEST_EXECUTION_COLUMNS = {"job_name", "execution_id", "last_run", "state"};
+    private static final String QUERY_REPLACE_LATEST_EXECUTION = "UPDATE latest_execution SET execution_id = ?, last_run = ?, state = ? WHERE job_name = ?";
+    private static final String QUERY_SAVE_LATEST_EXECUTION = "INSERT INTO latest_execution(job_name, execution_id, last_run, state) VALUES (?, ?, ?, ?)";
+    private static final String QUERY_UPDATE_EXECUTION_STATUS = "UPDATE latest_execution SET state = ?, last_run = ? WHERE job_name = ? AND execution_id = ?";
+    private static final String QUERY_FIND_LAST_JOB_EXECUTION = "SELECT l.execution_id, l.job_name, l.last_run, l.state FROM latest_execution l WHERE l.job_name = ?";
+    private static final String QUERY_APPEND_EXECUTION_HISTORY = "INSERT INTO job_execution_history(execution_id, job_name, state, recorded_at) VALUES (?, ?, ?, ?)";
+    private static final String QUERY_FIND_EXPIRED_HISTORY = "SELECT h.execution_id, h.state, h.recorded_at FROM job_execution_history h WHERE h.recorded_at < ?";
+    private static final String QUERY_PURGE_HISTORY_ENTRY = "DELETE FROM job_execution_history WHERE execution_id = ? AND state = ? AND recorded_at = ?";
+
+    /**
+     * Keeps a chunk of a purge, deleted by a single batch, short enough not to hold the locks for long.
+     */
+    static final int MAX_PURGE_BATCH_SIZE = 500;
 
     static final String FAILED_TO_GET_JOB_DEFINITION_MSG = "Failed to get job definition for a job with name=%s";
+    static final String FAILED_TO_GET_JOB_DEFINITIONS_MSG = "Failed to get job definitions";
     static final String FAILED_TO_CAPTURE_EXECUTION_MSG = "Failed to capture execution for a job with name=%s";
     static final String FAILED_TO_UPDATE_EXECUTION = "Failed to update execution for a job with name=%s executionId=%s";
     static final String FAILED_TO_GET_LAST_EXECUTION_MSG = "Failed to get job last run information for a job with name=%s";
     static final String FAILED_TO_FAIL_EXECUTION_MSG = "Failed to fail execution for a job with name=%s executionId=%s";
     static final String FAILED_TO_COMPLETE_EXECUTION_MSG = "Failed to complete execution for a job with name=%s executionId=%s";
+    static final String FAILED_TO_PURGE_EXECUTION_HISTORY_MSG = "Failed to purge execution history older than %s";
+    static final String FAILED_TO_WRITE_EXECUTIONS_MSG = "Failed to write %s queued execution state changes";
+    static final String INVALID_PURGE_BATCH_SIZE_MSG = "Purge batch size must be between 1 and " + MAX_PURGE_BATCH_SIZE + " but was %s";
 
     private final DataSource dataSource;
+    private final String upsertLatestExecution;
+    private final WriteBehindBuffer<JobExecution> writeBehind;
+    private IdGenerator idGenerator = IdGenerators.timeOrdered();
+    private ColumnCodec columnCodec = ColumnCodec.TEXT;
 
     public JdbcJobRepository(DataSource dataSource) {
+        this(dataSource, SqlDialect.detect(dataSource));
+    }
+
+    /**
+     * Creates a repository for the given dialect, which saves the dialect detection on construction.
+     *
+     * @param dataSource the data source.
+     * @param dialect    the dialect of the database.
+     */
+    public JdbcJobRepository(DataSource dataSource, SqlDialect dialect) {
         this.dataSource = dataSource;
+        this.upsertLatestExecution = upsertLatestExecution(dialect);
+        this.writeBehind = null;
+    }
+
+    /**
+     * Creates a repository which writes the state changes of the started executions behind,
+     * i.e. {@link #completeExecution}, {@link #failExecution} and {@link #updateExecution} only queue the change.
+     * The queue is written by a single batch once it has reached the batch size, or once the flush interval
+     * has elapsed. The changes of the same execution are written in the order they have been made. Up to ten
+     * batches are queued, a change made beyond that waits for a write, and a batch which keeps failing is dropped
+     * after a few attempts. Close the repository on shutdown to write the queued changes.
+     *
+     * @param dataSource    the data source.
+     * @param dialect       the dialect of the database.
+     * @param batchSize     the number of queued changes which triggers a write.
+     * @param flushInterval the maximum time a change is queued for.
+     */
+    public JdbcJobRepository(DataSource dataSource, SqlDialect dialect, int batchSize, Duration flushInterval) {
+        this.dataSource = dataSource;
+        this.upsertLatestExecution = upsertLatestExecution(dialect);
+        this.writeBehind = new WriteBehindBuffer<>("jobs-toolkit-execution-writer", batchSize, flushInterval,
+                this::recordExecutions);
+    }
+
+    /**
+     * Set the codec of the id and the state columns, {@link ColumnCodec#TEXT} matches the default schema.
+     *
+     * @param columnCodec the column codec.
+     */
+    public void setColumnCodec(ColumnCodec columnCodec) {
+        this.columnCodec = columnCodec;
+    }
+
+    /**
+     * Set the generator of the execution ids, time ordered ids are generated by default.
+     *
+     * @param idGenerator the id generator.
+     */
+    public void setIdGenerator(IdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
     }
 
     @Override
@@ -47,9 +139,11 @@ public class JdbcJobRepository implements JobRepository {
                 if (rs.next()) {
                     String name = rs.getString(1);
                     String jobDescription = rs.getString(2);
+                    int maxConcurrency = rs.getInt(3);
                     return Optional.of(new JobDefinition.Builder()
                             .withJobName(name)
                             .withJobDescription(jobDescription)
+                            .withMaxConcurrency(maxConcurrency)
                             .build());
                 }
 
@@ -62,43 +156,49 @@ public class JdbcJobRepository implements JobRepository {
     }
 
     @Override
-    public JobExecution captureExecution(String jobName) {
+    public List<JobDefinition> fetchJobDefinitions() {
 
-        Optional<JobExecution> lastExecution = findLastExecution(jobName);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(QUERY_FIND_ALL_JOB_DEFINITIONS);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            List<JobDefinition> jobDefinitions = new ArrayList<>();
+            while (rs.next()) {
+                jobDefinitions.add(new JobDefinition.Builder()
+                        .withJobName(rs.getString(1))
+                        .withJobDescription(rs.getString(2))
+                        .withMaxConcurrency(rs.getInt(3))
+                        .build());
+            }
+            return jobDefinitions;
 
-        if (lastExecution.isEmpty()) {
-            return saveNewExecution(jobName);
+        } catch (Exception e) {
+            throw new RuntimeException(FAILED_TO_GET_JOB_DEFINITIONS_MSG, e);
         }
+    }
 
-        JobExecution existingExecution = lastExecution.get();
-        existingExecution.setLastRun(LocalDateTime.now());
-        existingExecution.setState(JobState.RUNNING);
-        return updateExecution(existingExecution);
+    /**
+     * {@inheritDoc}
+     * Every run gets a new execution, the previous one is kept in the history.
+     */
+    @Override
+    public JobExecution captureExecution(String jobName) {
+        return saveNewExecution(jobName);
     }
 
     @Override
     public JobExecution saveNewExecution(String jobName) {
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(QUERY_SAVE_JOB_EXECUTION)) {
-
-            UUID jobExecutionId = UUID.randomUUID();
-            LocalDateTime lastRun = LocalDateTime.now();
-            JobState state = JobState.RUNNING;
-
-            pstmt.setString(1, jobExecutionId.toString());
-            pstmt.setString(2, jobName);
-            pstmt.setTimestamp(3, Timestamp.valueOf(lastRun));
-            pstmt.setString(4, state.name());
-
-            pstmt.executeUpdate();
 
-            return new JobExecution.Builder()
-                    .withExecutionId(jobExecutionId)
-                    .withJobName(jobName)
-                    .withLastRun(lastRun)
-                    .withState(state)
-                    .build();
+        JobExecution jobExecution = new JobExecution.Builder()
+                .withExecutionId(idGenerator.generate())
+                .withJobName(jobName)
+                .withLastRun(LocalDateTime.now())
+                .withState(RUNNING)
+                .build();
 
+        try {
+            recordExecution(jobExecution, true);
+            return jobExecution;
         } catch (Exception e) {
             throw new RuntimeException(String.format(FAILED_TO_CAPTURE_EXECUTION_MSG, jobName), e);
         }
@@ -114,14 +214,14 @@ public class JdbcJobRepository implements JobRepository {
             try (ResultSet rs = pstmt.executeQuery()) {
 
                 if (rs.next()) {
-                    String executionId = rs.getString(1);
+                    UUID executionId = columnCodec.readId(rs, 1);
                     String name = rs.getString(2);
                     Timestamp lastRun = rs.getTimestamp(3);
-                    String state = rs.getString(4);
+                    JobState state = columnCodec.readState(rs, 4);
                     return Optional.of(new JobExecution.Builder()
-                            .withExecutionId(UUID.fromString(executionId))
+                            .withExecutionId(executionId)
                             .withLastRun(lastRun.toLocalDateTime())
-                            .withState(JobState.valueOf(state))
+                            .withState(state)
                             .withJobName(name)
                             .build());
                 }
@@ -137,59 +237,296 @@ public class JdbcJobRepository implements JobRepository {
     @Override
     public void failExecution(JobExecution jobExecution) {
 
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(QUERY_UPDATE_EXECUTION_STATUS)) {
+        try {
+            writeExecution(withState(jobExecution, FAILED));
+        } catch (Exception e) {
+            throw new RuntimeException(String.format(FAILED_TO_FAIL_EXECUTION_MSG,
+                    jobExecution.getJobName(), jobExecution.getExecutionId().toString()), e);
+        }
+    }
 
-            pstmt.setString(1, FAILED.name());
-            pstmt.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
-            pstmt.setString(3, jobExecution.getExecutionId().toString());
+    @Override
+    public void completeExecution(JobExecution jobExecution) {
 
-            pstmt.executeUpdate();
+        if (FAILED.equals(jobExecution.getState())) {
+            return;
+        }
 
+        try {
+            writeExecution(withState(jobExecution, COMPLETED));
         } catch (Exception e) {
-            throw new RuntimeException(String.format(FAILED_TO_FAIL_EXECUTION_MSG,
+            throw new RuntimeException(String.format(FAILED_TO_COMPLETE_EXECUTION_MSG,
                     jobExecution.getJobName(), jobExecution.getExecutionId().toString()), e);
         }
     }
 
     @Override
-    public void completeExecution(JobExecution jobExecution) {
+    public JobExecution updateExecution(JobExecution jobExecution) {
 
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(QUERY_UPDATE_EXECUTION_STATUS)) {
+        try {
+            writeExecution(jobExecution);
+            return jobExecution;
+        } catch (Exception e) {
+            throw new RuntimeException(String
+                    .format(FAILED_TO_UPDATE_EXECUTION,
+                            jobExecution.getJobName(), jobExecution.getExecutionId().toString()), e);
+        }
+    }
 
-            if (!FAILED.equals(jobExecution.getState())) {
+    /**
+     * {@inheritDoc}
+     * Each chunk is deleted by its own batch and committed on its own. The entries to delete are selected first
+     * and deleted by their primary key, which keeps the chunks bounded on the databases without a limit clause
+     * for a delete, as a run has got an entry per state change.
+     */
+    @Override
+    public int purgeExecutionHistory(LocalDateTime olderThan, int batchSize) {
 
-                pstmt.setString(1, JobState.COMPLETED.name());
-                pstmt.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
-                pstmt.setString(3, jobExecution.getExecutionId().toString());
+        if (batchSize < 1 || batchSize > MAX_PURGE_BATCH_SIZE) {
+            throw new IllegalArgumentException(String.format(INVALID_PURGE_BATCH_SIZE_MSG, batchSize));
+        }
 
-                pstmt.executeUpdate();
-            }
+        Timestamp threshold = Timestamp.valueOf(olderThan);
+
+        try (Connection conn = dataSource.getConnection()) {
+
+            int purged = 0;
+            List<HistoryEntry> entries;
+            do {
+                entries = findExpiredHistory(conn, threshold, batchSize);
+                if (entries.isEmpty()) {
+                    break;
+                }
+
+                try (PreparedStatement pstmt = conn.prepareStatement(QUERY_PURGE_HISTORY_ENTRY)) {
+                    for (HistoryEntry entry : entries) {
+                        columnCodec.bindId(pstmt, 1, entry.executionId);
+                        columnCodec.bindState(pstmt, 2, entry.state);
+                        pstmt.setTimestamp(3, entry.recordedAt);
+                        pstmt.addBatch();
+                    }
+                    for (int deleted : pstmt.executeBatch()) {
+                        // the drivers which do not report the counts of a batch have deleted the entry anyway
+                        purged += deleted == Statement.SUCCESS_NO_INFO ? 1 : deleted;
+                    }
+                }
+
+                if (!conn.getAutoCommit()) {
+                    conn.commit();
+                }
+            } while (entries.size() == batchSize);
+
+            return purged;
 
         } catch (Exception e) {
-            throw new RuntimeException(String.format(FAILED_TO_COMPLETE_EXECUTION_MSG,
-                    jobExecution.getJobName(), jobExecution.getExecutionId().toString()), e);
+            throw new RuntimeException(String.format(FAILED_TO_PURGE_EXECUTION_HISTORY_MSG, olderThan), e);
         }
     }
 
+    /**
+     * Write the queued state changes right away, a no-op unless the changes are written behind.
+     */
+    public void flush() {
+        if (writeBehind != null) {
+            writeBehind.flush();
+        }
+    }
+
+    /**
+     * Writes the queued state changes, if any, and stops the background writer.
+     */
     @Override
-    public JobExecution updateExecution(JobExecution jobExecution) {
+    public void close() {
+        if (writeBehind != null) {
+            writeBehind.close();
+        }
+    }
 
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(QUERY_UPDATE_EXECUTION_STATUS)) {
+    private List<HistoryEntry> findExpiredHistory(Connection conn, Timestamp threshold, int batchSize) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(QUERY_FIND_EXPIRED_HISTORY)) {
+            pstmt.setMaxRows(batchSize);
+            pstmt.setTimestamp(1, threshold);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                List<HistoryEntry> entries = new ArrayList<>();
+                while (rs.next()) {
+                    entries.add(new HistoryEntry(columnCodec.readId(rs, 1), columnCodec.readState(rs, 2),
+                            rs.getTimestamp(3)));
+                }
+                return entries;
+            }
+        }
+    }
+
+    /**
+     * Writes the latest execution of the job and appends the state to the history within a single transaction.
+     *
+     * @param jobExecution the execution to record.
+     * @param newRun       whether the execution replaces the latest one of the job or updates it.
+     */
+    private void recordExecution(JobExecution jobExecution, boolean newRun) throws SQLException {
+
+        try (Connection conn = dataSource.getConnection()) {
+
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                if (newRun) {
+                    replaceLatestExecution(conn, jobExecution);
+                } else {
+                    updateLatestExecution(conn, jobExecution);
+                }
+                appendHistory(conn, jobExecution);
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private void writeExecution(JobExecution jobExecution) throws SQLException {
+        if (writeBehind != null) {
+            // a copy, so that the caller could keep changing the execution while the change is queued
+            writeBehind.add(new JobExecution.Builder()
+                    .withExecutionId(jobExecution.getExecutionId())
+                    .withJobName(jobExecution.getJobName())
+                    .withLastRun(jobExecution.getLastRun())
+                    .withState(jobExecution.getState())
+                    .build());
+        } else {
+            recordExecution(jobExecution, false);
+        }
+    }
+
+    /**
+     * Writes the queued state changes by two batches, one per table, within a single transaction.
+     * A batch is executed in the order it has been built, hence the changes of the same execution are not reordered.
+     *
+     * @param jobExecutions the queued state changes.
+     */
+    private void recordExecutions(List<JobExecution> jobExecutions) {
+
+        try (Connection conn = dataSource.getConnection()) {
+
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement updatePstmt = conn.prepareStatement(QUERY_UPDATE_EXECUTION_STATUS);
+                 PreparedStatement historyPstmt = conn.prepareStatement(QUERY_APPEND_EXECUTION_HISTORY)) {
+
+                for (JobExecution jobExecution : jobExecutions) {
+                    bindLatestExecutionUpdate(updatePstmt, jobExecution);
+                    updatePstmt.addBatch();
+                    bindHistory(historyPstmt, jobExecution);
+                    historyPstmt.addBatch();
+                }
+                updatePstmt.executeBatch();
+                historyPstmt.executeBatch();
+
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
 
-            pstmt.setString(1, jobExecution.getState().name());
+        } catch (Exception e) {
+            throw new RuntimeException(String.format(FAILED_TO_WRITE_EXECUTIONS_MSG, jobExecutions.size()), e);
+        }
+    }
+
+    private void replaceLatestExecution(Connection conn, JobExecution jobExecution) throws SQLException {
+
+        if (upsertLatestExecution != null) {
+            try (PreparedStatement pstmt = conn.prepareStatement(upsertLatestExecution)) {
+                pstmt.setString(1, jobExecution.getJobName());
+                columnCodec.bindId(pstmt, 2, jobExecution.getExecutionId());
+                pstmt.setTimestamp(3, Timestamp.valueOf(jobExecution.getLastRun()));
+                columnCodec.bindState(pstmt, 4, jobExecution.getState());
+                pstmt.executeUpdate();
+                return;
+            }
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement(QUERY_REPLACE_LATEST_EXECUTION)) {
+            columnCodec.bindId(pstmt, 1, jobExecution.getExecutionId());
             pstmt.setTimestamp(2, Timestamp.valueOf(jobExecution.getLastRun()));
-            pstmt.setString(3, jobExecution.getExecutionId().toString());
+            columnCodec.bindState(pstmt, 3, jobExecution.getState());
+            pstmt.setString(4, jobExecution.getJobName());
+            if (pstmt.executeUpdate() == 1) {
+                return;
+            }
+        }
 
+        // the very first run of the job
+        try (PreparedStatement pstmt = conn.prepareStatement(QUERY_SAVE_LATEST_EXECUTION)) {
+            pstmt.setString(1, jobExecution.getJobName());
+            columnCodec.bindId(pstmt, 2, jobExecution.getExecutionId());
+            pstmt.setTimestamp(3, Timestamp.valueOf(jobExecution.getLastRun()));
+            columnCodec.bindState(pstmt, 4, jobExecution.getState());
             pstmt.executeUpdate();
+        }
+    }
 
-            return jobExecution;
-        } catch (Exception e) {
-            throw new RuntimeException(String
-                    .format(FAILED_TO_UPDATE_EXECUTION,
-                            jobExecution.getJobName(), jobExecution.getExecutionId().toString()), e);
+    private void updateLatestExecution(Connection conn, JobExecution jobExecution) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(QUERY_UPDATE_EXECUTION_STATUS)) {
+            bindLatestExecutionUpdate(pstmt, jobExecution);
+            // no update once a newer run has replaced the execution, still its history is kept
+            pstmt.executeUpdate();
+        }
+    }
+
+    private void appendHistory(Connection conn, JobExecution jobExecution) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(QUERY_APPEND_EXECUTION_HISTORY)) {
+            bindHistory(pstmt, jobExecution);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private void bindLatestExecutionUpdate(PreparedStatement pstmt, JobExecution jobExecution) throws SQLException {
+        columnCodec.bindState(pstmt, 1, jobExecution.getState());
+        pstmt.setTimestamp(2, Timestamp.valueOf(jobExecution.getLastRun()));
+        pstmt.setString(3, jobExecution.getJobName());
+        columnCodec.bindId(pstmt, 4, jobExecution.getExecutionId());
+    }
+
+    private void bindHistory(PreparedStatement pstmt, JobExecution jobExecution) throws SQLException {
+        columnCodec.bindId(pstmt, 1, jobExecution.getExecutionId());
+        pstmt.setString(2, jobExecution.getJobName());
+        columnCodec.bindState(pstmt, 3, jobExecution.getState());
+        pstmt.setTimestamp(4, Timestamp.valueOf(jobExecution.getLastRun()));
+    }
+
+    private static String upsertLatestExecution(SqlDialect dialect) {
+        return dialect.supportsUpsert()
+                ? dialect.upsert(LATEST_EXECUTION_TABLE, "job_name", LATEST_EXECUTION_COLUMNS)
+                : null;
+    }
+
+    private static JobExecution withState(JobExecution jobExecution, JobState state) {
+        return new JobExecution.Builder()
+                .withExecutionId(jobExecution.getExecutionId())
+                .withJobName(jobExecution.getJobName())
+                .withLastRun(LocalDateTime.now())
+                .withState(state)
+                .build();
+    }
+
+    /**
+     * The primary key of an execution history entry.
+     */
+    private static final class HistoryEntry {
+
+        private final UUID executionId;
+        private final JobState state;
+        private final Timestamp recordedAt;
+
+        HistoryEntry(UUID executionId, JobState state, Timestamp recordedAt) {
+            this.executionId = executionId;
+            this.state = state;
+            this.recordedAt = recordedAt;
         }
     }
 }
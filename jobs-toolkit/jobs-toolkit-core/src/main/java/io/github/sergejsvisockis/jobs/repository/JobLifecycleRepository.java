@@ -0,0 +1,53 @@
+package io.github.sergejsvisockis.jobs.repository;
+
+import io.github.sergejsvisockis.jobs.JobExecutionContext;
+import io.github.sergejsvisockis.jobs.JobNotFoundException;
+import io.github.sergejsvisockis.jobs.lockrepository.LockWaiters;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Combines the job and lock persistence into the two operations a job run consists of: start and finish.
+ * Implementations are free to perform each of them as a single unit of work,
+ * e.g. one transaction on one database connection.
+ */
+public interface JobLifecycleRepository {
+
+    /**
+     * Start a job run: validate the job definition, take the lock and record the execution as RUNNING.
+     *
+     * @param jobName the name of the job to start.
+     * @return the started run, or empty once the job is already locked.
+     * @throws JobNotFoundException if there is no definition for the job.
+     */
+    Optional<JobExecutionContext> startExecution(String jobName);
+
+    /**
+     * Start a job run, waiting up to the timeout for the lock to be released once the job is already locked.
+     * The attempts are made by {@link #startExecution(String)} with a jittered exponential backoff in between,
+     * see {@link LockWaiters}.
+     *
+     * @param jobName     the name of the job to start.
+     * @param lockTimeout the maximum time to wait for the lock.
+     * @return the started run, or empty once the job has stayed locked for the whole timeout.
+     * @throws JobNotFoundException if there is no definition for the job.
+     */
+    default Optional<JobExecutionContext> startExecution(String jobName, Duration lockTimeout) {
+        return LockWaiters.await(jobName, lockTimeout, () -> startExecution(jobName));
+    }
+
+    /**
+     * Finish a job run successfully: mark the execution as COMPLETED and release the lock.
+     *
+     * @param context the started run.
+     */
+    void completeExecution(JobExecutionContext context);
+
+    /**
+     * Finish a job run unsuccessfully: mark the execution as FAILED and release the lock.
+     *
+     * @param context the started run.
+     */
+    void failExecution(JobExecutionContext context);
+}
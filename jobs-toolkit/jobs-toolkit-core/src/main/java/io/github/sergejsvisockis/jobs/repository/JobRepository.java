@@ -4,6 +4,8 @@ import io.github.sergejsvisockis.jobs.JobDefinition;
 import io.github.sergejsvisockis.jobs.JobExecution;
 import io.github.sergejsvisockis.jobs.LockMetadata;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -21,6 +23,13 @@ public interface JobRepository {
      */
     Optional<JobDefinition> fetchJobDefinition(String jobName);
 
+    /**
+     * Get all the job definitions at once, e.g. to preload them into a cache.
+     *
+     * @return all the job definitions.
+     */
+    List<JobDefinition> fetchJobDefinitions();
+
     /**
      * Capture job execution, its state, and the last time of its execution.
      *
@@ -69,4 +78,14 @@ public interface JobRepository {
      * @return the updated job execution object.
      */
     JobExecution updateExecution(JobExecution jobExecution);
+
+    /**
+     * Delete the execution history older than the given time in chunks of the given size,
+     * so that a purge of a large history never holds the locks for long.
+     *
+     * @param olderThan the time before which the history is deleted.
+     * @param batchSize the maximum number of history entries deleted by a single statement.
+     * @return the number of deleted history entries.
+     */
+    int purgeExecutionHistory(LocalDateTime olderThan, int batchSize);
 }
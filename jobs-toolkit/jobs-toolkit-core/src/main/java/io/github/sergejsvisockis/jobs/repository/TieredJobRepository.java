@@ -0,0 +1,184 @@
+package io.github.sergejsvisockis.jobs.repository;
+
+import io.github.sergejsvisockis.jobs.JobDefinition;
+import io.github.sergejsvisockis.jobs.JobExecution;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static io.github.sergejsvisockis.jobs.JobState.COMPLETED;
+import static io.github.sergejsvisockis.jobs.JobState.FAILED;
+
+/**
+ * Serves the latest executions from memory and persists them to the wrapped repository, e.g. a
+ * {@link JdbcJobRepository}, so that the database is off the path of the frequent reads of the last run.
+ * <p>
+ * A new execution is written through to the wrapped repository. The state changes of a started execution
+ * are applied to the cache right away and written behind, i.e. queued and handed over to
+ * {@link JobRepository#updateExecution(JobExecution)} of the wrapped repository in batches. The cache holds
+ * the latest executions of up to the given number of jobs, the least recently used one is evicted beyond that.
+ * A cache miss writes the queued changes first, so that it never reads a stale execution. The number of
+ * the queued changes is bounded by the same number, a caller writes them itself once it is reached.
+ * </p>
+ */
+public class TieredJobRepository implements JobRepository, AutoCloseable {
+
+    /**
+     * The default number of the queued changes written by a single batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    static final String INVALID_MAX_ENTRIES_MSG = "Max entries has to be positive, but was %s";
+
+    private final JobRepository delegate;
+    private final int maxEntries;
+    private final Map<String, JobExecution> latestExecutions;
+    private final WriteBehindBuffer<JobExecution> writeBehind;
+
+    /**
+     * Creates a tiered decorator.
+     *
+     * @param delegate      the repository to persist the executions to.
+     * @param maxEntries    the maximum number of the cached latest executions and of the queued changes.
+     * @param flushInterval the maximum time a change is queued for.
+     */
+    public TieredJobRepository(JobRepository delegate, int maxEntries, Duration flushInterval) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException(String.format(INVALID_MAX_ENTRIES_MSG, maxEntries));
+        }
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.latestExecutions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, JobExecution> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.writeBehind = new WriteBehindBuffer<>("jobs-toolkit-tiered-writer",
+                Math.min(DEFAULT_BATCH_SIZE, maxEntries), maxEntries, flushInterval, this::writeExecutions);
+    }
+
+    @Override
+    public Optional<JobDefinition> fetchJobDefinition(String jobName) {
+        return delegate.fetchJobDefinition(jobName);
+    }
+
+    @Override
+    public List<JobDefinition> fetchJobDefinitions() {
+        return delegate.fetchJobDefinitions();
+    }
+
+    @Override
+    public JobExecution captureExecution(String jobName) {
+        return saveNewExecution(jobName);
+    }
+
+    @Override
+    public JobExecution saveNewExecution(String jobName) {
+        JobExecution jobExecution = delegate.saveNewExecution(jobName);
+        synchronized (latestExecutions) {
+            latestExecutions.put(jobName, InMemoryJobRepository.copy(jobExecution));
+        }
+        return jobExecution;
+    }
+
+    @Override
+    public Optional<JobExecution> findLastExecution(String jobName) {
+        synchronized (latestExecutions) {
+            JobExecution cached = latestExecutions.get(jobName);
+            if (cached != null) {
+                return Optional.of(InMemoryJobRepository.copy(cached));
+            }
+        }
+
+        writeBehind.flush();
+        Optional<JobExecution> jobExecution = delegate.findLastExecution(jobName);
+        jobExecution.ifPresent(loaded -> {
+            synchronized (latestExecutions) {
+                // a run started meanwhile has already been cached and is newer
+                latestExecutions.putIfAbsent(jobName, InMemoryJobRepository.copy(loaded));
+            }
+        });
+        return jobExecution;
+    }
+
+    @Override
+    public void failExecution(JobExecution jobExecution) {
+        recordExecution(InMemoryJobRepository.withState(jobExecution, FAILED));
+    }
+
+    @Override
+    public void completeExecution(JobExecution jobExecution) {
+
+        if (FAILED.equals(jobExecution.getState())) {
+            return;
+        }
+
+        recordExecution(InMemoryJobRepository.withState(jobExecution, COMPLETED));
+    }
+
+    @Override
+    public JobExecution updateExecution(JobExecution jobExecution) {
+        recordExecution(InMemoryJobRepository.copy(jobExecution));
+        return jobExecution;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The queued changes are written first, so that they are purged as well.
+     */
+    @Override
+    public int purgeExecutionHistory(LocalDateTime olderThan, int batchSize) {
+        writeBehind.flush();
+        return delegate.purgeExecutionHistory(olderThan, batchSize);
+    }
+
+    /**
+     * Write the queued changes right away.
+     */
+    public void flush() {
+        writeBehind.flush();
+    }
+
+    /**
+     * Writes the queued changes and stops the background writer.
+     */
+    @Override
+    public void close() {
+        writeBehind.close();
+    }
+
+    private void recordExecution(JobExecution jobExecution) {
+        synchronized (latestExecutions) {
+            // same as the wrapped repository, a newer run of the job is never overwritten
+            latestExecutions.computeIfPresent(jobExecution.getJobName(),
+                    (jobName, latest) -> latest.getExecutionId().equals(jobExecution.getExecutionId())
+                            ? jobExecution
+                            : latest);
+        }
+        writeBehind.add(InMemoryJobRepository.copy(jobExecution));
+        if (writeBehind.size() >= maxEntries) {
+            writeBehind.flush();
+        }
+    }
+
+    /**
+     * Hands the changes over one by one. The written ones are removed from the batch before a failure is rethrown,
+     * so that only the rest of the batch is retried and no history entry is written twice.
+     */
+    private void writeExecutions(List<JobExecution> jobExecutions) {
+        int written = 0;
+        try {
+            for (JobExecution jobExecution : jobExecutions) {
+                delegate.updateExecution(jobExecution);
+                written++;
+            }
+        } finally {
+            jobExecutions.subList(0, written).clear();
+        }
+    }
+}
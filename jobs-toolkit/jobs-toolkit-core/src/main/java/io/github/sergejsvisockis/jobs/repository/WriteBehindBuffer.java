@@ -0,0 +1,219 @@
+package io.github.sergejsvisockis.jobs.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Queues writes and hands them over to the writer in batches, either once the batch size has been reached
+ * or once the flush interval has elapsed, whichever comes first.
+ * <p>
+ * The writes are handed over in the order they have been queued and a single flush runs at a time, hence
+ * the writes of the same entity are never reordered. A failed batch is kept at the head of the queue and
+ * retried by the next flush, up to {@link #MAX_WRITE_ATTEMPTS} times, then it is logged and dropped, so that
+ * a batch the writer never accepts does not hold up the writes queued behind it.
+ * </p>
+ * <p>
+ * The queue is bounded by its capacity, give or take the batch being written. A write queued once it is full
+ * waits for a flush to make room for it, hence the writers are slowed down to the pace of the writer rather than
+ * queueing the writes without a limit.
+ * </p>
+ *
+ * @param <T> the type of the queued writes.
+ */
+final class WriteBehindBuffer<T> implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WriteBehindBuffer.class);
+
+    static final String INVALID_BATCH_SIZE_MSG = "Batch size has to be positive, but was %s";
+    static final String INVALID_CAPACITY_MSG = "Capacity has to be at least the batch size %s, but was %s";
+    static final String INVALID_FLUSH_INTERVAL_MSG = "Flush interval has to be positive, but was %s";
+    static final String BUFFER_CLOSED_MSG = "Write-behind buffer has been closed";
+    static final String INTERRUPTED_WHILE_FULL_MSG = "Interrupted while waiting for the write-behind buffer to make room";
+
+    /**
+     * The number of the times a batch is handed over to the writer before it is dropped.
+     */
+    static final int MAX_WRITE_ATTEMPTS = 5;
+
+    /**
+     * The default capacity, in batches.
+     */
+    static final int DEFAULT_CAPACITY_BATCHES = 10;
+
+    private final int batchSize;
+    private final int capacity;
+    private final Consumer<List<T>> writer;
+    private final ScheduledExecutorService scheduler;
+    private final Object flushLock = new Object();
+
+    private List<T> pending = new ArrayList<>();
+    private boolean closed;
+    // guarded by the flush lock
+    private int failedAttempts;
+
+    /**
+     * Creates a buffer of {@link #DEFAULT_CAPACITY_BATCHES} batches and starts its background flush thread.
+     *
+     * @param name          the name of the background flush thread.
+     * @param batchSize     the number of queued writes which triggers a flush.
+     * @param flushInterval the maximum time a write is queued for.
+     * @param writer        writes a batch, the batch is retried if the writer throws, except for the writes
+     *                      the writer has removed from it.
+     */
+    WriteBehindBuffer(String name, int batchSize, Duration flushInterval, Consumer<List<T>> writer) {
+        this(name, batchSize, batchSize * DEFAULT_CAPACITY_BATCHES, flushInterval, writer);
+    }
+
+    /**
+     * Creates a buffer and starts its background flush thread.
+     *
+     * @param name          the name of the background flush thread.
+     * @param batchSize     the number of queued writes which triggers a flush.
+     * @param capacity      the maximum number of the queued writes, at least the batch size.
+     * @param flushInterval the maximum time a write is queued for.
+     * @param writer        writes a batch, the batch is retried if the writer throws, except for the writes
+     *                      the writer has removed from it.
+     */
+    WriteBehindBuffer(String name, int batchSize, int capacity, Duration flushInterval, Consumer<List<T>> writer) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException(String.format(INVALID_BATCH_SIZE_MSG, batchSize));
+        }
+        if (capacity < batchSize) {
+            throw new IllegalArgumentException(String.format(INVALID_CAPACITY_MSG, batchSize, capacity));
+        }
+        if (flushInterval.isZero() || flushInterval.isNegative()) {
+            throw new IllegalArgumentException(String.format(INVALID_FLUSH_INTERVAL_MSG, flushInterval));
+        }
+        this.batchSize = batchSize;
+        this.capacity = capacity;
+        this.writer = writer;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = flushInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushSafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue a write, waits for a flush to make room for it once the buffer is full.
+     *
+     * @param write the write.
+     * @throws IllegalStateException if the buffer has been closed, or the calling thread has been interrupted
+     *                               while waiting.
+     */
+    void add(T write) {
+        boolean full;
+        synchronized (this) {
+            while (!closed && pending.size() >= capacity) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(INTERRUPTED_WHILE_FULL_MSG, e);
+                }
+            }
+            if (closed) {
+                throw new IllegalStateException(BUFFER_CLOSED_MSG);
+            }
+            pending.add(write);
+            full = pending.size() == batchSize;
+        }
+        if (full) {
+            try {
+                scheduler.execute(this::flushSafely);
+            } catch (RejectedExecutionException e) {
+                // closed concurrently, the close flushes the write
+            }
+        }
+    }
+
+    /**
+     * Get the number of the queued writes.
+     *
+     * @return the number of the writes which have not been written yet.
+     */
+    synchronized int size() {
+        return pending.size();
+    }
+
+    /**
+     * Write all the queued writes on the calling thread.
+     *
+     * @throws RuntimeException thrown by the writer, the writes are kept queued then, except for a batch which has
+     *                          failed {@link #MAX_WRITE_ATTEMPTS} times.
+     */
+    void flush() {
+        synchronized (flushLock) {
+            List<T> batch = drain();
+            while (!batch.isEmpty()) {
+                try {
+                    writer.accept(batch);
+                } catch (RuntimeException e) {
+                    if (++failedAttempts < MAX_WRITE_ATTEMPTS) {
+                        requeue(batch);
+                    } else {
+                        LOG.error("Dropping {} writes which have failed to be written {} times",
+                                batch.size(), failedAttempts, e);
+                        failedAttempts = 0;
+                    }
+                    throw e;
+                }
+                failedAttempts = 0;
+                batch = drain();
+            }
+        }
+    }
+
+    /**
+     * Stops accepting writes, stops the background thread and writes all the queued writes on the calling thread.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        scheduler.shutdownNow();
+        flush();
+    }
+
+    private synchronized List<T> drain() {
+        if (!pending.isEmpty()) {
+            // the drained writes make room for the ones waiting
+            notifyAll();
+        }
+        if (pending.size() <= batchSize) {
+            List<T> batch = pending;
+            pending = new ArrayList<>();
+            return batch;
+        }
+        List<T> batch = new ArrayList<>(pending.subList(0, batchSize));
+        pending = new ArrayList<>(pending.subList(batchSize, pending.size()));
+        return batch;
+    }
+
+    private synchronized void requeue(List<T> batch) {
+        batch.addAll(pending);
+        pending = batch;
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            // the writes are kept queued, the next flush is going to retry
+            LOG.error("Failed to flush {} queued writes", size(), e);
+        }
+    }
+}
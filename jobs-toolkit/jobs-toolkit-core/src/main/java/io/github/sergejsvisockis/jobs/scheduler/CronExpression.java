@@ -0,0 +1,335 @@
+package io.github.sergejsvisockis.jobs.scheduler;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cron expression compiled into a bitset per field, see {@link #parse(String)} for the syntax.
+ * <p>
+ * The next fire time is found by jumping to the next set bit of every field from the month down to the second,
+ * rather than by probing the time minute by minute, hence it takes a handful of steps for any expression.
+ * The days matching the day of the week are taken from a table precomputed for every day of the week a month
+ * could start on. Once both the day of the month and the day of the week are restricted, a day matching either
+ * of them fires, same as in the classic cron.
+ * </p>
+ * <p>
+ * The fire times are local to the time zone. A fire time skipped by a daylight saving gap fires once at the end
+ * of the gap. Once an expression fires every hour, the local times repeated by an overlap fire in both offsets,
+ * hence an expression firing every 15 minutes keeps firing every 15 minutes throughout the overlap. Otherwise a fire
+ * time repeated by an overlap fires once, at the earlier of its occurrences which is still ahead, same as in cron.
+ * </p>
+ */
+public final class CronExpression {
+
+    static final String INVALID_CRON_EXPRESSION_MSG = "Invalid cron expression '%s': %s";
+
+    private static final int MAX_CACHED_EXPRESSIONS = 1024;
+    private static final int SEARCH_YEARS = 100;
+    private static final Map<String, CronExpression> CACHE = new ConcurrentHashMap<>();
+
+    private static final String[] MONTH_NAMES = {
+            "JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"};
+    private static final String[] DAY_OF_WEEK_NAMES = {"SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT"};
+
+    private final String expression;
+    private final long seconds;
+    private final long minutes;
+    private final long hours;
+    private final long daysOfMonth;
+    private final long months;
+    // the days of a month matching the days of the week, indexed by the day of the week of its first day
+    private final long[] daysOfWeekByFirstDay = new long[7];
+    private final boolean eitherDay;
+    private final boolean everyHour;
+
+    private CronExpression(String expression, String[] fields) {
+        this.expression = expression;
+        int offset = fields.length == 6 ? 1 : 0;
+        this.seconds = offset == 1 ? parseField(expression, fields[0], 0, 59, null) : 1L;
+        this.minutes = parseField(expression, fields[offset], 0, 59, null);
+        this.hours = parseField(expression, fields[offset + 1], 0, 23, null);
+        this.everyHour = hours == (1L << 24) - 1;
+        this.daysOfMonth = parseField(expression, fields[offset + 2], 1, 31, null);
+        this.months = parseField(expression, fields[offset + 3], 1, 12, MONTH_NAMES);
+        long daysOfWeek = parseField(expression, fields[offset + 4], 0, 7, DAY_OF_WEEK_NAMES);
+        if ((daysOfWeek & (1L << 7)) != 0) {
+            // both 0 and 7 stand for Sunday
+            daysOfWeek = (daysOfWeek | 1L) & ~(1L << 7);
+        }
+        this.eitherDay = isRestricted(fields[offset + 2]) && isRestricted(fields[offset + 4]);
+        for (int firstDay = 0; firstDay < 7; firstDay++) {
+            for (int day = 1; day <= 31; day++) {
+                if ((daysOfWeek & (1L << ((firstDay + day - 1) % 7))) != 0) {
+                    daysOfWeekByFirstDay[firstDay] |= 1L << day;
+                }
+            }
+        }
+    }
+
+    /**
+     * Compile a cron expression, the compiled expressions are cached.
+     * <p>
+     * Either five fields, minute hour day-of-month month day-of-week, or six fields with the second in front.
+     * A field is a comma separated list of values, ranges {@code a-b}, wildcards {@code *} and steps {@code x/n}.
+     * The months and the days of the week could be given by their three-letter names, {@code ?} is the same as
+     * {@code *}. The macros {@code @yearly}, {@code @monthly}, {@code @weekly}, {@code @daily} and {@code @hourly}
+     * are supported as well.
+     * </p>
+     *
+     * @param expression the cron expression.
+     * @return the compiled expression.
+     * @throws IllegalArgumentException if the expression is not valid.
+     */
+    public static CronExpression parse(String expression) {
+        CronExpression cached = CACHE.get(expression);
+        if (cached != null) {
+            return cached;
+        }
+        CronExpression compiled = compile(expression);
+        if (CACHE.size() < MAX_CACHED_EXPRESSIONS) {
+            CACHE.putIfAbsent(expression, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Gets the expression as it has been given.
+     *
+     * @return the expression.
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * Compute the first fire time strictly after the given time, in its time zone.
+     *
+     * @param after the time to start the search after.
+     * @return the next fire time, or empty if the expression never fires again, e.g. on the 30th of February.
+     */
+    public Optional<ZonedDateTime> nextFireTime(ZonedDateTime after) {
+        ZoneId zone = after.getZone();
+        LocalDateTime from = after.toLocalDateTime().withNano(0).plusSeconds(1);
+        int lastYear = from.getYear() + SEARCH_YEARS;
+        ZonedDateTime repeated = everyHour ? nextRepeatedFireTime(after, lastYear) : null;
+        LocalDateTime local;
+        while ((local = nextLocalFireTime(from, lastYear)) != null) {
+            ZonedDateTime candidate = atZone(local, zone, after);
+            if (candidate != null) {
+                return Optional.of(repeated != null && repeated.isBefore(candidate) ? repeated : candidate);
+            }
+            from = local.plusSeconds(1);
+        }
+        return Optional.ofNullable(repeated);
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private LocalDateTime nextLocalFireTime(LocalDateTime from, int lastYear) {
+        int year = from.getYear();
+        int month = from.getMonthValue();
+        int day = from.getDayOfMonth();
+        int hour = from.getHour();
+        int minute = from.getMinute();
+        int second = from.getSecond();
+
+        while (year <= lastYear) {
+            int next = nextSetBit(months, month);
+            if (next < 0) {
+                year++;
+                month = 1;
+                day = 1;
+                hour = minute = second = 0;
+                continue;
+            }
+            if (next != month) {
+                month = next;
+                day = 1;
+                hour = minute = second = 0;
+            }
+
+            next = nextSetBit(days(year, month), day);
+            if (next < 0) {
+                month++;
+                day = 1;
+                hour = minute = second = 0;
+                continue;
+            }
+            if (next != day) {
+                day = next;
+                hour = minute = second = 0;
+            }
+
+            next = nextSetBit(hours, hour);
+            if (next < 0) {
+                day++;
+                hour = minute = second = 0;
+                continue;
+            }
+            if (next != hour) {
+                hour = next;
+                minute = second = 0;
+            }
+
+            next = nextSetBit(minutes, minute);
+            if (next < 0) {
+                hour++;
+                minute = second = 0;
+                continue;
+            }
+            if (next != minute) {
+                minute = next;
+                second = 0;
+            }
+
+            next = nextSetBit(seconds, second);
+            if (next < 0) {
+                minute++;
+                second = 0;
+                continue;
+            }
+            return LocalDateTime.of(year, month, day, hour, minute, next);
+        }
+        return null;
+    }
+
+    private ZonedDateTime nextRepeatedFireTime(ZonedDateTime after, int lastYear) {
+        // within an overlap in the earlier offset, the local times repeated in the later offset are still ahead
+        ZoneOffsetTransition transition = after.getZone().getRules().getTransition(after.toLocalDateTime());
+        if (transition == null || transition.isGap() || !after.getOffset().equals(transition.getOffsetBefore())) {
+            return null;
+        }
+        LocalDateTime local = nextLocalFireTime(transition.getDateTimeAfter(), lastYear);
+        if (local == null || !local.isBefore(transition.getDateTimeBefore())) {
+            return null;
+        }
+        return ZonedDateTime.ofLocal(local, after.getZone(), transition.getOffsetAfter());
+    }
+
+    private long days(int year, int month) {
+        LocalDate first = LocalDate.of(year, month, 1);
+        long daysOfWeek = daysOfWeekByFirstDay[first.getDayOfWeek().getValue() % 7];
+        long days = eitherDay ? daysOfMonth | daysOfWeek : daysOfMonth & daysOfWeek;
+        // bits 1 up to the length of the month
+        return days & (((1L << first.lengthOfMonth()) - 1) << 1);
+    }
+
+    private static ZonedDateTime atZone(LocalDateTime local, ZoneId zone, ZonedDateTime after) {
+        ZoneOffsetTransition transition = zone.getRules().getTransition(local);
+        if (transition == null) {
+            ZonedDateTime candidate = local.atZone(zone);
+            return candidate.isAfter(after) ? candidate : null;
+        }
+        if (transition.isGap()) {
+            ZonedDateTime candidate = transition.getInstant().atZone(zone);
+            return candidate.isAfter(after) ? candidate : null;
+        }
+        ZonedDateTime earlier = ZonedDateTime.ofLocal(local, zone, transition.getOffsetBefore());
+        if (earlier.isAfter(after)) {
+            return earlier;
+        }
+        // the search has started within the overlap, past the earlier occurrence
+        ZonedDateTime later = ZonedDateTime.ofLocal(local, zone, transition.getOffsetAfter());
+        return later.isAfter(after) ? later : null;
+    }
+
+    private static int nextSetBit(long bits, int from) {
+        if (from >= Long.SIZE) {
+            return -1;
+        }
+        long remaining = bits & (-1L << from);
+        return remaining == 0 ? -1 : Long.numberOfTrailingZeros(remaining);
+    }
+
+    private static CronExpression compile(String expression) {
+        String[] fields = expand(expression.trim()).split("\\s+");
+        if (fields.length != 5 && fields.length != 6) {
+            throw new IllegalArgumentException(String.format(INVALID_CRON_EXPRESSION_MSG, expression,
+                    "expected 5 or 6 fields, but was " + fields.length));
+        }
+        return new CronExpression(expression, fields);
+    }
+
+    private static String expand(String expression) {
+        switch (expression.toLowerCase(Locale.ROOT)) {
+            case "@yearly":
+            case "@annually":
+                return "0 0 1 1 *";
+            case "@monthly":
+                return "0 0 1 * *";
+            case "@weekly":
+                return "0 0 * * 0";
+            case "@daily":
+            case "@midnight":
+                return "0 0 * * *";
+            case "@hourly":
+                return "0 * * * *";
+            default:
+                return expression;
+        }
+    }
+
+    private static boolean isRestricted(String field) {
+        return !field.startsWith("*") && !field.startsWith("?");
+    }
+
+    private static long parseField(String expression, String field, int min, int max, String[] names) {
+        long bits = 0;
+        for (String part : field.split(",")) {
+            int step = 1;
+            String range = part;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = parseValue(expression, part.substring(slash + 1), null, 1);
+                range = part.substring(0, slash);
+            }
+            int from;
+            int to;
+            int dash = range.indexOf('-');
+            if (range.equals("*") || range.equals("?")) {
+                from = min;
+                to = max;
+            } else if (dash >= 0) {
+                from = parseValue(expression, range.substring(0, dash), names, min);
+                to = parseValue(expression, range.substring(dash + 1), names, min);
+            } else {
+                from = parseValue(expression, range, names, min);
+                to = slash >= 0 ? max : from;
+            }
+            if (from < min || to > max || from > to || step <= 0) {
+                throw new IllegalArgumentException(String.format(INVALID_CRON_EXPRESSION_MSG, expression,
+                        "'" + part + "' is out of the range " + min + "-" + max));
+            }
+            for (int value = from; value <= to; value += step) {
+                bits |= 1L << value;
+            }
+        }
+        return bits;
+    }
+
+    private static int parseValue(String expression, String value, String[] names, int firstName) {
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equalsIgnoreCase(value)) {
+                    return firstName + i;
+                }
+            }
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format(INVALID_CRON_EXPRESSION_MSG, expression,
+                    "'" + value + "' is not a number"), e);
+        }
+    }
+}
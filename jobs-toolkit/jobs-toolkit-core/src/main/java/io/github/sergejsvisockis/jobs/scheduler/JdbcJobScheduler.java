@@ -0,0 +1,425 @@
+package io.github.sergejsvisockis.jobs.scheduler;
+
+import io.github.sergejsvisockis.jobs.AbstractJob;
+import io.github.sergejsvisockis.jobs.JobNotFoundException;
+import io.github.sergejsvisockis.jobs.SqlDialect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.github.sergejsvisockis.jobs.JdbcUtil.isUniqueConstraintViolation;
+
+/**
+ * Fires the registered jobs once per fire time across all the nodes, by the fire times kept in the
+ * {@code job_schedule} table, rather than on every node as the scheduler of a host framework does.
+ * <p>
+ * A single thread per node polls the table. A poll locks the due rows of the jobs registered on the node with a single
+ * {@code SELECT ... FOR UPDATE SKIP LOCKED} on the index of the fire time, advances their fire times by the triggers
+ * of the jobs and commits before the jobs are fired, hence a fire time is claimed by exactly one node and the rows
+ * claimed by the other nodes are skipped rather than waited for. The update is conditional on the fire time read,
+ * which keeps a fire time from being claimed twice on a database without {@code SKIP LOCKED} as well.
+ * Once a poll has claimed less than a full batch, the next one is delayed up to the nearest fire time, bounded by
+ * the minimum and the maximum poll intervals.
+ * </p>
+ * <p>
+ * All the nodes are supposed to register the same jobs, the rows of the jobs not registered on a node are left to
+ * the other nodes. The first node registering a job inserts its row with the first fire time of the trigger, the
+ * nodes registering the job later keep it. The next fire time is computed once the fire time has been claimed,
+ * hence a fixed delay trigger is measured from the claim rather than from the completion of the run.
+ * </p>
+ */
+public class JdbcJobScheduler implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JdbcJobScheduler.class);
+
+    /**
+     * The default maximum number of the due rows claimed by a single poll.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * The default minimum interval between the polls, once a due row is left unclaimed.
+     */
+    public static final Duration DEFAULT_MIN_POLL_INTERVAL = Duration.ofMillis(100);
+
+    /**
+     * The default maximum interval between the polls, which bounds the delay of a job scheduled on another node.
+     */
+    public static final Duration DEFAULT_MAX_POLL_INTERVAL = Duration.ofSeconds(5);
+
+    private static final String QUERY_REGISTER_SCHEDULE = "INSERT INTO job_schedule(job_name, next_fire_time) " +
+            "SELECT j.job_name, ? FROM job_definition j WHERE j.job_name = ? " +
+            "AND NOT EXISTS (SELECT 1 FROM job_schedule s WHERE s.job_name = j.job_name)";
+    private static final String QUERY_FIND_SCHEDULE = "SELECT s.next_fire_time FROM job_schedule s WHERE s.job_name = ?";
+    private static final String QUERY_FIND_DUE_SCHEDULES = "SELECT s.job_name, s.next_fire_time FROM job_schedule s " +
+            "WHERE s.job_name IN (%s) AND s.next_fire_time <= ? ORDER BY s.next_fire_time";
+    private static final String QUERY_ADVANCE_SCHEDULE = "UPDATE job_schedule SET next_fire_time = ? WHERE job_name = ? AND next_fire_time = ?";
+    private static final String QUERY_DELETE_SCHEDULE = "DELETE FROM job_schedule WHERE job_name = ? AND next_fire_time = ?";
+    private static final String QUERY_FIND_NEXT_FIRE_TIME = "SELECT MIN(s.next_fire_time) FROM job_schedule s WHERE s.job_name IN (%s)";
+
+    /**
+     * Keeps the IN list of the registered job names below the limits of the databases, e.g. 1000 for Oracle.
+     */
+    static final int JOB_NAMES_BATCH_SIZE = 500;
+
+    static final String FAILED_TO_REGISTER_SCHEDULE_MSG = "Failed to register the schedule of a job with name=%s";
+    static final String INVALID_BATCH_SIZE_MSG = "Batch size has to be positive, but was %s";
+    static final String INVALID_POLL_INTERVALS_MSG = "Poll intervals have to be positive and ordered, but were %s and %s";
+
+    private final DataSource dataSource;
+    private final SqlDialect dialect;
+    private final int batchSize;
+    private final Duration minPollInterval;
+    private final Duration maxPollInterval;
+    private final Map<String, ScheduledJob> scheduledJobs = new ConcurrentHashMap<>();
+
+    private Thread pollerThread;
+    private volatile boolean closed;
+
+    public JdbcJobScheduler(DataSource dataSource) {
+        this(dataSource, SqlDialect.detect(dataSource));
+    }
+
+    /**
+     * Creates a scheduler for the given dialect, which saves the dialect detection on construction.
+     *
+     * @param dataSource the data source.
+     * @param dialect    the dialect of the database.
+     */
+    public JdbcJobScheduler(DataSource dataSource, SqlDialect dialect) {
+        this(dataSource, dialect, DEFAULT_BATCH_SIZE, DEFAULT_MIN_POLL_INTERVAL, DEFAULT_MAX_POLL_INTERVAL);
+    }
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param dataSource      the data source.
+     * @param dialect         the dialect of the database.
+     * @param batchSize       the maximum number of the due rows claimed by a single poll.
+     * @param minPollInterval the minimum interval between the polls.
+     * @param maxPollInterval the maximum interval between the polls.
+     */
+    public JdbcJobScheduler(DataSource dataSource, SqlDialect dialect, int batchSize,
+                            Duration minPollInterval, Duration maxPollInterval) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException(String.format(INVALID_BATCH_SIZE_MSG, batchSize));
+        }
+        if (minPollInterval.isZero() || minPollInterval.isNegative() || maxPollInterval.compareTo(minPollInterval) < 0) {
+            throw new IllegalArgumentException(String.format(INVALID_POLL_INTERVALS_MSG, minPollInterval, maxPollInterval));
+        }
+        this.dataSource = dataSource;
+        this.dialect = dialect;
+        this.batchSize = batchSize;
+        this.minPollInterval = minPollInterval;
+        this.maxPollInterval = maxPollInterval;
+    }
+
+    /**
+     * Register a job to be fired by the trigger across the nodes. A job registered already on this node is replaced.
+     *
+     * @param job     the job.
+     * @param trigger the trigger.
+     * @return the scheduled job, cancelling it stops firing the job on this node only.
+     * @throws JobNotFoundException  if there is no definition of the job.
+     * @throws IllegalStateException if the scheduler has been closed.
+     */
+    public ScheduledJob schedule(AbstractJob job, Trigger trigger) {
+        ScheduledJob scheduledJob = register(job, trigger);
+        startIfNeeded();
+        wakeUp();
+        return scheduledJob;
+    }
+
+    /**
+     * Get the jobs registered on this node.
+     *
+     * @return the scheduled jobs.
+     */
+    public Collection<ScheduledJob> getScheduledJobs() {
+        return List.copyOf(scheduledJobs.values());
+    }
+
+    /**
+     * Stops polling. The runs in progress are let to complete, the rows of the jobs are kept for the other nodes.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        scheduledJobs.clear();
+        pollerThread = null;
+        notifyAll();
+    }
+
+    ScheduledJob register(AbstractJob job, Trigger trigger) {
+        if (closed) {
+            throw new IllegalStateException(JobScheduler.SCHEDULER_CLOSED_MSG);
+        }
+        String jobName = job.getJobName();
+        ScheduledJob scheduledJob = new ScheduledJob(job, trigger, this::cancel);
+        Optional<Instant> firstFireTime = trigger.nextFireTime(null, Instant.now());
+        if (firstFireTime.isEmpty()) {
+            return scheduledJob;
+        }
+
+        try (Connection conn = dataSource.getConnection()) {
+            scheduledJob.setNextFireTime(registerSchedule(conn, jobName, firstFireTime.get()));
+        } catch (JobNotFoundException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(String.format(FAILED_TO_REGISTER_SCHEDULE_MSG, jobName), e);
+        }
+
+        ScheduledJob replaced = scheduledJobs.put(jobName, scheduledJob);
+        if (replaced != null) {
+            replaced.cancel();
+        }
+        return scheduledJob;
+    }
+
+    /**
+     * Claim the due rows of the jobs registered on this node and fire the jobs. The rows of the other jobs, e.g. the
+     * ones removed from the code or cancelled, are neither read nor taken into account for the next poll.
+     *
+     * @return the time to wait for before the next poll, in milliseconds.
+     */
+    long poll() throws SQLException {
+        List<String> jobNames = List.copyOf(scheduledJobs.keySet());
+        if (jobNames.isEmpty()) {
+            return maxPollInterval.toMillis();
+        }
+        Instant now = Instant.now();
+        List<ScheduledJob> claimed = new ArrayList<>();
+        boolean fullBatch = false;
+        Instant nextFireTime = null;
+
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                for (int from = 0; from < jobNames.size(); from += JOB_NAMES_BATCH_SIZE) {
+                    List<String> batch = jobNames.subList(from, Math.min(from + JOB_NAMES_BATCH_SIZE, jobNames.size()));
+                    fullBatch |= claimDueSchedules(conn, batch, now, claimed) >= batchSize;
+                }
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+            if (!fullBatch) {
+                for (int from = 0; from < jobNames.size(); from += JOB_NAMES_BATCH_SIZE) {
+                    List<String> batch = jobNames.subList(from, Math.min(from + JOB_NAMES_BATCH_SIZE, jobNames.size()));
+                    Timestamp batchNextFireTime = findNextFireTime(conn, batch);
+                    if (batchNextFireTime != null
+                            && (nextFireTime == null || batchNextFireTime.toInstant().isBefore(nextFireTime))) {
+                        nextFireTime = batchNextFireTime.toInstant();
+                    }
+                }
+            }
+        }
+
+        // fired once committed, a rolled back claim does not fire
+        claimed.forEach(ScheduledJob::fire);
+
+        if (fullBatch) {
+            return 0;
+        }
+        if (nextFireTime == null) {
+            return maxPollInterval.toMillis();
+        }
+        Duration delay = Duration.between(Instant.now(), nextFireTime);
+        if (delay.compareTo(minPollInterval) < 0) {
+            return minPollInterval.toMillis();
+        }
+        return Math.min(delay.toMillis(), maxPollInterval.toMillis());
+    }
+
+    private void cancel(ScheduledJob scheduledJob) {
+        scheduledJobs.remove(scheduledJob.getJob().getJobName(), scheduledJob);
+    }
+
+    private Instant registerSchedule(Connection conn, String jobName, Instant firstFireTime) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(QUERY_REGISTER_SCHEDULE)) {
+            pstmt.setTimestamp(1, Timestamp.from(firstFireTime));
+            pstmt.setString(2, jobName);
+            if (pstmt.executeUpdate() == 1) {
+                return firstFireTime;
+            }
+        } catch (SQLException e) {
+            if (!isUniqueConstraintViolation(e)) {
+                throw e;
+            }
+            // registered by another node in between
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement(QUERY_FIND_SCHEDULE)) {
+            pstmt.setString(1, jobName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new JobNotFoundException(jobName);
+                }
+                return rs.getTimestamp(1).toInstant();
+            }
+        }
+    }
+
+    /**
+     * Locks the due rows of the given jobs and advances their fire times.
+     *
+     * @return the number of the due rows read.
+     */
+    private int claimDueSchedules(Connection conn, List<String> jobNames, Instant now,
+                                  List<ScheduledJob> claimed) throws SQLException {
+        List<ScheduledJob> candidates = new ArrayList<>();
+        List<Timestamp> fireTimes = new ArrayList<>();
+        int due = 0;
+
+        String query = dialect.selectForUpdateSkipLocked(
+                String.format(QUERY_FIND_DUE_SCHEDULES, placeholders(jobNames)), batchSize);
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            int index = bindJobNames(pstmt, jobNames);
+            pstmt.setTimestamp(index, Timestamp.from(now));
+            pstmt.setFetchSize(batchSize);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (due < batchSize && rs.next()) {
+                    due++;
+                    // cancelled in the meantime, the row is left as it is
+                    ScheduledJob scheduledJob = scheduledJobs.get(rs.getString(1));
+                    if (scheduledJob != null) {
+                        candidates.add(scheduledJob);
+                        fireTimes.add(rs.getTimestamp(2));
+                    }
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            return due;
+        }
+
+        List<ScheduledJob> advanced = new ArrayList<>();
+        List<Instant> nextFireTimes = new ArrayList<>();
+        try (PreparedStatement advancePstmt = conn.prepareStatement(QUERY_ADVANCE_SCHEDULE)) {
+            for (int i = 0; i < candidates.size(); i++) {
+                ScheduledJob scheduledJob = candidates.get(i);
+                Timestamp fireTime = fireTimes.get(i);
+                Optional<Instant> nextFireTime = scheduledJob.getTrigger().nextFireTime(fireTime.toInstant(), now);
+                if (nextFireTime.isEmpty()) {
+                    if (deleteSchedule(conn, scheduledJob.getJob().getJobName(), fireTime)) {
+                        scheduledJob.setNextFireTime(null);
+                        scheduledJobs.remove(scheduledJob.getJob().getJobName(), scheduledJob);
+                        claimed.add(scheduledJob);
+                    }
+                    continue;
+                }
+                advancePstmt.setTimestamp(1, Timestamp.from(nextFireTime.get()));
+                advancePstmt.setString(2, scheduledJob.getJob().getJobName());
+                advancePstmt.setTimestamp(3, fireTime);
+                advancePstmt.addBatch();
+                advanced.add(scheduledJob);
+                nextFireTimes.add(nextFireTime.get());
+            }
+            if (!advanced.isEmpty()) {
+                int[] updated = advancePstmt.executeBatch();
+                for (int i = 0; i < advanced.size(); i++) {
+                    // the fire time has been claimed by another node once no row is updated
+                    if (updated[i] > 0 || updated[i] == Statement.SUCCESS_NO_INFO) {
+                        advanced.get(i).setNextFireTime(nextFireTimes.get(i));
+                        claimed.add(advanced.get(i));
+                    }
+                }
+            }
+        }
+        return due;
+    }
+
+    private static boolean deleteSchedule(Connection conn, String jobName, Timestamp fireTime) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(QUERY_DELETE_SCHEDULE)) {
+            pstmt.setString(1, jobName);
+            pstmt.setTimestamp(2, fireTime);
+            return pstmt.executeUpdate() == 1;
+        }
+    }
+
+    private static Timestamp findNextFireTime(Connection conn, List<String> jobNames) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                String.format(QUERY_FIND_NEXT_FIRE_TIME, placeholders(jobNames)))) {
+            bindJobNames(pstmt, jobNames);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getTimestamp(1) : null;
+            }
+        }
+    }
+
+    private static String placeholders(List<String> jobNames) {
+        return String.join(", ", Collections.nCopies(jobNames.size(), "?"));
+    }
+
+    /**
+     * @return the index of the next parameter.
+     */
+    private static int bindJobNames(PreparedStatement pstmt, List<String> jobNames) throws SQLException {
+        for (int i = 0; i < jobNames.size(); i++) {
+            pstmt.setString(i + 1, jobNames.get(i));
+        }
+        return jobNames.size() + 1;
+    }
+
+    private synchronized void startIfNeeded() {
+        if (pollerThread != null || closed) {
+            return;
+        }
+        pollerThread = new Thread(this::runPoller, "jobs-toolkit-schedule-poller");
+        pollerThread.setDaemon(true);
+        pollerThread.start();
+    }
+
+    private synchronized void wakeUp() {
+        notifyAll();
+    }
+
+    private void runPoller() {
+        while (!closed) {
+            long waitMillis;
+            try {
+                waitMillis = poll();
+            } catch (Exception e) {
+                // the next poll is going to retry, the due rows are left to the other nodes meanwhile
+                LOG.error("Failed to poll the due job schedules", e);
+                waitMillis = maxPollInterval.toMillis();
+            }
+            if (!await(waitMillis)) {
+                return;
+            }
+        }
+    }
+
+    private synchronized boolean await(long waitMillis) {
+        if (closed || waitMillis <= 0) {
+            return !closed;
+        }
+        try {
+            wait(waitMillis);
+            return !closed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package io.github.sergejsvisockis.jobs.scheduler;
+
+import io.github.sergejsvisockis.jobs.AbstractJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fires the registered jobs by their triggers without relying on the scheduler of the host framework.
+ * <p>
+ * All the jobs share a single timer thread driving a {@link TimerWheel}, hence arming a job and expiring it take
+ * a constant time however many jobs are registered. The timer thread only hands the expired jobs over to
+ * {@link AbstractJob#runAsync()}, i.e. the runs are dispatched to the bounded executor of every job and a saturated
+ * executor skips the run, same as {@link AbstractJob#run()} does. The caller thread executor would run the job on
+ * the timer thread and is not meant for the scheduled jobs.
+ * </p>
+ * <p>
+ * The fire times are rounded up to the tick duration, which bounds the trigger latency. A job is re-armed once its
+ * run has completed, the runs of a job fired by the same scheduler never overlap.
+ * </p>
+ */
+public class JobScheduler implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JobScheduler.class);
+
+    /**
+     * The default duration of a tick of the timer wheel.
+     */
+    public static final Duration DEFAULT_TICK_DURATION = Duration.ofMillis(10);
+
+    private static final Duration MAX_DELAY = Duration.ofDays(100 * 365);
+
+    static final String INVALID_TICK_DURATION_MSG = "Tick duration has to be positive, but was %s";
+    static final String SCHEDULER_CLOSED_MSG = "The scheduler has been closed";
+
+    private final long tickNanos;
+    private final Set<ScheduledJob> scheduledJobs = ConcurrentHashMap.newKeySet();
+    private final Queue<ScheduledJob> armedJobs = new ConcurrentLinkedQueue<>();
+    private final Queue<ScheduledJob> cancelledJobs = new ConcurrentLinkedQueue<>();
+
+    private Thread timerThread;
+    private TimerWheel<ScheduledJob> wheel;
+    private long startNanos;
+    private volatile boolean closed;
+
+    /**
+     * Creates a scheduler with the default tick duration.
+     * The timer thread is started lazily once the first job is scheduled.
+     */
+    public JobScheduler() {
+        this(DEFAULT_TICK_DURATION);
+    }
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param tickDuration the duration of a tick of the timer wheel, i.e. the precision of the fire times.
+     */
+    public JobScheduler(Duration tickDuration) {
+        if (tickDuration.isZero() || tickDuration.isNegative()) {
+            throw new IllegalArgumentException(String.format(INVALID_TICK_DURATION_MSG, tickDuration));
+        }
+        this.tickNanos = tickDuration.toNanos();
+    }
+
+    /**
+     * Register a job to be fired by the trigger.
+     *
+     * @param job     the job.
+     * @param trigger the trigger.
+     * @return the scheduled job, which could be cancelled.
+     * @throws IllegalStateException if the scheduler has been closed.
+     */
+    public ScheduledJob schedule(AbstractJob job, Trigger trigger) {
+        if (closed) {
+            throw new IllegalStateException(SCHEDULER_CLOSED_MSG);
+        }
+        ScheduledJob scheduledJob = new ScheduledJob(job, trigger, this::cancel);
+        scheduledJobs.add(scheduledJob);
+        try {
+            arm(scheduledJob, null, Instant.now());
+        } catch (RuntimeException e) {
+            scheduledJobs.remove(scheduledJob);
+            throw e;
+        }
+        startIfNeeded();
+        return scheduledJob;
+    }
+
+    /**
+     * Get the jobs which are going to fire, the cancelled ones and the ones whose trigger has run out are excluded.
+     *
+     * @return the scheduled jobs.
+     */
+    public Collection<ScheduledJob> getScheduledJobs() {
+        return List.copyOf(scheduledJobs);
+    }
+
+    /**
+     * Stops the timer thread. The runs in progress are let to complete, but the jobs do not fire anymore.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        scheduledJobs.clear();
+        if (timerThread != null) {
+            LockSupport.unpark(timerThread);
+            timerThread = null;
+        }
+    }
+
+    void cancel(ScheduledJob scheduledJob) {
+        scheduledJobs.remove(scheduledJob);
+        cancelledJobs.add(scheduledJob);
+    }
+
+    private void arm(ScheduledJob scheduledJob, Instant lastFireTime, Instant lastCompletionTime) {
+        if (closed || scheduledJob.isCancelled()) {
+            return;
+        }
+        Optional<Instant> nextFireTime = scheduledJob.getTrigger().nextFireTime(lastFireTime, lastCompletionTime);
+        scheduledJob.setNextFireTime(nextFireTime.orElse(null));
+        if (nextFireTime.isEmpty()) {
+            scheduledJobs.remove(scheduledJob);
+            return;
+        }
+        armedJobs.add(scheduledJob);
+    }
+
+    private synchronized void startIfNeeded() {
+        if (timerThread != null || closed) {
+            return;
+        }
+        startNanos = System.nanoTime();
+        wheel = new TimerWheel<>(0);
+        timerThread = new Thread(this::runTimer, "jobs-toolkit-scheduler");
+        timerThread.setDaemon(true);
+        timerThread.start();
+    }
+
+    private void runTimer() {
+        while (!closed) {
+            long tick = (System.nanoTime() - startNanos) / tickNanos;
+
+            ScheduledJob scheduledJob;
+            while ((scheduledJob = armedJobs.poll()) != null) {
+                if (!scheduledJob.isCancelled()) {
+                    scheduledJob.timeout = wheel.schedule(toTick(scheduledJob.getNextFireTime().orElseThrow()),
+                            scheduledJob);
+                }
+            }
+            while ((scheduledJob = cancelledJobs.poll()) != null) {
+                if (scheduledJob.timeout != null) {
+                    wheel.cancel(scheduledJob.timeout);
+                }
+            }
+
+            wheel.advance(tick, this::fire);
+
+            LockSupport.parkNanos(this, startNanos + (tick + 1) * tickNanos - System.nanoTime());
+        }
+    }
+
+    private long toTick(Instant fireTime) {
+        // rounded up, hence a job never fires ahead of its time
+        Duration delayDuration = Duration.between(Instant.now(), fireTime);
+        long delay = delayDuration.isNegative() ? 0 : delayDuration.compareTo(MAX_DELAY) > 0
+                ? MAX_DELAY.toNanos()
+                : delayDuration.toNanos();
+        return (System.nanoTime() - startNanos + delay + tickNanos - 1) / tickNanos;
+    }
+
+    private void fire(ScheduledJob scheduledJob) {
+        scheduledJob.timeout = null;
+        if (closed || scheduledJob.isCancelled()) {
+            return;
+        }
+        Instant fireTime = scheduledJob.getNextFireTime().orElseThrow();
+        scheduledJob.fire().thenRun(() -> rearm(scheduledJob, fireTime));
+    }
+
+    private void rearm(ScheduledJob scheduledJob, Instant lastFireTime) {
+        try {
+            arm(scheduledJob, lastFireTime, Instant.now());
+        } catch (RuntimeException e) {
+            // the trigger could not tell the next fire time, the job would never fire again otherwise silently
+            scheduledJob.setNextFireTime(null);
+            scheduledJobs.remove(scheduledJob);
+            LOG.error("Failed to compute the next fire time of a job with name={}, the job is not going to fire anymore",
+                    scheduledJob.getJob().getJobName(), e);
+        }
+    }
+}
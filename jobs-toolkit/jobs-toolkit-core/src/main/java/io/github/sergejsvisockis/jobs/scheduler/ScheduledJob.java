@@ -0,0 +1,123 @@
+package io.github.sergejsvisockis.jobs.scheduler;
+
+import io.github.sergejsvisockis.jobs.AbstractJob;
+import io.github.sergejsvisockis.jobs.JobExecution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * A job registered with a {@link JobScheduler} or a {@link JdbcJobScheduler} together with its trigger.
+ */
+public final class ScheduledJob {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ScheduledJob.class);
+
+    private final Consumer<ScheduledJob> canceller;
+    private final AbstractJob job;
+    private final Trigger trigger;
+    private volatile Instant nextFireTime;
+    private volatile boolean cancelled;
+
+    // accessed by the timer thread only
+    TimerWheel.Timeout<ScheduledJob> timeout;
+
+    ScheduledJob(AbstractJob job, Trigger trigger, Consumer<ScheduledJob> canceller) {
+        this.canceller = canceller;
+        this.job = job;
+        this.trigger = trigger;
+    }
+
+    /**
+     * Gets the scheduled job.
+     *
+     * @return the job.
+     */
+    public AbstractJob getJob() {
+        return job;
+    }
+
+    /**
+     * Gets the trigger the job is fired by.
+     *
+     * @return the trigger.
+     */
+    public Trigger getTrigger() {
+        return trigger;
+    }
+
+    /**
+     * Gets the time the job fires at next, or the time the run in progress has been fired at.
+     *
+     * @return the next fire time, or empty once the trigger is not going to fire anymore.
+     */
+    public Optional<Instant> getNextFireTime() {
+        return Optional.ofNullable(nextFireTime);
+    }
+
+    /**
+     * Checks whether the job has been cancelled.
+     *
+     * @return true once cancelled.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Stops firing the job. The run in progress, if any, is let to complete.
+     */
+    public void cancel() {
+        cancelled = true;
+        canceller.accept(this);
+    }
+
+    void setNextFireTime(Instant nextFireTime) {
+        this.nextFireTime = nextFireTime;
+    }
+
+    /**
+     * Hands the job over to its executor, a failed or a rejected run is logged.
+     *
+     * @return a future completed once the run has finished, whatever its outcome.
+     */
+    CompletableFuture<Void> fire() {
+        CompletableFuture<Optional<JobExecution>> run;
+        try {
+            run = job.runAsync();
+        } catch (RuntimeException e) {
+            // the scheduler thread has to keep firing the other jobs
+            run = CompletableFuture.failedFuture(e);
+        }
+        return run.handle((execution, e) -> {
+            if (e != null) {
+                logFailure(e);
+            }
+            return null;
+        });
+    }
+
+    private void logFailure(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof RejectedExecutionException) {
+            LOG.warn("Skipping a scheduled run of a job with name={} since the executor is saturated", job.getJobName());
+        } else {
+            LOG.error("Scheduled run of a job with name={} has failed", job.getJobName(), cause);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ScheduledJob{" +
+                "jobName=" + job.getJobName() +
+                ", trigger=" + trigger +
+                ", nextFireTime=" + nextFireTime +
+                '}';
+    }
+}
@@ -0,0 +1,192 @@
+package io.github.sergejsvisockis.jobs.scheduler;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timer wheel which keeps the timeouts in buckets of doubly linked lists, hence both scheduling and
+ * cancelling a timeout take a constant time regardless of the number of timeouts.
+ * <p>
+ * The time is measured in ticks. Every level has {@value #WHEEL_SIZE} buckets, a bucket of the level {@code n}
+ * spans {@code 64^n} ticks. A timeout is put on the lowest level its deadline fits in and is cascaded down a level
+ * once the wheel reaches the span of its bucket, the timeouts of the bucket of the lowest level expire all at once.
+ * The deadlines beyond the span of the highest level are kept in its buckets and cascaded until they fit.
+ * </p>
+ * Not thread safe, the wheel is supposed to be driven by a single timer thread.
+ *
+ * @param <T> the type of the tasks the timeouts carry.
+ */
+final class TimerWheel<T> {
+
+    static final int WHEEL_BITS = 6;
+    static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    static final int LEVELS = 6;
+
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private final Object[][] buckets = new Object[LEVELS][WHEEL_SIZE];
+    private long currentTick;
+    private int size;
+
+    /**
+     * Creates a wheel.
+     *
+     * @param currentTick the tick the wheel starts at, the timeouts of this tick are considered expired already.
+     */
+    TimerWheel(long currentTick) {
+        this.currentTick = currentTick;
+    }
+
+    long getCurrentTick() {
+        return currentTick;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Schedule a task, a deadline which has already passed expires on the next tick.
+     *
+     * @param deadline the tick to expire the task at.
+     * @param task     the task.
+     * @return the timeout to cancel the task with.
+     */
+    Timeout<T> schedule(long deadline, T task) {
+        Timeout<T> timeout = new Timeout<>(Math.max(deadline, currentTick + 1), task);
+        add(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Cancel a task, does nothing once it has expired or has been cancelled already.
+     *
+     * @param timeout the timeout of the task.
+     */
+    void cancel(Timeout<T> timeout) {
+        if (timeout.level < 0) {
+            return;
+        }
+        unlink(timeout);
+        size--;
+    }
+
+    /**
+     * Advance the wheel up to the given tick inclusive, expiring the tasks of the ticks passed.
+     *
+     * @param tick    the tick to advance to.
+     * @param expired the consumer of the expired tasks, called in the order of their deadlines.
+     */
+    void advance(long tick, Consumer<T> expired) {
+        while (currentTick < tick) {
+            currentTick++;
+            for (int level = highestLevelToCascade(currentTick); level > 0; level--) {
+                cascade(level, bucketIndex(currentTick, level));
+            }
+            Timeout<T> timeout = detach(0, bucketIndex(currentTick, 0));
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                timeout.next = null;
+                size--;
+                expired.accept(timeout.task);
+                timeout = next;
+            }
+        }
+    }
+
+    private void cascade(int level, int index) {
+        Timeout<T> timeout = detach(level, index);
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            timeout.next = null;
+            add(timeout);
+            timeout = next;
+        }
+    }
+
+    private void add(Timeout<T> timeout) {
+        // the cascaded deadline could be the current tick, which is about to expire
+        long delta = timeout.deadline - currentTick;
+        int level = delta == 0 ? 0 : Math.min(LEVELS - 1, (63 - Long.numberOfLeadingZeros(delta)) / WHEEL_BITS);
+        int index = bucketIndex(timeout.deadline, level);
+        Timeout<T> head = head(level, index);
+        timeout.level = level;
+        timeout.index = index;
+        timeout.prev = null;
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        buckets[level][index] = timeout;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[timeout.level][timeout.index] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.level = -1;
+    }
+
+    private Timeout<T> detach(int level, int index) {
+        Timeout<T> head = head(level, index);
+        buckets[level][index] = null;
+        for (Timeout<T> timeout = head; timeout != null; timeout = timeout.next) {
+            timeout.prev = null;
+            timeout.level = -1;
+        }
+        return head;
+    }
+
+    /**
+     * The buckets are only ever filled with the timeouts of this wheel, hence the cast is safe.
+     */
+    @SuppressWarnings("unchecked")
+    private Timeout<T> head(int level, int index) {
+        return (Timeout<T>) buckets[level][index];
+    }
+
+    private static int highestLevelToCascade(long tick) {
+        int level = 0;
+        while (level < LEVELS - 1 && (tick & ((1L << (WHEEL_BITS * (level + 1))) - 1)) == 0) {
+            level++;
+        }
+        return level;
+    }
+
+    private static int bucketIndex(long tick, int level) {
+        return (int) ((tick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+    }
+
+    /**
+     * A scheduled task, linked into the bucket it is kept in.
+     */
+    static final class Timeout<T> {
+
+        private final long deadline;
+        private final T task;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        private int level = -1;
+        private int index;
+
+        private Timeout(long deadline, T task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        long getDeadline() {
+            return deadline;
+        }
+
+        T getTask() {
+            return task;
+        }
+    }
+}
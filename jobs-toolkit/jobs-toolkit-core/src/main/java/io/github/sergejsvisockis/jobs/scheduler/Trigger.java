@@ -0,0 +1,22 @@
+package io.github.sergejsvisockis.jobs.scheduler;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Decides when a scheduled job fires next, see {@link Triggers} for the out of the box implementations.
+ * The next fire time is computed once the previous run has completed, hence the runs of a scheduled job never
+ * overlap on this node.
+ */
+@FunctionalInterface
+public interface Trigger {
+
+    /**
+     * Compute the next fire time.
+     *
+     * @param lastFireTime       the time the last run was scheduled for, or null before the first run.
+     * @param lastCompletionTime the time the last run completed, or the time the job was scheduled at before the first run.
+     * @return the next fire time, or empty once the job is not supposed to fire anymore.
+     */
+    Optional<Instant> nextFireTime(Instant lastFireTime, Instant lastCompletionTime);
+}
@@ -0,0 +1,172 @@
+package io.github.sergejsvisockis.jobs.scheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+/**
+ * Factory methods for the out of the box {@link Trigger} implementations.
+ */
+public final class Triggers {
+
+    static final String INVALID_PERIOD_MSG = "Period has to be positive, but was %s";
+    static final String INVALID_INITIAL_DELAY_MSG = "Initial delay must not be negative, but was %s";
+
+    private Triggers() {
+    }
+
+    /**
+     * Create a trigger which fires at a fixed rate, right after the job has been scheduled.
+     *
+     * @param period the period between the fire times.
+     * @return the fixed rate trigger.
+     */
+    public static Trigger fixedRate(Duration period) {
+        return fixedRate(period, Duration.ZERO);
+    }
+
+    /**
+     * Create a trigger which fires at a fixed rate. The fire times missed while the previous run was still in progress
+     * are skipped, the next run is then aligned with the rate again.
+     *
+     * @param period       the period between the fire times.
+     * @param initialDelay the delay of the first fire time after the job has been scheduled.
+     * @return the fixed rate trigger.
+     */
+    public static Trigger fixedRate(Duration period, Duration initialDelay) {
+        validate(period, initialDelay);
+        return new FixedRateTrigger(period, initialDelay);
+    }
+
+    /**
+     * Create a trigger which fires with a fixed delay after the previous run has completed, the first time right
+     * after the job has been scheduled.
+     *
+     * @param delay the delay between the completion of a run and the next fire time.
+     * @return the fixed delay trigger.
+     */
+    public static Trigger fixedDelay(Duration delay) {
+        return fixedDelay(delay, Duration.ZERO);
+    }
+
+    /**
+     * Create a trigger which fires with a fixed delay after the previous run has completed.
+     *
+     * @param delay        the delay between the completion of a run and the next fire time.
+     * @param initialDelay the delay of the first fire time after the job has been scheduled.
+     * @return the fixed delay trigger.
+     */
+    public static Trigger fixedDelay(Duration delay, Duration initialDelay) {
+        validate(delay, initialDelay);
+        return new FixedDelayTrigger(delay, initialDelay);
+    }
+
+    /**
+     * Create a trigger which fires by a cron expression in the default time zone of the JVM.
+     *
+     * @param expression the cron expression, see {@link CronExpression#parse(String)} for the syntax.
+     * @return the cron trigger.
+     * @throws IllegalArgumentException if the expression is not valid.
+     */
+    public static Trigger cron(String expression) {
+        return cron(expression, ZoneId.systemDefault());
+    }
+
+    /**
+     * Create a trigger which fires by a cron expression. The fire times missed while the previous run was still
+     * in progress are skipped.
+     *
+     * @param expression the cron expression, see {@link CronExpression#parse(String)} for the syntax.
+     * @param zone       the time zone the expression is evaluated in.
+     * @return the cron trigger.
+     * @throws IllegalArgumentException if the expression is not valid.
+     */
+    public static Trigger cron(String expression, ZoneId zone) {
+        return new CronTrigger(CronExpression.parse(expression), zone);
+    }
+
+    private static void validate(Duration period, Duration initialDelay) {
+        if (period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException(String.format(INVALID_PERIOD_MSG, period));
+        }
+        if (initialDelay.isNegative()) {
+            throw new IllegalArgumentException(String.format(INVALID_INITIAL_DELAY_MSG, initialDelay));
+        }
+    }
+
+    private static final class FixedRateTrigger implements Trigger {
+
+        private final Duration period;
+        private final Duration initialDelay;
+
+        private FixedRateTrigger(Duration period, Duration initialDelay) {
+            this.period = period;
+            this.initialDelay = initialDelay;
+        }
+
+        @Override
+        public Optional<Instant> nextFireTime(Instant lastFireTime, Instant lastCompletionTime) {
+            if (lastFireTime == null) {
+                return Optional.of(lastCompletionTime.plus(initialDelay));
+            }
+            Instant next = lastFireTime.plus(period);
+            if (next.isBefore(lastCompletionTime)) {
+                long behind = Duration.between(next, lastCompletionTime).toNanos();
+                next = next.plus(period.multipliedBy((behind + period.toNanos() - 1) / period.toNanos()));
+            }
+            return Optional.of(next);
+        }
+
+        @Override
+        public String toString() {
+            return "fixedRate(" + period + ")";
+        }
+    }
+
+    private static final class FixedDelayTrigger implements Trigger {
+
+        private final Duration delay;
+        private final Duration initialDelay;
+
+        private FixedDelayTrigger(Duration delay, Duration initialDelay) {
+            this.delay = delay;
+            this.initialDelay = initialDelay;
+        }
+
+        @Override
+        public Optional<Instant> nextFireTime(Instant lastFireTime, Instant lastCompletionTime) {
+            return Optional.of(lastCompletionTime.plus(lastFireTime == null ? initialDelay : delay));
+        }
+
+        @Override
+        public String toString() {
+            return "fixedDelay(" + delay + ")";
+        }
+    }
+
+    private static final class CronTrigger implements Trigger {
+
+        private final CronExpression expression;
+        private final ZoneId zone;
+
+        private CronTrigger(CronExpression expression, ZoneId zone) {
+            this.expression = expression;
+            this.zone = zone;
+        }
+
+        @Override
+        public Optional<Instant> nextFireTime(Instant lastFireTime, Instant lastCompletionTime) {
+            Instant after = lastFireTime != null && lastFireTime.isAfter(lastCompletionTime)
+                    ? lastFireTime
+                    : lastCompletionTime;
+            return expression.nextFireTime(after.atZone(zone)).map(ZonedDateTime::toInstant);
+        }
+
+        @Override
+        public String toString() {
+            return "cron(" + expression + ", " + zone + ")";
+        }
+    }
+}
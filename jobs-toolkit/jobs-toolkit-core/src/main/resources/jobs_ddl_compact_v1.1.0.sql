@@ -0,0 +1,87 @@
+-- Compact schema, an alternative to jobs_ddl_v1.0.0.sql + jobs_ddl_v1.1.0.sql for a new installation.
+-- Ids are stored as 16 bytes and states as codes: 1 - RUNNING, 2 - COMPLETED, 3 - FAILED.
+-- Used with ColumnCodec.BINARY. Use RAW(16) for the ids on Oracle, BYTEA on PostgreSQL,
+-- or the native UUID type on PostgreSQL and H2 together with ColumnCodec.NATIVE.
+CREATE TABLE job_definition
+(
+    job_name        VARCHAR(45) NOT NULL,
+    job_description VARCHAR(255),
+    max_concurrency INT DEFAULT 1 NOT NULL CHECK (max_concurrency > 0),
+    fencing_token   BIGINT DEFAULT 0 NOT NULL,
+    CONSTRAINT job_definition_pk PRIMARY KEY (job_name)
+);
+
+CREATE TABLE latest_execution
+(
+    job_name     VARCHAR(45)                               NOT NULL,
+    execution_id BINARY(16)                                NOT NULL,
+    last_run     TIMESTAMP DEFAULT CURRENT_TIMESTAMP       NOT NULL,
+    state        SMALLINT CHECK (state IN (1, 2, 3))       NOT NULL,
+    CONSTRAINT latest_execution_pk PRIMARY KEY (job_name),
+    CONSTRAINT latest_execution_job_definition_fk FOREIGN KEY (job_name)
+        REFERENCES job_definition (job_name)
+);
+
+CREATE TABLE job_execution_history
+(
+    execution_id BINARY(16)                                NOT NULL,
+    job_name     VARCHAR(45)                               NOT NULL,
+    state        SMALLINT CHECK (state IN (1, 2, 3))       NOT NULL,
+    recorded_at  TIMESTAMP DEFAULT CURRENT_TIMESTAMP       NOT NULL,
+    CONSTRAINT job_execution_history_pk PRIMARY KEY (execution_id, state, recorded_at)
+);
+
+CREATE INDEX job_execution_history_recorded_at_idx ON job_execution_history (recorded_at);
+
+CREATE TABLE lock_metadata
+(
+    lock_id    BINARY(16)                          NOT NULL,
+    job_name   VARCHAR(45)                         NOT NULL,
+    locked_at  TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP,
+    fencing_token BIGINT,
+    CONSTRAINT lock_metadata_pk PRIMARY KEY (lock_id),
+    CONSTRAINT lock_metadata_job_name_uk UNIQUE (job_name),
+    CONSTRAINT job_definition_fk FOREIGN KEY (job_name)
+        REFERENCES job_definition (job_name)
+);
+
+CREATE TABLE lock_permit
+(
+    lock_id    BINARY(16)                          NOT NULL,
+    job_name   VARCHAR(45)                         NOT NULL,
+    permit     INT                                 NOT NULL,
+    locked_at  TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP,
+    fencing_token BIGINT,
+    CONSTRAINT lock_permit_pk PRIMARY KEY (job_name, permit),
+    CONSTRAINT lock_permit_lock_id_uk UNIQUE (lock_id),
+    CONSTRAINT lock_permit_job_definition_fk FOREIGN KEY (job_name)
+        REFERENCES job_definition (job_name)
+);
+
+CREATE TABLE job_schedule
+(
+    job_name       VARCHAR(45) NOT NULL,
+    next_fire_time TIMESTAMP   NOT NULL,
+    CONSTRAINT job_schedule_pk PRIMARY KEY (job_name),
+    CONSTRAINT job_schedule_job_definition_fk FOREIGN KEY (job_name)
+        REFERENCES job_definition (job_name)
+);
+
+CREATE INDEX job_schedule_next_fire_time_idx ON job_schedule (next_fire_time);
+
+CREATE TABLE job_queue
+(
+    item_id           BINARY(16)    NOT NULL,
+    queue_name        VARCHAR(45)   NOT NULL,
+    payload           VARCHAR(4000),
+    deduplication_key VARCHAR(255),
+    attempts          INT DEFAULT 0 NOT NULL,
+    enqueued_at       TIMESTAMP     NOT NULL,
+    visible_at        TIMESTAMP     NOT NULL,
+    CONSTRAINT job_queue_pk PRIMARY KEY (item_id),
+    CONSTRAINT job_queue_deduplication_key_uk UNIQUE (queue_name, deduplication_key)
+);
+
+CREATE INDEX job_queue_visible_at_idx ON job_queue (queue_name, visible_at);
@@ -0,0 +1,129 @@
+-- Migration from jobs_ddl_v1.0.0.sql
+-- Only a single lock per job could exist, which makes the lock acquisition a single atomic insert.
+-- The duplicate locks the former read-then-insert acquisition could leave behind are deleted first, the newest lock
+-- of a job is kept and the ties are broken by the lock id. The derived table lets MySQL read the table it deletes from.
+DELETE
+FROM lock_metadata
+WHERE lock_id IN (SELECT d.lock_id
+                  FROM (SELECT l.lock_id
+                        FROM lock_metadata l
+                        WHERE EXISTS (SELECT 1
+                                      FROM lock_metadata n
+                                      WHERE n.job_name = l.job_name
+                                        AND (n.locked_at > l.locked_at
+                                          OR (n.locked_at = l.locked_at AND n.lock_id > l.lock_id)))) d);
+
+ALTER TABLE lock_metadata
+    ADD CONSTRAINT lock_metadata_job_name_uk UNIQUE (job_name);
+
+-- Lock lease, an expired lock could be taken over by another node, a lock without an expiry never expires
+ALTER TABLE lock_metadata
+    ADD expires_at TIMESTAMP;
+
+
+-- Append-only execution history, an entry per state change of a run, never updated.
+-- The recorded_at column is a part of the primary key, so that the table could be partitioned by time.
+CREATE TABLE job_execution_history
+(
+    execution_id VARCHAR(36)                                                    NOT NULL,
+    job_name     VARCHAR(45)                                                    NOT NULL,
+    state        VARCHAR(9) CHECK (state IN ('RUNNING', 'COMPLETED', 'FAILED')) NOT NULL,
+    recorded_at  TIMESTAMP DEFAULT CURRENT_TIMESTAMP                            NOT NULL,
+    CONSTRAINT job_execution_history_pk PRIMARY KEY (execution_id, state, recorded_at)
+);
+
+CREATE INDEX job_execution_history_recorded_at_idx ON job_execution_history (recorded_at);
+
+-- The latest run of every job, keyed by the job name
+CREATE TABLE latest_execution
+(
+    job_name     VARCHAR(45)                                                    NOT NULL,
+    execution_id VARCHAR(36)                                                    NOT NULL,
+    last_run     TIMESTAMP DEFAULT CURRENT_TIMESTAMP                            NOT NULL,
+    state        VARCHAR(9) CHECK (state IN ('RUNNING', 'COMPLETED', 'FAILED')) NOT NULL,
+    CONSTRAINT latest_execution_pk PRIMARY KEY (job_name),
+    CONSTRAINT latest_execution_job_definition_fk FOREIGN KEY (job_name)
+        REFERENCES job_definition (job_name)
+);
+
+-- The latest run of a job is the one with the newest last run, the ties are broken by the execution id
+INSERT INTO latest_execution(job_name, execution_id, last_run, state)
+SELECT e.job_name, e.execution_id, e.last_run, e.state
+FROM job_execution e
+WHERE NOT EXISTS (SELECT 1
+                  FROM job_execution n
+                  WHERE n.job_name = e.job_name
+                    AND (n.last_run > e.last_run
+                      OR (n.last_run = e.last_run AND n.execution_id > e.execution_id)));
+
+INSERT INTO job_execution_history(execution_id, job_name, state, recorded_at)
+SELECT e.execution_id, e.job_name, e.state, e.last_run
+FROM job_execution e;
+
+-- The job_execution table is not written anymore, its rows have been copied to the tables above. It is kept, so
+-- that the copy could be checked and the nodes still running the former version keep working during the upgrade.
+-- Drop it manually once all the nodes have been upgraded:
+-- DROP TABLE job_execution;
+
+-- Bounded parallelism, the number of the runs of a job allowed at the same time across all the nodes
+ALTER TABLE job_definition
+    ADD max_concurrency INT DEFAULT 1 NOT NULL CHECK (max_concurrency > 0);
+
+-- A permit slot per concurrent run of a job allowing more than a single run, numbered from zero.
+-- The primary key makes the acquisition of a slot a single atomic insert, same as the unique key of the lock.
+CREATE TABLE lock_permit
+(
+    lock_id    VARCHAR(36)                         NOT NULL,
+    job_name   VARCHAR(45)                         NOT NULL,
+    permit     INT                                 NOT NULL,
+    locked_at  TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP,
+    CONSTRAINT lock_permit_pk PRIMARY KEY (job_name, permit),
+    CONSTRAINT lock_permit_lock_id_uk UNIQUE (lock_id),
+    CONSTRAINT lock_permit_job_definition_fk FOREIGN KEY (job_name)
+        REFERENCES job_definition (job_name)
+);
+
+-- Fencing tokens, the counter is incremented by every lock and permit acquisition of the job within its transaction,
+-- the lock holders keep the token they were issued, so that the stale ones could be rejected downstream
+ALTER TABLE job_definition
+    ADD fencing_token BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE lock_metadata
+    ADD fencing_token BIGINT;
+
+ALTER TABLE lock_permit
+    ADD fencing_token BIGINT;
+
+-- The next fire time of every job fired by the JdbcJobScheduler, a single row per job shared by all the nodes.
+-- The due rows are claimed with SELECT ... FOR UPDATE SKIP LOCKED on the index, hence a fire time fires on one node.
+CREATE TABLE job_schedule
+(
+    job_name       VARCHAR(45) NOT NULL,
+    next_fire_time TIMESTAMP   NOT NULL,
+    CONSTRAINT job_schedule_pk PRIMARY KEY (job_name),
+    CONSTRAINT job_schedule_job_definition_fk FOREIGN KEY (job_name)
+        REFERENCES job_definition (job_name)
+);
+
+CREATE INDEX job_schedule_next_fire_time_idx ON job_schedule (next_fire_time);
+
+-- One-off job instances of the JdbcJobQueue, any number of them per queue. A claimed item is invisible to the other
+-- workers until visible_at, the attempts are incremented by every claim and guard its completion and release.
+-- The deduplication key is unique per queue while its item is pending or in progress, multiple NULLs are allowed.
+-- On Oracle, which treats the partially NULL keys as duplicates, replace the constraint with a unique index on
+-- (CASE WHEN deduplication_key IS NOT NULL THEN queue_name END, deduplication_key).
+CREATE TABLE job_queue
+(
+    item_id           VARCHAR(36)   NOT NULL,
+    queue_name        VARCHAR(45)   NOT NULL,
+    payload           VARCHAR(4000),
+    deduplication_key VARCHAR(255),
+    attempts          INT DEFAULT 0 NOT NULL,
+    enqueued_at       TIMESTAMP     NOT NULL,
+    visible_at        TIMESTAMP     NOT NULL,
+    CONSTRAINT job_queue_pk PRIMARY KEY (item_id),
+    CONSTRAINT job_queue_deduplication_key_uk UNIQUE (queue_name, deduplication_key)
+);
+
+CREATE INDEX job_queue_visible_at_idx ON job_queue (queue_name, visible_at);
@@ -0,0 +1,99 @@
+package io.github.sergejsvisockis.jobs;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static io.github.sergejsvisockis.jobs.JobState.UNKNOWN_STATE_CODE_MSG;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ColumnCodecTest {
+
+    @Test
+    void shouldBindAndReadTextColumns() throws SQLException {
+        //given
+        final UUID id = UUID.randomUUID();
+        PreparedStatement pstmtMock = mock(PreparedStatement.class);
+        ResultSet rsMock = mock(ResultSet.class);
+        when(rsMock.getString(1)).thenReturn(id.toString());
+        when(rsMock.getString(2)).thenReturn("FAILED");
+
+        //when
+        ColumnCodec.TEXT.bindId(pstmtMock, 1, id);
+        ColumnCodec.TEXT.bindState(pstmtMock, 2, JobState.COMPLETED);
+
+        //then
+        verify(pstmtMock).setString(1, id.toString());
+        verify(pstmtMock).setString(2, "COMPLETED");
+        assertEquals(id, ColumnCodec.TEXT.readId(rsMock, 1));
+        assertEquals(JobState.FAILED, ColumnCodec.TEXT.readState(rsMock, 2));
+    }
+
+    @Test
+    void shouldBindAndReadBinaryColumns() throws SQLException {
+        //given
+        final UUID id = UUID.fromString("0190a1b2-c3d4-7e5f-8a9b-0c1d2e3f4a5b");
+        PreparedStatement pstmtMock = mock(PreparedStatement.class);
+        ResultSet rsMock = mock(ResultSet.class);
+        when(rsMock.getBytes(1)).thenReturn(bytes(id));
+        when(rsMock.getShort(2)).thenReturn((short) 3);
+
+        //when
+        ColumnCodec.BINARY.bindId(pstmtMock, 1, id);
+        ColumnCodec.BINARY.bindState(pstmtMock, 2, JobState.RUNNING);
+
+        //then
+        verify(pstmtMock).setBytes(1, bytes(id));
+        verify(pstmtMock).setShort(2, (short) 1);
+        assertEquals(id, ColumnCodec.BINARY.readId(rsMock, 1));
+        assertEquals(JobState.FAILED, ColumnCodec.BINARY.readState(rsMock, 2));
+        assertArrayEquals(new byte[]{0x01, (byte) 0x90, (byte) 0xa1, (byte) 0xb2}, Arrays.copyOf(bytes(id), 4));
+    }
+
+    @Test
+    void shouldBindAndReadNativeColumns() throws SQLException {
+        //given
+        final UUID id = UUID.randomUUID();
+        PreparedStatement pstmtMock = mock(PreparedStatement.class);
+        ResultSet rsMock = mock(ResultSet.class);
+        when(rsMock.getObject(1, UUID.class)).thenReturn(id);
+        when(rsMock.getShort(2)).thenReturn((short) 0);
+        when(rsMock.wasNull()).thenReturn(true);
+
+        //when
+        ColumnCodec.NATIVE.bindId(pstmtMock, 1, id);
+
+        //then
+        verify(pstmtMock).setObject(1, id, Types.OTHER);
+        assertEquals(id, ColumnCodec.NATIVE.readId(rsMock, 1));
+        assertNull(ColumnCodec.NATIVE.readState(rsMock, 2));
+    }
+
+    @Test
+    void shouldMapStateCodes() {
+        for (JobState state : JobState.values()) {
+            assertEquals(state, JobState.fromCode(state.getCode()));
+        }
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> JobState.fromCode(0));
+        assertEquals(String.format(UNKNOWN_STATE_CODE_MSG, 0), exception.getMessage());
+    }
+
+    public static byte[] bytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.sergejsvisockis.jobs;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JdbcUtilTest {
+
+    @Test
+    void shouldDetectUniqueConstraintViolation() {
+        //when
+        boolean postgresql = JdbcUtil.isUniqueConstraintViolation(new SQLException("duplicate key", "23505"));
+        boolean mysql = JdbcUtil.isUniqueConstraintViolation(
+                new SQLIntegrityConstraintViolationException("Duplicate entry", "23000", 1062));
+        boolean oracle = JdbcUtil.isUniqueConstraintViolation(
+                new SQLIntegrityConstraintViolationException("ORA-00001: unique constraint violated", "23000", 1));
+
+        //then
+        assertTrue(postgresql);
+        assertTrue(mysql);
+        assertTrue(oracle);
+    }
+
+    @Test
+    void shouldNotDetectOtherIntegrityConstraintViolations() {
+        //when
+        boolean foreignKey = JdbcUtil.isUniqueConstraintViolation(new SQLException("foreign key", "23503"));
+        boolean notNull = JdbcUtil.isUniqueConstraintViolation(new SQLException("not null", "23502"));
+        boolean mysqlForeignKey = JdbcUtil.isUniqueConstraintViolation(
+                new SQLIntegrityConstraintViolationException("Cannot add or update a child row", "23000", 1452));
+        boolean oracleNotNull = JdbcUtil.isUniqueConstraintViolation(
+                new SQLIntegrityConstraintViolationException("ORA-01400: cannot insert NULL", "23000", 1400));
+
+        //then
+        assertFalse(foreignKey);
+        assertFalse(notNull);
+        assertFalse(mysqlForeignKey);
+        assertFalse(oracleNotNull);
+    }
+}
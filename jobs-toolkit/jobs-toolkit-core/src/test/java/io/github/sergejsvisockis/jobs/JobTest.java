@@ -1,23 +1,42 @@
 package io.github.sergejsvisockis.jobs;
 
+import io.github.sergejsvisockis.jobs.executor.JobExecutor;
+import io.github.sergejsvisockis.jobs.executor.JobExecutors;
 import io.github.sergejsvisockis.jobs.lockrepository.LockRepository;
+import io.github.sergejsvisockis.jobs.repository.JobLifecycleRepository;
 import io.github.sergejsvisockis.jobs.repository.JobRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static io.github.sergejsvisockis.jobs.AbstractJob.JOB_FAILED;
 import static io.github.sergejsvisockis.jobs.AbstractJob.JOB_NOT_FOUND_MSG;
+import static io.github.sergejsvisockis.jobs.AbstractJob.NO_EXECUTION_CONTEXT_MSG;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -50,8 +69,7 @@ class JobTest {
                 .build();
 
         when(jobRepository.fetchJobDefinition(eq(jobName))).thenReturn(Optional.of(jobDefinition));
-        when(lockRepository.fetchLockMetadata(eq(jobName))).thenReturn(Optional.empty());
-        when(lockRepository.acquireLock(eq(jobName))).thenReturn(lockMetadata);
+        when(lockRepository.tryAcquireLock(eq(jobName))).thenReturn(Optional.of(lockMetadata));
         when(jobRepository.captureExecution(eq(jobName))).thenReturn(jobExecution);
 
         TestJob testJob = new TestJob(jobRepository, lockRepository);
@@ -62,8 +80,7 @@ class JobTest {
         //then
         // Verify that the job execution was captured
         verify(jobRepository).fetchJobDefinition(eq(jobName));
-        verify(lockRepository).fetchLockMetadata(eq(jobName));
-        verify(lockRepository).acquireLock(eq(jobName));
+        verify(lockRepository).tryAcquireLock(eq(jobName));
         verify(jobRepository).captureExecution(eq(jobName));
         verify(jobRepository).completeExecution(eq(jobExecution));
         verify(lockRepository).releaseLock(eq(lockMetadata));
@@ -85,8 +102,7 @@ class JobTest {
         //then
         assertEquals(String.format(JOB_NOT_FOUND_MSG, jobName), exception.getMessage());
         verify(jobRepository).fetchJobDefinition(eq(jobName));
-        verify(lockRepository, never()).fetchLockMetadata(eq(jobName));
-        verify(lockRepository, never()).acquireLock(eq(jobName));
+        verify(lockRepository, never()).tryAcquireLock(eq(jobName));
         verify(jobRepository, never()).captureExecution(eq(jobName));
         verify(jobRepository, never()).completeExecution(any(JobExecution.class));
         verify(lockRepository, never()).releaseLock(any(LockMetadata.class));
@@ -104,14 +120,8 @@ class JobTest {
                 .withJobDescription("Test job description")
                 .build();
 
-        LockMetadata lockMetadata = new LockMetadata.Builder()
-                .withJobName(jobName)
-                .withLockedAt(LocalDateTime.now())
-                .withLockId(UUID.randomUUID())
-                .build();
-
         when(jobRepository.fetchJobDefinition(eq(jobName))).thenReturn(Optional.of(jobDefinition));
-        when(lockRepository.fetchLockMetadata(eq(jobName))).thenReturn(Optional.of(lockMetadata));
+        when(lockRepository.tryAcquireLock(eq(jobName))).thenReturn(Optional.empty());
 
         TestJob testJob = new TestJob(jobRepository, lockRepository);
 
@@ -120,8 +130,7 @@ class JobTest {
 
         //then
         verify(jobRepository).fetchJobDefinition(eq(jobName));
-        verify(lockRepository).fetchLockMetadata(eq(jobName));
-        verify(lockRepository, never()).acquireLock(eq(jobName));
+        verify(lockRepository).tryAcquireLock(eq(jobName));
         verify(jobRepository, never()).captureExecution(eq(jobName));
         verify(jobRepository, never()).completeExecution(any(JobExecution.class));
         verify(lockRepository, never()).releaseLock(any(LockMetadata.class));
@@ -153,8 +162,7 @@ class JobTest {
                 .build();
 
         when(jobRepository.fetchJobDefinition(eq(jobName))).thenReturn(Optional.of(jobDefinition));
-        when(lockRepository.fetchLockMetadata(eq(jobName))).thenReturn(Optional.empty());
-        when(lockRepository.acquireLock(eq(jobName))).thenReturn(lockMetadata);
+        when(lockRepository.tryAcquireLock(eq(jobName))).thenReturn(Optional.of(lockMetadata));
         when(jobRepository.captureExecution(eq(jobName))).thenReturn(jobExecution);
 
         SecondTestJob testJob = new SecondTestJob(jobRepository, lockRepository);
@@ -165,20 +173,340 @@ class JobTest {
         //then
         assertEquals(String.format(JOB_FAILED, jobName), exception.getMessage());
         verify(jobRepository).fetchJobDefinition(eq(jobName));
-        verify(lockRepository).fetchLockMetadata(eq(jobName));
-        verify(lockRepository).acquireLock(eq(jobName));
+        verify(lockRepository).tryAcquireLock(eq(jobName));
         verify(jobRepository).captureExecution(eq(jobName));
         verify(jobRepository, never()).completeExecution(eq(jobExecution));
         verify(jobRepository).failExecution(eq(jobExecution));
         verify(lockRepository).releaseLock(eq(lockMetadata));
     }
 
+    @Test
+    void shouldRunTheJobOnTheGivenExecutor() {
+        //given
+        final String jobName = "TestJob";
+        JobRepository jobRepository = mock(JobRepository.class);
+        LockRepository lockRepository = mock(LockRepository.class);
+        JobExecutor jobExecutor = mock(JobExecutor.class);
+
+        when(jobRepository.fetchJobDefinition(eq(jobName))).thenReturn(Optional.empty());
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Runnable.class).run();
+            return null;
+        }).when(jobExecutor).execute(any(Runnable.class));
+
+        TestJob testJob = new TestJob(jobRepository, lockRepository);
+        testJob.setJobExecutor(jobExecutor);
+
+        //when
+        IllegalStateException exception = assertThrows(IllegalStateException.class, testJob::run);
+
+        //then
+        assertEquals(String.format(JOB_NOT_FOUND_MSG, jobName), exception.getMessage());
+        verify(jobExecutor).execute(any(Runnable.class));
+        verify(jobRepository).fetchJobDefinition(eq(jobName));
+    }
+
+    @Test
+    void shouldSkipTheRunWhenExecutorIsSaturated() {
+        //given
+        JobRepository jobRepository = mock(JobRepository.class);
+        LockRepository lockRepository = mock(LockRepository.class);
+        JobExecutor jobExecutor = mock(JobExecutor.class);
+
+        doThrow(new RejectedExecutionException()).when(jobExecutor).execute(any(Runnable.class));
+
+        TestJob testJob = new TestJob(jobRepository, lockRepository);
+        testJob.setJobExecutor(jobExecutor);
+
+        //when
+        testJob.run();
+
+        //then
+        verify(jobExecutor).execute(any(Runnable.class));
+        verify(jobRepository, never()).fetchJobDefinition(anyString());
+    }
+
+    @Test
+    void shouldCompleteAsyncRunWithFinishedExecution() {
+        //given
+        final String jobName = "TestJob";
+        JobRepository jobRepository = mock(JobRepository.class);
+        LockRepository lockRepository = mock(LockRepository.class);
+
+        JobDefinition jobDefinition = new JobDefinition.Builder()
+                .withJobName(jobName)
+                .build();
+
+        LockMetadata lockMetadata = new LockMetadata.Builder()
+                .withJobName(jobName)
+                .withLockedAt(LocalDateTime.now())
+                .withLockId(UUID.randomUUID())
+                .build();
+
+        JobExecution jobExecution = new JobExecution.Builder()
+                .withJobName(jobName)
+                .withExecutionId(UUID.randomUUID())
+                .withLastRun(LocalDateTime.now())
+                .withState(JobState.RUNNING)
+                .build();
+
+        when(jobRepository.fetchJobDefinition(eq(jobName))).thenReturn(Optional.of(jobDefinition));
+        when(lockRepository.tryAcquireLock(eq(jobName))).thenReturn(Optional.of(lockMetadata));
+        when(jobRepository.captureExecution(eq(jobName))).thenReturn(jobExecution);
+
+        TestJob testJob = new TestJob(jobRepository, lockRepository);
+
+        //when
+        Optional<JobExecution> result = testJob.runAsync(JobExecutors.callerThread()).join();
+
+        //then
+        assertTrue(result.isPresent());
+        assertSame(jobExecution, result.get());
+        assertEquals(JobState.COMPLETED, result.get().getState());
+        verify(jobRepository).completeExecution(eq(jobExecution));
+        verify(lockRepository).releaseLock(eq(lockMetadata));
+    }
+
+    @Test
+    void shouldCompleteAsyncRunWithEmptyResultWhenJobIsLocked() {
+        //given
+        final String jobName = "TestJob";
+        JobRepository jobRepository = mock(JobRepository.class);
+        LockRepository lockRepository = mock(LockRepository.class);
+
+        JobDefinition jobDefinition = new JobDefinition.Builder()
+                .withJobName(jobName)
+                .build();
+
+        when(jobRepository.fetchJobDefinition(eq(jobName))).thenReturn(Optional.of(jobDefinition));
+        when(lockRepository.tryAcquireLock(eq(jobName))).thenReturn(Optional.empty());
+
+        TestJob testJob = new TestJob(jobRepository, lockRepository);
+
+        //when
+        Optional<JobExecution> result = testJob.runAsync(JobExecutors.callerThread()).join();
+
+        //then
+        assertTrue(result.isEmpty());
+        verify(lockRepository).tryAcquireLock(eq(jobName));
+    }
+
+    @Test
+    void shouldCompleteAsyncRunExceptionallyOnceTheJobFailed() {
+        //given
+        final String jobName = "SecondTestJob";
+        JobRepository jobRepository = mock(JobRepository.class);
+        LockRepository lockRepository = mock(LockRepository.class);
+
+        JobDefinition jobDefinition = new JobDefinition.Builder()
+                .withJobName(jobName)
+                .build();
+
+        LockMetadata lockMetadata = new LockMetadata.Builder()
+                .withJobName(jobName)
+                .withLockedAt(LocalDateTime.now())
+                .withLockId(UUID.randomUUID())
+                .build();
+
+        JobExecution jobExecution = new JobExecution.Builder()
+                .withJobName(jobName)
+                .withExecutionId(UUID.randomUUID())
+                .withLastRun(LocalDateTime.now())
+                .withState(JobState.RUNNING)
+                .build();
+
+        when(jobRepository.fetchJobDefinition(eq(jobName))).thenReturn(Optional.of(jobDefinition));
+        when(lockRepository.tryAcquireLock(eq(jobName))).thenReturn(Optional.of(lockMetadata));
+        when(jobRepository.captureExecution(eq(jobName))).thenReturn(jobExecution);
+
+        SecondTestJob testJob = new SecondTestJob(jobRepository, lockRepository);
+
+        //when
+        CompletableFuture<Optional<JobExecution>> future = testJob.runAsync(JobExecutors.callerThread());
+
+        //then
+        CompletionException exception = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+        assertEquals(String.format(JOB_FAILED, jobName), exception.getCause().getMessage());
+        assertEquals(JobState.FAILED, jobExecution.getState());
+        verify(jobRepository).failExecution(eq(jobExecution));
+        verify(lockRepository).releaseLock(eq(lockMetadata));
+    }
+
+    @Test
+    void shouldSkipAsyncRunWhenCancelledBeforeStart() {
+        //given
+        JobRepository jobRepository = mock(JobRepository.class);
+        LockRepository lockRepository = mock(LockRepository.class);
+        List<Runnable> submitted = new ArrayList<>();
+
+        TestJob testJob = new TestJob(jobRepository, lockRepository);
+
+        //when
+        CompletableFuture<Optional<JobExecution>> future = testJob.runAsync(submitted::add);
+        future.cancel(true);
+        submitted.forEach(Runnable::run);
+
+        //then
+        assertTrue(future.isCancelled());
+        verify(jobRepository, never()).fetchJobDefinition(anyString());
+    }
+
+    @Test
+    void shouldInterruptTheJobOnceCancelled() throws InterruptedException {
+        //given
+        final String jobName = "BlockingTestJob";
+        JobRepository jobRepository = mock(JobRepository.class);
+        LockRepository lockRepository = mock(LockRepository.class);
+
+        JobDefinition jobDefinition = new JobDefinition.Builder()
+                .withJobName(jobName)
+                .build();
+
+        LockMetadata lockMetadata = new LockMetadata.Builder()
+                .withJobName(jobName)
+                .withLockedAt(LocalDateTime.now())
+                .withLockId(UUID.randomUUID())
+                .build();
+
+        JobExecution jobExecution = new JobExecution.Builder()
+                .withJobName(jobName)
+                .withExecutionId(UUID.randomUUID())
+                .withLastRun(LocalDateTime.now())
+                .withState(JobState.RUNNING)
+                .build();
+
+        when(jobRepository.fetchJobDefinition(eq(jobName))).thenReturn(Optional.of(jobDefinition));
+        when(lockRepository.tryAcquireLock(eq(jobName))).thenReturn(Optional.of(lockMetadata));
+        when(jobRepository.captureExecution(eq(jobName))).thenReturn(jobExecution);
+
+        BlockingTestJob testJob = new BlockingTestJob(jobRepository, lockRepository);
+        JobExecutor jobExecutor = JobExecutors.boundedPool(1, 1);
+
+        //when
+        CompletableFuture<Optional<JobExecution>> future = testJob.runAsync(jobExecutor);
+        assertTrue(testJob.started.await(5, TimeUnit.SECONDS));
+        future.cancel(true);
+
+        //then
+        assertTrue(future.isCancelled());
+        verify(jobRepository, timeout(5000)).failExecution(eq(jobExecution));
+        verify(lockRepository, timeout(5000)).releaseLock(eq(lockMetadata));
+        jobExecutor.shutdown();
+    }
+
+    @Test
+    void shouldStartAndFinishTheJobThroughLifecycleRepository() {
+        //given
+        final String jobName = "TestJob";
+        JobLifecycleRepository lifecycleRepository = mock(JobLifecycleRepository.class);
+
+        JobExecution jobExecution = new JobExecution.Builder()
+                .withJobName(jobName)
+                .withExecutionId(UUID.randomUUID())
+                .withLastRun(LocalDateTime.now())
+                .withState(JobState.RUNNING)
+                .build();
+
+        JobExecutionContext context = new JobExecutionContext.Builder()
+                .withJobDefinition(new JobDefinition.Builder()
+                        .withJobName(jobName)
+                        .build())
+                .withLockMetadata(new LockMetadata.Builder()
+                        .withJobName(jobName)
+                        .withLockedAt(LocalDateTime.now())
+                        .withLockId(UUID.randomUUID())
+                        .build())
+                .withJobExecution(jobExecution)
+                .build();
+
+        when(lifecycleRepository.startExecution(eq(jobName))).thenReturn(Optional.of(context));
+
+        TestJob testJob = new TestJob(lifecycleRepository);
+
+        //when
+        Optional<JobExecution> result = testJob.doExecute();
+
+        //then
+        assertTrue(result.isPresent());
+        assertEquals(JobState.COMPLETED, result.get().getState());
+        verify(lifecycleRepository).startExecution(eq(jobName));
+        verify(lifecycleRepository).completeExecution(eq(context));
+        verify(lifecycleRepository, never()).failExecution(any(JobExecutionContext.class));
+    }
+
+    @Test
+    void shouldWaitForTheLockOnceLockTimeoutIsSet() {
+        //given
+        final String jobName = "TestJob";
+        JobRepository jobRepository = mock(JobRepository.class);
+        LockRepository lockRepository = mock(LockRepository.class);
+        Duration lockTimeout = Duration.ofSeconds(5);
+
+        when(jobRepository.fetchJobDefinition(eq(jobName))).thenReturn(Optional.of(new JobDefinition.Builder()
+                .withJobName(jobName)
+                .build()));
+        when(lockRepository.tryAcquireLock(eq(jobName), eq(lockTimeout))).thenReturn(Optional.empty());
+
+        TestJob testJob = new TestJob(jobRepository, lockRepository);
+        testJob.setLockTimeout(lockTimeout);
+
+        //when
+        Optional<JobExecution> result = testJob.doExecute();
+
+        //then
+        assertTrue(result.isEmpty());
+        verify(lockRepository).tryAcquireLock(eq(jobName), eq(lockTimeout));
+        verify(lockRepository, never()).tryAcquireLock(eq(jobName));
+        verify(jobRepository, never()).captureExecution(anyString());
+    }
+
+    @Test
+    void shouldExposeFencingTokenToTheRunningJob() {
+        //given
+        final String jobName = "FencedTestJob";
+        JobLifecycleRepository lifecycleRepository = mock(JobLifecycleRepository.class);
+
+        JobExecutionContext context = new JobExecutionContext.Builder()
+                .withJobDefinition(new JobDefinition.Builder()
+                        .withJobName(jobName)
+                        .build())
+                .withLockMetadata(new LockMetadata.Builder()
+                        .withJobName(jobName)
+                        .withLockedAt(LocalDateTime.now())
+                        .withLockId(UUID.randomUUID())
+                        .withFencingToken(42L)
+                        .build())
+                .withJobExecution(new JobExecution.Builder()
+                        .withJobName(jobName)
+                        .withExecutionId(UUID.randomUUID())
+                        .withState(JobState.RUNNING)
+                        .build())
+                .build();
+
+        when(lifecycleRepository.startExecution(eq(jobName))).thenReturn(Optional.of(context));
+
+        FencedTestJob testJob = new FencedTestJob(lifecycleRepository);
+
+        //when
+        testJob.doExecute();
+
+        //then
+        assertEquals(42L, testJob.fencingToken);
+        IllegalStateException exception = assertThrows(IllegalStateException.class, testJob::getExecutionContext);
+        assertEquals(String.format(NO_EXECUTION_CONTEXT_MSG, jobName), exception.getMessage());
+    }
+
     public static class TestJob extends AbstractJob {
 
         public TestJob(JobRepository jobRepository, LockRepository lockRepository) {
             super(jobRepository, lockRepository);
         }
 
+        public TestJob(JobLifecycleRepository jobLifecycleRepository) {
+            super(jobLifecycleRepository);
+        }
+
         @Override
         public void run() {
             super.run();
@@ -216,4 +544,47 @@ class JobTest {
             return "SecondTestJob";
         }
     }
+
+    public static class BlockingTestJob extends AbstractJob {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        public BlockingTestJob(JobRepository jobRepository, LockRepository lockRepository) {
+            super(jobRepository, lockRepository);
+        }
+
+        @Override
+        public void execute() throws JobExecutionException {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                throw new JobExecutionException(e);
+            }
+        }
+
+        @Override
+        public String getJobName() {
+            return "BlockingTestJob";
+        }
+    }
+
+    public static class FencedTestJob extends AbstractJob {
+
+        private Long fencingToken;
+
+        public FencedTestJob(JobLifecycleRepository jobLifecycleRepository) {
+            super(jobLifecycleRepository);
+        }
+
+        @Override
+        public void execute() throws JobExecutionException {
+            fencingToken = getExecutionContext().getLockMetadata().getFencingToken();
+        }
+
+        @Override
+        public String getJobName() {
+            return "FencedTestJob";
+        }
+    }
 }
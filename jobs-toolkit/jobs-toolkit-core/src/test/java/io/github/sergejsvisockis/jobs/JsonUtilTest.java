@@ -1,12 +1,23 @@
 package io.github.sergejsvisockis.jobs;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class JsonUtilTest {
@@ -128,6 +139,145 @@ class JsonUtilTest {
         assertEquals("Failed to convert JSON to object", exception.getMessage());
     }
 
+    @Test
+    void shouldShareTheObjectMapper() {
+        // given
+        ObjectMapper objectMapper = JsonUtil.getObjectMapper();
+
+        // when
+        JsonUtil.toJson(new TestObject("test", 123));
+
+        // then
+        assertSame(objectMapper, JsonUtil.getObjectMapper());
+    }
+
+    @Test
+    void shouldConvertJavaTimeTypes() {
+        // given
+        LocalDateTime dateTime = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+
+        // when
+        LocalDateTime result = JsonUtil.fromBytes(JsonUtil.toBytes(dateTime), LocalDateTime.class);
+
+        // then
+        assertEquals(dateTime, result);
+    }
+
+    @Test
+    void shouldUseTheSuppliedObjectMapper() {
+        // given
+        ObjectMapper defaultMapper = JsonUtil.getObjectMapper();
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .setPropertyNamingStrategy(PropertyNamingStrategies.UPPER_CAMEL_CASE);
+        JsonUtil.toJson(new TestObject("test", 123));
+
+        try {
+            // when
+            JsonUtil.setObjectMapper(objectMapper);
+            String result = JsonUtil.toJson(new TestObject("test", 123));
+
+            // then
+            assertSame(objectMapper, JsonUtil.getObjectMapper());
+            assertEquals("{\"Name\":\"test\",\"Value\":123}", result);
+        } finally {
+            JsonUtil.setObjectMapper(defaultMapper);
+        }
+    }
+
+    @Test
+    void shouldWriteToStreamWithoutClosingIt() {
+        // given
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                throw new IllegalStateException("Stream must not be closed");
+            }
+        };
+
+        // when
+        JsonUtil.writeTo(new TestObject("test", 123), out);
+        JsonUtil.writeTo(new TestObject("other", 456), Channels.newChannel(out));
+
+        // then
+        assertEquals("{\"name\":\"test\",\"value\":123}{\"name\":\"other\",\"value\":456}",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldWriteToAndReadFromByteBuffer() {
+        // given
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+
+        // when
+        int written = JsonUtil.writeTo(new TestObject("test", 123), buffer);
+        buffer.flip();
+        TestObject testObject = JsonUtil.readFrom(buffer, TestObject.class);
+
+        // then
+        assertEquals(27, written);
+        assertEquals("test", testObject.getName());
+        assertEquals(123, testObject.getValue());
+        assertEquals(buffer.limit(), buffer.position());
+    }
+
+    @Test
+    void shouldReadFromHeapByteBufferSlice() {
+        // given
+        byte[] bytes = "xx{\"name\":\"test\",\"value\":123}".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 2, bytes.length - 2).slice();
+
+        // when
+        TestObject testObject = JsonUtil.readFrom(buffer, TestObject.class);
+
+        // then
+        assertEquals("test", testObject.getName());
+        assertEquals(123, testObject.getValue());
+        assertTrue(!buffer.hasRemaining());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenByteBufferIsTooSmall() {
+        // given
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+
+        // when
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> JsonUtil.writeTo(new TestObject("test", 123), buffer));
+
+        // then
+        assertEquals("Failed to write object as JSON", exception.getMessage());
+    }
+
+    @Test
+    void shouldReuseTheOutputBufferOfTheThread() {
+        // given
+        ByteBuffer first = JsonUtil.toBuffer(new TestObject("test", 123));
+        byte[] firstBytes = new byte[first.remaining()];
+        first.get(firstBytes);
+
+        // when
+        ByteBuffer second = JsonUtil.toBuffer(new TestObject("next", 456));
+
+        // then
+        assertEquals("{\"name\":\"test\",\"value\":123}", new String(firstBytes, StandardCharsets.UTF_8));
+        assertTrue(second.isReadOnly());
+        assertEquals(JsonUtil.toJson(new TestObject("next", 456)), StandardCharsets.UTF_8.decode(second).toString());
+    }
+
+    @Test
+    void shouldReadFromStream() {
+        // given
+        ByteArrayInputStream in = new ByteArrayInputStream("{\"name\":\"test\",\"value\":123}".getBytes());
+
+        // when
+        TestObject testObject = JsonUtil.readFrom(in, TestObject.class);
+
+        // then
+        assertEquals("test", testObject.getName());
+        assertEquals(123, testObject.getValue());
+    }
+
     private static class TestObject {
         private String name;
         private int value;
@@ -0,0 +1,125 @@
+package io.github.sergejsvisockis.jobs;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+
+import static io.github.sergejsvisockis.jobs.SqlDialect.FAILED_TO_DETECT_DIALECT_MSG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SqlDialectTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Test
+    void shouldDetectDialectFromDatabaseMetadata() throws SQLException {
+        //given
+        Connection connectionMock = mock(Connection.class);
+        DatabaseMetaData metaDataMock = mock(DatabaseMetaData.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.getMetaData()).thenReturn(metaDataMock);
+        when(metaDataMock.getDatabaseProductName()).thenReturn("PostgreSQL");
+
+        //when
+        SqlDialect dialect = SqlDialect.detect(dataSource);
+
+        //then
+        assertEquals(SqlDialect.POSTGRESQL, dialect);
+        verify(connectionMock).close();
+    }
+
+    @Test
+    void shouldFailWithExceptionWhenDetectingDialect() throws SQLException {
+        //given
+        when(dataSource.getConnection()).thenThrow(new SQLException());
+
+        //when
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> SqlDialect.detect(dataSource));
+
+        //then
+        assertEquals(FAILED_TO_DETECT_DIALECT_MSG, exception.getMessage());
+    }
+
+    @Test
+    void shouldMapProductNames() {
+        assertEquals(SqlDialect.H2, SqlDialect.fromProductName("H2"));
+        assertEquals(SqlDialect.POSTGRESQL, SqlDialect.fromProductName("PostgreSQL"));
+        assertEquals(SqlDialect.MYSQL, SqlDialect.fromProductName("MySQL"));
+        assertEquals(SqlDialect.MYSQL, SqlDialect.fromProductName("MariaDB"));
+        assertEquals(SqlDialect.ORACLE, SqlDialect.fromProductName("Oracle"));
+        assertEquals(SqlDialect.GENERIC, SqlDialect.fromProductName("Apache Derby"));
+        assertEquals(SqlDialect.GENERIC, SqlDialect.fromProductName(null));
+    }
+
+    @Test
+    void shouldBuildUpserts() {
+        assertEquals("MERGE INTO t(k, a, b) KEY (k) VALUES (?, ?, ?)",
+                SqlDialect.H2.upsert("t", "k", "k", "a", "b"));
+        assertEquals("INSERT INTO t(k, a, b) VALUES (?, ?, ?) ON CONFLICT (k) DO UPDATE SET a = EXCLUDED.a, b = EXCLUDED.b",
+                SqlDialect.POSTGRESQL.upsert("t", "k", "k", "a", "b"));
+        assertEquals("INSERT INTO t(k, a, b) VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE a = VALUES(a), b = VALUES(b)",
+                SqlDialect.MYSQL.upsert("t", "k", "k", "a", "b"));
+        assertEquals("MERGE INTO t USING (SELECT ? k, ? a, ? b FROM dual) s ON (t.k = s.k) " +
+                        "WHEN MATCHED THEN UPDATE SET a = s.a, b = s.b " +
+                        "WHEN NOT MATCHED THEN INSERT (k, a, b) VALUES (s.k, s.a, s.b)",
+                SqlDialect.ORACLE.upsert("t", "k", "k", "a", "b"));
+    }
+
+    @Test
+    void shouldBuildConditionalUpserts() {
+        assertEquals("INSERT INTO t(k, a) VALUES (?, ?) ON CONFLICT (k) DO UPDATE SET a = EXCLUDED.a WHERE t.a < ?",
+                SqlDialect.POSTGRESQL.conditionalUpsert("t", "k", "t.a < ?", "k", "a"));
+        assertEquals("MERGE INTO t USING (SELECT ? k, ? a FROM dual) s ON (t.k = s.k) " +
+                        "WHEN MATCHED THEN UPDATE SET a = s.a WHERE t.a < ? " +
+                        "WHEN NOT MATCHED THEN INSERT (k, a) VALUES (s.k, s.a)",
+                SqlDialect.ORACLE.conditionalUpsert("t", "k", "t.a < ?", "k", "a"));
+    }
+
+    @Test
+    void shouldNotSupportUpsertOnGenericDialect() {
+        assertFalse(SqlDialect.GENERIC.supportsUpsert());
+        assertFalse(SqlDialect.MYSQL.supportsConditionalUpsert());
+        assertTrue(SqlDialect.H2.supportsUpsert());
+        assertThrows(UnsupportedOperationException.class, () -> SqlDialect.GENERIC.upsert("t", "k", "k"));
+        assertThrows(UnsupportedOperationException.class, () -> SqlDialect.H2.conditionalUpsert("t", "k", "t.k = ?", "k"));
+    }
+
+    @Test
+    void shouldBuildSkipLockedQueries() {
+        assertEquals("SELECT k FROM t LIMIT 10 FOR UPDATE SKIP LOCKED",
+                SqlDialect.POSTGRESQL.selectForUpdateSkipLocked("SELECT k FROM t", 10));
+        assertEquals("SELECT k FROM t LIMIT 10 FOR UPDATE SKIP LOCKED",
+                SqlDialect.MYSQL.selectForUpdateSkipLocked("SELECT k FROM t", 10));
+        assertEquals("SELECT k FROM t FOR UPDATE SKIP LOCKED",
+                SqlDialect.ORACLE.selectForUpdateSkipLocked("SELECT k FROM t", 10));
+        assertEquals("SELECT k FROM t", SqlDialect.GENERIC.selectForUpdateSkipLocked("SELECT k FROM t", 10));
+        assertFalse(SqlDialect.GENERIC.supportsSkipLocked());
+        assertTrue(SqlDialect.H2.supportsSkipLocked());
+    }
+
+    @Test
+    void shouldBuildInsertIgnoringDuplicates() {
+        assertEquals("INSERT INTO t(k, v) VALUES (?, ?), (?, ?) ON CONFLICT DO NOTHING",
+                SqlDialect.POSTGRESQL.insertIgnoringDuplicates("t", 2, "k", "v"));
+        assertEquals("INSERT INTO t(k, v) VALUES (?, ?), (?, ?) ON DUPLICATE KEY UPDATE k = k",
+                SqlDialect.MYSQL.insertIgnoringDuplicates("t", 2, "k", "v"));
+        assertFalse(SqlDialect.ORACLE.supportsInsertIgnoringDuplicates());
+        assertThrows(UnsupportedOperationException.class,
+                () -> SqlDialect.H2.insertIgnoringDuplicates("t", 2, "k", "v"));
+    }
+}
@@ -0,0 +1,207 @@
+package io.github.sergejsvisockis.jobs.codec;
+
+import io.github.sergejsvisockis.jobs.JobDefinition;
+import io.github.sergejsvisockis.jobs.JobExecution;
+import io.github.sergejsvisockis.jobs.JobState;
+import io.github.sergejsvisockis.jobs.LockMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static io.github.sergejsvisockis.jobs.codec.BinaryCodec.BUFFER_TOO_SMALL_MSG;
+import static io.github.sergejsvisockis.jobs.codec.BinaryCodec.MALFORMED_VALUE_MSG;
+import static io.github.sergejsvisockis.jobs.codec.BinaryCodec.UNSUPPORTED_VERSION_MSG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CodecsTest {
+
+    @Test
+    void shouldRoundTripLockMetadata() {
+        //given
+        LockMetadata lockMetadata = new LockMetadata.Builder()
+                .withLockId(UUID.randomUUID())
+                .withJobName("TestJobWithNäme")
+                .withLockedAt(LocalDateTime.of(2024, 1, 2, 3, 4, 5, 123_456_789))
+                .withExpiresAt(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 1_000))
+                .withPermit(3)
+                .withFencingToken(42L)
+                .build();
+
+        //when
+        byte[] bytes = Codecs.lockMetadata().encode(lockMetadata);
+        LockMetadata result = Codecs.lockMetadata().decode(bytes);
+
+        //then
+        assertEquals(1 + 16 + 8 + 8 + 4 + 16 + 4 + 8, bytes.length);
+        assertEquals(LockMetadataCodec.VERSION, bytes[0]);
+        assertEquals(lockMetadata.getLockId(), result.getLockId());
+        assertEquals(lockMetadata.getJobName(), result.getJobName());
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5, 123_456_000), result.getLockedAt());
+        assertEquals(lockMetadata.getExpiresAt(), result.getExpiresAt());
+        assertEquals(3, result.getPermit());
+        assertEquals(42L, result.getFencingToken());
+    }
+
+    @Test
+    void shouldRoundTripNullFields() {
+        //given
+        LockMetadata lockMetadata = new LockMetadata.Builder()
+                .withJobName("TestJob")
+                .build();
+
+        //when
+        LockMetadata result = Codecs.lockMetadata().decode(Codecs.lockMetadata().encode(lockMetadata));
+
+        //then
+        assertNull(result.getLockId());
+        assertNull(result.getLockedAt());
+        assertNull(result.getExpiresAt());
+        assertNull(result.getPermit());
+        assertEquals("TestJob", result.getJobName());
+    }
+
+    @Test
+    void shouldDecodePreviousVersionWithDefaults() {
+        //given
+        byte[] current = Codecs.jobDefinition().encode(new JobDefinition.Builder()
+                .withJobName("TestJob")
+                .withMaxConcurrency(4)
+                .build());
+        // a version 1 encoding has no max concurrency appended
+        byte[] bytes = Arrays.copyOf(current, current.length - Integer.BYTES);
+        bytes[0] = 1;
+
+        //when
+        JobDefinition result = Codecs.jobDefinition().decode(bytes);
+
+        //then
+        assertEquals("TestJob", result.getJobName());
+        assertEquals(1, result.getMaxConcurrency());
+        assertEquals(4, Codecs.jobDefinition().decode(current).getMaxConcurrency());
+    }
+
+    @Test
+    void shouldRoundTripJobExecutionThroughBuffer() {
+        //given
+        JobExecution jobExecution = new JobExecution.Builder()
+                .withExecutionId(UUID.randomUUID())
+                .withJobName("TestJob")
+                .withLastRun(LocalDateTime.of(2024, 1, 2, 3, 4, 5))
+                .withState(JobState.FAILED)
+                .build();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+
+        //when
+        Codecs.jobExecution().encode(jobExecution, buffer);
+        buffer.flip();
+        JobExecution result = Codecs.jobExecution().decode(buffer);
+
+        //then
+        assertEquals(buffer.limit(), buffer.position());
+        assertEquals(jobExecution.getExecutionId(), result.getExecutionId());
+        assertEquals(jobExecution.getJobName(), result.getJobName());
+        assertEquals(jobExecution.getLastRun(), result.getLastRun());
+        assertEquals(JobState.FAILED, result.getState());
+    }
+
+    @Test
+    void shouldRoundTripJobDefinition() {
+        //given
+        JobDefinition jobDefinition = new JobDefinition.Builder()
+                .withJobName("TestJob")
+                .withJobDescription("Test job description")
+                .build();
+
+        //when
+        JobDefinition result = Codecs.jobDefinition().decode(Codecs.jobDefinition().encode(jobDefinition));
+
+        //then
+        assertEquals("TestJob", result.getJobName());
+        assertEquals("Test job description", result.getJobDescription());
+    }
+
+    @Test
+    void shouldSizeUnpairedSurrogateAsItsReplacement() {
+        //given
+        JobDefinition jobDefinition = new JobDefinition.Builder()
+                .withJobName("TestJob\uD800")
+                .withJobDescription("\uDC00\uD83D\uDE00")
+                .build();
+
+        //when
+        byte[] bytes = Codecs.jobDefinition().encode(jobDefinition);
+        JobDefinition result = Codecs.jobDefinition().decode(bytes);
+
+        //then
+        assertEquals(1 + 4 + 8 + 4 + 5 + 4, bytes.length);
+        assertEquals("TestJob?", result.getJobName());
+        assertEquals("?\uD83D\uDE00", result.getJobDescription());
+    }
+
+    @Test
+    void shouldRoundTripThroughJson() {
+        //given
+        Codec<JobExecution> codec = Codecs.json(JobExecution.class);
+        JobExecution jobExecution = new JobExecution.Builder()
+                .withExecutionId(UUID.randomUUID())
+                .withJobName("TestJob")
+                .withLastRun(LocalDateTime.of(2024, 1, 2, 3, 4, 5))
+                .withState(JobState.RUNNING)
+                .build();
+
+        //when
+        JobExecution result = codec.decode(codec.encode(jobExecution));
+
+        //then
+        assertEquals(jobExecution.getExecutionId(), result.getExecutionId());
+        assertEquals(jobExecution.getLastRun(), result.getLastRun());
+        assertEquals(JobState.RUNNING, result.getState());
+    }
+
+    @Test
+    void shouldRejectUnsupportedVersion() {
+        //given
+        byte[] bytes = Codecs.jobDefinition().encode(new JobDefinition.Builder().withJobName("TestJob").build());
+        bytes[0] = 3;
+
+        //when
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> Codecs.jobDefinition().decode(bytes));
+
+        //then
+        assertEquals(String.format(UNSUPPORTED_VERSION_MSG, "job definition", 3, 2), exception.getMessage());
+    }
+
+    @Test
+    void shouldRejectTruncatedValue() {
+        //given
+        byte[] bytes = new byte[]{1, 0, 0};
+
+        //when
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> Codecs.jobExecution().decode(bytes));
+
+        //then
+        assertEquals(String.format(MALFORMED_VALUE_MSG, "job execution"), exception.getMessage());
+    }
+
+    @Test
+    void shouldRejectTooSmallBuffer() {
+        //given
+        JobDefinition jobDefinition = new JobDefinition.Builder().withJobName("TestJob").build();
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+
+        //when
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> Codecs.jobDefinition().encode(jobDefinition, buffer));
+
+        //then
+        assertEquals(String.format(BUFFER_TOO_SMALL_MSG, 20, "job definition", 8), exception.getMessage());
+        assertEquals(0, buffer.position());
+    }
+}
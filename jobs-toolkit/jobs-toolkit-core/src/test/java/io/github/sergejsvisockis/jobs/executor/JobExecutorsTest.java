@@ -0,0 +1,128 @@
+package io.github.sergejsvisockis.jobs.executor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.github.sergejsvisockis.jobs.executor.BoundedPoolJobExecutor.INVALID_POOL_SIZE_MSG;
+import static io.github.sergejsvisockis.jobs.executor.VirtualThreadJobExecutor.VIRTUAL_THREADS_NOT_SUPPORTED_MSG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobExecutorsTest {
+
+    @Test
+    void shouldShareTheSamePool() {
+        //when
+        JobExecutor first = JobExecutors.sharedPool();
+        JobExecutor second = JobExecutors.sharedPool();
+
+        //then
+        assertSame(first, second);
+    }
+
+    @Test
+    void shouldExposeQueueDepthAndActiveCountOfBoundedPool() throws InterruptedException {
+        //given
+        JobExecutor executor = JobExecutors.boundedPool(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        //when
+        executor.execute(() -> {
+            started.countDown();
+            await(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(() -> {
+        });
+
+        //then
+        assertEquals(1, executor.getActiveCount());
+        assertEquals(1, executor.getQueueDepth());
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {
+        }));
+
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void shouldFailWithExceptionWhenPoolSizeIsNotPositive() {
+        //when
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> JobExecutors.boundedPool(0, 1));
+
+        //then
+        assertEquals(String.format(INVALID_POOL_SIZE_MSG, 0), exception.getMessage());
+    }
+
+    @Test
+    void shouldRunOnCallerThread() {
+        //given
+        JobExecutor executor = JobExecutors.callerThread();
+        AtomicReference<Thread> executedOn = new AtomicReference<>();
+        AtomicReference<Integer> activeCount = new AtomicReference<>();
+
+        //when
+        executor.execute(() -> {
+            executedOn.set(Thread.currentThread());
+            activeCount.set(executor.getActiveCount());
+        });
+
+        //then
+        assertSame(Thread.currentThread(), executedOn.get());
+        assertEquals(1, activeCount.get());
+        assertEquals(0, executor.getActiveCount());
+        assertEquals(0, executor.getQueueDepth());
+    }
+
+    @Test
+    void shouldRejectOnceCallerThreadExecutorIsShutDown() {
+        //given
+        JobExecutor executor = JobExecutors.callerThread();
+
+        //when
+        executor.shutdown();
+
+        //then
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {
+        }));
+    }
+
+    @Test
+    void shouldRunOnVirtualThreadWhenSupported() throws InterruptedException {
+        if (!VirtualThreadJobExecutor.isSupported()) {
+            //when
+            IllegalStateException exception = assertThrows(IllegalStateException.class, JobExecutors::virtualThreads);
+
+            //then
+            assertEquals(VIRTUAL_THREADS_NOT_SUPPORTED_MSG, exception.getMessage());
+            return;
+        }
+
+        //given
+        JobExecutor executor = JobExecutors.virtualThreads();
+        CountDownLatch done = new CountDownLatch(1);
+
+        //when
+        executor.execute(done::countDown);
+
+        //then
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, executor.getQueueDepth());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
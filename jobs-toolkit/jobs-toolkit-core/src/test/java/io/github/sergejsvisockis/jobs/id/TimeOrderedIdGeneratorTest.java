@@ -0,0 +1,103 @@
+package io.github.sergejsvisockis.jobs.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeOrderedIdGeneratorTest {
+
+    @Test
+    void shouldGenerateVersion7Ids() {
+        //given
+        final long now = 1_700_000_000_000L;
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(() -> now);
+
+        //when
+        UUID id = generator.generate();
+
+        //then
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertEquals(now, id.getMostSignificantBits() >>> 16);
+    }
+
+    @Test
+    void shouldGenerateMonotonicIdsWithinTheSameMillisecond() {
+        //given
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(() -> 1_700_000_000_000L);
+
+        //when
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(generator.generate());
+        }
+
+        //then
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(Long.compareUnsigned(ids.get(i - 1).getMostSignificantBits(), ids.get(i).getMostSignificantBits()) < 0);
+        }
+    }
+
+    @Test
+    void shouldStayMonotonicWhenClockGoesBackwards() {
+        //given
+        AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(clock::get);
+
+        //when
+        UUID before = generator.generate();
+        clock.addAndGet(-1000);
+        UUID after = generator.generate();
+
+        //then
+        assertTrue(Long.compareUnsigned(before.getMostSignificantBits(), after.getMostSignificantBits()) < 0);
+    }
+
+    @Test
+    void shouldGenerateUniqueIdsConcurrently() throws Exception {
+        //given
+        final int threads = 8;
+        final int idsPerThread = 10_000;
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator();
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        //when
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < idsPerThread; j++) {
+                        ids.add(generator.generate());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        //then
+        assertEquals(threads * idsPerThread, ids.size());
+    }
+
+    @Test
+    void shouldShareTimeOrderedGenerator() {
+        assertSame(IdGenerators.timeOrdered(), IdGenerators.timeOrdered());
+        assertEquals(4, IdGenerators.random().generate().version());
+    }
+}
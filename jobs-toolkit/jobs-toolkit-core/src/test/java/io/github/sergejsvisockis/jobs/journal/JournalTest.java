@@ -0,0 +1,124 @@
+package io.github.sergejsvisockis.jobs.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class JournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldReplayAppendedRecords() {
+        //given
+        Path file = dir.resolve("test.journal");
+        try (Journal journal = new Journal(file, 64)) {
+            journal.replay(record -> {
+            });
+            journal.sync(journal.append(bytes("first")));
+            // grows the mapping past the initial capacity
+            journal.sync(journal.append(bytes("second".repeat(20))));
+        }
+
+        //when
+        List<String> records = replay(file);
+
+        //then
+        assertEquals(List.of("first", "second".repeat(20)), records);
+    }
+
+    @Test
+    void shouldDropTornTail() throws Exception {
+        //given
+        Path file = dir.resolve("test.journal");
+        int end;
+        try (Journal journal = new Journal(file, 1024)) {
+            journal.replay(record -> {
+            });
+            end = journal.append(bytes("first"));
+            journal.append(bytes("second"));
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(end + Journal.HEADER_SIZE);
+            raf.write('x');
+        }
+
+        //when
+        List<String> records = new ArrayList<>();
+        try (Journal journal = new Journal(file, 1024)) {
+            journal.replay(record -> records.add(string(record)));
+            journal.sync(journal.append(bytes("third")));
+        }
+
+        //then
+        assertEquals(List.of("first"), records);
+        assertEquals(List.of("first", "third"), replay(file));
+    }
+
+    @Test
+    void shouldRewriteRecords() {
+        //given
+        Path file = dir.resolve("test.journal");
+        try (Journal journal = new Journal(file, 1024)) {
+            journal.replay(record -> {
+            });
+            journal.append(bytes("first"));
+            journal.append(bytes("second"));
+
+            //when
+            journal.rewrite(List.of(bytes("compacted")));
+            journal.sync(journal.append(bytes("third")));
+        }
+
+        //then
+        assertEquals(List.of("compacted", "third"), replay(file));
+        assertFalse(Files.exists(dir.resolve("test.journal.compact")));
+    }
+
+    @Test
+    void shouldKeepAppendingAfterRepeatedRewrites() {
+        //given
+        Path file = dir.resolve("test.journal");
+        try (Journal journal = new Journal(file, 64)) {
+            journal.replay(record -> {
+            });
+
+            //when
+            for (int i = 0; i < 3; i++) {
+                journal.append(bytes("record" + i));
+                journal.rewrite(List.of(bytes("compacted" + i)));
+            }
+            journal.sync(journal.append(bytes("last".repeat(20))));
+        }
+
+        //then
+        assertEquals(List.of("compacted2", "last".repeat(20)), replay(file));
+    }
+
+    private static List<String> replay(Path file) {
+        List<String> records = new ArrayList<>();
+        try (Journal journal = new Journal(file, 64)) {
+            journal.replay(record -> records.add(string(record)));
+        }
+        return records;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer record) {
+        return StandardCharsets.UTF_8.decode(record).toString();
+    }
+}
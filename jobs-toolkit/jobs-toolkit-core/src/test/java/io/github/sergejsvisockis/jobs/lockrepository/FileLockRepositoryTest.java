@@ -0,0 +1,110 @@
+package io.github.sergejsvisockis.jobs.lockrepository;
+
+import io.github.sergejsvisockis.jobs.LockMetadata;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileLockRepositoryTest {
+
+    private static final String JOB_NAME = "TestJob";
+    private static final String OTHER_JOB_NAME = "OtherJob";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldRestoreHeldLocksAfterRestart() {
+        //given
+        Path file = dir.resolve("locks.journal");
+        LockMetadata held;
+        try (FileLockRepository lockRepository = new FileLockRepository(file)) {
+            held = lockRepository.tryAcquireLock(JOB_NAME).orElseThrow();
+            lockRepository.releaseLock(lockRepository.acquireLock(OTHER_JOB_NAME));
+        }
+
+        //when
+        try (FileLockRepository lockRepository = new FileLockRepository(file)) {
+
+            //then
+            assertEquals(held.getLockId(), lockRepository.fetchLockMetadata(JOB_NAME).orElseThrow().getLockId());
+            assertTrue(lockRepository.fetchLockMetadata(OTHER_JOB_NAME).isEmpty());
+            assertTrue(lockRepository.tryAcquireLock(JOB_NAME).isEmpty());
+        }
+    }
+
+    @Test
+    void shouldRestoreHeldPermitsAfterRestart() {
+        //given
+        Path file = dir.resolve("locks.journal");
+        LockMetadata held;
+        try (FileLockRepository lockRepository = new FileLockRepository(file)) {
+            held = lockRepository.tryAcquirePermit(JOB_NAME, 2).orElseThrow();
+            lockRepository.releaseLock(lockRepository.tryAcquirePermit(JOB_NAME, 2).orElseThrow());
+            lockRepository.compact();
+        }
+
+        //when
+        try (FileLockRepository lockRepository = new FileLockRepository(file)) {
+            LockMetadata second = lockRepository.tryAcquirePermit(JOB_NAME, 2).orElseThrow();
+
+            //then
+            assertEquals(0, held.getPermit());
+            assertEquals(1, second.getPermit());
+            assertEquals(3L, second.getFencingToken());
+            assertEquals(2, lockRepository.countPermitsInUse(JOB_NAME));
+            assertTrue(lockRepository.tryAcquirePermit(JOB_NAME, 2).isEmpty());
+            assertTrue(lockRepository.fetchLockMetadata(JOB_NAME).isEmpty());
+        }
+    }
+
+    @Test
+    void shouldRestoreRenewedLeaseAndCompact() {
+        //given
+        Path file = dir.resolve("locks.journal");
+        LockMetadata held;
+        try (FileLockRepository lockRepository = new FileLockRepository(file, Duration.ofMinutes(1), 256)) {
+            held = lockRepository.acquireLock(JOB_NAME);
+            for (int i = 0; i < 20; i++) {
+                lockRepository.renewLocks(List.of(held), Duration.ofMillis(-1));
+            }
+        }
+
+        //when
+        try (FileLockRepository lockRepository = new FileLockRepository(file, Duration.ofMinutes(1), 256)) {
+
+            //then
+            assertTrue(lockRepository.fetchLockMetadata(JOB_NAME).orElseThrow().getExpiresAt()
+                    .isBefore(held.getExpiresAt()));
+            LockMetadata takenOver = lockRepository.tryAcquireLock(JOB_NAME).orElseThrow();
+            lockRepository.releaseLock(held);
+            assertEquals(takenOver.getLockId(), lockRepository.fetchLockMetadata(JOB_NAME).orElseThrow().getLockId());
+        }
+    }
+
+    @Test
+    void shouldKeepIssuingFencingTokensAfterRestartAndCompaction() {
+        //given
+        Path file = dir.resolve("locks.journal");
+        try (FileLockRepository lockRepository = new FileLockRepository(file)) {
+            lockRepository.releaseLock(lockRepository.acquireLock(JOB_NAME));
+            lockRepository.releaseLock(lockRepository.acquireLock(JOB_NAME));
+            lockRepository.compact();
+        }
+
+        //when
+        try (FileLockRepository lockRepository = new FileLockRepository(file)) {
+            LockMetadata lockMetadata = lockRepository.acquireLock(JOB_NAME);
+
+            //then
+            assertEquals(3L, lockMetadata.getFencingToken());
+            assertTrue(lockRepository.fetchLockMetadata(OTHER_JOB_NAME).isEmpty());
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package io.github.sergejsvisockis.jobs.lockrepository;
+
+import io.github.sergejsvisockis.jobs.LockMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryLockRepositoryTest {
+
+    private static final String JOB_NAME = "TestJob";
+
+    @Test
+    void shouldAcquireAndReleaseLock() {
+        //given
+        InMemoryLockRepository lockRepository = new InMemoryLockRepository();
+
+        //when
+        LockMetadata lockMetadata = lockRepository.tryAcquireLock(JOB_NAME).orElseThrow();
+
+        //then
+        assertNull(lockMetadata.getExpiresAt());
+        assertEquals(lockMetadata.getLockId(), lockRepository.fetchLockMetadata(JOB_NAME).orElseThrow().getLockId());
+        assertTrue(lockRepository.tryAcquireLock(JOB_NAME).isEmpty());
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> lockRepository.acquireLock(JOB_NAME));
+        assertEquals(String.format(InMemoryLockRepository.LOCK_ALREADY_HELD_MSG, JOB_NAME, lockMetadata.getLockId()),
+                exception.getMessage());
+
+        lockRepository.releaseLock(lockMetadata);
+        assertTrue(lockRepository.fetchLockMetadata(JOB_NAME).isEmpty());
+    }
+
+    @Test
+    void shouldTakeOverExpiredLock() {
+        //given
+        try (InMemoryLockRepository lockRepository = new InMemoryLockRepository(Duration.ofMinutes(1))) {
+            LockMetadata expired = lockRepository.acquireLock(JOB_NAME);
+            lockRepository.renewLocks(List.of(expired), Duration.ofMillis(-1));
+
+            //when
+            LockMetadata lockMetadata = lockRepository.tryAcquireLock(JOB_NAME).orElseThrow();
+            lockRepository.releaseLock(expired);
+
+            //then
+            assertEquals(lockMetadata.getLockId(), lockRepository.fetchLockMetadata(JOB_NAME).orElseThrow().getLockId());
+            assertEquals(List.of(), lockRepository.renewLocks(List.of(expired), Duration.ofMinutes(1)));
+            assertEquals(List.of(lockMetadata), lockRepository.renewLocks(List.of(lockMetadata), Duration.ofMinutes(1)));
+        }
+    }
+
+    @Test
+    void shouldIssueIncreasingFencingTokens() {
+        //given
+        try (InMemoryLockRepository lockRepository = new InMemoryLockRepository(Duration.ofMinutes(1))) {
+            LockMetadata first = lockRepository.acquireLock(JOB_NAME);
+            lockRepository.renewLocks(List.of(first), Duration.ofMillis(-1));
+
+            //when
+            LockMetadata takenOver = lockRepository.tryAcquireLock(JOB_NAME).orElseThrow();
+            lockRepository.releaseLock(takenOver);
+            LockMetadata permit = lockRepository.tryAcquirePermit(JOB_NAME, 2).orElseThrow();
+
+            //then
+            assertEquals(1L, first.getFencingToken());
+            assertEquals(2L, takenOver.getFencingToken());
+            assertEquals(3L, permit.getFencingToken());
+            assertEquals(1L, lockRepository.acquireLock("OtherJob").getFencingToken());
+        }
+    }
+
+    @Test
+    void shouldGrantLockToSingleContender() throws Exception {
+        //given
+        InMemoryLockRepository lockRepository = new InMemoryLockRepository();
+        int contenders = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(contenders);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Optional<LockMetadata>>> results = new ArrayList<>();
+
+        //when
+        for (int i = 0; i < contenders; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return lockRepository.tryAcquireLock(JOB_NAME);
+            }));
+        }
+        start.countDown();
+
+        //then
+        int acquired = 0;
+        for (Future<Optional<LockMetadata>> result : results) {
+            if (result.get(5, TimeUnit.SECONDS).isPresent()) {
+                acquired++;
+            }
+        }
+        executor.shutdownNow();
+        assertEquals(1, acquired);
+    }
+
+    @Test
+    void shouldAcquirePermitsUpToMaxConcurrency() {
+        //given
+        InMemoryLockRepository lockRepository = new InMemoryLockRepository();
+
+        //when
+        LockMetadata first = lockRepository.tryAcquirePermit(JOB_NAME, 2).orElseThrow();
+        LockMetadata second = lockRepository.tryAcquirePermit(JOB_NAME, 2).orElseThrow();
+
+        //then
+        assertEquals(0, first.getPermit());
+        assertEquals(1, second.getPermit());
+        assertEquals(2, lockRepository.countPermitsInUse(JOB_NAME));
+        assertTrue(lockRepository.tryAcquirePermit(JOB_NAME, 2).isEmpty());
+        assertTrue(lockRepository.fetchLockMetadata(JOB_NAME).isEmpty());
+
+        lockRepository.releaseLock(first);
+        assertEquals(1, lockRepository.countPermitsInUse(JOB_NAME));
+        assertEquals(0, lockRepository.tryAcquirePermit(JOB_NAME, 2).orElseThrow().getPermit());
+    }
+
+    @Test
+    void shouldTakeOverExpiredPermit() {
+        //given
+        try (InMemoryLockRepository lockRepository = new InMemoryLockRepository(Duration.ofMinutes(1))) {
+            LockMetadata expired = lockRepository.tryAcquirePermit(JOB_NAME, 1).orElseThrow();
+            lockRepository.renewLocks(List.of(expired), Duration.ofMillis(-1));
+
+            //when
+            int permitsInUse = lockRepository.countPermitsInUse(JOB_NAME);
+            LockMetadata lockMetadata = lockRepository.tryAcquirePermit(JOB_NAME, 1).orElseThrow();
+            lockRepository.releaseLock(expired);
+
+            //then
+            assertEquals(0, permitsInUse);
+            assertEquals(1, lockRepository.countPermitsInUse(JOB_NAME));
+            assertEquals(List.of(), lockRepository.renewLocks(List.of(expired), Duration.ofMinutes(1)));
+            assertEquals(List.of(lockMetadata), lockRepository.renewLocks(List.of(lockMetadata), Duration.ofMinutes(1)));
+        }
+    }
+
+    @Test
+    void shouldNeverHandOutMorePermitsThanAllowedConcurrently() throws Exception {
+        //given
+        InMemoryLockRepository lockRepository = new InMemoryLockRepository();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Optional<LockMetadata>>> attempts = new ArrayList<>();
+
+        //when
+        for (int i = 0; i < 8; i++) {
+            attempts.add(executor.submit(() -> {
+                start.await();
+                return lockRepository.tryAcquirePermit(JOB_NAME, 3);
+            }));
+        }
+        start.countDown();
+        int acquired = 0;
+        for (Future<Optional<LockMetadata>> attempt : attempts) {
+            if (attempt.get(5, TimeUnit.SECONDS).isPresent()) {
+                acquired++;
+            }
+        }
+
+        //then
+        executor.shutdownNow();
+        assertEquals(3, acquired);
+        assertEquals(3, lockRepository.countPermitsInUse(JOB_NAME));
+    }
+}
@@ -1,9 +1,11 @@
 package io.github.sergejsvisockis.jobs.lockrepository;
 
+import io.github.sergejsvisockis.jobs.JobNotFoundException;
 import io.github.sergejsvisockis.jobs.LockMetadata;
+import io.github.sergejsvisockis.jobs.SqlDialect;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -12,36 +14,54 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Savepoint;
 import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static io.github.sergejsvisockis.jobs.lockrepository.JdbcLockRepository.FAILED_TO_ACQUIRE_LOCK_MSG;
 import static io.github.sergejsvisockis.jobs.lockrepository.JdbcLockRepository.FAILED_TO_GET_LOCK_METADATA_MSG;
 import static io.github.sergejsvisockis.jobs.lockrepository.JdbcLockRepository.FAILED_TO_RELEASE_LOCK_MSG;
+import static io.github.sergejsvisockis.jobs.lockrepository.JdbcLockRepository.FAILED_TO_RENEW_LOCKS_MSG;
+import static io.github.sergejsvisockis.jobs.lockrepository.JdbcLockRepository.RENEW_BATCH_SIZE;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class JdbcLockRepositoryTest {
 
+    private static final String QUERY_ISSUE_FENCING_TOKEN = "UPDATE job_definition SET fencing_token = fencing_token + 1 WHERE job_name = ?";
+    private static final String QUERY_FIND_FENCING_TOKEN = "SELECT j.fencing_token FROM job_definition j WHERE j.job_name = ?";
+
     @Mock
     private DataSource dataSource;
 
-    @InjectMocks
     private JdbcLockRepository lockRepository;
 
+    @BeforeEach
+    void setUp() {
+        lockRepository = new JdbcLockRepository(dataSource, SqlDialect.GENERIC);
+    }
+
     @Test
     void shouldFetchLockMetadata() throws SQLException {
         //given
@@ -54,31 +74,36 @@ class JdbcLockRepositoryTest {
         ResultSet rsMock = mock(ResultSet.class);
 
         when(dataSource.getConnection()).thenReturn(connectionMock);
-        when(connectionMock.prepareStatement("SELECT l.lock_id, l.job_name, l.locked_at FROM lock_metadata l WHERE job_name = ?"))
+        when(connectionMock.prepareStatement("SELECT l.lock_id, l.job_name, l.locked_at, l.expires_at, l.fencing_token FROM lock_metadata l WHERE job_name = ?"))
                 .thenReturn(pstmtMock);
         when(pstmtMock.executeQuery()).thenReturn(rsMock);
         when(rsMock.next()).thenReturn(true);
         when(rsMock.getString(1)).thenReturn(lockId.toString());
         when(rsMock.getString(2)).thenReturn(jobName);
         when(rsMock.getTimestamp(3)).thenReturn(Timestamp.valueOf(lockedAt));
+        when(rsMock.getTimestamp(4)).thenReturn(null);
+        when(rsMock.getLong(5)).thenReturn(7L);
 
         //when
         Optional<LockMetadata> lockMetadata = lockRepository.fetchLockMetadata(jobName);
 
         //then
         assertTrue(lockMetadata.isPresent());
+        assertEquals(7L, lockMetadata.get().getFencingToken());
         assertEquals(lockId, lockMetadata.get().getLockId());
         assertEquals(jobName, lockMetadata.get().getJobName());
         assertEquals(lockedAt, lockMetadata.get().getLockedAt());
+        assertNull(lockMetadata.get().getExpiresAt());
 
         verify(dataSource).getConnection();
-        verify(connectionMock).prepareStatement("SELECT l.lock_id, l.job_name, l.locked_at FROM lock_metadata l WHERE job_name = ?");
+        verify(connectionMock).prepareStatement("SELECT l.lock_id, l.job_name, l.locked_at, l.expires_at, l.fencing_token FROM lock_metadata l WHERE job_name = ?");
         verify(pstmtMock).setString(1, jobName);
         verify(pstmtMock).executeQuery();
         verify(rsMock).next();
         verify(rsMock).getString(1);
         verify(rsMock).getString(2);
         verify(rsMock).getTimestamp(3);
+        verify(rsMock).getTimestamp(4);
         verify(rsMock).close();
         verify(pstmtMock).close();
         verify(connectionMock).close();
@@ -94,7 +119,7 @@ class JdbcLockRepositoryTest {
         ResultSet rsMock = mock(ResultSet.class);
 
         when(dataSource.getConnection()).thenReturn(connectionMock);
-        when(connectionMock.prepareStatement("SELECT l.lock_id, l.job_name, l.locked_at FROM lock_metadata l WHERE job_name = ?"))
+        when(connectionMock.prepareStatement("SELECT l.lock_id, l.job_name, l.locked_at, l.expires_at, l.fencing_token FROM lock_metadata l WHERE job_name = ?"))
                 .thenReturn(pstmtMock);
         when(pstmtMock.executeQuery()).thenReturn(rsMock);
         when(rsMock.next()).thenReturn(false);
@@ -106,7 +131,7 @@ class JdbcLockRepositoryTest {
         assertTrue(lockMetadata.isEmpty());
 
         verify(dataSource).getConnection();
-        verify(connectionMock).prepareStatement("SELECT l.lock_id, l.job_name, l.locked_at FROM lock_metadata l WHERE job_name = ?");
+        verify(connectionMock).prepareStatement("SELECT l.lock_id, l.job_name, l.locked_at, l.expires_at, l.fencing_token FROM lock_metadata l WHERE job_name = ?");
         verify(pstmtMock).setString(1, jobName);
         verify(pstmtMock).executeQuery();
         verify(rsMock).next();
@@ -144,8 +169,10 @@ class JdbcLockRepositoryTest {
         PreparedStatement pstmtMock = mock(PreparedStatement.class);
 
         when(dataSource.getConnection()).thenReturn(connectionMock);
-        when(connectionMock.prepareStatement("INSERT INTO lock_metadata(lock_id, job_name, locked_at) VALUES (?, ?, ?)"))
+        mockFencingToken(connectionMock, 7L);
+        when(connectionMock.prepareStatement("INSERT INTO lock_metadata(lock_id, job_name, locked_at, expires_at, fencing_token) VALUES (?, ?, ?, ?, ?)"))
                 .thenReturn(pstmtMock);
+        when(pstmtMock.executeUpdate()).thenReturn(1);
 
         //when
         LockMetadata lockMetadata = lockRepository.acquireLock(jobName);
@@ -154,12 +181,16 @@ class JdbcLockRepositoryTest {
         assertNotNull(lockMetadata.getLockId());
         assertEquals(jobName, lockMetadata.getJobName());
         assertNotNull(lockMetadata.getLockedAt());
+        assertEquals(7L, lockMetadata.getFencingToken());
+        verify(pstmtMock).setLong(5, 7L);
+        verify(connectionMock).commit();
 
         verify(dataSource).getConnection();
-        verify(connectionMock).prepareStatement("INSERT INTO lock_metadata(lock_id, job_name, locked_at) VALUES (?, ?, ?)");
+        verify(connectionMock).prepareStatement("INSERT INTO lock_metadata(lock_id, job_name, locked_at, expires_at, fencing_token) VALUES (?, ?, ?, ?, ?)");
         verify(pstmtMock).setString(eq(1), anyString());
         verify(pstmtMock).setString(2, jobName);
         verify(pstmtMock).setTimestamp(eq(3), any(Timestamp.class));
+        verify(pstmtMock).setNull(4, Types.TIMESTAMP);
         verify(pstmtMock).executeUpdate();
         verify(pstmtMock).close();
         verify(connectionMock).close();
@@ -183,6 +214,397 @@ class JdbcLockRepositoryTest {
         verify(connectionMock, never()).prepareStatement(anyString());
     }
 
+    @Test
+    void shouldTryAcquireLock() throws SQLException {
+        //given
+        final String jobName = "TestJob";
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement pstmtMock = mock(PreparedStatement.class);
+        PreparedStatement takeOverPstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        mockFencingToken(connectionMock, 7L);
+        when(connectionMock.prepareStatement("UPDATE lock_metadata SET lock_id = ?, locked_at = ?, expires_at = ?, fencing_token = ? WHERE job_name = ? AND expires_at < ?"))
+                .thenReturn(takeOverPstmtMock);
+        when(connectionMock.prepareStatement("INSERT INTO lock_metadata(lock_id, job_name, locked_at, expires_at, fencing_token) VALUES (?, ?, ?, ?, ?)"))
+                .thenReturn(pstmtMock);
+        when(pstmtMock.executeUpdate()).thenReturn(1);
+
+        //when
+        Optional<LockMetadata> lockMetadata = lockRepository.tryAcquireLock(jobName);
+
+        //then
+        assertTrue(lockMetadata.isPresent());
+        assertEquals(7L, lockMetadata.get().getFencingToken());
+        verify(takeOverPstmtMock).executeUpdate();
+        verify(connectionMock).commit();
+        assertNotNull(lockMetadata.get().getLockId());
+        assertEquals(jobName, lockMetadata.get().getJobName());
+        assertNotNull(lockMetadata.get().getLockedAt());
+
+        verify(dataSource).getConnection();
+        verify(connectionMock).prepareStatement("INSERT INTO lock_metadata(lock_id, job_name, locked_at, expires_at, fencing_token) VALUES (?, ?, ?, ?, ?)");
+        verify(connectionMock, never()).prepareStatement("SELECT l.lock_id, l.job_name, l.locked_at, l.expires_at, l.fencing_token FROM lock_metadata l WHERE job_name = ?");
+        verify(pstmtMock).setString(eq(1), anyString());
+        verify(pstmtMock).setString(2, jobName);
+        verify(pstmtMock).setTimestamp(eq(3), any(Timestamp.class));
+        verify(pstmtMock).setNull(4, Types.TIMESTAMP);
+        verify(pstmtMock).executeUpdate();
+        verify(pstmtMock).close();
+        verify(connectionMock).close();
+    }
+
+    @Test
+    void shouldAcquireLockWithGeneratedId() throws SQLException {
+        //given
+        final UUID lockId = UUID.fromString("0190a1b2-c3d4-7e5f-8a9b-0c1d2e3f4a5b");
+        lockRepository.setIdGenerator(() -> lockId);
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement pstmtMock = mock(PreparedStatement.class);
+        PreparedStatement takeOverPstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        mockFencingToken(connectionMock, 1L);
+        when(connectionMock.prepareStatement("UPDATE lock_metadata SET lock_id = ?, locked_at = ?, expires_at = ?, fencing_token = ? WHERE job_name = ? AND expires_at < ?"))
+                .thenReturn(takeOverPstmtMock);
+        when(connectionMock.prepareStatement("INSERT INTO lock_metadata(lock_id, job_name, locked_at, expires_at, fencing_token) VALUES (?, ?, ?, ?, ?)"))
+                .thenReturn(pstmtMock);
+        when(pstmtMock.executeUpdate()).thenReturn(1);
+
+        //when
+        Optional<LockMetadata> lockMetadata = lockRepository.tryAcquireLock("TestJob");
+
+        //then
+        assertEquals(lockId, lockMetadata.get().getLockId());
+        verify(pstmtMock).setString(1, lockId.toString());
+    }
+
+    @Test
+    void shouldReturnEmptyWhenLockIsHeldElsewhere() throws SQLException {
+        //given
+        final String jobName = "TestJob";
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement pstmtMock = mock(PreparedStatement.class);
+        PreparedStatement takeOverPstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        mockFencingToken(connectionMock, 7L);
+        when(connectionMock.prepareStatement("UPDATE lock_metadata SET lock_id = ?, locked_at = ?, expires_at = ?, fencing_token = ? WHERE job_name = ? AND expires_at < ?"))
+                .thenReturn(takeOverPstmtMock);
+        when(takeOverPstmtMock.executeUpdate()).thenReturn(0);
+        when(connectionMock.prepareStatement("INSERT INTO lock_metadata(lock_id, job_name, locked_at, expires_at, fencing_token) VALUES (?, ?, ?, ?, ?)"))
+                .thenReturn(pstmtMock);
+        when(pstmtMock.executeUpdate()).thenThrow(new SQLException("duplicate key", "23505"));
+
+        //when
+        Optional<LockMetadata> lockMetadata = lockRepository.tryAcquireLock(jobName);
+
+        //then
+        assertTrue(lockMetadata.isEmpty());
+        verify(pstmtMock).executeUpdate();
+        verify(pstmtMock).close();
+        verify(connectionMock).rollback();
+        verify(connectionMock, never()).commit();
+        verify(takeOverPstmtMock).setString(5, jobName);
+        verify(takeOverPstmtMock).executeUpdate();
+        verify(takeOverPstmtMock).close();
+        verify(connectionMock).close();
+    }
+
+    @Test
+    void shouldFailToAcquireLockOfUndefinedJob() throws SQLException {
+        //given
+        final String jobName = "UndefinedJob";
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement pstmtMock = mock(PreparedStatement.class);
+        PreparedStatement takeOverPstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        mockFencingToken(connectionMock, 7L);
+        when(connectionMock.prepareStatement("UPDATE lock_metadata SET lock_id = ?, locked_at = ?, expires_at = ?, fencing_token = ? WHERE job_name = ? AND expires_at < ?"))
+                .thenReturn(takeOverPstmtMock);
+        when(takeOverPstmtMock.executeUpdate()).thenReturn(0);
+        when(connectionMock.prepareStatement("INSERT INTO lock_metadata(lock_id, job_name, locked_at, expires_at, fencing_token) VALUES (?, ?, ?, ?, ?)"))
+                .thenReturn(pstmtMock);
+        when(pstmtMock.executeUpdate()).thenThrow(new SQLException("foreign key violation", "23503"));
+
+        //when
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> lockRepository.tryAcquireLock(jobName));
+
+        //then
+        assertEquals(String.format(FAILED_TO_ACQUIRE_LOCK_MSG, jobName), exception.getMessage());
+        verify(connectionMock).rollback();
+        verify(connectionMock, never()).commit();
+    }
+
+    @Test
+    void shouldTakeOverExpiredLock() throws SQLException {
+        //given
+        final String jobName = "TestJob";
+        lockRepository = new JdbcLockRepository(dataSource, SqlDialect.GENERIC, Duration.ofMinutes(1));
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement takeOverPstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        mockFencingToken(connectionMock, 8L);
+        when(connectionMock.prepareStatement("UPDATE lock_metadata SET lock_id = ?, locked_at = ?, expires_at = ?, fencing_token = ? WHERE job_name = ? AND expires_at < ?"))
+                .thenReturn(takeOverPstmtMock);
+        when(takeOverPstmtMock.executeUpdate()).thenReturn(1);
+
+        //when
+        Optional<LockMetadata> lockMetadata = lockRepository.tryAcquireLock(jobName);
+
+        //then
+        assertTrue(lockMetadata.isPresent());
+        assertEquals(jobName, lockMetadata.get().getJobName());
+        assertEquals(lockMetadata.get().getLockedAt().plusMinutes(1), lockMetadata.get().getExpiresAt());
+        verify(takeOverPstmtMock).setString(1, lockMetadata.get().getLockId().toString());
+        verify(takeOverPstmtMock).setTimestamp(2, Timestamp.valueOf(lockMetadata.get().getLockedAt()));
+        verify(takeOverPstmtMock).setTimestamp(3, Timestamp.valueOf(lockMetadata.get().getExpiresAt()));
+        verify(takeOverPstmtMock).setLong(4, 8L);
+        verify(takeOverPstmtMock).setString(5, jobName);
+        verify(takeOverPstmtMock).setTimestamp(6, Timestamp.valueOf(lockMetadata.get().getLockedAt()));
+        verify(connectionMock, never()).prepareStatement("INSERT INTO lock_metadata(lock_id, job_name, locked_at, expires_at, fencing_token) VALUES (?, ?, ?, ?, ?)");
+        verify(connectionMock).commit();
+        verify(connectionMock).close();
+
+        lockRepository.close();
+    }
+
+    @Test
+    void shouldAcquireOrTakeOverLockWithSingleUpsert() throws SQLException {
+        //given
+        final String jobName = "TestJob";
+        final String upsert = "INSERT INTO lock_metadata(lock_id, job_name, locked_at, expires_at, fencing_token) VALUES (?, ?, ?, ?, ?) " +
+                "ON CONFLICT (job_name) DO UPDATE SET lock_id = EXCLUDED.lock_id, locked_at = EXCLUDED.locked_at, " +
+                "expires_at = EXCLUDED.expires_at, fencing_token = EXCLUDED.fencing_token WHERE lock_metadata.expires_at < ?";
+        lockRepository = new JdbcLockRepository(dataSource, SqlDialect.POSTGRESQL);
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement pstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        mockFencingToken(connectionMock, 7L);
+        when(connectionMock.prepareStatement(upsert)).thenReturn(pstmtMock);
+        when(pstmtMock.executeUpdate()).thenReturn(1);
+
+        //when
+        Optional<LockMetadata> lockMetadata = lockRepository.tryAcquireLock(jobName);
+
+        //then
+        assertTrue(lockMetadata.isPresent());
+        verify(pstmtMock).setString(1, lockMetadata.get().getLockId().toString());
+        verify(pstmtMock).setString(2, jobName);
+        verify(pstmtMock).setTimestamp(3, Timestamp.valueOf(lockMetadata.get().getLockedAt()));
+        verify(pstmtMock).setNull(4, Types.TIMESTAMP);
+        verify(pstmtMock).setLong(5, 7L);
+        verify(pstmtMock).setTimestamp(6, Timestamp.valueOf(lockMetadata.get().getLockedAt()));
+        verify(connectionMock).prepareStatement(upsert);
+        verify(connectionMock).commit();
+        verify(connectionMock).close();
+    }
+
+    @Test
+    void shouldReturnEmptyWhenUpsertDoesNotTakeOverLock() throws SQLException {
+        //given
+        lockRepository = new JdbcLockRepository(dataSource, SqlDialect.ORACLE);
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement pstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.prepareStatement(startsWith("MERGE INTO lock_metadata"))).thenReturn(pstmtMock);
+        when(pstmtMock.executeUpdate()).thenReturn(0);
+        mockFencingToken(connectionMock, 7L);
+
+        //when
+        Optional<LockMetadata> lockMetadata = lockRepository.tryAcquireLock("TestJob");
+
+        //then
+        assertTrue(lockMetadata.isEmpty());
+        verify(connectionMock).prepareStatement(startsWith("MERGE INTO lock_metadata"));
+        verify(connectionMock).rollback();
+        verify(connectionMock).close();
+    }
+
+    @Test
+    void shouldReturnEmptyWhenUpsertRacesWithConcurrentInsert() throws SQLException {
+        //given
+        lockRepository = new JdbcLockRepository(dataSource, SqlDialect.ORACLE);
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement pstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.prepareStatement(startsWith("MERGE INTO lock_metadata"))).thenReturn(pstmtMock);
+        when(pstmtMock.executeUpdate()).thenThrow(new SQLException("ORA-00001: unique constraint violated", "23000", 1));
+        mockFencingToken(connectionMock, 7L);
+
+        //when
+        Optional<LockMetadata> lockMetadata = lockRepository.tryAcquireLock("TestJob");
+
+        //then
+        assertTrue(lockMetadata.isEmpty());
+        verify(connectionMock).rollback();
+        verify(connectionMock, never()).commit();
+        verify(connectionMock).close();
+    }
+
+    @Test
+    void shouldRenewLocksInOneStatement() throws SQLException {
+        //given
+        LockMetadata first = new LockMetadata.Builder()
+                .withLockId(UUID.randomUUID())
+                .withJobName("FirstJob")
+                .withLockedAt(LocalDateTime.now())
+                .build();
+        LockMetadata second = new LockMetadata.Builder()
+                .withLockId(UUID.randomUUID())
+                .withJobName("SecondJob")
+                .withLockedAt(LocalDateTime.now())
+                .build();
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement pstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.prepareStatement("UPDATE lock_metadata SET expires_at = ? WHERE lock_id IN (?, ?)"))
+                .thenReturn(pstmtMock);
+        when(pstmtMock.executeUpdate()).thenReturn(2);
+
+        //when
+        List<LockMetadata> renewed = lockRepository.renewLocks(List.of(first, second), Duration.ofMinutes(1));
+
+        //then
+        assertEquals(List.of(first, second), renewed);
+        verify(dataSource).getConnection();
+        verify(pstmtMock).setTimestamp(eq(1), any(Timestamp.class));
+        verify(pstmtMock).setString(2, first.getLockId().toString());
+        verify(pstmtMock).setString(3, second.getLockId().toString());
+        verify(pstmtMock).executeUpdate();
+        verify(pstmtMock).close();
+        verify(connectionMock).close();
+    }
+
+    @Test
+    void shouldRenewLocksInBatches() throws SQLException {
+        //given
+        List<LockMetadata> locks = new ArrayList<>();
+        for (int i = 0; i < RENEW_BATCH_SIZE + 1; i++) {
+            locks.add(new LockMetadata.Builder()
+                    .withLockId(UUID.randomUUID())
+                    .withJobName("Job" + i)
+                    .withLockedAt(LocalDateTime.now())
+                    .build());
+        }
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement pstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.prepareStatement(anyString())).thenReturn(pstmtMock);
+        when(pstmtMock.executeUpdate()).thenReturn(RENEW_BATCH_SIZE, 1);
+
+        //when
+        List<LockMetadata> renewed = lockRepository.renewLocks(locks, Duration.ofMinutes(1));
+
+        //then
+        assertEquals(locks, renewed);
+        verify(dataSource).getConnection();
+        verify(connectionMock, times(2)).prepareStatement(anyString());
+        verify(pstmtMock, times(2)).executeUpdate();
+        verify(connectionMock).close();
+    }
+
+    @Test
+    void shouldLeaveOutLocksTakenOverWhenRenewing() throws SQLException {
+        //given
+        LockMetadata lost = new LockMetadata.Builder()
+                .withLockId(UUID.randomUUID())
+                .withJobName("FirstJob")
+                .withLockedAt(LocalDateTime.now())
+                .build();
+        LockMetadata held = new LockMetadata.Builder()
+                .withLockId(UUID.randomUUID())
+                .withJobName("SecondJob")
+                .withLockedAt(LocalDateTime.now())
+                .build();
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement renewPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement findPstmtMock = mock(PreparedStatement.class);
+        ResultSet rsMock = mock(ResultSet.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.prepareStatement("UPDATE lock_metadata SET expires_at = ? WHERE lock_id IN (?, ?)"))
+                .thenReturn(renewPstmtMock);
+        when(renewPstmtMock.executeUpdate()).thenReturn(1);
+        when(connectionMock.prepareStatement("SELECT l.lock_id FROM lock_metadata l WHERE l.lock_id IN (?, ?)"))
+                .thenReturn(findPstmtMock);
+        when(findPstmtMock.executeQuery()).thenReturn(rsMock);
+        when(rsMock.next()).thenReturn(true, false);
+        when(rsMock.getString(1)).thenReturn(held.getLockId().toString());
+
+        //when
+        List<LockMetadata> renewed = lockRepository.renewLocks(List.of(lost, held), Duration.ofMinutes(1));
+
+        //then
+        assertEquals(List.of(held), renewed);
+        verify(findPstmtMock).setString(1, lost.getLockId().toString());
+        verify(findPstmtMock).setString(2, held.getLockId().toString());
+        verify(connectionMock).close();
+    }
+
+    @Test
+    void shouldFailWithExceptionWhenRenewingLocks() throws SQLException {
+        //given
+        LockMetadata lockMetadata = new LockMetadata.Builder()
+                .withLockId(UUID.randomUUID())
+                .withJobName("TestJob")
+                .withLockedAt(LocalDateTime.now())
+                .build();
+
+        when(dataSource.getConnection()).thenThrow(new SQLException());
+
+        //when
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> lockRepository.renewLocks(List.of(lockMetadata), Duration.ofMinutes(1)));
+
+        //then
+        assertEquals(String.format(FAILED_TO_RENEW_LOCKS_MSG, 1), exception.getMessage());
+    }
+
+    @Test
+    void shouldFailWithExceptionWhenTryingToAcquireLock() throws SQLException {
+        //given
+        final String jobName = "TestJob";
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement pstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        mockFencingToken(connectionMock, 7L);
+        when(connectionMock.prepareStatement("UPDATE lock_metadata SET lock_id = ?, locked_at = ?, expires_at = ?, fencing_token = ? WHERE job_name = ? AND expires_at < ?"))
+                .thenReturn(pstmtMock);
+        when(pstmtMock.executeUpdate()).thenThrow(new SQLException("connection reset", "08006"));
+
+        //when
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> lockRepository.tryAcquireLock(jobName));
+
+        //then
+        assertEquals(String.format(FAILED_TO_ACQUIRE_LOCK_MSG, jobName), exception.getMessage());
+        verify(connectionMock).rollback();
+        verify(pstmtMock).close();
+        verify(connectionMock).close();
+    }
+
     @Test
     void shouldReleaseLock() throws SQLException {
         //given
@@ -241,4 +663,269 @@ class JdbcLockRepositoryTest {
         verify(dataSource).getConnection();
         verify(connectionMock, never()).prepareStatement(anyString());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldTakeNextFreePermit() throws SQLException {
+        //given
+        final String jobName = "TestJob";
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement permitsPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement pstmtMock = mock(PreparedStatement.class);
+        ResultSet rsMock = mock(ResultSet.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        mockFencingToken(connectionMock, 7L);
+        when(connectionMock.prepareStatement("SELECT p.permit, p.expires_at FROM lock_permit p WHERE p.job_name = ?"))
+                .thenReturn(permitsPstmtMock);
+        when(permitsPstmtMock.executeQuery()).thenReturn(rsMock);
+        when(rsMock.next()).thenReturn(true, false);
+        when(rsMock.getInt(1)).thenReturn(0);
+        when(connectionMock.prepareStatement("INSERT INTO lock_permit(lock_id, job_name, locked_at, expires_at, fencing_token, permit) VALUES (?, ?, ?, ?, ?, ?)"))
+                .thenReturn(pstmtMock);
+        when(pstmtMock.executeUpdate()).thenReturn(1);
+
+        //when
+        Optional<LockMetadata> lockMetadata = lockRepository.tryAcquirePermit(jobName, 3);
+
+        //then
+        assertTrue(lockMetadata.isPresent());
+        assertEquals(1, lockMetadata.get().getPermit());
+        assertEquals(7L, lockMetadata.get().getFencingToken());
+        assertEquals(jobName, lockMetadata.get().getJobName());
+        verify(pstmtMock).setLong(5, 7L);
+        verify(pstmtMock).setInt(6, 1);
+        verify(connectionMock).commit();
+        verify(connectionMock).close();
+    }
+
+    @Test
+    void shouldTakeNextFreePermitWhenFreePermitIsTakenConcurrently() throws SQLException {
+        //given
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement permitsPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement pstmtMock = mock(PreparedStatement.class);
+        ResultSet rsMock = mock(ResultSet.class);
+        Savepoint savepointMock = mock(Savepoint.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        mockFencingToken(connectionMock, 7L);
+        when(connectionMock.prepareStatement("SELECT p.permit, p.expires_at FROM lock_permit p WHERE p.job_name = ?"))
+                .thenReturn(permitsPstmtMock);
+        when(permitsPstmtMock.executeQuery()).thenReturn(rsMock);
+        when(connectionMock.setSavepoint()).thenReturn(savepointMock);
+        when(connectionMock.prepareStatement("INSERT INTO lock_permit(lock_id, job_name, locked_at, expires_at, fencing_token, permit) VALUES (?, ?, ?, ?, ?, ?)"))
+                .thenReturn(pstmtMock);
+        when(pstmtMock.executeUpdate())
+                .thenThrow(new SQLIntegrityConstraintViolationException("Duplicate entry", "23000", 1062))
+                .thenReturn(1);
+
+        //when
+        Optional<LockMetadata> lockMetadata = lockRepository.tryAcquirePermit("TestJob", 2);
+
+        //then
+        assertTrue(lockMetadata.isPresent());
+        assertEquals(1, lockMetadata.get().getPermit());
+        verify(pstmtMock).setInt(6, 0);
+        verify(pstmtMock).setInt(6, 1);
+        verify(connectionMock).rollback(savepointMock);
+        verify(connectionMock, never()).rollback();
+        verify(connectionMock).commit();
+    }
+
+    @Test
+    void shouldReturnEmptyWhenFreePermitsAreTakenConcurrently() throws SQLException {
+        //given
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement permitsPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement pstmtMock = mock(PreparedStatement.class);
+        ResultSet rsMock = mock(ResultSet.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        mockFencingToken(connectionMock, 7L);
+        when(connectionMock.prepareStatement("SELECT p.permit, p.expires_at FROM lock_permit p WHERE p.job_name = ?"))
+                .thenReturn(permitsPstmtMock);
+        when(permitsPstmtMock.executeQuery()).thenReturn(rsMock);
+        when(connectionMock.prepareStatement("INSERT INTO lock_permit(lock_id, job_name, locked_at, expires_at, fencing_token, permit) VALUES (?, ?, ?, ?, ?, ?)"))
+                .thenReturn(pstmtMock);
+        when(pstmtMock.executeUpdate()).thenThrow(new SQLIntegrityConstraintViolationException("Duplicate entry", "23000", 1062));
+
+        //when
+        Optional<LockMetadata> lockMetadata = lockRepository.tryAcquirePermit("TestJob", 2);
+
+        //then
+        assertTrue(lockMetadata.isEmpty());
+        verify(pstmtMock, times(2)).executeUpdate();
+        verify(connectionMock).rollback();
+        verify(connectionMock, never()).commit();
+    }
+
+    @Test
+    void shouldTakeOverExpiredPermit() throws SQLException {
+        //given
+        final String jobName = "TestJob";
+        lockRepository = new JdbcLockRepository(dataSource, SqlDialect.GENERIC, Duration.ofMinutes(1));
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement permitsPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement takeOverPstmtMock = mock(PreparedStatement.class);
+        ResultSet rsMock = mock(ResultSet.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        mockFencingToken(connectionMock, 7L);
+        when(connectionMock.prepareStatement("SELECT p.permit, p.expires_at FROM lock_permit p WHERE p.job_name = ?"))
+                .thenReturn(permitsPstmtMock);
+        when(permitsPstmtMock.executeQuery()).thenReturn(rsMock);
+        when(rsMock.next()).thenReturn(true, true, false);
+        when(rsMock.getInt(1)).thenReturn(0, 1);
+        when(rsMock.getTimestamp(2)).thenReturn(
+                Timestamp.valueOf(LocalDateTime.now().plusMinutes(1)),
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)));
+        when(connectionMock.prepareStatement("UPDATE lock_permit SET lock_id = ?, locked_at = ?, expires_at = ?, fencing_token = ? WHERE job_name = ? AND permit = ? AND expires_at < ?"))
+                .thenReturn(takeOverPstmtMock);
+        when(takeOverPstmtMock.executeUpdate()).thenReturn(1);
+
+        //when
+        Optional<LockMetadata> lockMetadata = lockRepository.tryAcquirePermit(jobName, 2);
+
+        //then
+        assertTrue(lockMetadata.isPresent());
+        assertEquals(1, lockMetadata.get().getPermit());
+        assertEquals(lockMetadata.get().getLockedAt().plusMinutes(1), lockMetadata.get().getExpiresAt());
+        verify(takeOverPstmtMock).setLong(4, 7L);
+        verify(takeOverPstmtMock).setString(5, jobName);
+        verify(takeOverPstmtMock).setInt(6, 1);
+        verify(connectionMock, never()).prepareStatement("INSERT INTO lock_permit(lock_id, job_name, locked_at, expires_at, fencing_token, permit) VALUES (?, ?, ?, ?, ?, ?)");
+
+        lockRepository.close();
+    }
+
+    @Test
+    void shouldReturnEmptyWhenAllPermitsAreHeld() throws SQLException {
+        //given
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement permitsPstmtMock = mock(PreparedStatement.class);
+        ResultSet rsMock = mock(ResultSet.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        mockFencingToken(connectionMock, 7L);
+        when(connectionMock.prepareStatement("SELECT p.permit, p.expires_at FROM lock_permit p WHERE p.job_name = ?"))
+                .thenReturn(permitsPstmtMock);
+        when(permitsPstmtMock.executeQuery()).thenReturn(rsMock);
+        when(rsMock.next()).thenReturn(true, true, false);
+        when(rsMock.getInt(1)).thenReturn(0, 1);
+
+        //when
+        Optional<LockMetadata> lockMetadata = lockRepository.tryAcquirePermit("TestJob", 2);
+
+        //then
+        assertTrue(lockMetadata.isEmpty());
+        verify(connectionMock).rollback();
+        verify(connectionMock).close();
+    }
+
+    @Test
+    void shouldRejectNonPositivePermits() {
+        //when
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> lockRepository.tryAcquirePermit("TestJob", 0));
+
+        //then
+        assertEquals(String.format(PermitLockRepository.INVALID_PERMITS_MSG, 0), exception.getMessage());
+    }
+
+    @Test
+    void shouldCountPermitsInUse() throws SQLException {
+        //given
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement pstmtMock = mock(PreparedStatement.class);
+        ResultSet rsMock = mock(ResultSet.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.prepareStatement("SELECT COUNT(*) FROM lock_permit p WHERE p.job_name = ? AND (p.expires_at IS NULL OR p.expires_at >= ?)"))
+                .thenReturn(pstmtMock);
+        when(pstmtMock.executeQuery()).thenReturn(rsMock);
+        when(rsMock.next()).thenReturn(true);
+        when(rsMock.getInt(1)).thenReturn(2);
+
+        //when
+        int permitsInUse = lockRepository.countPermitsInUse("TestJob");
+
+        //then
+        assertEquals(2, permitsInUse);
+        verify(pstmtMock).setString(1, "TestJob");
+        verify(pstmtMock).setTimestamp(eq(2), any(Timestamp.class));
+        verify(connectionMock).close();
+    }
+
+    @Test
+    void shouldReleaseAndRenewPermits() throws SQLException {
+        //given
+        LockMetadata lock = new LockMetadata.Builder()
+                .withLockId(UUID.randomUUID())
+                .withJobName("FirstJob")
+                .build();
+        LockMetadata permit = new LockMetadata.Builder()
+                .withLockId(UUID.randomUUID())
+                .withJobName("SecondJob")
+                .withPermit(1)
+                .build();
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement renewLocksPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement renewPermitsPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement releasePstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.prepareStatement("UPDATE lock_metadata SET expires_at = ? WHERE lock_id IN (?)"))
+                .thenReturn(renewLocksPstmtMock);
+        when(renewLocksPstmtMock.executeUpdate()).thenReturn(1);
+        when(connectionMock.prepareStatement("UPDATE lock_permit SET expires_at = ? WHERE lock_id IN (?)"))
+                .thenReturn(renewPermitsPstmtMock);
+        when(renewPermitsPstmtMock.executeUpdate()).thenReturn(1);
+        when(connectionMock.prepareStatement("DELETE FROM lock_permit WHERE lock_id = ?"))
+                .thenReturn(releasePstmtMock);
+
+        //when
+        List<LockMetadata> renewed = lockRepository.renewLocks(List.of(lock, permit), Duration.ofMinutes(1));
+        lockRepository.releaseLock(permit);
+
+        //then
+        assertEquals(List.of(lock, permit), renewed);
+        verify(renewLocksPstmtMock).setString(2, lock.getLockId().toString());
+        verify(renewPermitsPstmtMock).setString(2, permit.getLockId().toString());
+        verify(releasePstmtMock).setString(1, permit.getLockId().toString());
+        verify(releasePstmtMock).executeUpdate();
+    }
+
+    @Test
+    void shouldFailWithJobNotFoundWhenNoJobDefinition() throws SQLException {
+        //given
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement pstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.prepareStatement(QUERY_ISSUE_FENCING_TOKEN)).thenReturn(pstmtMock);
+        when(pstmtMock.executeUpdate()).thenReturn(0);
+
+        //when
+        assertThrows(JobNotFoundException.class, () -> lockRepository.tryAcquireLock("TestJob"));
+
+        //then
+        verify(connectionMock).rollback();
+        verify(connectionMock).close();
+    }
+
+    private static void mockFencingToken(Connection connectionMock, long fencingToken) throws SQLException {
+        PreparedStatement issuePstmtMock = mock(PreparedStatement.class);
+        PreparedStatement findPstmtMock = mock(PreparedStatement.class);
+        ResultSet rsMock = mock(ResultSet.class);
+
+        when(connectionMock.prepareStatement(QUERY_ISSUE_FENCING_TOKEN)).thenReturn(issuePstmtMock);
+        when(issuePstmtMock.executeUpdate()).thenReturn(1);
+        when(connectionMock.prepareStatement(QUERY_FIND_FENCING_TOKEN)).thenReturn(findPstmtMock);
+        when(findPstmtMock.executeQuery()).thenReturn(rsMock);
+        when(rsMock.next()).thenReturn(true);
+        when(rsMock.getLong(1)).thenReturn(fencingToken);
+    }
+}
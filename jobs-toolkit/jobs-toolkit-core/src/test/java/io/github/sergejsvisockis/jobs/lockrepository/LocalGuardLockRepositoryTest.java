@@ -0,0 +1,199 @@
+package io.github.sergejsvisockis.jobs.lockrepository;
+
+import io.github.sergejsvisockis.jobs.LockMetadata;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static io.github.sergejsvisockis.jobs.lockrepository.LocalGuardLockRepository.FAILED_TO_CLOSE_MSG;
+import static io.github.sergejsvisockis.jobs.lockrepository.LocalGuardLockRepository.LEASES_NOT_SUPPORTED_MSG;
+import static io.github.sergejsvisockis.jobs.lockrepository.LocalGuardLockRepository.LOCK_HELD_LOCALLY_MSG;
+import static io.github.sergejsvisockis.jobs.lockrepository.LocalGuardLockRepository.PERMITS_NOT_SUPPORTED_MSG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+@ExtendWith(MockitoExtension.class)
+class LocalGuardLockRepositoryTest {
+
+    private static final String JOB_NAME = "TestJob";
+
+    @Mock
+    private LockRepository delegate;
+
+    @InjectMocks
+    private LocalGuardLockRepository lockRepository;
+
+    @Test
+    void shouldTurnDownTriggerOfLocallyRunningJobWithoutDelegating() {
+        //given
+        LockMetadata lockMetadata = lockMetadata();
+        when(delegate.tryAcquireLock(JOB_NAME)).thenReturn(Optional.of(lockMetadata));
+        lockRepository.tryAcquireLock(JOB_NAME);
+
+        //when
+        Optional<LockMetadata> result = lockRepository.tryAcquireLock(JOB_NAME);
+
+        //then
+        assertTrue(result.isEmpty());
+        assertTrue(lockRepository.isHeldLocally(JOB_NAME));
+        verify(delegate, times(1)).tryAcquireLock(JOB_NAME);
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> lockRepository.acquireLock(JOB_NAME));
+        assertEquals(String.format(LOCK_HELD_LOCALLY_MSG, JOB_NAME), exception.getMessage());
+    }
+
+    @Test
+    void shouldReleaseLocalLockWithDistributedLock() {
+        //given
+        LockMetadata lockMetadata = lockMetadata();
+        when(delegate.tryAcquireLock(JOB_NAME)).thenReturn(Optional.of(lockMetadata));
+        lockRepository.tryAcquireLock(JOB_NAME);
+        doThrow(new RuntimeException("Database is down")).when(delegate).releaseLock(lockMetadata);
+
+        //when
+        assertThrows(RuntimeException.class, () -> lockRepository.releaseLock(lockMetadata));
+
+        //then
+        assertFalse(lockRepository.isHeldLocally(JOB_NAME));
+        assertTrue(lockRepository.tryAcquireLock(JOB_NAME).isPresent());
+        verify(delegate, times(2)).tryAcquireLock(JOB_NAME);
+    }
+
+    @Test
+    void shouldReleaseLocalLockOnceDistributedLockIsHeldElsewhere() {
+        //given
+        when(delegate.tryAcquireLock(JOB_NAME)).thenReturn(Optional.empty());
+
+        //when
+        Optional<LockMetadata> result = lockRepository.tryAcquireLock(JOB_NAME);
+
+        //then
+        assertTrue(result.isEmpty());
+        assertFalse(lockRepository.isHeldLocally(JOB_NAME));
+    }
+
+    @Test
+    void shouldReleaseLocalLockOnceAcquisitionHasFailed() {
+        //given
+        when(delegate.tryAcquireLock(JOB_NAME)).thenThrow(new RuntimeException("Database is down"));
+
+        //when
+        assertThrows(RuntimeException.class, () -> lockRepository.tryAcquireLock(JOB_NAME));
+
+        //then
+        assertFalse(lockRepository.isHeldLocally(JOB_NAME));
+    }
+
+    @Test
+    void shouldKeepLocalLockOnStaleRelease() {
+        //given
+        LockMetadata lockMetadata = lockMetadata();
+        when(delegate.acquireLock(JOB_NAME)).thenReturn(lockMetadata);
+        lockRepository.acquireLock(JOB_NAME);
+
+        //when
+        lockRepository.releaseLock(lockMetadata());
+
+        //then
+        assertTrue(lockRepository.isHeldLocally(JOB_NAME));
+    }
+
+    @Test
+    void shouldForwardPermitsUntilAllAreHeldLocally() {
+        //given
+        PermitLockRepository permitDelegate = mock(PermitLockRepository.class);
+        LocalGuardLockRepository guard = new LocalGuardLockRepository(permitDelegate);
+        LockMetadata first = permit(0);
+        LockMetadata second = permit(1);
+        when(permitDelegate.tryAcquirePermit(JOB_NAME, 2)).thenReturn(Optional.of(first)).thenReturn(Optional.of(second));
+
+        //when
+        Optional<LockMetadata> firstResult = guard.tryAcquirePermit(JOB_NAME, 2);
+        Optional<LockMetadata> secondResult = guard.tryAcquirePermit(JOB_NAME, 2);
+        Optional<LockMetadata> thirdResult = guard.tryAcquirePermit(JOB_NAME, 2);
+        guard.releaseLock(first);
+        Optional<LockMetadata> afterRelease = guard.tryAcquirePermit(JOB_NAME, 2);
+
+        //then
+        assertEquals(Optional.of(first), firstResult);
+        assertEquals(Optional.of(second), secondResult);
+        assertTrue(thirdResult.isEmpty());
+        assertTrue(afterRelease.isPresent());
+        verify(permitDelegate, times(3)).tryAcquirePermit(JOB_NAME, 2);
+        verify(permitDelegate).releaseLock(first);
+    }
+
+    @Test
+    void shouldRejectPermitsOnceDelegateDoesNotSupportThem() {
+        //when
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> lockRepository.tryAcquirePermit(JOB_NAME, 2));
+
+        //then
+        assertEquals(String.format(PERMITS_NOT_SUPPORTED_MSG, JOB_NAME, delegate.getClass().getName()),
+                exception.getMessage());
+    }
+
+    @Test
+    void shouldRejectLeaseRenewalOnceDelegateDoesNotSupportIt() {
+        //given
+        LockMetadata lockMetadata = lockMetadata();
+
+        //when
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> lockRepository.renewLocks(List.of(lockMetadata), Duration.ofMinutes(1)));
+
+        //then
+        assertEquals(String.format(LEASES_NOT_SUPPORTED_MSG, 1, delegate.getClass().getName()),
+                exception.getMessage());
+    }
+
+    @Test
+    void shouldWrapCheckedExceptionOfDelegateOnClose() throws Exception {
+        //given
+        LockRepository closeableDelegate = mock(LockRepository.class, withSettings().extraInterfaces(AutoCloseable.class));
+        Exception failure = new Exception("Failed to close");
+        doThrow(failure).when((AutoCloseable) closeableDelegate).close();
+        LocalGuardLockRepository guard = new LocalGuardLockRepository(closeableDelegate);
+
+        //when
+        RuntimeException exception = assertThrows(RuntimeException.class, guard::close);
+
+        //then
+        assertEquals(String.format(FAILED_TO_CLOSE_MSG, closeableDelegate.getClass().getName()), exception.getMessage());
+        assertEquals(failure, exception.getCause());
+    }
+
+    private static LockMetadata permit(int permit) {
+        return new LockMetadata.Builder()
+                .withLockId(UUID.randomUUID())
+                .withJobName(JOB_NAME)
+                .withLockedAt(LocalDateTime.now())
+                .withPermit(permit)
+                .build();
+    }
+
+    private static LockMetadata lockMetadata() {
+        return new LockMetadata.Builder()
+                .withLockId(UUID.randomUUID())
+                .withJobName(JOB_NAME)
+                .withLockedAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,140 @@
+package io.github.sergejsvisockis.jobs.lockrepository;
+
+import io.github.sergejsvisockis.jobs.LockMetadata;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.sergejsvisockis.jobs.lockrepository.LockLeaseRenewer.INVALID_LEASE_DURATION_MSG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LockLeaseRenewerTest {
+
+    @Mock
+    private LeaseLockRepository lockRepository;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldRenewAllHeldLocksInOneCall() {
+        //given
+        final Duration leaseDuration = Duration.ofMinutes(1);
+        LockMetadata first = lockMetadata("FirstJob");
+        LockMetadata second = lockMetadata("SecondJob");
+        LockMetadata released = lockMetadata("ReleasedJob");
+
+        when(lockRepository.renewLocks(anyCollection(), eq(leaseDuration))).thenReturn(List.of(first, second));
+
+        try (LockLeaseRenewer renewer = new LockLeaseRenewer(lockRepository, leaseDuration)) {
+            renewer.register(first);
+            renewer.register(second);
+            renewer.register(released);
+            renewer.unregister(released);
+
+            //when
+            int renewed = renewer.renew();
+
+            //then
+            assertEquals(2, renewed);
+            ArgumentCaptor<Collection<LockMetadata>> captor = ArgumentCaptor.forClass(Collection.class);
+            verify(lockRepository).renewLocks(captor.capture(), eq(leaseDuration));
+            assertEquals(2, captor.getValue().size());
+            assertTrue(captor.getValue().containsAll(List.of(first, second)));
+        }
+    }
+
+    @Test
+    void shouldNotRenewWhenNoLocksAreHeld() {
+        //given
+        try (LockLeaseRenewer renewer = new LockLeaseRenewer(lockRepository, Duration.ofMinutes(1))) {
+
+            //when
+            int renewed = renewer.renew();
+
+            //then
+            assertEquals(0, renewed);
+            verify(lockRepository, never()).renewLocks(anyCollection(), any(Duration.class));
+        }
+    }
+
+    @Test
+    void shouldRenewInTheBackground() {
+        //given
+        final Duration leaseDuration = Duration.ofMillis(30);
+        LockMetadata lockMetadata = lockMetadata("TestJob");
+        when(lockRepository.renewLocks(anyCollection(), eq(leaseDuration))).thenReturn(List.of(lockMetadata));
+
+        try (LockLeaseRenewer renewer = new LockLeaseRenewer(lockRepository, leaseDuration)) {
+
+            //when
+            renewer.register(lockMetadata);
+
+            //then
+            verify(lockRepository, timeout(5000).atLeastOnce()).renewLocks(anyCollection(), eq(leaseDuration));
+        }
+    }
+
+    @Test
+    void shouldUnregisterAndNotifyLocksTakenOver() {
+        //given
+        final Duration leaseDuration = Duration.ofMinutes(1);
+        LockMetadata held = lockMetadata("FirstJob");
+        LockMetadata lost = lockMetadata("SecondJob");
+        AtomicInteger notified = new AtomicInteger();
+
+        when(lockRepository.renewLocks(anyCollection(), eq(leaseDuration))).thenReturn(List.of(held));
+
+        try (LockLeaseRenewer renewer = new LockLeaseRenewer(lockRepository, leaseDuration)) {
+            renewer.register(held);
+            renewer.register(lost);
+            LockLeaseRenewer.onLeaseLost(lost, notified::incrementAndGet);
+
+            //when
+            int renewed = renewer.renew();
+            renewer.renew();
+
+            //then
+            assertEquals(1, renewed);
+            assertEquals(1, notified.get());
+            verify(lockRepository, times(2)).renewLocks(anyCollection(), eq(leaseDuration));
+            verify(lockRepository).renewLocks(eq(List.of(held)), eq(leaseDuration));
+        }
+    }
+
+    @Test
+    void shouldFailWithExceptionWhenLeaseDurationIsNotPositive() {
+        //when
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> new LockLeaseRenewer(lockRepository, Duration.ZERO));
+
+        //then
+        assertEquals(String.format(INVALID_LEASE_DURATION_MSG, Duration.ZERO), exception.getMessage());
+    }
+
+    private static LockMetadata lockMetadata(String jobName) {
+        return new LockMetadata.Builder()
+                .withLockId(UUID.randomUUID())
+                .withJobName(jobName)
+                .withLockedAt(LocalDateTime.now())
+                .build();
+    }
+}
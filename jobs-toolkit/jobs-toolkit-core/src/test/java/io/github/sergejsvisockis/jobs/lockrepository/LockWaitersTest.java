@@ -0,0 +1,98 @@
+package io.github.sergejsvisockis.jobs.lockrepository;
+
+import io.github.sergejsvisockis.jobs.LockMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LockWaitersTest {
+
+    private static final String JOB_NAME = "TestJob";
+
+    @AfterEach
+    void tearDown() {
+        Thread.interrupted();
+    }
+
+    @Test
+    void shouldAcquireLockOnceReleasedOnThisNode() throws Exception {
+        //given
+        InMemoryLockRepository lockRepository = new InMemoryLockRepository();
+        LockMetadata held = lockRepository.acquireLock(JOB_NAME);
+        CompletableFuture<Optional<LockMetadata>> waiter = CompletableFuture.supplyAsync(
+                () -> lockRepository.tryAcquireLock(JOB_NAME, Duration.ofSeconds(30)));
+        // lets the backoff grow well beyond the wake up latency asserted below
+        Thread.sleep(700);
+        assertFalse(waiter.isDone());
+
+        //when
+        long releasedAt = System.nanoTime();
+        lockRepository.releaseLock(held);
+        Optional<LockMetadata> acquired = waiter.get(5, TimeUnit.SECONDS);
+
+        //then
+        assertTrue(acquired.isPresent());
+        assertTrue(System.nanoTime() - releasedAt < TimeUnit.MILLISECONDS.toNanos(200));
+        assertEquals(0, LockWaiters.waitedJobs());
+    }
+
+    @Test
+    void shouldGiveUpOnceTimeoutHasElapsed() {
+        //given
+        AtomicInteger attempts = new AtomicInteger();
+        long start = System.nanoTime();
+
+        //when
+        Optional<Object> result = LockWaiters.await(JOB_NAME, Duration.ofMillis(100), () -> {
+            attempts.incrementAndGet();
+            return Optional.empty();
+        });
+
+        //then
+        long elapsed = System.nanoTime() - start;
+        assertTrue(result.isEmpty());
+        assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(100));
+        // the backoff doubles from 10ms, hence only a handful of attempts fit into 100ms
+        assertTrue(attempts.get() > 1 && attempts.get() <= 8, "attempts=" + attempts.get());
+        assertEquals(0, LockWaiters.waitedJobs());
+    }
+
+    @Test
+    void shouldMakeSingleAttemptWithZeroTimeout() {
+        //given
+        AtomicInteger attempts = new AtomicInteger();
+
+        //when
+        Optional<Object> result = LockWaiters.await(JOB_NAME, Duration.ZERO, () -> {
+            attempts.incrementAndGet();
+            return Optional.empty();
+        });
+
+        //then
+        assertTrue(result.isEmpty());
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void shouldStopWaitingOnceInterrupted() {
+        //given
+        Thread.currentThread().interrupt();
+
+        //when
+        Optional<Object> result = LockWaiters.await(JOB_NAME, Duration.ofSeconds(30), Optional::empty);
+
+        //then
+        assertTrue(result.isEmpty());
+        assertTrue(Thread.currentThread().isInterrupted());
+        assertEquals(0, LockWaiters.waitedJobs());
+    }
+}
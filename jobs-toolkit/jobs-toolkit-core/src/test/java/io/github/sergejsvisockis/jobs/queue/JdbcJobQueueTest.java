@@ -0,0 +1,214 @@
+package io.github.sergejsvisockis.jobs.queue;
+
+import io.github.sergejsvisockis.jobs.SqlDialect;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static io.github.sergejsvisockis.jobs.queue.JdbcJobQueue.ENQUEUE_BATCH_SIZE;
+import static io.github.sergejsvisockis.jobs.queue.JdbcJobQueue.FAILED_TO_CLAIM_ITEMS_MSG;
+import static io.github.sergejsvisockis.jobs.queue.JdbcJobQueue.INVALID_CLAIM_LIMIT_MSG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JdbcJobQueueTest {
+
+    private static final String QUERY_INSERT_ITEM = "INSERT INTO job_queue(item_id, queue_name, payload, deduplication_key, enqueued_at, visible_at) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String QUERY_FIND_VISIBLE_ITEMS = "SELECT q.item_id, q.payload, q.deduplication_key, q.attempts, q.enqueued_at " +
+            "FROM job_queue q WHERE q.queue_name = ? AND q.visible_at <= ? ORDER BY q.visible_at LIMIT 10 FOR UPDATE SKIP LOCKED";
+    private static final String QUERY_CLAIM_ITEM = "UPDATE job_queue SET attempts = ?, visible_at = ? WHERE item_id = ? AND attempts = ?";
+    private static final String QUERY_COMPLETE_ITEM = "DELETE FROM job_queue WHERE item_id = ? AND attempts = ?";
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connectionMock;
+
+    @Test
+    void shouldEnqueueItemsByMultiRowInserts() throws SQLException {
+        //given
+        JdbcJobQueue jobQueue = new JdbcJobQueue(dataSource, SqlDialect.POSTGRESQL);
+        List<QueueItem> items = new ArrayList<>();
+        for (int i = 0; i < ENQUEUE_BATCH_SIZE + 2; i++) {
+            items.add(item("tenant-" + i, null));
+        }
+        PreparedStatement fullBatchPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement lastBatchPstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.getAutoCommit()).thenReturn(true);
+        when(connectionMock.prepareStatement(SqlDialect.POSTGRESQL.insertIgnoringDuplicates("job_queue",
+                ENQUEUE_BATCH_SIZE, "item_id", "queue_name", "payload", "deduplication_key", "enqueued_at", "visible_at")))
+                .thenReturn(fullBatchPstmtMock);
+        when(connectionMock.prepareStatement("INSERT INTO job_queue(item_id, queue_name, payload, deduplication_key, enqueued_at, visible_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?), (?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING"))
+                .thenReturn(lastBatchPstmtMock);
+        when(fullBatchPstmtMock.executeUpdate()).thenReturn(ENQUEUE_BATCH_SIZE);
+        when(lastBatchPstmtMock.executeUpdate()).thenReturn(1);
+
+        //when
+        int enqueued = jobQueue.enqueue(items);
+
+        //then
+        assertEquals(ENQUEUE_BATCH_SIZE + 1, enqueued);
+        verify(fullBatchPstmtMock).setString(ENQUEUE_BATCH_SIZE * 6 - 3, "tenant-" + (ENQUEUE_BATCH_SIZE - 1));
+        verify(lastBatchPstmtMock).setString(8, "reindex");
+        verify(connectionMock).commit();
+        verify(connectionMock).setAutoCommit(true);
+    }
+
+    @Test
+    void shouldSkipDuplicatesWithoutInsertIgnoringDuplicates() throws SQLException {
+        //given
+        JdbcJobQueue jobQueue = new JdbcJobQueue(dataSource, SqlDialect.H2);
+        PreparedStatement pstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.prepareStatement(QUERY_INSERT_ITEM)).thenReturn(pstmtMock);
+        when(pstmtMock.executeBatch()).thenReturn(new int[]{1, 1});
+        when(pstmtMock.executeUpdate())
+                .thenThrow(new SQLIntegrityConstraintViolationException("duplicate", "23505"))
+                .thenReturn(1);
+
+        //when
+        int enqueued = jobQueue.enqueue(List.of(
+                item("tenant-1", null), item("tenant-2", "key-2"), item("tenant-3", null), item("tenant-4", "key-4")));
+
+        //then
+        assertEquals(3, enqueued);
+        verify(pstmtMock, times(2)).addBatch();
+        verify(pstmtMock).setString(4, "key-2");
+        verify(pstmtMock).setString(4, "key-4");
+    }
+
+    @Test
+    void shouldClaimVisibleItems() throws SQLException {
+        //given
+        JdbcJobQueue jobQueue = new JdbcJobQueue(dataSource, SqlDialect.POSTGRESQL);
+        UUID claimedId = UUID.randomUUID();
+        UUID takenId = UUID.randomUUID();
+        LocalDateTime enqueuedAt = LocalDateTime.now().minusMinutes(1);
+
+        PreparedStatement findPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement claimPstmtMock = mock(PreparedStatement.class);
+        ResultSet rsMock = mock(ResultSet.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.getAutoCommit()).thenReturn(true);
+        when(connectionMock.prepareStatement(QUERY_FIND_VISIBLE_ITEMS)).thenReturn(findPstmtMock);
+        when(findPstmtMock.executeQuery()).thenReturn(rsMock);
+        when(rsMock.next()).thenReturn(true, true, false);
+        when(rsMock.getString(1)).thenReturn(claimedId.toString(), takenId.toString());
+        when(rsMock.getString(2)).thenReturn("tenant-42");
+        when(rsMock.getInt(4)).thenReturn(2, 0);
+        when(rsMock.getTimestamp(5)).thenReturn(Timestamp.valueOf(enqueuedAt));
+        when(connectionMock.prepareStatement(QUERY_CLAIM_ITEM)).thenReturn(claimPstmtMock);
+        when(claimPstmtMock.executeBatch()).thenReturn(new int[]{1, 0});
+
+        //when
+        List<QueueItem> claimed = jobQueue.claim("reindex", 10, Duration.ofMinutes(5));
+
+        //then
+        assertEquals(1, claimed.size());
+        QueueItem item = claimed.get(0);
+        assertEquals(claimedId, item.getItemId());
+        assertEquals("reindex", item.getQueueName());
+        assertEquals("tenant-42", item.getPayload());
+        assertEquals(3, item.getAttempts());
+        assertEquals(enqueuedAt, item.getEnqueuedAt());
+        assertTrue(item.getVisibleAt().isAfter(LocalDateTime.now().plusMinutes(4)));
+        verify(findPstmtMock).setString(1, "reindex");
+        verify(claimPstmtMock).setInt(1, 3);
+        verify(claimPstmtMock).setInt(4, 2);
+        verify(connectionMock).commit();
+    }
+
+    @Test
+    void shouldRollbackFailedClaim() throws SQLException {
+        //given
+        JdbcJobQueue jobQueue = new JdbcJobQueue(dataSource, SqlDialect.POSTGRESQL);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.getAutoCommit()).thenReturn(true);
+        when(connectionMock.prepareStatement(anyString())).thenThrow(new SQLException("connection reset"));
+
+        //when
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> jobQueue.claim("reindex", 10, Duration.ofMinutes(5)));
+
+        //then
+        assertEquals(String.format(FAILED_TO_CLAIM_ITEMS_MSG, "reindex"), exception.getMessage());
+        verify(connectionMock).rollback();
+        verify(connectionMock, never()).commit();
+        verify(connectionMock).setAutoCommit(true);
+    }
+
+    @Test
+    void shouldNotCompleteItemClaimedAgain() throws SQLException {
+        //given
+        JdbcJobQueue jobQueue = new JdbcJobQueue(dataSource, SqlDialect.POSTGRESQL);
+        QueueItem item = new QueueItem.Builder()
+                .withItemId(UUID.randomUUID())
+                .withQueueName("reindex")
+                .withAttempts(1)
+                .build();
+        PreparedStatement pstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.prepareStatement(QUERY_COMPLETE_ITEM)).thenReturn(pstmtMock);
+        when(pstmtMock.executeUpdate()).thenReturn(0);
+
+        //when
+        boolean completed = jobQueue.complete(item);
+
+        //then
+        assertFalse(completed);
+        verify(pstmtMock).setString(1, item.getItemId().toString());
+        verify(pstmtMock).setInt(2, 1);
+    }
+
+    @Test
+    void shouldRejectInvalidClaimLimit() {
+        //given
+        JdbcJobQueue jobQueue = new JdbcJobQueue(dataSource, SqlDialect.POSTGRESQL);
+
+        //when
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> jobQueue.claim("reindex", 0, Duration.ofMinutes(5)));
+
+        //then
+        assertEquals(String.format(INVALID_CLAIM_LIMIT_MSG, 0), exception.getMessage());
+    }
+
+    private static QueueItem item(String payload, String deduplicationKey) {
+        return new QueueItem.Builder()
+                .withQueueName("reindex")
+                .withPayload(payload)
+                .withDeduplicationKey(deduplicationKey)
+                .build();
+    }
+}
@@ -0,0 +1,140 @@
+package io.github.sergejsvisockis.jobs.queue;
+
+import io.github.sergejsvisockis.jobs.JobExecutionException;
+import io.github.sergejsvisockis.jobs.executor.JobExecutor;
+import io.github.sergejsvisockis.jobs.executor.JobExecutors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class QueueWorkerTest {
+
+    private static final Duration VISIBILITY_TIMEOUT = Duration.ofMinutes(1);
+
+    @Mock
+    private JobQueue jobQueue;
+
+    private RecordingJob job;
+    private QueueWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        job = new RecordingJob();
+        job.setJobExecutor(JobExecutors.callerThread());
+        worker = new QueueWorker(jobQueue, job, 2, VISIBILITY_TIMEOUT, Duration.ofMillis(100));
+    }
+
+    @Test
+    void shouldCompleteHandledItems() {
+        //given
+        QueueItem first = item("tenant-1");
+        QueueItem second = item("tenant-2");
+        when(jobQueue.claim("reindex", 2, VISIBILITY_TIMEOUT)).thenReturn(List.of(first, second));
+        when(jobQueue.complete(any())).thenReturn(true);
+
+        //when
+        int dispatched = worker.poll();
+
+        //then
+        assertEquals(2, dispatched);
+        assertEquals(List.of("tenant-1", "tenant-2"), job.handled);
+        verify(jobQueue).complete(first);
+        verify(jobQueue).complete(second);
+    }
+
+    @Test
+    void shouldReleaseFailedItemAfterRetryDelay() {
+        //given
+        QueueItem item = item("fail");
+        job.setRetryDelay(Duration.ofSeconds(30));
+        when(jobQueue.claim("reindex", 2, VISIBILITY_TIMEOUT)).thenReturn(List.of(item));
+
+        //when
+        int dispatched = worker.poll();
+
+        //then
+        assertEquals(1, dispatched);
+        verify(jobQueue).release(item, Duration.ofSeconds(30));
+        verify(jobQueue, never()).complete(any());
+    }
+
+    @Test
+    void shouldReleaseItemsRejectedBySaturatedExecutor() {
+        //given
+        JobExecutor executorMock = mock(JobExecutor.class);
+        job.setJobExecutor(executorMock);
+        QueueItem first = item("tenant-1");
+        QueueItem second = item("tenant-2");
+        when(jobQueue.claim("reindex", 2, VISIBILITY_TIMEOUT)).thenReturn(List.of(first, second));
+        doNothing().doThrow(new RejectedExecutionException()).when(executorMock).execute(any());
+
+        //when
+        int dispatched = worker.poll();
+
+        //then
+        assertEquals(1, dispatched);
+        verify(jobQueue).release(second, Duration.ZERO);
+        verify(jobQueue, never()).release(first, Duration.ZERO);
+    }
+
+    @Test
+    void shouldKeepHandlingOnceCompletionFails() {
+        //given
+        QueueItem first = item("tenant-1");
+        QueueItem second = item("tenant-2");
+        when(jobQueue.claim("reindex", 2, VISIBILITY_TIMEOUT)).thenReturn(List.of(first, second));
+        doThrow(new RuntimeException("connection reset")).when(jobQueue).complete(first);
+
+        //when
+        int dispatched = worker.poll();
+
+        //then
+        assertEquals(2, dispatched);
+        assertEquals(List.of("tenant-1", "tenant-2"), job.handled);
+    }
+
+    private static QueueItem item(String payload) {
+        return new QueueItem.Builder()
+                .withItemId(UUID.randomUUID())
+                .withQueueName("reindex")
+                .withPayload(payload)
+                .withAttempts(1)
+                .build();
+    }
+
+    private static class RecordingJob extends AbstractQueueJob {
+
+        private final List<String> handled = new ArrayList<>();
+
+        @Override
+        public void execute(QueueItem item) throws JobExecutionException {
+            if (item.getPayload().equals("fail")) {
+                throw new JobExecutionException("Failed to reindex");
+            }
+            handled.add(item.getPayload());
+        }
+
+        @Override
+        public String getQueueName() {
+            return "reindex";
+        }
+    }
+}
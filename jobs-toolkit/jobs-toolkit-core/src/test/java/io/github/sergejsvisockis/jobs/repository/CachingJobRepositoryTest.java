@@ -0,0 +1,208 @@
+package io.github.sergejsvisockis.jobs.repository;
+
+import io.github.sergejsvisockis.jobs.JobDefinition;
+import io.github.sergejsvisockis.jobs.JobExecution;
+import io.github.sergejsvisockis.jobs.AbstractJob;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static io.github.sergejsvisockis.jobs.repository.CachingJobRepository.MISSING_JOB_DEFINITIONS_MSG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CachingJobRepositoryTest {
+
+    @Mock
+    private JobRepository delegate;
+
+    @Test
+    void shouldServeJobDefinitionsFromMemory() {
+        //given
+        final String jobName = "TestJob";
+        when(delegate.fetchJobDefinitions()).thenReturn(List.of(definition(jobName)));
+        CachingJobRepository repository = new CachingJobRepository(delegate, Duration.ofHours(1));
+
+        //when
+        Optional<JobDefinition> first = repository.fetchJobDefinition(jobName);
+        Optional<JobDefinition> second = repository.fetchJobDefinition(jobName);
+
+        //then
+        assertEquals(jobName, first.get().getJobName());
+        assertEquals(jobName, second.get().getJobName());
+        verify(delegate).fetchJobDefinitions();
+        verify(delegate, never()).fetchJobDefinition(anyString());
+    }
+
+    @Test
+    void shouldLookUpAndCacheJobDefinitionMissingInCache() {
+        //given
+        final String jobName = "NewJob";
+        when(delegate.fetchJobDefinitions()).thenReturn(List.of());
+        when(delegate.fetchJobDefinition(eq(jobName))).thenReturn(Optional.of(definition(jobName)));
+        CachingJobRepository repository = new CachingJobRepository(delegate, Duration.ofHours(1));
+
+        //when
+        repository.fetchJobDefinition(jobName);
+        Optional<JobDefinition> jobDefinition = repository.fetchJobDefinition(jobName);
+
+        //then
+        assertEquals(jobName, jobDefinition.get().getJobName());
+        verify(delegate).fetchJobDefinition(eq(jobName));
+    }
+
+    @Test
+    void shouldNotCacheMissingJobDefinition() {
+        //given
+        final String jobName = "UnknownJob";
+        when(delegate.fetchJobDefinitions()).thenReturn(List.of());
+        when(delegate.fetchJobDefinition(eq(jobName))).thenReturn(Optional.empty());
+        CachingJobRepository repository = new CachingJobRepository(delegate, Duration.ofHours(1));
+
+        //when
+        repository.fetchJobDefinition(jobName);
+        Optional<JobDefinition> jobDefinition = repository.fetchJobDefinition(jobName);
+
+        //then
+        assertTrue(jobDefinition.isEmpty());
+        verify(delegate, times(2)).fetchJobDefinition(eq(jobName));
+    }
+
+    @Test
+    void shouldReloadOnceTimeToLiveElapsed() {
+        //given
+        final String jobName = "TestJob";
+        when(delegate.fetchJobDefinitions()).thenReturn(List.of(definition(jobName)));
+        CachingJobRepository repository = new CachingJobRepository(delegate, Duration.ZERO);
+
+        //when
+        repository.fetchJobDefinition(jobName);
+        repository.fetchJobDefinition(jobName);
+
+        //then
+        verify(delegate, times(2)).fetchJobDefinitions();
+    }
+
+    @Test
+    void shouldReloadOnceInvalidated() {
+        //given
+        final String jobName = "TestJob";
+        when(delegate.fetchJobDefinitions()).thenReturn(List.of(definition(jobName)));
+        CachingJobRepository repository = new CachingJobRepository(delegate, Duration.ofHours(1));
+
+        //when
+        repository.fetchJobDefinition(jobName);
+        repository.invalidate();
+        repository.fetchJobDefinition(jobName);
+
+        //then
+        verify(delegate, times(2)).fetchJobDefinitions();
+    }
+
+    @Test
+    void shouldServeStaleJobDefinitionsWhenReloadFails() {
+        //given
+        final String jobName = "TestJob";
+        when(delegate.fetchJobDefinitions())
+                .thenReturn(List.of(definition(jobName)))
+                .thenThrow(new RuntimeException("Database is down"));
+        CachingJobRepository repository = new CachingJobRepository(delegate, Duration.ZERO);
+
+        //when
+        repository.fetchJobDefinition(jobName);
+        Optional<JobDefinition> jobDefinition = repository.fetchJobDefinition(jobName);
+
+        //then
+        assertEquals(jobName, jobDefinition.get().getJobName());
+    }
+
+    @Test
+    void shouldPreloadJobDefinitions() {
+        //given
+        when(delegate.fetchJobDefinitions()).thenReturn(List.of(definition("TestJob")));
+        CachingJobRepository repository = new CachingJobRepository(delegate, Duration.ofHours(1));
+
+        //when
+        repository.preload(List.of(new NamedJob("TestJob")));
+        repository.fetchJobDefinition("TestJob");
+
+        //then
+        verify(delegate).fetchJobDefinitions();
+    }
+
+    @Test
+    void shouldFailFastWhenJobHasNoDefinition() {
+        //given
+        when(delegate.fetchJobDefinitions()).thenReturn(List.of(definition("TestJob")));
+        CachingJobRepository repository = new CachingJobRepository(delegate, Duration.ofHours(1));
+
+        //when
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> repository.preload(List.of(
+                        new NamedJob("TestJob"),
+                        new NamedJob("SecondTestJob"))));
+
+        //then
+        assertEquals(String.format(MISSING_JOB_DEFINITIONS_MSG, List.of("SecondTestJob")), exception.getMessage());
+    }
+
+    @Test
+    void shouldDelegateExecutions() {
+        //given
+        final String jobName = "TestJob";
+        JobExecution jobExecution = new JobExecution.Builder()
+                .withJobName(jobName)
+                .build();
+        when(delegate.captureExecution(eq(jobName))).thenReturn(jobExecution);
+        CachingJobRepository repository = new CachingJobRepository(delegate, Duration.ofHours(1));
+
+        //when
+        JobExecution captured = repository.captureExecution(jobName);
+        repository.completeExecution(captured);
+
+        //then
+        assertEquals(jobExecution, captured);
+        verify(delegate).captureExecution(eq(jobName));
+        verify(delegate).completeExecution(eq(jobExecution));
+        verify(delegate, never()).fetchJobDefinitions();
+    }
+
+    private static JobDefinition definition(String jobName) {
+        return new JobDefinition.Builder()
+                .withJobName(jobName)
+                .withJobDescription("Test job description")
+                .build();
+    }
+
+    private static class NamedJob extends AbstractJob {
+
+        private final String jobName;
+
+        NamedJob(String jobName) {
+            this.jobName = jobName;
+        }
+
+        @Override
+        public void execute() {
+
+        }
+
+        @Override
+        public String getJobName() {
+            return jobName;
+        }
+    }
+}
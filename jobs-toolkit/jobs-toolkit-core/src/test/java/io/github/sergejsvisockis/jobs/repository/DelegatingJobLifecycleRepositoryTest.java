@@ -0,0 +1,123 @@
+package io.github.sergejsvisockis.jobs.repository;
+
+import io.github.sergejsvisockis.jobs.JobDefinition;
+import io.github.sergejsvisockis.jobs.JobExecution;
+import io.github.sergejsvisockis.jobs.JobExecutionContext;
+import io.github.sergejsvisockis.jobs.LockMetadata;
+import io.github.sergejsvisockis.jobs.lockrepository.LockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DelegatingJobLifecycleRepositoryTest {
+
+    private static final String JOB_NAME = "TestJob";
+
+    @Mock
+    private JobRepository jobRepository;
+
+    @Mock
+    private LockRepository lockRepository;
+
+    private DelegatingJobLifecycleRepository lifecycleRepository;
+
+    @BeforeEach
+    void setUp() {
+        lifecycleRepository = new DelegatingJobLifecycleRepository(jobRepository, lockRepository);
+    }
+
+    @Test
+    void shouldStartExecutionOnceLockIsAcquired() {
+        //given
+        LockMetadata lockMetadata = lockMetadata();
+        JobExecution jobExecution = new JobExecution.Builder()
+                .withExecutionId(UUID.randomUUID())
+                .withJobName(JOB_NAME)
+                .build();
+
+        when(jobRepository.fetchJobDefinition(JOB_NAME)).thenReturn(Optional.of(jobDefinition()));
+        when(lockRepository.tryAcquireLock(JOB_NAME)).thenReturn(Optional.of(lockMetadata));
+        when(jobRepository.captureExecution(JOB_NAME)).thenReturn(jobExecution);
+
+        //when
+        Optional<JobExecutionContext> context = lifecycleRepository.startExecution(JOB_NAME);
+
+        //then
+        assertTrue(context.isPresent());
+        assertSame(lockMetadata, context.get().getLockMetadata());
+        assertSame(jobExecution, context.get().getJobExecution());
+        verify(lockRepository, never()).releaseLock(any(LockMetadata.class));
+    }
+
+    @Test
+    void shouldReleaseLockWhenCapturingExecutionFails() {
+        //given
+        LockMetadata lockMetadata = lockMetadata();
+        RuntimeException failure = new RuntimeException("Database is down");
+
+        when(jobRepository.fetchJobDefinition(JOB_NAME)).thenReturn(Optional.of(jobDefinition()));
+        when(lockRepository.tryAcquireLock(JOB_NAME)).thenReturn(Optional.of(lockMetadata));
+        when(jobRepository.captureExecution(JOB_NAME)).thenThrow(failure);
+
+        //when
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> lifecycleRepository.startExecution(JOB_NAME));
+
+        //then
+        assertSame(failure, exception);
+        verify(lockRepository).releaseLock(lockMetadata);
+    }
+
+    @Test
+    void shouldKeepCaptureFailureWhenReleasingLockFails() {
+        //given
+        LockMetadata lockMetadata = lockMetadata();
+        RuntimeException failure = new RuntimeException("Database is down");
+        RuntimeException releaseFailure = new RuntimeException("Lock store is down");
+
+        when(jobRepository.fetchJobDefinition(JOB_NAME)).thenReturn(Optional.of(jobDefinition()));
+        when(lockRepository.tryAcquireLock(JOB_NAME)).thenReturn(Optional.of(lockMetadata));
+        when(jobRepository.captureExecution(JOB_NAME)).thenThrow(failure);
+        doThrow(releaseFailure).when(lockRepository).releaseLock(lockMetadata);
+
+        //when
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> lifecycleRepository.startExecution(JOB_NAME));
+
+        //then
+        assertSame(failure, exception);
+        assertEquals(1, exception.getSuppressed().length);
+        assertSame(releaseFailure, exception.getSuppressed()[0]);
+    }
+
+    private static JobDefinition jobDefinition() {
+        return new JobDefinition.Builder()
+                .withJobName(JOB_NAME)
+                .build();
+    }
+
+    private static LockMetadata lockMetadata() {
+        return new LockMetadata.Builder()
+                .withLockId(UUID.randomUUID())
+                .withJobName(JOB_NAME)
+                .withLockedAt(LocalDateTime.now())
+                .build();
+    }
+}
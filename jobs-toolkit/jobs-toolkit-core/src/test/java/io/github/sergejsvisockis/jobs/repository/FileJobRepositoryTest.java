@@ -0,0 +1,107 @@
+package io.github.sergejsvisockis.jobs.repository;
+
+import io.github.sergejsvisockis.jobs.JobDefinition;
+import io.github.sergejsvisockis.jobs.JobExecution;
+import io.github.sergejsvisockis.jobs.JobState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileJobRepositoryTest {
+
+    private static final String JOB_NAME = "TestJob";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldRestoreStateAfterRestart() {
+        //given
+        Path file = dir.resolve("jobs.journal");
+        JobExecution first;
+        JobExecution second;
+        try (FileJobRepository jobRepository = new FileJobRepository(file)) {
+            jobRepository.saveJobDefinition(jobDefinition());
+            first = jobRepository.captureExecution(JOB_NAME);
+            jobRepository.completeExecution(first);
+            second = jobRepository.captureExecution(JOB_NAME);
+            jobRepository.failExecution(second);
+        }
+
+        //when
+        try (FileJobRepository jobRepository = new FileJobRepository(file)) {
+
+            //then
+            assertEquals("Test job", jobRepository.fetchJobDefinition(JOB_NAME).orElseThrow().getJobDescription());
+            JobExecution latest = jobRepository.findLastExecution(JOB_NAME).orElseThrow();
+            assertEquals(second.getExecutionId(), latest.getExecutionId());
+            assertEquals(JobState.FAILED, latest.getState());
+            assertEquals(List.of(JobState.RUNNING, JobState.COMPLETED, JobState.RUNNING, JobState.FAILED),
+                    states(jobRepository.fetchExecutionHistory(JOB_NAME)));
+        }
+    }
+
+    @Test
+    void shouldCompactJournal() throws Exception {
+        //given
+        Path file = dir.resolve("jobs.journal");
+        JobExecution last = null;
+        try (FileJobRepository jobRepository = new FileJobRepository(file, 2, 1024)) {
+            jobRepository.saveJobDefinition(jobDefinition());
+            for (int i = 0; i < 100; i++) {
+                last = jobRepository.captureExecution(JOB_NAME);
+                jobRepository.completeExecution(last);
+            }
+        }
+
+        //when
+        try (FileJobRepository jobRepository = new FileJobRepository(file, 2, 1024)) {
+
+            //then
+            assertEquals(last.getExecutionId(), jobRepository.findLastExecution(JOB_NAME).orElseThrow().getExecutionId());
+            assertEquals(List.of(JobState.RUNNING, JobState.COMPLETED),
+                    states(jobRepository.fetchExecutionHistory(JOB_NAME)));
+            assertTrue(Files.exists(file));
+        }
+    }
+
+    @Test
+    void shouldPurgeHistoryDurably() {
+        //given
+        Path file = dir.resolve("jobs.journal");
+        try (FileJobRepository jobRepository = new FileJobRepository(file)) {
+            jobRepository.saveJobDefinition(jobDefinition());
+            jobRepository.completeExecution(jobRepository.captureExecution(JOB_NAME));
+
+            //when
+            assertEquals(2, jobRepository.purgeExecutionHistory(LocalDateTime.now().plusSeconds(1), 10));
+        }
+
+        //then
+        try (FileJobRepository jobRepository = new FileJobRepository(file)) {
+            assertTrue(jobRepository.fetchExecutionHistory(JOB_NAME).isEmpty());
+            assertEquals(JobState.COMPLETED, jobRepository.findLastExecution(JOB_NAME).orElseThrow().getState());
+        }
+    }
+
+    private static JobDefinition jobDefinition() {
+        return new JobDefinition.Builder()
+                .withJobName(JOB_NAME)
+                .withJobDescription("Test job")
+                .build();
+    }
+
+    private static List<JobState> states(List<JobExecution> history) {
+        return history.stream()
+                .map(JobExecution::getState)
+                .collect(Collectors.toList());
+    }
+}
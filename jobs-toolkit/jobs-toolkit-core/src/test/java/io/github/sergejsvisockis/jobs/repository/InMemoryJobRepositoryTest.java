@@ -0,0 +1,148 @@
+package io.github.sergejsvisockis.jobs.repository;
+
+import io.github.sergejsvisockis.jobs.JobDefinition;
+import io.github.sergejsvisockis.jobs.JobExecution;
+import io.github.sergejsvisockis.jobs.JobNotFoundException;
+import io.github.sergejsvisockis.jobs.JobState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryJobRepositoryTest {
+
+    private static final String JOB_NAME = "TestJob";
+
+    private InMemoryJobRepository jobRepository;
+
+    @BeforeEach
+    void setUp() {
+        jobRepository = new InMemoryJobRepository(3);
+        jobRepository.saveJobDefinition(new JobDefinition.Builder()
+                .withJobName(JOB_NAME)
+                .withJobDescription("Test job")
+                .build());
+    }
+
+    @Test
+    void shouldFetchJobDefinitions() {
+        //when
+        List<JobDefinition> jobDefinitions = jobRepository.fetchJobDefinitions();
+
+        //then
+        assertEquals(1, jobDefinitions.size());
+        assertEquals("Test job", jobRepository.fetchJobDefinition(JOB_NAME).orElseThrow().getJobDescription());
+        assertTrue(jobRepository.fetchJobDefinition("UnknownJob").isEmpty());
+    }
+
+    @Test
+    void shouldRejectJobWithoutDefinition() {
+        assertThrows(JobNotFoundException.class, () -> jobRepository.captureExecution("UnknownJob"));
+    }
+
+    @Test
+    void shouldTrackLatestExecutionAndHistory() {
+        //given
+        JobExecution first = jobRepository.captureExecution(JOB_NAME);
+        jobRepository.completeExecution(first);
+
+        //when
+        JobExecution second = jobRepository.captureExecution(JOB_NAME);
+        jobRepository.failExecution(second);
+
+        //then
+        JobExecution latest = jobRepository.findLastExecution(JOB_NAME).orElseThrow();
+        assertNotEquals(first.getExecutionId(), second.getExecutionId());
+        assertEquals(second.getExecutionId(), latest.getExecutionId());
+        assertEquals(JobState.FAILED, latest.getState());
+        assertEquals(List.of(JobState.COMPLETED, JobState.RUNNING, JobState.FAILED),
+                jobRepository.fetchExecutionHistory(JOB_NAME).stream()
+                        .map(JobExecution::getState)
+                        .collect(Collectors.toList()));
+    }
+
+    @Test
+    void shouldNotOverwriteNewerRun() {
+        //given
+        JobExecution first = jobRepository.captureExecution(JOB_NAME);
+        JobExecution second = jobRepository.captureExecution(JOB_NAME);
+
+        //when
+        jobRepository.completeExecution(first);
+
+        //then
+        JobExecution latest = jobRepository.findLastExecution(JOB_NAME).orElseThrow();
+        assertEquals(second.getExecutionId(), latest.getExecutionId());
+        assertEquals(JobState.RUNNING, latest.getState());
+    }
+
+    @Test
+    void shouldNotCompleteFailedExecution() {
+        //given
+        JobExecution jobExecution = jobRepository.captureExecution(JOB_NAME);
+        jobExecution.setState(JobState.FAILED);
+
+        //when
+        jobRepository.completeExecution(jobExecution);
+
+        //then
+        assertEquals(JobState.RUNNING, jobRepository.findLastExecution(JOB_NAME).orElseThrow().getState());
+    }
+
+    @Test
+    void shouldNotExposeStoredExecution() {
+        //given
+        JobExecution jobExecution = jobRepository.captureExecution(JOB_NAME);
+
+        //when
+        jobExecution.setState(JobState.FAILED);
+        jobRepository.findLastExecution(JOB_NAME).orElseThrow().setState(JobState.COMPLETED);
+
+        //then
+        assertEquals(JobState.RUNNING, jobRepository.findLastExecution(JOB_NAME).orElseThrow().getState());
+    }
+
+    @Test
+    void shouldPurgeHistoryInBatches() {
+        //given
+        JobExecution jobExecution = jobRepository.captureExecution(JOB_NAME);
+        jobRepository.updateExecution(jobExecution);
+        jobRepository.completeExecution(jobExecution);
+
+        //when
+        int purged = jobRepository.purgeExecutionHistory(LocalDateTime.now().plusSeconds(1), 2);
+
+        //then
+        assertEquals(3, purged);
+        assertTrue(jobRepository.fetchExecutionHistory(JOB_NAME).isEmpty());
+    }
+
+    @Test
+    void shouldBoundHistory() {
+        //given
+        for (int i = 0; i < 3; i++) {
+            jobRepository.completeExecution(jobRepository.captureExecution(JOB_NAME));
+        }
+
+        //when
+        List<JobExecution> history = jobRepository.fetchExecutionHistory(JOB_NAME);
+
+        //then
+        assertEquals(3, history.size());
+        assertEquals(JobState.COMPLETED, history.get(0).getState());
+    }
+
+    @Test
+    void shouldRejectInvalidHistorySize() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> new InMemoryJobRepository(0));
+        assertEquals(String.format(InMemoryJobRepository.INVALID_MAX_HISTORY_SIZE_MSG, 0), exception.getMessage());
+    }
+}
@@ -0,0 +1,533 @@
+package io.github.sergejsvisockis.jobs.repository;
+
+import io.github.sergejsvisockis.jobs.ColumnCodec;
+import io.github.sergejsvisockis.jobs.JobDefinition;
+import io.github.sergejsvisockis.jobs.JobExecution;
+import io.github.sergejsvisockis.jobs.JobExecutionContext;
+import io.github.sergejsvisockis.jobs.JobNotFoundException;
+import io.github.sergejsvisockis.jobs.JobState;
+import io.github.sergejsvisockis.jobs.LockMetadata;
+import io.github.sergejsvisockis.jobs.SqlDialect;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static io.github.sergejsvisockis.jobs.repository.JdbcJobLifecycleRepository.FAILED_TO_FINISH_EXECUTION_MSG;
+import static io.github.sergejsvisockis.jobs.repository.JdbcJobLifecycleRepository.FAILED_TO_START_EXECUTION_MSG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JdbcJobLifecycleRepositoryTest {
+
+    private static final String QUERY_ISSUE_FENCING_TOKEN = "UPDATE job_definition SET fencing_token = fencing_token + 1 WHERE job_name = ?";
+    private static final String QUERY_FIND_FENCING_TOKEN = "SELECT j.fencing_token, j.max_concurrency FROM job_definition j WHERE j.job_name = ?";
+    private static final String QUERY_ACQUIRE_LOCK = "INSERT INTO lock_metadata(lock_id, job_name, locked_at, expires_at, fencing_token) VALUES (?, ?, ?, ?, ?)";
+    private static final String QUERY_TAKE_OVER_EXPIRED_LOCK = "UPDATE lock_metadata SET lock_id = ?, locked_at = ?, expires_at = ?, fencing_token = ? WHERE job_name = ? AND expires_at < ?";
+    private static final String QUERY_FIND_PERMITS = "SELECT p.permit, p.expires_at FROM lock_permit p WHERE p.job_name = ?";
+    private static final String QUERY_ACQUIRE_PERMIT = "INSERT INTO lock_permit(lock_id, job_name, locked_at, expires_at, fencing_token, permit) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String QUERY_REPLACE_LATEST_EXECUTION = "UPDATE latest_execution SET execution_id = ?, last_run = ?, state = ? WHERE job_name = ?";
+    private static final String QUERY_SAVE_LATEST_EXECUTION = "INSERT INTO latest_execution(job_name, execution_id, last_run, state) VALUES (?, ?, ?, ?)";
+    private static final String QUERY_UPDATE_EXECUTION_STATUS = "UPDATE latest_execution SET state = ?, last_run = ? WHERE job_name = ? AND execution_id = ?";
+    private static final String QUERY_APPEND_EXECUTION_HISTORY = "INSERT INTO job_execution_history(execution_id, job_name, state, recorded_at) VALUES (?, ?, ?, ?)";
+    private static final String QUERY_RELEASE_JOB_LOCK = "DELETE FROM lock_metadata WHERE lock_id = ?";
+    private static final String QUERY_RELEASE_PERMIT = "DELETE FROM lock_permit WHERE lock_id = ?";
+    private static final String QUERY_RENEW_LOCK = "UPDATE lock_metadata SET expires_at = ? WHERE lock_id IN (?)";
+
+    @Mock
+    private DataSource dataSource;
+
+    private JdbcJobLifecycleRepository lifecycleRepository;
+
+    @BeforeEach
+    void setUp() {
+        lifecycleRepository = new JdbcJobLifecycleRepository(dataSource, SqlDialect.GENERIC);
+    }
+
+    @Test
+    void shouldStartExecutionWithinOneTransaction() throws SQLException {
+        //given
+        final String jobName = "TestJob";
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement takeOverPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement lockPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement replacePstmtMock = mock(PreparedStatement.class);
+        PreparedStatement historyPstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.getAutoCommit()).thenReturn(true);
+        mockFencingToken(connectionMock, 7L, 1);
+        when(connectionMock.prepareStatement(QUERY_TAKE_OVER_EXPIRED_LOCK)).thenReturn(takeOverPstmtMock);
+        when(connectionMock.prepareStatement(QUERY_ACQUIRE_LOCK)).thenReturn(lockPstmtMock);
+        when(lockPstmtMock.executeUpdate()).thenReturn(1);
+        when(connectionMock.prepareStatement(QUERY_REPLACE_LATEST_EXECUTION)).thenReturn(replacePstmtMock);
+        when(replacePstmtMock.executeUpdate()).thenReturn(1);
+        when(connectionMock.prepareStatement(QUERY_APPEND_EXECUTION_HISTORY)).thenReturn(historyPstmtMock);
+
+        //when
+        Optional<JobExecutionContext> context = lifecycleRepository.startExecution(jobName);
+
+        //then
+        assertTrue(context.isPresent());
+        assertEquals(jobName, context.get().getJobDefinition().getJobName());
+        assertNotNull(context.get().getLockMetadata().getLockId());
+        assertEquals(jobName, context.get().getLockMetadata().getJobName());
+        assertEquals(7L, context.get().getLockMetadata().getFencingToken());
+        assertNotNull(context.get().getJobExecution().getExecutionId());
+        assertEquals(JobState.RUNNING, context.get().getJobExecution().getState());
+
+        String executionId = context.get().getJobExecution().getExecutionId().toString();
+        InOrder inOrder = inOrder(connectionMock);
+        inOrder.verify(connectionMock).setAutoCommit(false);
+        inOrder.verify(connectionMock).commit();
+        inOrder.verify(connectionMock).setAutoCommit(true);
+        inOrder.verify(connectionMock).close();
+        verify(dataSource).getConnection();
+        verify(lockPstmtMock).setString(eq(1), anyString());
+        verify(lockPstmtMock).setString(2, jobName);
+        verify(lockPstmtMock).setTimestamp(eq(3), any(Timestamp.class));
+        verify(lockPstmtMock).setNull(4, Types.TIMESTAMP);
+        verify(lockPstmtMock).setLong(5, 7L);
+        verify(replacePstmtMock).setString(1, executionId);
+        verify(replacePstmtMock).setString(3, JobState.RUNNING.name());
+        verify(replacePstmtMock).setString(4, jobName);
+        verify(historyPstmtMock).setString(1, executionId);
+        verify(historyPstmtMock).setString(2, jobName);
+        verify(historyPstmtMock).setString(3, JobState.RUNNING.name());
+        verify(historyPstmtMock).executeUpdate();
+        verify(connectionMock, never()).prepareStatement(QUERY_SAVE_LATEST_EXECUTION);
+        verify(connectionMock, never()).rollback();
+    }
+
+    @Test
+    void shouldSaveLatestExecutionWhenStartingForTheFirstTime() throws SQLException {
+        //given
+        final String jobName = "TestJob";
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement lockPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement replacePstmtMock = mock(PreparedStatement.class);
+        PreparedStatement savePstmtMock = mock(PreparedStatement.class);
+        PreparedStatement historyPstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.getAutoCommit()).thenReturn(true);
+        mockFencingToken(connectionMock, 1L, 1);
+        when(connectionMock.prepareStatement(QUERY_TAKE_OVER_EXPIRED_LOCK)).thenReturn(mock(PreparedStatement.class));
+        when(connectionMock.prepareStatement(QUERY_ACQUIRE_LOCK)).thenReturn(lockPstmtMock);
+        when(lockPstmtMock.executeUpdate()).thenReturn(1);
+        when(connectionMock.prepareStatement(QUERY_REPLACE_LATEST_EXECUTION)).thenReturn(replacePstmtMock);
+        when(replacePstmtMock.executeUpdate()).thenReturn(0);
+        when(connectionMock.prepareStatement(QUERY_SAVE_LATEST_EXECUTION)).thenReturn(savePstmtMock);
+        when(connectionMock.prepareStatement(QUERY_APPEND_EXECUTION_HISTORY)).thenReturn(historyPstmtMock);
+
+        //when
+        Optional<JobExecutionContext> context = lifecycleRepository.startExecution(jobName);
+
+        //then
+        assertTrue(context.isPresent());
+        assertNotNull(context.get().getJobExecution().getExecutionId());
+        verify(savePstmtMock).setString(1, jobName);
+        verify(savePstmtMock).setString(2, context.get().getJobExecution().getExecutionId().toString());
+        verify(savePstmtMock).setString(4, JobState.RUNNING.name());
+        verify(savePstmtMock).executeUpdate();
+        verify(historyPstmtMock).executeUpdate();
+        verify(connectionMock).commit();
+    }
+
+    @Test
+    void shouldReturnEmptyWhenJobIsLocked() throws SQLException {
+        //given
+        final String jobName = "TestJob";
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement lockPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement takeOverPstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.getAutoCommit()).thenReturn(true);
+        mockFencingToken(connectionMock, 7L, 1);
+        when(connectionMock.prepareStatement(QUERY_TAKE_OVER_EXPIRED_LOCK)).thenReturn(takeOverPstmtMock);
+        when(takeOverPstmtMock.executeUpdate()).thenReturn(0);
+        when(connectionMock.prepareStatement(QUERY_ACQUIRE_LOCK)).thenReturn(lockPstmtMock);
+        when(lockPstmtMock.executeUpdate()).thenReturn(0);
+
+        //when
+        Optional<JobExecutionContext> context = lifecycleRepository.startExecution(jobName);
+
+        //then
+        assertTrue(context.isEmpty());
+        verify(connectionMock, never()).prepareStatement(QUERY_REPLACE_LATEST_EXECUTION);
+        // the fencing token issued for the run is rolled back
+        verify(connectionMock).rollback();
+        verify(connectionMock, never()).commit();
+        verify(connectionMock).close();
+    }
+
+    @Test
+    void shouldReturnEmptyWhenLockIsTakenConcurrently() throws SQLException {
+        //given
+        final String jobName = "TestJob";
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement lockPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement takeOverPstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.getAutoCommit()).thenReturn(true);
+        mockFencingToken(connectionMock, 7L, 1);
+        when(connectionMock.prepareStatement(QUERY_TAKE_OVER_EXPIRED_LOCK)).thenReturn(takeOverPstmtMock);
+        when(takeOverPstmtMock.executeUpdate()).thenReturn(0);
+        when(connectionMock.prepareStatement(QUERY_ACQUIRE_LOCK)).thenReturn(lockPstmtMock);
+        when(lockPstmtMock.executeUpdate()).thenThrow(new SQLException("duplicate key", "23505"));
+
+        //when
+        Optional<JobExecutionContext> context = lifecycleRepository.startExecution(jobName);
+
+        //then
+        assertTrue(context.isEmpty());
+        verify(connectionMock).rollback();
+        verify(connectionMock, never()).prepareStatement(QUERY_REPLACE_LATEST_EXECUTION);
+        verify(connectionMock).close();
+    }
+
+    @Test
+    void shouldTakeFreePermitOfJobAllowingConcurrentRuns() throws SQLException {
+        //given
+        final String jobName = "TestJob";
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement permitsPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement permitPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement replacePstmtMock = mock(PreparedStatement.class);
+        PreparedStatement historyPstmtMock = mock(PreparedStatement.class);
+        ResultSet permitsRsMock = mock(ResultSet.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.getAutoCommit()).thenReturn(true);
+        mockFencingToken(connectionMock, 7L, 2);
+        when(connectionMock.prepareStatement(QUERY_FIND_PERMITS)).thenReturn(permitsPstmtMock);
+        when(permitsPstmtMock.executeQuery()).thenReturn(permitsRsMock);
+        when(permitsRsMock.next()).thenReturn(true, false);
+        when(permitsRsMock.getInt(1)).thenReturn(0);
+        when(connectionMock.prepareStatement(QUERY_ACQUIRE_PERMIT)).thenReturn(permitPstmtMock);
+        when(permitPstmtMock.executeUpdate()).thenReturn(1);
+        when(connectionMock.prepareStatement(QUERY_REPLACE_LATEST_EXECUTION)).thenReturn(replacePstmtMock);
+        when(replacePstmtMock.executeUpdate()).thenReturn(1);
+        when(connectionMock.prepareStatement(QUERY_APPEND_EXECUTION_HISTORY)).thenReturn(historyPstmtMock);
+
+        //when
+        Optional<JobExecutionContext> context = lifecycleRepository.startExecution(jobName);
+
+        //then
+        assertTrue(context.isPresent());
+        assertEquals(1, context.get().getLockMetadata().getPermit());
+        assertEquals(7L, context.get().getLockMetadata().getFencingToken());
+        assertEquals(2, context.get().getJobDefinition().getMaxConcurrency());
+        verify(permitPstmtMock).setString(2, jobName);
+        verify(permitPstmtMock).setLong(5, 7L);
+        verify(permitPstmtMock).setInt(6, 1);
+        verify(connectionMock, never()).prepareStatement(QUERY_ACQUIRE_LOCK);
+        verify(connectionMock).commit();
+        verify(connectionMock).close();
+    }
+
+    @Test
+    void shouldReleasePermitOnFinish() throws SQLException {
+        //given
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement updatePstmtMock = mock(PreparedStatement.class);
+        PreparedStatement releasePstmtMock = mock(PreparedStatement.class);
+        PreparedStatement historyPstmtMock = mock(PreparedStatement.class);
+        JobExecutionContext context = new JobExecutionContext.Builder()
+                .withJobDefinition(new JobDefinition.Builder().withJobName("TestJob").build())
+                .withLockMetadata(new LockMetadata.Builder()
+                        .withLockId(UUID.randomUUID())
+                        .withJobName("TestJob")
+                        .withPermit(1)
+                        .build())
+                .withJobExecution(new JobExecution.Builder()
+                        .withExecutionId(UUID.randomUUID())
+                        .withJobName("TestJob")
+                        .withState(JobState.RUNNING)
+                        .build())
+                .build();
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.getAutoCommit()).thenReturn(true);
+        when(connectionMock.prepareStatement(QUERY_UPDATE_EXECUTION_STATUS)).thenReturn(updatePstmtMock);
+        when(connectionMock.prepareStatement(QUERY_RELEASE_PERMIT)).thenReturn(releasePstmtMock);
+        when(connectionMock.prepareStatement(QUERY_APPEND_EXECUTION_HISTORY)).thenReturn(historyPstmtMock);
+
+        //when
+        lifecycleRepository.completeExecution(context);
+
+        //then
+        verify(releasePstmtMock).setString(1, context.getLockMetadata().getLockId().toString());
+        verify(releasePstmtMock).executeUpdate();
+        verify(connectionMock, never()).prepareStatement(QUERY_RELEASE_JOB_LOCK);
+        verify(connectionMock).commit();
+    }
+
+    @Test
+    void shouldTakeOverExpiredLockOnStart() throws SQLException {
+        //given
+        final String jobName = "TestJob";
+        lifecycleRepository = new JdbcJobLifecycleRepository(dataSource, SqlDialect.GENERIC, Duration.ofMinutes(1));
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement takeOverPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement replacePstmtMock = mock(PreparedStatement.class);
+        PreparedStatement historyPstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.getAutoCommit()).thenReturn(true);
+        mockFencingToken(connectionMock, 8L, 1);
+        when(connectionMock.prepareStatement(QUERY_TAKE_OVER_EXPIRED_LOCK)).thenReturn(takeOverPstmtMock);
+        when(takeOverPstmtMock.executeUpdate()).thenReturn(1);
+        when(connectionMock.prepareStatement(QUERY_REPLACE_LATEST_EXECUTION)).thenReturn(replacePstmtMock);
+        when(replacePstmtMock.executeUpdate()).thenReturn(1);
+        when(connectionMock.prepareStatement(QUERY_APPEND_EXECUTION_HISTORY)).thenReturn(historyPstmtMock);
+
+        //when
+        Optional<JobExecutionContext> context = lifecycleRepository.startExecution(jobName);
+
+        //then
+        assertTrue(context.isPresent());
+        LockMetadata lockMetadata = context.get().getLockMetadata();
+        assertEquals(lockMetadata.getLockedAt().plusMinutes(1), lockMetadata.getExpiresAt());
+        assertEquals(8L, lockMetadata.getFencingToken());
+        verify(takeOverPstmtMock).setString(1, lockMetadata.getLockId().toString());
+        verify(takeOverPstmtMock).setLong(4, 8L);
+        verify(takeOverPstmtMock).setString(5, jobName);
+        verify(connectionMock, never()).prepareStatement(QUERY_ACQUIRE_LOCK);
+        verify(connectionMock).commit();
+
+        lifecycleRepository.close();
+    }
+
+    @Test
+    void shouldFailWithExceptionWhenNoJobDefinitionFound() throws SQLException {
+        //given
+        final String jobName = "TestJob";
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement issuePstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.getAutoCommit()).thenReturn(true);
+        when(connectionMock.prepareStatement(QUERY_ISSUE_FENCING_TOKEN)).thenReturn(issuePstmtMock);
+        when(issuePstmtMock.executeUpdate()).thenReturn(0);
+
+        //when
+        JobNotFoundException exception = assertThrows(JobNotFoundException.class,
+                () -> lifecycleRepository.startExecution(jobName));
+
+        //then
+        assertEquals("Job not found: " + jobName, exception.getMessage());
+        verify(connectionMock, never()).prepareStatement(QUERY_ACQUIRE_LOCK);
+        verify(connectionMock).rollback();
+        verify(connectionMock, never()).commit();
+        verify(connectionMock).close();
+    }
+
+    @Test
+    void shouldFailWithExceptionWhenStartingExecution() throws SQLException {
+        //given
+        final String jobName = "TestJob";
+
+        when(dataSource.getConnection()).thenThrow(new SQLException());
+
+        //when
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> lifecycleRepository.startExecution(jobName));
+
+        //then
+        assertEquals(String.format(FAILED_TO_START_EXECUTION_MSG, jobName), exception.getMessage());
+        verify(dataSource).getConnection();
+    }
+
+    @Test
+    void shouldCompleteExecutionAndReleaseLockWithinOneTransaction() throws SQLException {
+        //given
+        JobExecutionContext context = context(JobState.RUNNING);
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement updatePstmtMock = mock(PreparedStatement.class);
+        PreparedStatement historyPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement releasePstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.getAutoCommit()).thenReturn(true);
+        when(connectionMock.prepareStatement(QUERY_UPDATE_EXECUTION_STATUS)).thenReturn(updatePstmtMock);
+        when(connectionMock.prepareStatement(QUERY_APPEND_EXECUTION_HISTORY)).thenReturn(historyPstmtMock);
+        when(connectionMock.prepareStatement(QUERY_RELEASE_JOB_LOCK)).thenReturn(releasePstmtMock);
+
+        //when
+        lifecycleRepository.completeExecution(context);
+
+        //then
+        verify(dataSource).getConnection();
+        verify(updatePstmtMock).setString(1, JobState.COMPLETED.name());
+        verify(updatePstmtMock).setTimestamp(eq(2), any(Timestamp.class));
+        verify(updatePstmtMock).setString(3, "TestJob");
+        verify(updatePstmtMock).setString(4, context.getJobExecution().getExecutionId().toString());
+        verify(updatePstmtMock).executeUpdate();
+        verify(historyPstmtMock).setString(1, context.getJobExecution().getExecutionId().toString());
+        verify(historyPstmtMock).setString(3, JobState.COMPLETED.name());
+        verify(historyPstmtMock).executeUpdate();
+        verify(releasePstmtMock).setString(1, context.getLockMetadata().getLockId().toString());
+        verify(releasePstmtMock).executeUpdate();
+        verify(connectionMock).setAutoCommit(false);
+        verify(connectionMock).commit();
+        verify(connectionMock).close();
+    }
+
+    @Test
+    void shouldFailExecutionAndReleaseLockWithinOneTransaction() throws SQLException {
+        //given
+        JobExecutionContext context = context(JobState.RUNNING);
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement updatePstmtMock = mock(PreparedStatement.class);
+        PreparedStatement historyPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement releasePstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.getAutoCommit()).thenReturn(true);
+        when(connectionMock.prepareStatement(QUERY_UPDATE_EXECUTION_STATUS)).thenReturn(updatePstmtMock);
+        when(connectionMock.prepareStatement(QUERY_APPEND_EXECUTION_HISTORY)).thenReturn(historyPstmtMock);
+        when(connectionMock.prepareStatement(QUERY_RELEASE_JOB_LOCK)).thenReturn(releasePstmtMock);
+
+        //when
+        lifecycleRepository.failExecution(context);
+
+        //then
+        verify(updatePstmtMock).setString(1, JobState.FAILED.name());
+        verify(updatePstmtMock).executeUpdate();
+        verify(historyPstmtMock).setString(3, JobState.FAILED.name());
+        verify(releasePstmtMock).executeUpdate();
+        verify(connectionMock).commit();
+    }
+
+    @Test
+    void shouldRollbackWhenFinishingExecutionFails() throws SQLException {
+        //given
+        JobExecutionContext context = context(JobState.RUNNING);
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement updatePstmtMock = mock(PreparedStatement.class);
+        PreparedStatement historyPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement releasePstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.getAutoCommit()).thenReturn(true);
+        when(connectionMock.prepareStatement(QUERY_UPDATE_EXECUTION_STATUS)).thenReturn(updatePstmtMock);
+        when(connectionMock.prepareStatement(QUERY_APPEND_EXECUTION_HISTORY)).thenReturn(historyPstmtMock);
+        when(connectionMock.prepareStatement(QUERY_RELEASE_JOB_LOCK)).thenReturn(releasePstmtMock);
+        when(releasePstmtMock.executeUpdate()).thenThrow(new SQLException());
+
+        //when
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> lifecycleRepository.completeExecution(context));
+
+        //then
+        assertEquals(String.format(FAILED_TO_FINISH_EXECUTION_MSG, "TestJob",
+                context.getJobExecution().getExecutionId(), JobState.COMPLETED), exception.getMessage());
+        verify(connectionMock).rollback();
+        verify(connectionMock, never()).commit();
+        verify(connectionMock).setAutoCommit(true);
+        verify(connectionMock).close();
+    }
+
+    @Test
+    void shouldRenewLeasesWithConfiguredColumnCodec() throws SQLException {
+        //given
+        lifecycleRepository = new JdbcJobLifecycleRepository(dataSource, SqlDialect.GENERIC, Duration.ofMinutes(1));
+        lifecycleRepository.setColumnCodec(ColumnCodec.BINARY);
+        LockMetadata lockMetadata = context(JobState.RUNNING).getLockMetadata();
+        byte[] lockId = ByteBuffer.allocate(16)
+                .putLong(lockMetadata.getLockId().getMostSignificantBits())
+                .putLong(lockMetadata.getLockId().getLeastSignificantBits())
+                .array();
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement renewPstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.prepareStatement(QUERY_RENEW_LOCK)).thenReturn(renewPstmtMock);
+        when(renewPstmtMock.executeUpdate()).thenReturn(1);
+
+        //when
+        lifecycleRepository.getLeaseRenewer().register(lockMetadata);
+        int renewed = lifecycleRepository.getLeaseRenewer().renew();
+
+        //then
+        assertEquals(1, renewed);
+        verify(renewPstmtMock).setBytes(2, lockId);
+        verify(renewPstmtMock, never()).setString(eq(2), anyString());
+
+        lifecycleRepository.close();
+    }
+
+    private static JobExecutionContext context(JobState state) {
+        return new JobExecutionContext.Builder()
+                .withJobDefinition(new JobDefinition.Builder()
+                        .withJobName("TestJob")
+                        .build())
+                .withLockMetadata(new LockMetadata.Builder()
+                        .withLockId(UUID.randomUUID())
+                        .withJobName("TestJob")
+                        .withLockedAt(LocalDateTime.now())
+                        .build())
+                .withJobExecution(new JobExecution.Builder()
+                        .withExecutionId(UUID.randomUUID())
+                        .withJobName("TestJob")
+                        .withLastRun(LocalDateTime.now())
+                        .withState(state)
+                        .build())
+                .build();
+    }
+
+    private static void mockFencingToken(Connection connectionMock, long fencingToken, int maxConcurrency)
+            throws SQLException {
+        PreparedStatement issuePstmtMock = mock(PreparedStatement.class);
+        PreparedStatement findPstmtMock = mock(PreparedStatement.class);
+        ResultSet rsMock = mock(ResultSet.class);
+
+        when(connectionMock.prepareStatement(QUERY_ISSUE_FENCING_TOKEN)).thenReturn(issuePstmtMock);
+        when(issuePstmtMock.executeUpdate()).thenReturn(1);
+        when(connectionMock.prepareStatement(QUERY_FIND_FENCING_TOKEN)).thenReturn(findPstmtMock);
+        when(findPstmtMock.executeQuery()).thenReturn(rsMock);
+        when(rsMock.next()).thenReturn(true);
+        when(rsMock.getLong(1)).thenReturn(fencingToken);
+        when(rsMock.getInt(2)).thenReturn(maxConcurrency);
+    }
+}
@@ -1,11 +1,15 @@
 package io.github.sergejsvisockis.jobs.repository;
 
+import io.github.sergejsvisockis.jobs.ColumnCodec;
+import io.github.sergejsvisockis.jobs.ColumnCodecTest;
 import io.github.sergejsvisockis.jobs.JobDefinition;
 import io.github.sergejsvisockis.jobs.JobExecution;
 import io.github.sergejsvisockis.jobs.JobState;
+import io.github.sergejsvisockis.jobs.SqlDialect;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -14,17 +18,24 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static io.github.sergejsvisockis.jobs.repository.JdbcJobRepository.FAILED_TO_CAPTURE_EXECUTION_MSG;
 import static io.github.sergejsvisockis.jobs.repository.JdbcJobRepository.FAILED_TO_COMPLETE_EXECUTION_MSG;
 import static io.github.sergejsvisockis.jobs.repository.JdbcJobRepository.FAILED_TO_FAIL_EXECUTION_MSG;
+import static io.github.sergejsvisockis.jobs.repository.JdbcJobRepository.FAILED_TO_GET_JOB_DEFINITIONS_MSG;
 import static io.github.sergejsvisockis.jobs.repository.JdbcJobRepository.FAILED_TO_GET_JOB_DEFINITION_MSG;
 import static io.github.sergejsvisockis.jobs.repository.JdbcJobRepository.FAILED_TO_GET_LAST_EXECUTION_MSG;
+import static io.github.sergejsvisockis.jobs.repository.JdbcJobRepository.FAILED_TO_PURGE_EXECUTION_HISTORY_MSG;
 import static io.github.sergejsvisockis.jobs.repository.JdbcJobRepository.FAILED_TO_UPDATE_EXECUTION;
+import static io.github.sergejsvisockis.jobs.repository.JdbcJobRepository.FAILED_TO_WRITE_EXECUTIONS_MSG;
+import static io.github.sergejsvisockis.jobs.repository.JdbcJobRepository.INVALID_PURGE_BATCH_SIZE_MSG;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -34,6 +45,7 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -45,9 +57,13 @@ class JdbcJobRepositoryTest {
     @Mock
     private DataSource dataSource;
 
-    @InjectMocks
     private JdbcJobRepository jobRepository;
 
+    @BeforeEach
+    void setUp() {
+        jobRepository = new JdbcJobRepository(dataSource, SqlDialect.GENERIC);
+    }
+
     @Test
     void shouldFetchJobDefinition() throws SQLException {
         //given
@@ -57,12 +73,13 @@ class JdbcJobRepositoryTest {
         ResultSet rsMock = mock(ResultSet.class);
 
         when(dataSource.getConnection()).thenReturn(connectionMock);
-        when(connectionMock.prepareStatement("SELECT j.job_name, j.job_description FROM job_definition j WHERE job_name = ?"))
+        when(connectionMock.prepareStatement("SELECT j.job_name, j.job_description, j.max_concurrency FROM job_definition j WHERE job_name = ?"))
                 .thenReturn(pstmtMock);
         when(pstmtMock.executeQuery()).thenReturn(rsMock);
         when(rsMock.next()).thenReturn(true);
         when(rsMock.getString(1)).thenReturn(jobName);
         when(rsMock.getString(2)).thenReturn("Test job description");
+        when(rsMock.getInt(3)).thenReturn(3);
 
         //when
         Optional<JobDefinition> jobDefinition = jobRepository.fetchJobDefinition(jobName);
@@ -70,13 +87,15 @@ class JdbcJobRepositoryTest {
         //then
         assertEquals(jobName, jobDefinition.get().getJobName());
         assertEquals("Test job description", jobDefinition.get().getJobDescription());
+        assertEquals(3, jobDefinition.get().getMaxConcurrency());
         verify(dataSource).getConnection();
-        verify(connectionMock).prepareStatement("SELECT j.job_name, j.job_description FROM job_definition j WHERE job_name = ?");
+        verify(connectionMock).prepareStatement("SELECT j.job_name, j.job_description, j.max_concurrency FROM job_definition j WHERE job_name = ?");
         verify(pstmtMock).setString(1, jobName);
         verify(pstmtMock).executeQuery();
         verify(rsMock).next();
         verify(rsMock).getString(1);
         verify(rsMock).getString(2);
+        verify(rsMock).getInt(3);
         verify(rsMock).close();
         verify(pstmtMock).close();
         verify(connectionMock).close();
@@ -91,7 +110,7 @@ class JdbcJobRepositoryTest {
         ResultSet rsMock = mock(ResultSet.class);
 
         when(dataSource.getConnection()).thenReturn(connectionMock);
-        when(connectionMock.prepareStatement("SELECT j.job_name, j.job_description FROM job_definition j WHERE job_name = ?"))
+        when(connectionMock.prepareStatement("SELECT j.job_name, j.job_description, j.max_concurrency FROM job_definition j WHERE job_name = ?"))
                 .thenReturn(pstmtMock);
         when(pstmtMock.executeQuery()).thenReturn(rsMock);
         when(rsMock.next()).thenReturn(false);
@@ -102,7 +121,7 @@ class JdbcJobRepositoryTest {
         //then
         assertTrue(jobDefinition.isEmpty());
         verify(dataSource).getConnection();
-        verify(connectionMock).prepareStatement("SELECT j.job_name, j.job_description FROM job_definition j WHERE job_name = ?");
+        verify(connectionMock).prepareStatement("SELECT j.job_name, j.job_description, j.max_concurrency FROM job_definition j WHERE job_name = ?");
         verify(pstmtMock).setString(1, jobName);
         verify(pstmtMock).executeQuery();
         verify(rsMock).next();
@@ -130,7 +149,7 @@ class JdbcJobRepositoryTest {
         //then
         assertEquals(String.format(FAILED_TO_GET_JOB_DEFINITION_MSG, jobName), exception.getMessage());
         verify(dataSource).getConnection();
-        verify(connectionMock, never()).prepareStatement("SELECT j.job_name, j.job_description FROM job_definition j WHERE job_name = ?");
+        verify(connectionMock, never()).prepareStatement("SELECT j.job_name, j.job_description, j.max_concurrency FROM job_definition j WHERE job_name = ?");
         verify(pstmtMock, never()).setString(1, jobName);
         verify(pstmtMock, never()).executeQuery();
         verify(rsMock, never()).next();
@@ -142,15 +161,71 @@ class JdbcJobRepositoryTest {
     }
 
     @Test
-    void shouldSaveNewExecution() throws SQLException {
+    void shouldFetchAllJobDefinitions() throws SQLException {
         //given
-        final String jobName = "TestJob";
         Connection connectionMock = mock(Connection.class);
         PreparedStatement pstmtMock = mock(PreparedStatement.class);
+        ResultSet rsMock = mock(ResultSet.class);
 
         when(dataSource.getConnection()).thenReturn(connectionMock);
-        when(connectionMock.prepareStatement("INSERT INTO job_execution(execution_id, job_name, last_run, state) VALUES (?, ?, ?, ?)"))
+        when(connectionMock.prepareStatement("SELECT j.job_name, j.job_description, j.max_concurrency FROM job_definition j"))
                 .thenReturn(pstmtMock);
+        when(pstmtMock.executeQuery()).thenReturn(rsMock);
+        when(rsMock.next()).thenReturn(true, true, false);
+        when(rsMock.getString(1)).thenReturn("FirstJob", "SecondJob");
+        when(rsMock.getString(2)).thenReturn("First job", "Second job");
+
+        //when
+        List<JobDefinition> jobDefinitions = jobRepository.fetchJobDefinitions();
+
+        //then
+        assertEquals(2, jobDefinitions.size());
+        assertEquals("FirstJob", jobDefinitions.get(0).getJobName());
+        assertEquals("Second job", jobDefinitions.get(1).getJobDescription());
+        verify(dataSource).getConnection();
+        verify(pstmtMock).executeQuery();
+        verify(rsMock).close();
+        verify(pstmtMock).close();
+        verify(connectionMock).close();
+    }
+
+    @Test
+    void shouldFailWithExceptionWhileFetchingAllJobDefinitions() throws SQLException {
+        //given
+        when(dataSource.getConnection()).thenThrow(new SQLException());
+
+        //when
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> jobRepository.fetchJobDefinitions());
+
+        //then
+        assertEquals(FAILED_TO_GET_JOB_DEFINITIONS_MSG, exception.getMessage());
+        verify(dataSource).getConnection();
+    }
+
+    private static final String REPLACE_LATEST_EXECUTION = "UPDATE latest_execution SET execution_id = ?, last_run = ?, state = ? WHERE job_name = ?";
+    private static final String SAVE_LATEST_EXECUTION = "INSERT INTO latest_execution(job_name, execution_id, last_run, state) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_EXECUTION_STATUS = "UPDATE latest_execution SET state = ?, last_run = ? WHERE job_name = ? AND execution_id = ?";
+    private static final String FIND_LAST_EXECUTION = "SELECT l.execution_id, l.job_name, l.last_run, l.state FROM latest_execution l WHERE l.job_name = ?";
+    private static final String APPEND_EXECUTION_HISTORY = "INSERT INTO job_execution_history(execution_id, job_name, state, recorded_at) VALUES (?, ?, ?, ?)";
+    private static final String FIND_EXPIRED_HISTORY = "SELECT h.execution_id, h.state, h.recorded_at FROM job_execution_history h WHERE h.recorded_at < ?";
+    private static final String PURGE_HISTORY_ENTRY = "DELETE FROM job_execution_history WHERE execution_id = ? AND state = ? AND recorded_at = ?";
+
+    @Test
+    void shouldSaveNewExecution() throws SQLException {
+        //given
+        final String jobName = "TestJob";
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement replacePstmtMock = mock(PreparedStatement.class);
+        PreparedStatement savePstmtMock = mock(PreparedStatement.class);
+        PreparedStatement historyPstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.getAutoCommit()).thenReturn(true);
+        when(connectionMock.prepareStatement(REPLACE_LATEST_EXECUTION)).thenReturn(replacePstmtMock);
+        when(replacePstmtMock.executeUpdate()).thenReturn(0);
+        when(connectionMock.prepareStatement(SAVE_LATEST_EXECUTION)).thenReturn(savePstmtMock);
+        when(connectionMock.prepareStatement(APPEND_EXECUTION_HISTORY)).thenReturn(historyPstmtMock);
 
         //when
         JobExecution jobExecution = jobRepository.saveNewExecution(jobName);
@@ -161,13 +236,52 @@ class JdbcJobRepositoryTest {
         assertNotNull(jobExecution.getLastRun());
         assertEquals(JobState.RUNNING, jobExecution.getState());
         verify(dataSource).getConnection();
-        verify(connectionMock).prepareStatement("INSERT INTO job_execution(execution_id, job_name, last_run, state) VALUES (?, ?, ?, ?)");
-        verify(pstmtMock).setString(eq(1), anyString());
-        verify(pstmtMock).setString(2, jobName);
-        verify(pstmtMock).setTimestamp(eq(3), any(Timestamp.class));
-        verify(pstmtMock).setString(4, JobState.RUNNING.name());
-        verify(pstmtMock).executeUpdate();
-        verify(pstmtMock).close();
+        verify(replacePstmtMock).setString(4, jobName);
+        verify(savePstmtMock).setString(1, jobName);
+        verify(savePstmtMock).setString(2, jobExecution.getExecutionId().toString());
+        verify(savePstmtMock).setTimestamp(3, Timestamp.valueOf(jobExecution.getLastRun()));
+        verify(savePstmtMock).setString(4, JobState.RUNNING.name());
+        verify(savePstmtMock).executeUpdate();
+        verify(historyPstmtMock).setString(1, jobExecution.getExecutionId().toString());
+        verify(historyPstmtMock).setString(2, jobName);
+        verify(historyPstmtMock).setString(3, JobState.RUNNING.name());
+        verify(historyPstmtMock).setTimestamp(4, Timestamp.valueOf(jobExecution.getLastRun()));
+        verify(historyPstmtMock).executeUpdate();
+        InOrder inOrder = inOrder(connectionMock);
+        inOrder.verify(connectionMock).setAutoCommit(false);
+        inOrder.verify(connectionMock).commit();
+        inOrder.verify(connectionMock).setAutoCommit(true);
+        inOrder.verify(connectionMock).close();
+    }
+
+    @Test
+    void shouldSaveNewExecutionWithSingleUpsert() throws SQLException {
+        //given
+        final String jobName = "TestJob";
+        final String upsert = "MERGE INTO latest_execution(job_name, execution_id, last_run, state) KEY (job_name) VALUES (?, ?, ?, ?)";
+        jobRepository = new JdbcJobRepository(dataSource, SqlDialect.H2);
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement upsertPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement historyPstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.prepareStatement(upsert)).thenReturn(upsertPstmtMock);
+        when(connectionMock.prepareStatement(APPEND_EXECUTION_HISTORY)).thenReturn(historyPstmtMock);
+
+        //when
+        JobExecution jobExecution = jobRepository.saveNewExecution(jobName);
+
+        //then
+        verify(upsertPstmtMock).setString(1, jobName);
+        verify(upsertPstmtMock).setString(2, jobExecution.getExecutionId().toString());
+        verify(upsertPstmtMock).setTimestamp(3, Timestamp.valueOf(jobExecution.getLastRun()));
+        verify(upsertPstmtMock).setString(4, JobState.RUNNING.name());
+        verify(upsertPstmtMock).executeUpdate();
+        verify(historyPstmtMock).executeUpdate();
+        verify(connectionMock, never()).prepareStatement(REPLACE_LATEST_EXECUTION);
+        verify(connectionMock, never()).prepareStatement(SAVE_LATEST_EXECUTION);
+        verify(connectionMock).commit();
         verify(connectionMock).close();
     }
 
@@ -175,8 +289,6 @@ class JdbcJobRepositoryTest {
     void shouldFailWithExceptionWhenSavingANewExecution() throws SQLException {
         //given
         final String jobName = "TestJob";
-        Connection connectionMock = mock(Connection.class);
-        PreparedStatement pstmtMock = mock(PreparedStatement.class);
 
         when(dataSource.getConnection()).thenThrow(new SQLException());
 
@@ -187,24 +299,46 @@ class JdbcJobRepositoryTest {
         //given
         assertEquals(String.format(FAILED_TO_CAPTURE_EXECUTION_MSG, jobName), exception.getMessage());
         verify(dataSource).getConnection();
-        verify(connectionMock, never()).prepareStatement("INSERT INTO job_execution(execution_id, job_name, last_run, state) VALUES (?, ?, ?, ?)");
-        verify(pstmtMock, never()).setString(eq(1), anyString());
-        verify(pstmtMock, never()).setString(2, jobName);
-        verify(pstmtMock, never()).setTimestamp(eq(3), any(Timestamp.class));
-        verify(pstmtMock, never()).setString(4, JobState.RUNNING.name());
-        verify(pstmtMock, never()).executeUpdate();
-        verify(pstmtMock, never()).close();
-        verify(connectionMock, never()).close();
+    }
+
+    @Test
+    void shouldRollbackWhenAppendingHistoryFails() throws SQLException {
+        //given
+        final String jobName = "TestJob";
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement replacePstmtMock = mock(PreparedStatement.class);
+        PreparedStatement historyPstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.getAutoCommit()).thenReturn(true);
+        when(connectionMock.prepareStatement(REPLACE_LATEST_EXECUTION)).thenReturn(replacePstmtMock);
+        when(replacePstmtMock.executeUpdate()).thenReturn(1);
+        when(connectionMock.prepareStatement(APPEND_EXECUTION_HISTORY)).thenReturn(historyPstmtMock);
+        when(historyPstmtMock.executeUpdate()).thenThrow(new SQLException());
+
+        //when
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> jobRepository.saveNewExecution(jobName));
+
+        //then
+        assertEquals(String.format(FAILED_TO_CAPTURE_EXECUTION_MSG, jobName), exception.getMessage());
+        verify(connectionMock, never()).prepareStatement(SAVE_LATEST_EXECUTION);
+        verify(connectionMock, never()).commit();
+        verify(connectionMock).rollback();
+        verify(connectionMock).setAutoCommit(true);
+        verify(connectionMock).close();
     }
 
     @Test
     void shouldUpdateExecution() throws SQLException {
         //given
+        final String jobName = "TestJob";
         final JobState jobState = JobState.RUNNING;
         final LocalDateTime lastRun = LocalDateTime.now();
         final UUID executionId = UUID.fromString("7220bd97-bf66-4231-8465-c28ea0752e66");
 
         final JobExecution execution = new JobExecution.Builder()
+                .withJobName(jobName)
                 .withState(jobState)
                 .withLastRun(lastRun)
                 .withExecutionId(executionId)
@@ -212,10 +346,11 @@ class JdbcJobRepositoryTest {
 
         Connection connectionMock = mock(Connection.class);
         PreparedStatement pstmtMock = mock(PreparedStatement.class);
+        PreparedStatement historyPstmtMock = mock(PreparedStatement.class);
 
         when(dataSource.getConnection()).thenReturn(connectionMock);
-        when(connectionMock.prepareStatement("UPDATE job_execution SET state = ?, last_run = ? WHERE execution_id = ?"))
-                .thenReturn(pstmtMock);
+        when(connectionMock.prepareStatement(UPDATE_EXECUTION_STATUS)).thenReturn(pstmtMock);
+        when(connectionMock.prepareStatement(APPEND_EXECUTION_HISTORY)).thenReturn(historyPstmtMock);
 
         //when
         JobExecution jobExecution = jobRepository.updateExecution(execution);
@@ -225,12 +360,17 @@ class JdbcJobRepositoryTest {
         assertEquals(lastRun, jobExecution.getLastRun());
         assertEquals(executionId, jobExecution.getExecutionId());
         verify(dataSource).getConnection();
-        verify(connectionMock).prepareStatement("UPDATE job_execution SET state = ?, last_run = ? WHERE execution_id = ?");
         verify(pstmtMock).setString(1, jobState.name());
         verify(pstmtMock).setTimestamp(2, Timestamp.valueOf(lastRun));
-        verify(pstmtMock).setString(3, executionId.toString());
+        verify(pstmtMock).setString(3, jobName);
+        verify(pstmtMock).setString(4, executionId.toString());
         verify(pstmtMock).executeUpdate();
         verify(pstmtMock).close();
+        verify(historyPstmtMock).setString(3, jobState.name());
+        verify(historyPstmtMock).setTimestamp(4, Timestamp.valueOf(lastRun));
+        verify(historyPstmtMock).executeUpdate();
+        verify(historyPstmtMock).close();
+        verify(connectionMock).commit();
         verify(connectionMock).close();
     }
 
@@ -244,9 +384,6 @@ class JdbcJobRepositoryTest {
         when(jobExecutionMock.getJobName()).thenReturn(jobName);
         when(jobExecutionMock.getExecutionId()).thenReturn(executionId);
 
-        Connection connectionMock = mock(Connection.class);
-        PreparedStatement pstmtMock = mock(PreparedStatement.class);
-
         when(dataSource.getConnection()).thenThrow(new SQLException());
 
         //when
@@ -256,13 +393,6 @@ class JdbcJobRepositoryTest {
         //then
         assertEquals(String.format(FAILED_TO_UPDATE_EXECUTION, jobName, executionId), exception.getMessage());
         verify(dataSource).getConnection();
-        verify(connectionMock, never()).prepareStatement("UPDATE job_execution SET state = ?, last_run = ? WHERE execution_id = ?");
-        verify(pstmtMock, never()).setString(eq(1), anyString());
-        verify(pstmtMock, never()).setTimestamp(eq(2), any(Timestamp.class));
-        verify(pstmtMock, never()).setString(3, executionId.toString());
-        verify(pstmtMock, never()).executeUpdate();
-        verify(pstmtMock, never()).close();
-        verify(connectionMock, never()).close();
     }
 
     @Test
@@ -270,18 +400,15 @@ class JdbcJobRepositoryTest {
         //given
         final String jobName = "TestJob";
         Connection connectionMock = mock(Connection.class);
-        PreparedStatement pstmtFindMock = mock(PreparedStatement.class);
-        PreparedStatement pstmtSaveMock = mock(PreparedStatement.class);
-        ResultSet rsMock = mock(ResultSet.class);
+        PreparedStatement replacePstmtMock = mock(PreparedStatement.class);
+        PreparedStatement savePstmtMock = mock(PreparedStatement.class);
+        PreparedStatement historyPstmtMock = mock(PreparedStatement.class);
 
         when(dataSource.getConnection()).thenReturn(connectionMock);
-        when(connectionMock.prepareStatement("SELECT j.execution_id, j.job_name, j.last_run, j.state FROM job_execution j WHERE job_name = ?"))
-                .thenReturn(pstmtFindMock);
-        when(pstmtFindMock.executeQuery()).thenReturn(rsMock);
-        when(rsMock.next()).thenReturn(false);
-
-        when(connectionMock.prepareStatement("INSERT INTO job_execution(execution_id, job_name, last_run, state) VALUES (?, ?, ?, ?)"))
-                .thenReturn(pstmtSaveMock);
+        when(connectionMock.prepareStatement(REPLACE_LATEST_EXECUTION)).thenReturn(replacePstmtMock);
+        when(replacePstmtMock.executeUpdate()).thenReturn(0);
+        when(connectionMock.prepareStatement(SAVE_LATEST_EXECUTION)).thenReturn(savePstmtMock);
+        when(connectionMock.prepareStatement(APPEND_EXECUTION_HISTORY)).thenReturn(historyPstmtMock);
 
         //when
         JobExecution jobExecution = jobRepository.captureExecution(jobName);
@@ -289,80 +416,46 @@ class JdbcJobRepositoryTest {
         //then
         assertNotNull(jobExecution.getExecutionId());
         assertEquals(jobName, jobExecution.getJobName());
-        assertNotNull(jobExecution.getLastRun());
         assertEquals(JobState.RUNNING, jobExecution.getState());
-
-        verify(dataSource, times(2)).getConnection();
-        verify(connectionMock).prepareStatement("SELECT j.execution_id, j.job_name, j.last_run, j.state FROM job_execution j WHERE job_name = ?");
-        verify(pstmtFindMock).setString(1, jobName);
-        verify(pstmtFindMock).executeQuery();
-        verify(rsMock).next();
-        verify(rsMock).close();
-        verify(pstmtFindMock).close();
-
-        verify(connectionMock).prepareStatement("INSERT INTO job_execution(execution_id, job_name, last_run, state) VALUES (?, ?, ?, ?)");
-        verify(pstmtSaveMock).setString(eq(1), anyString());
-        verify(pstmtSaveMock).setString(2, jobName);
-        verify(pstmtSaveMock).setTimestamp(eq(3), any(Timestamp.class));
-        verify(pstmtSaveMock).setString(4, JobState.RUNNING.name());
-        verify(pstmtSaveMock).executeUpdate();
-        verify(pstmtSaveMock).close();
-        verify(connectionMock, times(2)).close();
+        verify(dataSource).getConnection();
+        verify(connectionMock, never()).prepareStatement(FIND_LAST_EXECUTION);
+        verify(savePstmtMock).executeUpdate();
+        verify(historyPstmtMock).executeUpdate();
+        verify(connectionMock).commit();
+        verify(connectionMock).close();
     }
 
     @Test
     void shouldCaptureExecutionWhenExistingExecution() throws SQLException {
         //given
         final String jobName = "TestJob";
-        final UUID executionId = UUID.randomUUID();
-        final Timestamp lastRun = new Timestamp(System.currentTimeMillis() - 10000);
-
         Connection connectionMock = mock(Connection.class);
-        PreparedStatement pstmtFindMock = mock(PreparedStatement.class);
-        PreparedStatement pstmtUpdateMock = mock(PreparedStatement.class);
-        ResultSet rsMock = mock(ResultSet.class);
+        PreparedStatement replacePstmtMock = mock(PreparedStatement.class);
+        PreparedStatement historyPstmtMock = mock(PreparedStatement.class);
 
         when(dataSource.getConnection()).thenReturn(connectionMock);
-        when(connectionMock.prepareStatement("SELECT j.execution_id, j.job_name, j.last_run, j.state FROM job_execution j WHERE job_name = ?"))
-                .thenReturn(pstmtFindMock);
-        when(pstmtFindMock.executeQuery()).thenReturn(rsMock);
-        when(rsMock.next()).thenReturn(true);
-        when(rsMock.getString(1)).thenReturn(executionId.toString());
-        when(rsMock.getString(2)).thenReturn(jobName);
-        when(rsMock.getTimestamp(3)).thenReturn(lastRun);
-        when(rsMock.getString(4)).thenReturn(JobState.COMPLETED.name());
-
-        when(connectionMock.prepareStatement("UPDATE job_execution SET state = ?, last_run = ? WHERE execution_id = ?"))
-                .thenReturn(pstmtUpdateMock);
+        when(connectionMock.prepareStatement(REPLACE_LATEST_EXECUTION)).thenReturn(replacePstmtMock);
+        when(replacePstmtMock.executeUpdate()).thenReturn(1);
+        when(connectionMock.prepareStatement(APPEND_EXECUTION_HISTORY)).thenReturn(historyPstmtMock);
 
         //when
         JobExecution jobExecution = jobRepository.captureExecution(jobName);
 
         //then
-        assertEquals(executionId, jobExecution.getExecutionId());
+        assertNotNull(jobExecution.getExecutionId());
         assertEquals(jobName, jobExecution.getJobName());
         assertNotNull(jobExecution.getLastRun());
         assertEquals(JobState.RUNNING, jobExecution.getState());
-
-        verify(dataSource, times(2)).getConnection();
-        verify(connectionMock).prepareStatement("SELECT j.execution_id, j.job_name, j.last_run, j.state FROM job_execution j WHERE job_name = ?");
-        verify(pstmtFindMock).setString(1, jobName);
-        verify(pstmtFindMock).executeQuery();
-        verify(rsMock).next();
-        verify(rsMock).getString(1);
-        verify(rsMock).getString(2);
-        verify(rsMock).getTimestamp(3);
-        verify(rsMock).getString(4);
-        verify(rsMock).close();
-        verify(pstmtFindMock).close();
-
-        verify(connectionMock).prepareStatement("UPDATE job_execution SET state = ?, last_run = ? WHERE execution_id = ?");
-        verify(pstmtUpdateMock).setString(1, JobState.RUNNING.name());
-        verify(pstmtUpdateMock).setTimestamp(eq(2), any(Timestamp.class));
-        verify(pstmtUpdateMock).setString(3, executionId.toString());
-        verify(pstmtUpdateMock).executeUpdate();
-        verify(pstmtUpdateMock).close();
-        verify(connectionMock, times(2)).close();
+        verify(dataSource).getConnection();
+        verify(replacePstmtMock).setString(1, jobExecution.getExecutionId().toString());
+        verify(replacePstmtMock).setTimestamp(2, Timestamp.valueOf(jobExecution.getLastRun()));
+        verify(replacePstmtMock).setString(3, JobState.RUNNING.name());
+        verify(replacePstmtMock).setString(4, jobName);
+        verify(connectionMock, never()).prepareStatement(SAVE_LATEST_EXECUTION);
+        verify(historyPstmtMock).setString(1, jobExecution.getExecutionId().toString());
+        verify(historyPstmtMock).executeUpdate();
+        verify(connectionMock).commit();
+        verify(connectionMock).close();
     }
 
     @Test
@@ -378,7 +471,7 @@ class JdbcJobRepositoryTest {
                 () -> jobRepository.captureExecution(jobName));
 
         //then
-        assertEquals(String.format(FAILED_TO_GET_LAST_EXECUTION_MSG, jobName), exception.getMessage());
+        assertEquals(String.format(FAILED_TO_CAPTURE_EXECUTION_MSG, jobName), exception.getMessage());
         verify(dataSource).getConnection();
         verify(connectionMock, never()).prepareStatement(anyString());
     }
@@ -395,8 +488,7 @@ class JdbcJobRepositoryTest {
         ResultSet rsMock = mock(ResultSet.class);
 
         when(dataSource.getConnection()).thenReturn(connectionMock);
-        when(connectionMock.prepareStatement("SELECT j.execution_id, j.job_name, j.last_run, j.state FROM job_execution j WHERE job_name = ?"))
-                .thenReturn(pstmtMock);
+        when(connectionMock.prepareStatement(FIND_LAST_EXECUTION)).thenReturn(pstmtMock);
         when(pstmtMock.executeQuery()).thenReturn(rsMock);
         when(rsMock.next()).thenReturn(true);
         when(rsMock.getString(1)).thenReturn(executionId.toString());
@@ -415,7 +507,7 @@ class JdbcJobRepositoryTest {
         assertEquals(JobState.COMPLETED, jobExecution.get().getState());
 
         verify(dataSource).getConnection();
-        verify(connectionMock).prepareStatement("SELECT j.execution_id, j.job_name, j.last_run, j.state FROM job_execution j WHERE job_name = ?");
+        verify(connectionMock).prepareStatement(FIND_LAST_EXECUTION);
         verify(pstmtMock).setString(1, jobName);
         verify(pstmtMock).executeQuery();
         verify(rsMock).next();
@@ -438,8 +530,7 @@ class JdbcJobRepositoryTest {
         ResultSet rsMock = mock(ResultSet.class);
 
         when(dataSource.getConnection()).thenReturn(connectionMock);
-        when(connectionMock.prepareStatement("SELECT j.execution_id, j.job_name, j.last_run, j.state FROM job_execution j WHERE job_name = ?"))
-                .thenReturn(pstmtMock);
+        when(connectionMock.prepareStatement(FIND_LAST_EXECUTION)).thenReturn(pstmtMock);
         when(pstmtMock.executeQuery()).thenReturn(rsMock);
         when(rsMock.next()).thenReturn(false);
 
@@ -450,7 +541,7 @@ class JdbcJobRepositoryTest {
         assertTrue(jobExecution.isEmpty());
 
         verify(dataSource).getConnection();
-        verify(connectionMock).prepareStatement("SELECT j.execution_id, j.job_name, j.last_run, j.state FROM job_execution j WHERE job_name = ?");
+        verify(connectionMock).prepareStatement(FIND_LAST_EXECUTION);
         verify(pstmtMock).setString(1, jobName);
         verify(pstmtMock).executeQuery();
         verify(rsMock).next();
@@ -493,22 +584,28 @@ class JdbcJobRepositoryTest {
 
         Connection connectionMock = mock(Connection.class);
         PreparedStatement pstmtMock = mock(PreparedStatement.class);
+        PreparedStatement historyPstmtMock = mock(PreparedStatement.class);
 
         when(dataSource.getConnection()).thenReturn(connectionMock);
-        when(connectionMock.prepareStatement("UPDATE job_execution SET state = ?, last_run = ? WHERE execution_id = ?"))
-                .thenReturn(pstmtMock);
+        when(connectionMock.prepareStatement(UPDATE_EXECUTION_STATUS)).thenReturn(pstmtMock);
+        when(connectionMock.prepareStatement(APPEND_EXECUTION_HISTORY)).thenReturn(historyPstmtMock);
 
         //when
         jobRepository.failExecution(jobExecution);
 
         //then
         verify(dataSource).getConnection();
-        verify(connectionMock).prepareStatement("UPDATE job_execution SET state = ?, last_run = ? WHERE execution_id = ?");
         verify(pstmtMock).setString(1, JobState.FAILED.name());
         verify(pstmtMock).setTimestamp(eq(2), any(Timestamp.class));
-        verify(pstmtMock).setString(3, executionId.toString());
+        verify(pstmtMock).setString(3, jobName);
+        verify(pstmtMock).setString(4, executionId.toString());
         verify(pstmtMock).executeUpdate();
         verify(pstmtMock).close();
+        verify(historyPstmtMock).setString(1, executionId.toString());
+        verify(historyPstmtMock).setString(2, jobName);
+        verify(historyPstmtMock).setString(3, JobState.FAILED.name());
+        verify(historyPstmtMock).executeUpdate();
+        verify(connectionMock).commit();
         verify(connectionMock).close();
     }
 
@@ -525,7 +622,6 @@ class JdbcJobRepositoryTest {
                 .build();
 
         Connection connectionMock = mock(Connection.class);
-        PreparedStatement pstmtMock = mock(PreparedStatement.class);
 
         when(dataSource.getConnection()).thenThrow(new SQLException());
 
@@ -537,7 +633,6 @@ class JdbcJobRepositoryTest {
         assertEquals(String.format(FAILED_TO_FAIL_EXECUTION_MSG, jobName, executionId), exception.getMessage());
         verify(dataSource).getConnection();
         verify(connectionMock, never()).prepareStatement(anyString());
-        verify(pstmtMock, never()).executeUpdate();
     }
 
     @Test
@@ -554,22 +649,26 @@ class JdbcJobRepositoryTest {
 
         Connection connectionMock = mock(Connection.class);
         PreparedStatement pstmtMock = mock(PreparedStatement.class);
+        PreparedStatement historyPstmtMock = mock(PreparedStatement.class);
 
         when(dataSource.getConnection()).thenReturn(connectionMock);
-        when(connectionMock.prepareStatement("UPDATE job_execution SET state = ?, last_run = ? WHERE execution_id = ?"))
-                .thenReturn(pstmtMock);
+        when(connectionMock.prepareStatement(UPDATE_EXECUTION_STATUS)).thenReturn(pstmtMock);
+        when(connectionMock.prepareStatement(APPEND_EXECUTION_HISTORY)).thenReturn(historyPstmtMock);
 
         //when
         jobRepository.completeExecution(jobExecution);
 
         //then
         verify(dataSource).getConnection();
-        verify(connectionMock).prepareStatement("UPDATE job_execution SET state = ?, last_run = ? WHERE execution_id = ?");
         verify(pstmtMock).setString(1, JobState.COMPLETED.name());
         verify(pstmtMock).setTimestamp(eq(2), any(Timestamp.class));
-        verify(pstmtMock).setString(3, executionId.toString());
+        verify(pstmtMock).setString(3, jobName);
+        verify(pstmtMock).setString(4, executionId.toString());
         verify(pstmtMock).executeUpdate();
         verify(pstmtMock).close();
+        verify(historyPstmtMock).setString(3, JobState.COMPLETED.name());
+        verify(historyPstmtMock).executeUpdate();
+        verify(connectionMock).commit();
         verify(connectionMock).close();
     }
 
@@ -585,25 +684,11 @@ class JdbcJobRepositoryTest {
                 .withState(JobState.FAILED)
                 .build();
 
-        Connection connectionMock = mock(Connection.class);
-        PreparedStatement pstmtMock = mock(PreparedStatement.class);
-
-        when(dataSource.getConnection()).thenReturn(connectionMock);
-        when(connectionMock.prepareStatement("UPDATE job_execution SET state = ?, last_run = ? WHERE execution_id = ?"))
-                .thenReturn(pstmtMock);
-
         //when
         jobRepository.completeExecution(jobExecution);
 
         //then
-        verify(dataSource).getConnection();
-        verify(connectionMock).prepareStatement("UPDATE job_execution SET state = ?, last_run = ? WHERE execution_id = ?");
-        verify(pstmtMock, never()).setString(anyInt(), anyString());
-        verify(pstmtMock, never()).setTimestamp(anyInt(), any(Timestamp.class));
-        verify(pstmtMock, never()).setString(anyInt(), anyString());
-        verify(pstmtMock, never()).executeUpdate();
-        verify(pstmtMock).close();
-        verify(connectionMock).close();
+        verify(dataSource, never()).getConnection();
     }
 
     @Test
@@ -619,7 +704,6 @@ class JdbcJobRepositoryTest {
                 .build();
 
         Connection connectionMock = mock(Connection.class);
-        PreparedStatement pstmtMock = mock(PreparedStatement.class);
 
         when(dataSource.getConnection()).thenThrow(new SQLException());
 
@@ -631,6 +715,226 @@ class JdbcJobRepositoryTest {
         assertEquals(String.format(FAILED_TO_COMPLETE_EXECUTION_MSG, jobName, executionId), exception.getMessage());
         verify(dataSource).getConnection();
         verify(connectionMock, never()).prepareStatement(anyString());
-        verify(pstmtMock, never()).executeUpdate();
+    }
+
+    @Test
+    void shouldQueueStateChangesAndWriteThemInBatches() throws SQLException {
+        //given
+        final String jobName = "TestJob";
+        jobRepository = new JdbcJobRepository(dataSource, SqlDialect.GENERIC, 100, Duration.ofHours(1));
+
+        JobExecution first = new JobExecution.Builder()
+                .withExecutionId(UUID.randomUUID())
+                .withJobName(jobName)
+                .withState(JobState.RUNNING)
+                .build();
+        JobExecution second = new JobExecution.Builder()
+                .withExecutionId(UUID.randomUUID())
+                .withJobName(jobName)
+                .withState(JobState.RUNNING)
+                .build();
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement updatePstmtMock = mock(PreparedStatement.class);
+        PreparedStatement historyPstmtMock = mock(PreparedStatement.class);
+
+        //when
+        jobRepository.completeExecution(first);
+        jobRepository.failExecution(second);
+
+        //then
+        verify(dataSource, never()).getConnection();
+
+        //given
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.getAutoCommit()).thenReturn(true);
+        when(connectionMock.prepareStatement(UPDATE_EXECUTION_STATUS)).thenReturn(updatePstmtMock);
+        when(connectionMock.prepareStatement(APPEND_EXECUTION_HISTORY)).thenReturn(historyPstmtMock);
+
+        //when
+        jobRepository.close();
+
+        //then
+        verify(dataSource).getConnection();
+        InOrder inOrder = inOrder(updatePstmtMock);
+        inOrder.verify(updatePstmtMock).setString(1, JobState.COMPLETED.name());
+        inOrder.verify(updatePstmtMock).setString(4, first.getExecutionId().toString());
+        inOrder.verify(updatePstmtMock).addBatch();
+        inOrder.verify(updatePstmtMock).setString(1, JobState.FAILED.name());
+        inOrder.verify(updatePstmtMock).setString(4, second.getExecutionId().toString());
+        inOrder.verify(updatePstmtMock).addBatch();
+        inOrder.verify(updatePstmtMock).executeBatch();
+        verify(historyPstmtMock, times(2)).addBatch();
+        verify(historyPstmtMock).executeBatch();
+        verify(updatePstmtMock, never()).executeUpdate();
+        verify(connectionMock).commit();
+        verify(connectionMock).close();
+    }
+
+    @Test
+    void shouldKeepQueuedStateChangesWhenWritingFails() throws SQLException {
+        //given
+        final String jobName = "TestJob";
+        final UUID executionId = UUID.randomUUID();
+        jobRepository = new JdbcJobRepository(dataSource, SqlDialect.GENERIC, 100, Duration.ofHours(1));
+
+        JobExecution jobExecution = new JobExecution.Builder()
+                .withExecutionId(executionId)
+                .withJobName(jobName)
+                .withState(JobState.RUNNING)
+                .build();
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement updatePstmtMock = mock(PreparedStatement.class);
+        PreparedStatement historyPstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenThrow(new SQLException()).thenReturn(connectionMock);
+        when(connectionMock.prepareStatement(UPDATE_EXECUTION_STATUS)).thenReturn(updatePstmtMock);
+        when(connectionMock.prepareStatement(APPEND_EXECUTION_HISTORY)).thenReturn(historyPstmtMock);
+
+        jobRepository.completeExecution(jobExecution);
+
+        //when
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> jobRepository.flush());
+        jobRepository.close();
+
+        //then
+        assertEquals(String.format(FAILED_TO_WRITE_EXECUTIONS_MSG, 1), exception.getMessage());
+        verify(updatePstmtMock).setString(4, executionId.toString());
+        verify(updatePstmtMock).executeBatch();
+        verify(connectionMock).commit();
+    }
+
+    @Test
+    void shouldBindAndReadCompactColumns() throws SQLException {
+        //given
+        final String jobName = "TestJob";
+        final UUID executionId = UUID.randomUUID();
+        final Timestamp lastRun = new Timestamp(System.currentTimeMillis());
+        jobRepository.setColumnCodec(ColumnCodec.BINARY);
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement findPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement updatePstmtMock = mock(PreparedStatement.class);
+        PreparedStatement historyPstmtMock = mock(PreparedStatement.class);
+        ResultSet rsMock = mock(ResultSet.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.prepareStatement(FIND_LAST_EXECUTION)).thenReturn(findPstmtMock);
+        when(findPstmtMock.executeQuery()).thenReturn(rsMock);
+        when(rsMock.next()).thenReturn(true);
+        when(rsMock.getBytes(1)).thenReturn(ColumnCodecTest.bytes(executionId));
+        when(rsMock.getString(2)).thenReturn(jobName);
+        when(rsMock.getTimestamp(3)).thenReturn(lastRun);
+        when(rsMock.getShort(4)).thenReturn((short) JobState.RUNNING.getCode());
+        when(connectionMock.prepareStatement(UPDATE_EXECUTION_STATUS)).thenReturn(updatePstmtMock);
+        when(connectionMock.prepareStatement(APPEND_EXECUTION_HISTORY)).thenReturn(historyPstmtMock);
+
+        //when
+        JobExecution jobExecution = jobRepository.findLastExecution(jobName).orElseThrow();
+        jobRepository.completeExecution(jobExecution);
+
+        //then
+        assertEquals(executionId, jobExecution.getExecutionId());
+        assertEquals(JobState.RUNNING, jobExecution.getState());
+        verify(rsMock, never()).getString(1);
+        verify(updatePstmtMock).setShort(1, (short) JobState.COMPLETED.getCode());
+        verify(updatePstmtMock).setBytes(4, ColumnCodecTest.bytes(executionId));
+        verify(historyPstmtMock).setBytes(1, ColumnCodecTest.bytes(executionId));
+        verify(historyPstmtMock).setShort(3, (short) JobState.COMPLETED.getCode());
+    }
+
+    @Test
+    void shouldPurgeExecutionHistoryInBatches() throws SQLException {
+        //given
+        final LocalDateTime olderThan = LocalDateTime.now().minusDays(30);
+        final Timestamp recordedAt = Timestamp.valueOf(olderThan.minusDays(1));
+        final UUID first = UUID.randomUUID();
+        final UUID second = UUID.randomUUID();
+
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement findPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement purgePstmtMock = mock(PreparedStatement.class);
+        ResultSet firstRsMock = mock(ResultSet.class);
+        ResultSet secondRsMock = mock(ResultSet.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.getAutoCommit()).thenReturn(true);
+        when(connectionMock.prepareStatement(FIND_EXPIRED_HISTORY)).thenReturn(findPstmtMock);
+        when(findPstmtMock.executeQuery()).thenReturn(firstRsMock, secondRsMock);
+        // both entries of the first run come in the first chunk, the last one of the second run in the next one
+        when(firstRsMock.next()).thenReturn(true, true, false);
+        when(firstRsMock.getString(1)).thenReturn(first.toString(), first.toString());
+        when(firstRsMock.getString(2)).thenReturn(JobState.RUNNING.name(), JobState.COMPLETED.name());
+        when(firstRsMock.getTimestamp(3)).thenReturn(recordedAt);
+        when(secondRsMock.next()).thenReturn(true, false);
+        when(secondRsMock.getString(1)).thenReturn(second.toString());
+        when(secondRsMock.getString(2)).thenReturn(JobState.FAILED.name());
+        when(secondRsMock.getTimestamp(3)).thenReturn(recordedAt);
+        when(connectionMock.prepareStatement(PURGE_HISTORY_ENTRY)).thenReturn(purgePstmtMock);
+        when(purgePstmtMock.executeBatch()).thenReturn(new int[]{1, 1}, new int[]{Statement.SUCCESS_NO_INFO});
+
+        //when
+        int purged = jobRepository.purgeExecutionHistory(olderThan, 2);
+
+        //then
+        assertEquals(3, purged);
+        verify(findPstmtMock, times(2)).setMaxRows(2);
+        verify(findPstmtMock, times(2)).setTimestamp(1, Timestamp.valueOf(olderThan));
+        verify(purgePstmtMock, times(2)).setString(1, first.toString());
+        verify(purgePstmtMock).setString(2, JobState.RUNNING.name());
+        verify(purgePstmtMock).setString(2, JobState.COMPLETED.name());
+        verify(purgePstmtMock).setString(1, second.toString());
+        verify(purgePstmtMock).setString(2, JobState.FAILED.name());
+        verify(purgePstmtMock, times(3)).setTimestamp(3, recordedAt);
+        verify(purgePstmtMock, times(3)).addBatch();
+        verify(connectionMock, never()).commit();
+        verify(connectionMock).close();
+    }
+
+    @Test
+    void shouldStopPurgingWhenNoHistoryLeft() throws SQLException {
+        //given
+        Connection connectionMock = mock(Connection.class);
+        PreparedStatement findPstmtMock = mock(PreparedStatement.class);
+        ResultSet rsMock = mock(ResultSet.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.prepareStatement(FIND_EXPIRED_HISTORY)).thenReturn(findPstmtMock);
+        when(findPstmtMock.executeQuery()).thenReturn(rsMock);
+        when(rsMock.next()).thenReturn(false);
+
+        //when
+        int purged = jobRepository.purgeExecutionHistory(LocalDateTime.now(), 100);
+
+        //then
+        assertEquals(0, purged);
+        verify(connectionMock).prepareStatement(FIND_EXPIRED_HISTORY);
+        verify(connectionMock).close();
+    }
+
+    @Test
+    void shouldRejectInvalidPurgeBatchSize() {
+        //when
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> jobRepository.purgeExecutionHistory(LocalDateTime.now(), 0));
+
+        //then
+        assertEquals(String.format(INVALID_PURGE_BATCH_SIZE_MSG, 0), exception.getMessage());
+    }
+
+    @Test
+    void shouldFailWithExceptionWhenPurgingExecutionHistory() throws SQLException {
+        //given
+        final LocalDateTime olderThan = LocalDateTime.now();
+
+        when(dataSource.getConnection()).thenThrow(new SQLException());
+
+        //when
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> jobRepository.purgeExecutionHistory(olderThan, 100));
+
+        //then
+        assertEquals(String.format(FAILED_TO_PURGE_EXECUTION_HISTORY_MSG, olderThan), exception.getMessage());
     }
 }
@@ -0,0 +1,130 @@
+package io.github.sergejsvisockis.jobs.repository;
+
+import io.github.sergejsvisockis.jobs.JobDefinition;
+import io.github.sergejsvisockis.jobs.JobExecution;
+import io.github.sergejsvisockis.jobs.JobState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class TieredJobRepositoryTest {
+
+    private static final String JOB_NAME = "TestJob";
+    private static final String OTHER_JOB_NAME = "OtherJob";
+
+    private InMemoryJobRepository delegate;
+    private TieredJobRepository jobRepository;
+
+    @BeforeEach
+    void setUp() {
+        delegate = spy(new InMemoryJobRepository());
+        delegate.saveJobDefinition(new JobDefinition.Builder().withJobName(JOB_NAME).build());
+        delegate.saveJobDefinition(new JobDefinition.Builder().withJobName(OTHER_JOB_NAME).build());
+        jobRepository = new TieredJobRepository(delegate, 1, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobRepository.close();
+    }
+
+    @Test
+    void shouldServeLatestExecutionFromMemory() {
+        //given
+        JobExecution jobExecution = jobRepository.captureExecution(JOB_NAME);
+
+        //when
+        jobRepository.completeExecution(jobExecution);
+        JobExecution latest = jobRepository.findLastExecution(JOB_NAME).orElseThrow();
+
+        //then
+        assertEquals(jobExecution.getExecutionId(), latest.getExecutionId());
+        assertEquals(JobState.COMPLETED, latest.getState());
+        verify(delegate).saveNewExecution(JOB_NAME);
+        verify(delegate, never()).findLastExecution(anyString());
+    }
+
+    @Test
+    void shouldWriteChangesBehindOnFlush() {
+        //given
+        jobRepository.close();
+        jobRepository = new TieredJobRepository(delegate, 10, Duration.ofMinutes(1));
+        JobExecution jobExecution = jobRepository.captureExecution(JOB_NAME);
+        jobRepository.failExecution(jobExecution);
+        verify(delegate, never()).updateExecution(any());
+
+        //when
+        jobRepository.flush();
+
+        //then
+        assertEquals(JobState.FAILED, delegate.findLastExecution(JOB_NAME).orElseThrow().getState());
+    }
+
+    @Test
+    void shouldWriteQueuedChangesBeforeLoadingEvictedExecution() {
+        //given
+        JobExecution jobExecution = jobRepository.captureExecution(JOB_NAME);
+        jobRepository.completeExecution(jobExecution);
+        // evicts the latest execution of the first job
+        jobRepository.captureExecution(OTHER_JOB_NAME);
+
+        //when
+        JobExecution latest = jobRepository.findLastExecution(JOB_NAME).orElseThrow();
+
+        //then
+        assertEquals(JobState.COMPLETED, latest.getState());
+        verify(delegate).findLastExecution(JOB_NAME);
+    }
+
+    @Test
+    void shouldRetryOnlyUnwrittenChanges() {
+        //given
+        jobRepository.close();
+        jobRepository = new TieredJobRepository(delegate, 10, Duration.ofMinutes(1));
+        JobExecution first = jobRepository.captureExecution(JOB_NAME);
+        JobExecution second = jobRepository.captureExecution(OTHER_JOB_NAME);
+        jobRepository.completeExecution(first);
+        jobRepository.completeExecution(second);
+        doCallRealMethod()
+                .doThrow(new IllegalStateException("Database is down"))
+                .doCallRealMethod()
+                .when(delegate).updateExecution(any());
+
+        //when
+        assertThrows(IllegalStateException.class, jobRepository::flush);
+        jobRepository.flush();
+
+        //then
+        verify(delegate, times(3)).updateExecution(any());
+        assertEquals(List.of(JobState.RUNNING, JobState.COMPLETED), states(delegate.fetchExecutionHistory(JOB_NAME)));
+        assertEquals(List.of(JobState.RUNNING, JobState.COMPLETED), states(delegate.fetchExecutionHistory(OTHER_JOB_NAME)));
+    }
+
+    @Test
+    void shouldRejectInvalidMaxEntries() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> new TieredJobRepository(delegate, 0, Duration.ofMinutes(1)));
+        assertEquals(String.format(TieredJobRepository.INVALID_MAX_ENTRIES_MSG, 0), exception.getMessage());
+    }
+
+    private static List<JobState> states(List<JobExecution> history) {
+        return history.stream()
+                .map(JobExecution::getState)
+                .collect(Collectors.toList());
+    }
+}
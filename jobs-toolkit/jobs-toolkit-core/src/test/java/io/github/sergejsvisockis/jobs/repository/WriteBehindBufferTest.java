@@ -0,0 +1,205 @@
+package io.github.sergejsvisockis.jobs.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.sergejsvisockis.jobs.repository.WriteBehindBuffer.BUFFER_CLOSED_MSG;
+import static io.github.sergejsvisockis.jobs.repository.WriteBehindBuffer.INVALID_BATCH_SIZE_MSG;
+import static io.github.sergejsvisockis.jobs.repository.WriteBehindBuffer.INVALID_CAPACITY_MSG;
+import static io.github.sergejsvisockis.jobs.repository.WriteBehindBuffer.MAX_WRITE_ATTEMPTS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteBehindBufferTest {
+
+    @Test
+    void shouldWriteInTheQueuedOrder() {
+        //given
+        List<Integer> written = new CopyOnWriteArrayList<>();
+        WriteBehindBuffer<Integer> buffer = new WriteBehindBuffer<>("test-writer", 2, Duration.ofHours(1),
+                written::addAll);
+
+        //when
+        buffer.add(1);
+        buffer.flush();
+        buffer.add(2);
+        buffer.add(3);
+        buffer.add(4);
+        buffer.close();
+
+        //then
+        assertEquals(List.of(1, 2, 3, 4), written);
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void shouldFlushOnceBatchSizeIsReached() throws InterruptedException {
+        //given
+        CountDownLatch written = new CountDownLatch(1);
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+
+        try (WriteBehindBuffer<Integer> buffer = new WriteBehindBuffer<>("test-writer", 3, Duration.ofHours(1),
+                batch -> {
+                    batches.add(List.copyOf(batch));
+                    written.countDown();
+                })) {
+
+            //when
+            buffer.add(1);
+            buffer.add(2);
+            buffer.add(3);
+
+            //then
+            assertTrue(written.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of(List.of(1, 2, 3)), batches);
+            assertEquals(0, buffer.size());
+        }
+    }
+
+    @Test
+    void shouldFlushOnceIntervalHasElapsed() throws InterruptedException {
+        //given
+        CountDownLatch written = new CountDownLatch(1);
+
+        try (WriteBehindBuffer<Integer> buffer = new WriteBehindBuffer<>("test-writer", 100, Duration.ofMillis(10),
+                batch -> written.countDown())) {
+
+            //when
+            buffer.add(1);
+
+            //then
+            assertTrue(written.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void shouldKeepFailedBatchQueuedInOrder() {
+        //given
+        List<Integer> written = new ArrayList<>();
+        boolean[] failing = {true};
+        WriteBehindBuffer<Integer> buffer = new WriteBehindBuffer<>("test-writer", 10, Duration.ofHours(1), batch -> {
+            if (failing[0]) {
+                throw new RuntimeException("Database is down");
+            }
+            written.addAll(batch);
+        });
+        buffer.add(1);
+        buffer.add(2);
+
+        //when
+        assertThrows(RuntimeException.class, buffer::flush);
+        buffer.add(3);
+        failing[0] = false;
+        buffer.close();
+
+        //then
+        assertEquals(List.of(1, 2, 3), written);
+    }
+
+    @Test
+    void shouldDropBatchFailingMaxAttempts() {
+        //given
+        List<Integer> written = new ArrayList<>();
+        WriteBehindBuffer<Integer> buffer = new WriteBehindBuffer<>("test-writer", 10, Duration.ofHours(1), batch -> {
+            if (batch.contains(1)) {
+                throw new RuntimeException("Value too long");
+            }
+            written.addAll(batch);
+        });
+        buffer.add(1);
+        buffer.add(2);
+
+        //when
+        for (int i = 0; i < MAX_WRITE_ATTEMPTS; i++) {
+            assertThrows(RuntimeException.class, buffer::flush);
+        }
+        buffer.add(3);
+        buffer.close();
+
+        //then
+        assertEquals(List.of(3), written);
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void shouldWaitForRoomOnceFull() throws InterruptedException {
+        //given
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> written = new CopyOnWriteArrayList<>();
+        WriteBehindBuffer<Integer> buffer = new WriteBehindBuffer<>("test-writer", 1, 2, Duration.ofHours(1),
+                batch -> {
+                    writing.countDown();
+                    awaitQuietly(release);
+                    written.addAll(batch);
+                });
+        buffer.add(1);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        buffer.add(2);
+        buffer.add(3);
+
+        //when
+        Thread adder = new Thread(() -> buffer.add(4));
+        adder.start();
+        adder.join(100);
+        boolean waited = adder.isAlive();
+        release.countDown();
+        adder.join(5000);
+        buffer.close();
+
+        //then
+        assertTrue(waited);
+        assertEquals(List.of(1, 2, 3, 4), written);
+    }
+
+    @Test
+    void shouldRejectWritesOnceClosed() {
+        //given
+        WriteBehindBuffer<Integer> buffer = new WriteBehindBuffer<>("test-writer", 10, Duration.ofHours(1), batch -> {
+        });
+        buffer.close();
+
+        //when
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> buffer.add(1));
+
+        //then
+        assertEquals(BUFFER_CLOSED_MSG, exception.getMessage());
+    }
+
+    @Test
+    void shouldRejectInvalidBatchSize() {
+        //when
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> new WriteBehindBuffer<Integer>("test-writer", 0, Duration.ofSeconds(1), batch -> {
+                }));
+
+        //then
+        assertEquals(String.format(INVALID_BATCH_SIZE_MSG, 0), exception.getMessage());
+    }
+
+    @Test
+    void shouldRejectCapacityBelowBatchSize() {
+        //when
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> new WriteBehindBuffer<Integer>("test-writer", 10, 5, Duration.ofSeconds(1), batch -> {
+                }));
+
+        //then
+        assertEquals(String.format(INVALID_CAPACITY_MSG, 10, 5), exception.getMessage());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package io.github.sergejsvisockis.jobs.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.github.sergejsvisockis.jobs.scheduler.CronExpression.INVALID_CRON_EXPRESSION_MSG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CronExpressionTest {
+
+    private static final ZoneId UTC = ZoneOffset.UTC;
+    private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+
+    @Test
+    void shouldComputeNextFireTimeOfFiveFieldExpression() {
+        //given
+        CronExpression expression = CronExpression.parse("*/15 9-17 * * MON-FRI");
+
+        //when
+        ZonedDateTime withinHours = next(expression, at(2024, 1, 5, 10, 7, 30, UTC));
+        ZonedDateTime afterHours = next(expression, at(2024, 1, 5, 17, 45, 0, UTC));
+
+        //then
+        assertEquals(at(2024, 1, 5, 10, 15, 0, UTC), withinHours);
+        // Friday evening fires on Monday morning
+        assertEquals(at(2024, 1, 8, 9, 0, 0, UTC), afterHours);
+    }
+
+    @Test
+    void shouldComputeNextFireTimeOfSixFieldExpression() {
+        //given
+        CronExpression expression = CronExpression.parse("10,40 * * * * ?");
+
+        //when
+        ZonedDateTime next = next(expression, at(2024, 1, 1, 0, 0, 40, UTC));
+
+        //then
+        assertEquals(at(2024, 1, 1, 0, 1, 10, UTC), next);
+    }
+
+    @Test
+    void shouldRollOverMonthsAndYears() {
+        //when
+        ZonedDateTime leapDay = next(CronExpression.parse("0 12 29 FEB *"), at(2024, 3, 1, 0, 0, 0, UTC));
+        ZonedDateTime lastDay = next(CronExpression.parse("@yearly"), at(2024, 6, 1, 0, 0, 0, UTC));
+
+        //then
+        assertEquals(at(2028, 2, 29, 12, 0, 0, UTC), leapDay);
+        assertEquals(at(2025, 1, 1, 0, 0, 0, UTC), lastDay);
+    }
+
+    @Test
+    void shouldFireOnEitherDayOnceBothDaysAreRestricted() {
+        //given
+        CronExpression expression = CronExpression.parse("0 0 13 * 5");
+
+        //when
+        ZonedDateTime friday = next(expression, at(2024, 9, 1, 0, 0, 0, UTC));
+        ZonedDateTime thirteenth = next(expression, at(2024, 9, 6, 0, 0, 0, UTC));
+
+        //then
+        assertEquals(at(2024, 9, 6, 0, 0, 0, UTC), friday);
+        assertEquals(at(2024, 9, 13, 0, 0, 0, UTC), thirteenth);
+    }
+
+    @Test
+    void shouldTreatSevenAsSunday() {
+        //when
+        ZonedDateTime next = next(CronExpression.parse("0 0 * * 7"), at(2024, 1, 1, 0, 0, 0, UTC));
+
+        //then
+        assertEquals(at(2024, 1, 7, 0, 0, 0, UTC), next);
+    }
+
+    @Test
+    void shouldFireOnceAtTheEndOfDaylightSavingGap() {
+        //given
+        CronExpression expression = CronExpression.parse("30 2 * * *");
+
+        //when
+        ZonedDateTime inGap = next(expression, at(2024, 3, 31, 1, 0, 0, BERLIN));
+        ZonedDateTime afterGap = next(expression, inGap);
+
+        //then
+        assertEquals(LocalDateTime.of(2024, 3, 31, 3, 0), inGap.toLocalDateTime());
+        assertEquals(at(2024, 4, 1, 2, 30, 0, BERLIN), afterGap);
+    }
+
+    @Test
+    void shouldFireOnceWithinDaylightSavingOverlap() {
+        //given
+        CronExpression expression = CronExpression.parse("30 2 * * *");
+        ZonedDateTime beforeOverlap = at(2024, 10, 27, 1, 0, 0, BERLIN);
+
+        //when
+        ZonedDateTime first = next(expression, beforeOverlap);
+        ZonedDateTime second = next(expression, first);
+
+        //then
+        assertEquals(ZoneOffset.ofHours(2), first.getOffset());
+        assertEquals(LocalDateTime.of(2024, 10, 27, 2, 30), first.toLocalDateTime());
+        assertEquals(at(2024, 10, 28, 2, 30, 0, BERLIN), second);
+    }
+
+    @Test
+    void shouldFireThroughoutDaylightSavingOverlapOnceFiringEveryHour() {
+        //given
+        CronExpression expression = CronExpression.parse("*/15 * * * *");
+        // the earlier occurrence of 02:45, at 00:45Z
+        ZonedDateTime fireTime = at(2026, 10, 25, 2, 45, 0, BERLIN);
+
+        //when
+        List<Instant> fireTimes = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            fireTime = next(expression, fireTime);
+            fireTimes.add(fireTime.toInstant());
+        }
+
+        //then
+        assertEquals(List.of(
+                Instant.parse("2026-10-25T01:00:00Z"),
+                Instant.parse("2026-10-25T01:15:00Z"),
+                Instant.parse("2026-10-25T01:30:00Z"),
+                Instant.parse("2026-10-25T01:45:00Z"),
+                Instant.parse("2026-10-25T02:00:00Z")), fireTimes);
+    }
+
+    @Test
+    void shouldReturnEmptyForImpossibleDate() {
+        //when
+        boolean empty = CronExpression.parse("0 0 30 2 *").nextFireTime(at(2024, 1, 1, 0, 0, 0, UTC)).isEmpty();
+
+        //then
+        assertTrue(empty);
+    }
+
+    @Test
+    void shouldCacheCompiledExpressions() {
+        //when
+        CronExpression first = CronExpression.parse("0 3 * * *");
+        CronExpression second = CronExpression.parse("0 3 * * *");
+
+        //then
+        assertSame(first, second);
+    }
+
+    @Test
+    void shouldRejectInvalidExpression() {
+        //when
+        IllegalArgumentException fields = assertThrows(IllegalArgumentException.class,
+                () -> CronExpression.parse("* * *"));
+        IllegalArgumentException range = assertThrows(IllegalArgumentException.class,
+                () -> CronExpression.parse("0 24 * * *"));
+
+        //then
+        assertEquals(String.format(INVALID_CRON_EXPRESSION_MSG, "* * *", "expected 5 or 6 fields, but was 3"),
+                fields.getMessage());
+        assertEquals(String.format(INVALID_CRON_EXPRESSION_MSG, "0 24 * * *", "'24' is out of the range 0-23"),
+                range.getMessage());
+    }
+
+    private static ZonedDateTime next(CronExpression expression, ZonedDateTime after) {
+        return expression.nextFireTime(after).orElseThrow();
+    }
+
+    private static ZonedDateTime at(int year, int month, int day, int hour, int minute, int second, ZoneId zone) {
+        return ZonedDateTime.of(year, month, day, hour, minute, second, 0, zone);
+    }
+}
@@ -0,0 +1,289 @@
+package io.github.sergejsvisockis.jobs.scheduler;
+
+import io.github.sergejsvisockis.jobs.AbstractJob;
+import io.github.sergejsvisockis.jobs.JobExecution;
+import io.github.sergejsvisockis.jobs.JobNotFoundException;
+import io.github.sergejsvisockis.jobs.SqlDialect;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.sergejsvisockis.jobs.scheduler.JdbcJobScheduler.INVALID_BATCH_SIZE_MSG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JdbcJobSchedulerTest {
+
+    private static final String QUERY_REGISTER_SCHEDULE = "INSERT INTO job_schedule(job_name, next_fire_time) " +
+            "SELECT j.job_name, ? FROM job_definition j WHERE j.job_name = ? " +
+            "AND NOT EXISTS (SELECT 1 FROM job_schedule s WHERE s.job_name = j.job_name)";
+    private static final String QUERY_FIND_SCHEDULE = "SELECT s.next_fire_time FROM job_schedule s WHERE s.job_name = ?";
+    private static final String QUERY_LOCK_DUE_SCHEDULES = "SELECT s.job_name, s.next_fire_time FROM job_schedule s " +
+            "WHERE s.job_name IN (?) AND s.next_fire_time <= ? ORDER BY s.next_fire_time LIMIT 2 FOR UPDATE SKIP LOCKED";
+    private static final String QUERY_ADVANCE_SCHEDULE = "UPDATE job_schedule SET next_fire_time = ? WHERE job_name = ? AND next_fire_time = ?";
+    private static final String QUERY_FIND_NEXT_FIRE_TIME = "SELECT MIN(s.next_fire_time) FROM job_schedule s WHERE s.job_name IN (?)";
+
+    private static final Duration MIN_POLL_INTERVAL = Duration.ofMillis(100);
+    private static final Duration MAX_POLL_INTERVAL = Duration.ofSeconds(5);
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connectionMock;
+
+    private JdbcJobScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new JdbcJobScheduler(dataSource, SqlDialect.POSTGRESQL, 2, MIN_POLL_INTERVAL, MAX_POLL_INTERVAL);
+    }
+
+    @Test
+    void shouldRegisterSchedule() throws SQLException {
+        //given
+        PreparedStatement pstmtMock = mock(PreparedStatement.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.prepareStatement(QUERY_REGISTER_SCHEDULE)).thenReturn(pstmtMock);
+        when(pstmtMock.executeUpdate()).thenReturn(1);
+
+        //when
+        ScheduledJob scheduledJob = scheduler.register(new CountingJob(), Triggers.fixedRate(Duration.ofMinutes(1)));
+
+        //then
+        verify(pstmtMock).setString(2, "CountingJob");
+        verify(pstmtMock).setTimestamp(1, Timestamp.from(scheduledJob.getNextFireTime().orElseThrow()));
+        verify(connectionMock, never()).prepareStatement(QUERY_FIND_SCHEDULE);
+        assertEquals(1, scheduler.getScheduledJobs().size());
+    }
+
+    @Test
+    void shouldKeepScheduleRegisteredByAnotherNode() throws SQLException {
+        //given
+        Instant nextFireTime = Instant.parse("2030-01-01T00:00:00Z");
+        PreparedStatement insertPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement findPstmtMock = mock(PreparedStatement.class);
+        ResultSet rsMock = mock(ResultSet.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.prepareStatement(QUERY_REGISTER_SCHEDULE)).thenReturn(insertPstmtMock);
+        when(insertPstmtMock.executeUpdate()).thenReturn(0);
+        when(connectionMock.prepareStatement(QUERY_FIND_SCHEDULE)).thenReturn(findPstmtMock);
+        when(findPstmtMock.executeQuery()).thenReturn(rsMock);
+        when(rsMock.next()).thenReturn(true);
+        when(rsMock.getTimestamp(1)).thenReturn(Timestamp.from(nextFireTime));
+
+        //when
+        ScheduledJob scheduledJob = scheduler.register(new CountingJob(), Triggers.fixedRate(Duration.ofMinutes(1)));
+
+        //then
+        assertEquals(Optional.of(nextFireTime), scheduledJob.getNextFireTime());
+    }
+
+    @Test
+    void shouldThrowJobNotFoundExceptionWhenJobIsNotDefined() throws SQLException {
+        //given
+        PreparedStatement insertPstmtMock = mock(PreparedStatement.class);
+        PreparedStatement findPstmtMock = mock(PreparedStatement.class);
+        ResultSet rsMock = mock(ResultSet.class);
+
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.prepareStatement(QUERY_REGISTER_SCHEDULE)).thenReturn(insertPstmtMock);
+        when(insertPstmtMock.executeUpdate()).thenReturn(0);
+        when(connectionMock.prepareStatement(QUERY_FIND_SCHEDULE)).thenReturn(findPstmtMock);
+        when(findPstmtMock.executeQuery()).thenReturn(rsMock);
+        when(rsMock.next()).thenReturn(false);
+
+        //when
+        JobNotFoundException exception = assertThrows(JobNotFoundException.class,
+                () -> scheduler.register(new CountingJob(), Triggers.fixedRate(Duration.ofMinutes(1))));
+
+        //then
+        assertTrue(exception.getMessage().contains("CountingJob"));
+        assertTrue(scheduler.getScheduledJobs().isEmpty());
+    }
+
+    @Test
+    void shouldClaimAndFireDueSchedule() throws SQLException {
+        //given
+        CountingJob job = new CountingJob();
+        registerAt(job, Instant.now().minusSeconds(1));
+        Timestamp fireTime = Timestamp.from(job.scheduledJob.getNextFireTime().orElseThrow());
+
+        PreparedStatement advancePstmtMock = mockDueSchedule(fireTime);
+        when(advancePstmtMock.executeBatch()).thenReturn(new int[]{1});
+        mockNextFireTime(Timestamp.from(Instant.now().plusSeconds(60)));
+
+        //when
+        long waitMillis = scheduler.poll();
+
+        //then
+        assertEquals(1, job.runs.get());
+        verify(advancePstmtMock).setString(2, "CountingJob");
+        verify(advancePstmtMock).setTimestamp(3, fireTime);
+        verify(connectionMock).commit();
+        assertTrue(job.scheduledJob.getNextFireTime().orElseThrow().isAfter(fireTime.toInstant()));
+        assertEquals(MAX_POLL_INTERVAL.toMillis(), waitMillis);
+    }
+
+    @Test
+    void shouldNotFireScheduleClaimedByAnotherNode() throws SQLException {
+        //given
+        CountingJob job = new CountingJob();
+        registerAt(job, Instant.now().minusSeconds(1));
+        Timestamp fireTime = Timestamp.from(job.scheduledJob.getNextFireTime().orElseThrow());
+
+        PreparedStatement advancePstmtMock = mockDueSchedule(fireTime);
+        when(advancePstmtMock.executeBatch()).thenReturn(new int[]{0});
+        mockNextFireTime(Timestamp.from(Instant.now()));
+
+        //when
+        long waitMillis = scheduler.poll();
+
+        //then
+        assertEquals(0, job.runs.get());
+        assertEquals(Optional.of(fireTime.toInstant()), job.scheduledJob.getNextFireTime());
+        assertEquals(MIN_POLL_INTERVAL.toMillis(), waitMillis);
+    }
+
+    @Test
+    void shouldPollAgainRightAwayOnceBatchIsFull() throws SQLException {
+        //given
+        CountingJob first = new CountingJob("FirstJob");
+        CountingJob second = new CountingJob("SecondJob");
+        registerAt(first, Instant.now().minusSeconds(2));
+        registerAt(second, Instant.now().minusSeconds(1));
+
+        PreparedStatement duePstmtMock = mock(PreparedStatement.class);
+        PreparedStatement advancePstmtMock = mock(PreparedStatement.class);
+        ResultSet rsMock = mock(ResultSet.class);
+
+        when(connectionMock.getAutoCommit()).thenReturn(true);
+        when(connectionMock.prepareStatement(QUERY_LOCK_DUE_SCHEDULES.replace("IN (?)", "IN (?, ?)")))
+                .thenReturn(duePstmtMock);
+        when(duePstmtMock.executeQuery()).thenReturn(rsMock);
+        when(rsMock.next()).thenReturn(true, true, false);
+        when(rsMock.getString(1)).thenReturn("FirstJob", "SecondJob");
+        when(rsMock.getTimestamp(2)).thenReturn(
+                Timestamp.from(first.scheduledJob.getNextFireTime().orElseThrow()),
+                Timestamp.from(second.scheduledJob.getNextFireTime().orElseThrow()));
+        when(connectionMock.prepareStatement(QUERY_ADVANCE_SCHEDULE)).thenReturn(advancePstmtMock);
+        when(advancePstmtMock.executeBatch()).thenReturn(new int[]{1, 1});
+
+        //when
+        long waitMillis = scheduler.poll();
+
+        //then
+        assertEquals(0, waitMillis);
+        assertEquals(1, first.runs.get());
+        assertEquals(1, second.runs.get());
+        verify(connectionMock, never()).prepareStatement(QUERY_FIND_NEXT_FIRE_TIME.replace("IN (?)", "IN (?, ?)"));
+        verify(connectionMock).setAutoCommit(true);
+    }
+
+    @Test
+    void shouldNotPollSchedulesOfJobsNotRegisteredOnThisNode() throws SQLException {
+        //when
+        long waitMillis = scheduler.poll();
+
+        //then
+        assertEquals(MAX_POLL_INTERVAL.toMillis(), waitMillis);
+        verify(dataSource, never()).getConnection();
+    }
+
+    @Test
+    void shouldRejectInvalidBatchSize() {
+        //when
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> new JdbcJobScheduler(dataSource, SqlDialect.POSTGRESQL, 0, MIN_POLL_INTERVAL, MAX_POLL_INTERVAL));
+
+        //then
+        assertEquals(String.format(INVALID_BATCH_SIZE_MSG, 0), exception.getMessage());
+    }
+
+    private void registerAt(CountingJob job, Instant firstFireTime) throws SQLException {
+        PreparedStatement pstmtMock = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.prepareStatement(QUERY_REGISTER_SCHEDULE)).thenReturn(pstmtMock);
+        when(pstmtMock.executeUpdate()).thenReturn(1);
+        job.scheduledJob = scheduler.register(job, (lastFireTime, lastCompletionTime) ->
+                Optional.of(lastFireTime == null ? firstFireTime : lastFireTime.plusSeconds(60)));
+    }
+
+    private PreparedStatement mockDueSchedule(Timestamp fireTime) throws SQLException {
+        PreparedStatement duePstmtMock = mock(PreparedStatement.class);
+        PreparedStatement advancePstmtMock = mock(PreparedStatement.class);
+        ResultSet rsMock = mock(ResultSet.class);
+
+        when(connectionMock.getAutoCommit()).thenReturn(true);
+        when(connectionMock.prepareStatement(QUERY_LOCK_DUE_SCHEDULES)).thenReturn(duePstmtMock);
+        when(duePstmtMock.executeQuery()).thenReturn(rsMock);
+        when(rsMock.next()).thenReturn(true, false);
+        when(rsMock.getString(1)).thenReturn("CountingJob");
+        when(rsMock.getTimestamp(2)).thenReturn(fireTime);
+        when(connectionMock.prepareStatement(QUERY_ADVANCE_SCHEDULE)).thenReturn(advancePstmtMock);
+        return advancePstmtMock;
+    }
+
+    private void mockNextFireTime(Timestamp nextFireTime) throws SQLException {
+        PreparedStatement pstmtMock = mock(PreparedStatement.class);
+        ResultSet rsMock = mock(ResultSet.class);
+        when(connectionMock.prepareStatement(QUERY_FIND_NEXT_FIRE_TIME)).thenReturn(pstmtMock);
+        when(pstmtMock.executeQuery()).thenReturn(rsMock);
+        when(rsMock.next()).thenReturn(true);
+        when(rsMock.getTimestamp(1)).thenReturn(nextFireTime);
+    }
+
+    private static class CountingJob extends AbstractJob {
+
+        private final String jobName;
+        private final AtomicInteger runs = new AtomicInteger();
+        private ScheduledJob scheduledJob;
+
+        private CountingJob() {
+            this("CountingJob");
+        }
+
+        private CountingJob(String jobName) {
+            this.jobName = jobName;
+        }
+
+        @Override
+        public CompletableFuture<Optional<JobExecution>> runAsync() {
+            runs.incrementAndGet();
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        @Override
+        public void execute() {
+        }
+
+        @Override
+        public String getJobName() {
+            return jobName;
+        }
+    }
+}
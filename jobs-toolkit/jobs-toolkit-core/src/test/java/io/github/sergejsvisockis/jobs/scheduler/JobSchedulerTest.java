@@ -0,0 +1,169 @@
+package io.github.sergejsvisockis.jobs.scheduler;
+
+import io.github.sergejsvisockis.jobs.AbstractJob;
+import io.github.sergejsvisockis.jobs.JobExecution;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.sergejsvisockis.jobs.scheduler.JobScheduler.SCHEDULER_CLOSED_MSG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobSchedulerTest {
+
+    @Test
+    void shouldFireJobRepeatedly() throws InterruptedException {
+        //given
+        CountingJob job = new CountingJob(3);
+
+        try (JobScheduler scheduler = new JobScheduler(Duration.ofMillis(1))) {
+
+            //when
+            ScheduledJob scheduledJob = scheduler.schedule(job, Triggers.fixedRate(Duration.ofMillis(5)));
+
+            //then
+            assertTrue(job.fired.await(5, TimeUnit.SECONDS));
+            assertEquals(1, scheduler.getScheduledJobs().size());
+            assertTrue(scheduledJob.getNextFireTime().isPresent());
+        }
+    }
+
+    @Test
+    void shouldStopFiringCancelledJob() throws InterruptedException {
+        //given
+        CountingJob job = new CountingJob(1);
+
+        try (JobScheduler scheduler = new JobScheduler(Duration.ofMillis(1))) {
+            ScheduledJob scheduledJob = scheduler.schedule(job, Triggers.fixedDelay(Duration.ofMillis(20)));
+            assertTrue(job.fired.await(5, TimeUnit.SECONDS));
+
+            //when
+            scheduledJob.cancel();
+            int runs = job.runs.get();
+            Thread.sleep(100);
+
+            //then
+            assertTrue(scheduledJob.isCancelled());
+            assertTrue(scheduler.getScheduledJobs().isEmpty());
+            assertTrue(job.runs.get() <= runs + 1);
+        }
+    }
+
+    @Test
+    void shouldKeepFiringOnceTheRunIsRejected() throws InterruptedException {
+        //given
+        CountingJob job = new CountingJob(2) {
+            @Override
+            public CompletableFuture<Optional<JobExecution>> runAsync() {
+                super.runAsync();
+                return CompletableFuture.failedFuture(new RejectedExecutionException());
+            }
+        };
+
+        try (JobScheduler scheduler = new JobScheduler(Duration.ofMillis(1))) {
+
+            //when
+            scheduler.schedule(job, Triggers.fixedDelay(Duration.ofMillis(1)));
+
+            //then
+            assertTrue(job.fired.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void shouldDropJobOnceItsTriggerHasRunOut() throws InterruptedException {
+        //given
+        CountingJob job = new CountingJob(1);
+
+        try (JobScheduler scheduler = new JobScheduler(Duration.ofMillis(1))) {
+
+            //when
+            ScheduledJob scheduledJob = scheduler.schedule(job, (lastFireTime, lastCompletionTime) ->
+                    lastFireTime == null ? Optional.of(lastCompletionTime) : Optional.empty());
+
+            //then
+            assertTrue(job.fired.await(5, TimeUnit.SECONDS));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (scheduledJob.getNextFireTime().isPresent() && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertTrue(scheduledJob.getNextFireTime().isEmpty());
+            assertTrue(scheduler.getScheduledJobs().isEmpty());
+        }
+    }
+
+    @Test
+    void shouldDropJobOnceItsTriggerFails() throws InterruptedException {
+        //given
+        CountingJob job = new CountingJob(1);
+
+        try (JobScheduler scheduler = new JobScheduler(Duration.ofMillis(1))) {
+
+            //when
+            ScheduledJob scheduledJob = scheduler.schedule(job, (lastFireTime, lastCompletionTime) -> {
+                if (lastFireTime != null) {
+                    throw new IllegalStateException("Broken trigger");
+                }
+                return Optional.of(lastCompletionTime);
+            });
+
+            //then
+            assertTrue(job.fired.await(5, TimeUnit.SECONDS));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!scheduler.getScheduledJobs().isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertTrue(scheduler.getScheduledJobs().isEmpty());
+            assertTrue(scheduledJob.getNextFireTime().isEmpty());
+            assertEquals(1, job.runs.get());
+        }
+    }
+
+    @Test
+    void shouldRejectSchedulingOnceClosed() {
+        //given
+        JobScheduler scheduler = new JobScheduler();
+        scheduler.close();
+
+        //when
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> scheduler.schedule(new CountingJob(1), Triggers.fixedRate(Duration.ofSeconds(1))));
+
+        //then
+        assertEquals(SCHEDULER_CLOSED_MSG, exception.getMessage());
+    }
+
+    private static class CountingJob extends AbstractJob {
+
+        private final CountDownLatch fired;
+        private final AtomicInteger runs = new AtomicInteger();
+
+        private CountingJob(int runs) {
+            this.fired = new CountDownLatch(runs);
+        }
+
+        @Override
+        public CompletableFuture<Optional<JobExecution>> runAsync() {
+            runs.incrementAndGet();
+            fired.countDown();
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        @Override
+        public void execute() {
+        }
+
+        @Override
+        public String getJobName() {
+            return "CountingJob";
+        }
+    }
+}
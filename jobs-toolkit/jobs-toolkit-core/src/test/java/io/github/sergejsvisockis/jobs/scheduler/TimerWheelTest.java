@@ -0,0 +1,85 @@
+package io.github.sergejsvisockis.jobs.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TimerWheelTest {
+
+    @Test
+    void shouldExpireTimeoutsOnTheirDeadlinesAcrossLevels() {
+        //given
+        TimerWheel<Long> wheel = new TimerWheel<>(0);
+        long[] deadlines = {1, 63, 64, 65, 4095, 4096, 4097, 262_144, 300_000, 16_777_300};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+        List<Long> expired = new ArrayList<>();
+
+        //when
+        for (long tick = 1; tick <= 16_777_300; tick++) {
+            long currentTick = tick;
+            wheel.advance(tick, deadline -> {
+                assertEquals(deadline, currentTick);
+                expired.add(deadline);
+            });
+        }
+
+        //then
+        assertEquals(deadlines.length, expired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void shouldExpireTimeoutsWhenAdvancingOverManyTicksAtOnce() {
+        //given
+        TimerWheel<Long> wheel = new TimerWheel<>(1_000);
+        wheel.schedule(1_500, 1_500L);
+        wheel.schedule(70_000, 70_000L);
+        List<Long> expired = new ArrayList<>();
+
+        //when
+        wheel.advance(69_999, expired::add);
+        int sizeBefore = wheel.size();
+        wheel.advance(70_000, expired::add);
+
+        //then
+        assertEquals(1, sizeBefore);
+        assertEquals(List.of(1_500L, 70_000L), expired);
+    }
+
+    @Test
+    void shouldExpirePastDeadlineOnTheNextTick() {
+        //given
+        TimerWheel<String> wheel = new TimerWheel<>(100);
+        wheel.schedule(10, "late");
+        List<String> expired = new ArrayList<>();
+
+        //when
+        wheel.advance(101, expired::add);
+
+        //then
+        assertEquals(List.of("late"), expired);
+    }
+
+    @Test
+    void shouldNotExpireCancelledTimeout() {
+        //given
+        TimerWheel<String> wheel = new TimerWheel<>(0);
+        TimerWheel.Timeout<String> cancelled = wheel.schedule(5_000, "cancelled");
+        wheel.schedule(5_000, "kept");
+        List<String> expired = new ArrayList<>();
+
+        //when
+        wheel.cancel(cancelled);
+        wheel.cancel(cancelled);
+        wheel.advance(10_000, expired::add);
+
+        //then
+        assertEquals(List.of("kept"), expired);
+        assertEquals(0, wheel.size());
+    }
+}
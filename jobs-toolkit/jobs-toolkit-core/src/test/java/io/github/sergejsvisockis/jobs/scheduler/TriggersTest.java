@@ -0,0 +1,70 @@
+package io.github.sergejsvisockis.jobs.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static io.github.sergejsvisockis.jobs.scheduler.Triggers.INVALID_PERIOD_MSG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TriggersTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-02T03:04:05Z");
+
+    @Test
+    void shouldFireAtFixedRateSkippingMissedFireTimes() {
+        //given
+        Trigger trigger = Triggers.fixedRate(Duration.ofSeconds(10), Duration.ofSeconds(1));
+
+        //when
+        Instant first = trigger.nextFireTime(null, NOW).orElseThrow();
+        Instant second = trigger.nextFireTime(first, first.plusSeconds(2)).orElseThrow();
+        Instant afterLongRun = trigger.nextFireTime(second, second.plusSeconds(25)).orElseThrow();
+
+        //then
+        assertEquals(NOW.plusSeconds(1), first);
+        assertEquals(first.plusSeconds(10), second);
+        assertEquals(second.plusSeconds(30), afterLongRun);
+    }
+
+    @Test
+    void shouldFireWithFixedDelayAfterCompletion() {
+        //given
+        Trigger trigger = Triggers.fixedDelay(Duration.ofSeconds(10));
+
+        //when
+        Instant first = trigger.nextFireTime(null, NOW).orElseThrow();
+        Instant second = trigger.nextFireTime(first, first.plusSeconds(3)).orElseThrow();
+
+        //then
+        assertEquals(NOW, first);
+        assertEquals(first.plusSeconds(13), second);
+    }
+
+    @Test
+    void shouldFireByCronExpressionInTimeZone() {
+        //given
+        Trigger trigger = Triggers.cron("0 9 * * *", ZoneId.of("America/New_York"));
+
+        //when
+        Instant first = trigger.nextFireTime(null, NOW).orElseThrow();
+        Instant second = trigger.nextFireTime(first, first.plusSeconds(5)).orElseThrow();
+
+        //then
+        assertEquals(Instant.parse("2024-01-02T14:00:00Z"), first);
+        assertEquals(Instant.parse("2024-01-03T14:00:00Z"), second);
+    }
+
+    @Test
+    void shouldRejectNonPositivePeriod() {
+        //when
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> Triggers.fixedRate(Duration.ZERO));
+
+        //then
+        assertEquals(String.format(INVALID_PERIOD_MSG, Duration.ZERO), exception.getMessage());
+    }
+}